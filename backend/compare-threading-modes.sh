@@ -0,0 +1,78 @@
+#!/bin/sh
+# Runs LoadTestHarness against the backend once with platform request threads and once with
+# virtual threads (SPENDING_VIRTUAL_THREADS), and prints throughput and p99 latency side by side.
+# Virtual threads need Java 21+. PostgreSQL must be running with the datasource settings the
+# backend reads (SPRING_DATASOURCE_*), already holding the data to query (see DatabaseSeeder), and
+# the jar built, e.g.:
+#
+#   mvn -q package -DskipTests
+#   ./compare-threading-modes.sh
+#   CLIENTS=500 DURATION=120 ./compare-threading-modes.sh
+#
+# The default mix has no imports, so both runs query the same data. Each run's full table is kept
+# as CSV under $RESULTS, next to the server's log.
+set -eu
+
+CLIENTS=${CLIENTS:-500}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-15}
+MIX=${MIX:-dashboard=60,transactions=40}
+PORT=${PORT:-18080}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-120}
+RESULTS=${RESULTS:-load-test-results}
+
+java_major=$(java -XshowSettings:properties -version 2>&1 \
+  | awk -F' = ' '/java.specification.version/ { print $2 }')
+if [ "${java_major%%.*}" -lt 21 ]; then
+  echo "virtual threads need Java 21 or later, found $java_major" >&2
+  exit 1
+fi
+
+jar=$(ls target/*.jar | grep -v plain | head -n 1)
+mkdir -p "$RESULTS"
+server=
+trap 'if [ -n "$server" ]; then kill "$server" 2>/dev/null || true; fi' EXIT
+
+mvn -q test-compile
+
+for mode in platform virtual; do
+  if [ "$mode" = virtual ]; then virtual=true; else virtual=false; fi
+  SPENDING_VIRTUAL_THREADS=$virtual java -jar "$jar" --server.port="$PORT" \
+    >"$RESULTS/$mode-server.log" 2>&1 &
+  server=$!
+  waited=0
+  until curl -sf -o /dev/null "http://localhost:$PORT/api/transactions?size=1"; do
+    if ! kill -0 "$server" 2>/dev/null; then
+      echo "the $mode server exited, see $RESULTS/$mode-server.log" >&2
+      exit 1
+    fi
+    if [ "$waited" -ge "$STARTUP_TIMEOUT" ]; then
+      echo "the $mode server did not answer within $STARTUP_TIMEOUT s" >&2
+      exit 1
+    fi
+    sleep 1
+    waited=$((waited + 1))
+  done
+  echo "== $mode threads, $CLIENTS clients"
+  mvn -q exec:java -Dexec.classpathScope=test \
+    -Dexec.mainClass=com.spendinganalytics.tools.LoadTestHarness \
+    -Dexec.args="--base-url=http://localhost:$PORT/api --threads=$CLIENTS --duration=$DURATION \
+--warmup=$WARMUP --mix=$MIX --report=$RESULTS/$mode.csv"
+  kill "$server"
+  wait "$server" 2>/dev/null || true
+  server=
+done
+
+echo
+awk -F, '
+  FNR == 1 { next }
+  FILENAME ~ /platform/ { rps[$1] = $4; p99[$1] = $7; order[++n] = $1; next }
+  { vrps[$1] = $4; vp99[$1] = $7 }
+  END {
+    printf "%-13s %14s %14s %14s %14s\n", "request", "platform req/s", "virtual req/s",
+      "platform p99", "virtual p99"
+    for (i = 1; i <= n; i++) {
+      r = order[i]
+      printf "%-13s %14s %14s %14s %14s\n", r, rps[r], vrps[r], p99[r] " ms", vp99[r] " ms"
+    }
+  }' "$RESULTS/platform.csv" "$RESULTS/virtual.csv"
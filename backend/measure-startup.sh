@@ -0,0 +1,55 @@
+#!/bin/sh
+# Measures time-to-first-request of a backend image: from starting the container until
+# GET /api/transactions answers, over several runs. The postgres service of docker-compose must
+# be running, and the images built, e.g.:
+#
+#   podman build -t spending-analytics-backend .
+#   podman build -f Dockerfile.fast-startup -t spending-analytics-backend-fast .
+#   ./measure-startup.sh spending-analytics-backend 10
+#   ./measure-startup.sh spending-analytics-backend-fast 10
+#
+# A run fails, printing the container's last log lines, if the container exits or does not answer
+# within TIMEOUT_SECONDS.
+set -eu
+
+IMAGE=$1
+RUNS=${2:-5}
+CLI=${CONTAINER_CLI:-podman}
+NETWORK=${NETWORK:-spending-analytics_spending-network}
+ENV_FILE=${ENV_FILE:-../.env}
+PORT=${PORT:-18080}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+NAME=startup-benchmark
+
+now_ms() {
+  python3 -c 'import time; print(int(time.time() * 1000))'
+}
+
+results=$(mktemp)
+trap '$CLI rm -f $NAME >/dev/null 2>&1 || true; rm -f "$results"' EXIT
+
+for run in $(seq "$RUNS"); do
+  start=$(now_ms)
+  $CLI run -d --name $NAME --network "$NETWORK" --env-file "$ENV_FILE" -p "$PORT:8080" "$IMAGE" \
+    >/dev/null
+  deadline=$((start + TIMEOUT_SECONDS * 1000))
+  until curl -sf -o /dev/null "http://localhost:$PORT/api/transactions?size=1"; do
+    if [ "$($CLI inspect -f '{{.State.Running}}' $NAME 2>/dev/null)" != "true" ]; then
+      echo "run $run: container exited before answering" >&2
+      $CLI logs --tail 20 $NAME >&2 || true
+      exit 1
+    fi
+    if [ "$(now_ms)" -ge "$deadline" ]; then
+      echo "run $run: no answer within ${TIMEOUT_SECONDS}s" >&2
+      $CLI logs --tail 20 $NAME >&2 || true
+      exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(($(now_ms) - start))
+  $CLI rm -f $NAME >/dev/null
+  echo "run $run: $elapsed ms"
+  echo "$elapsed" >> "$results"
+done
+
+sort -n "$results" | awk '{ t[NR] = $1 } END { print "median: " t[int((NR + 1) / 2)] " ms" }'
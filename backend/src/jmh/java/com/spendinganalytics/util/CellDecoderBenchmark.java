@@ -0,0 +1,111 @@
+package com.spendinganalytics.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link CellDecoder} against the general parsing it short-cuts, over a batch of typical statement
+ * cells. Run with {@code mvn -Pbenchmarks test-compile exec:exec -Dbenchmarks=CellDecoder}, and
+ * add {@code -prof gc} to the benchmark arguments to see the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CellDecoderBenchmark {
+
+  private static final int CELLS = 1_000;
+  private static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+  private String[] amounts;
+  private String[] days;
+  private double[] serials;
+
+  @Setup
+  public void createCells() {
+    Random random = new Random(42);
+    amounts = new String[CELLS];
+    days = new String[CELLS];
+    serials = new double[CELLS];
+    for (int i = 0; i < CELLS; i++) {
+      long cents = (long) Math.exp(random.nextDouble() * 14);
+      // "-1.234,56"
+      amounts[i] =
+          String.format(Locale.ROOT, "-%,d", cents / 100).replace(',', '.')
+              + String.format(Locale.ROOT, ",%02d", cents % 100);
+      days[i] = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(2_000)).format(DAY_MONTH_YEAR);
+      serials[i] = 43_831 + random.nextInt(2_000) + random.nextDouble();
+    }
+  }
+
+  @Benchmark
+  public void amountsDecoded(Blackhole blackhole) {
+    for (String amount : amounts) {
+      blackhole.consume(CellDecoder.parseTurkishAmountCents(amount));
+    }
+  }
+
+  @Benchmark
+  public void amountsAsBigDecimal(Blackhole blackhole) {
+    for (String amount : amounts) {
+      blackhole.consume(
+          new BigDecimal(amount.replace(".", "").replace(",", "."))
+              .setScale(2, RoundingMode.HALF_UP));
+    }
+  }
+
+  @Benchmark
+  public void daysDecoded(Blackhole blackhole) {
+    for (String day : days) {
+      blackhole.consume(CellDecoder.parseDayMonthYear(day));
+    }
+  }
+
+  @Benchmark
+  public void daysSplit(Blackhole blackhole) {
+    for (String day : days) {
+      String[] parts = day.split("/");
+      blackhole.consume(
+          LocalDate.of(
+              Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0])));
+    }
+  }
+
+  @Benchmark
+  public void serialsDecoded(Blackhole blackhole) {
+    for (double serial : serials) {
+      blackhole.consume(CellDecoder.excelSerialToLocalDate(serial, false));
+    }
+  }
+
+  @Benchmark
+  public void serialsThroughJavaDate(Blackhole blackhole) {
+    for (double serial : serials) {
+      blackhole.consume(
+          DateUtil.getJavaDate(serial, false)
+              .toInstant()
+              .atZone(ZoneId.systemDefault())
+              .toLocalDate());
+    }
+  }
+}
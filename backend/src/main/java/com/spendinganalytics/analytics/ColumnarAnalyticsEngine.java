@@ -0,0 +1,272 @@
+package com.spendinganalytics.analytics;
+
+import com.spendinganalytics.config.ReplicaLagMonitor;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional in-memory copy of the transactions as {@link ColumnarTransactions}, one per tenant,
+ * enabled with {@code spending.analytics.in-memory.enabled}. Meant for deployments serving a few
+ * households, whose whole history fits comfortably in memory.
+ *
+ * <p>The columns are loaded when the application is ready, from the snapshot file if it still
+ * matches the database and from PostgreSQL otherwise. Imports reload only the months they touched
+ * of the importing tenant and merge them into its columns; deletes reload that tenant's rows.
+ * Every change rewrites the snapshot file, on a background thread so imports do not wait for it;
+ * changes that arrive while a write is running are saved together by the next one. Until the
+ * columns are loaded, {@link #columns(String)} is {@code null} and callers query the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ColumnarAnalyticsEngine {
+
+  private static final Logger logger = LoggerFactory.getLogger(ColumnarAnalyticsEngine.class);
+
+  private static final String SELECT_ROWS =
+      "SELECT tenant_id, id, transaction_date, amount, merchant FROM transactions";
+
+  private static final int SNAPSHOT_FILE_MAGIC = 0x53504e54; // "SPNT"
+
+  private static final long SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${spending.analytics.in-memory.enabled:false}")
+  private boolean enabled;
+
+  @Value("${spending.analytics.snapshot-file:}")
+  private String snapshotFile;
+
+  // Replaced as a whole on every change, so readers never see a half-updated map
+  private volatile Map<String, ColumnarTransactions> columnsByTenant;
+
+  // The newest columns not yet written to the snapshot file, if a write is queued
+  private final AtomicReference<Map<String, ColumnarTransactions>> unsavedColumns =
+      new AtomicReference<>();
+
+  private final ExecutorService snapshotExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "analytics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    // Let a queued write finish, so the next start can use the snapshot
+    snapshotExecutor.shutdown();
+    snapshotExecutor.awaitTermination(SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * The loaded columns of the tenant (empty if it has no transactions), or {@code null} if the
+   * engine is disabled or still loading.
+   */
+  public ColumnarTransactions columns(String tenantId) {
+    Map<String, ColumnarTransactions> loaded = columnsByTenant;
+    if (loaded == null) return null;
+    return loaded.getOrDefault(tenantId, ColumnarTransactions.empty());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    if (!enabled) return;
+
+    long started = System.nanoTime();
+    Map<String, ColumnarTransactions> loaded = readSnapshot();
+    String source = "snapshot";
+    if (loaded == null) {
+      loaded = loadAll();
+      source = "database";
+      saveSnapshot(loaded);
+    }
+    columnsByTenant = loaded;
+    logger.info(
+        "Loaded {} transactions of {} tenants into the analytics engine from {} in {} ms",
+        totalRows(loaded),
+        loaded.size(),
+        source,
+        (System.nanoTime() - started) / 1_000_000);
+  }
+
+  // After the replica monitor has sent reads back to the primary, before dashboard stream
+  // subscribers are updated from the columns
+  @Order(ReplicaLagMonitor.LISTENER_ORDER + 1)
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onTransactionsChanged(TransactionsChangedEvent event) {
+    if (!enabled || columnsByTenant == null) return;
+
+    String tenantId = event.tenantId();
+    ColumnarTransactions refreshed;
+    if (event.affectsAllMonths()) {
+      refreshed = loadTenant(tenantId);
+    } else {
+      Set<YearMonth> months = new TreeSet<>(event.affectedMonths());
+      refreshed = columns(tenantId).replaceMonths(months, loadMonths(tenantId, months));
+    }
+
+    Map<String, ColumnarTransactions> updated = new HashMap<>(columnsByTenant);
+    if (refreshed.size() == 0) {
+      updated.remove(tenantId);
+    } else {
+      updated.put(tenantId, refreshed);
+    }
+    columnsByTenant = Map.copyOf(updated);
+    saveSnapshot(columnsByTenant);
+    logger.debug(
+        "Analytics engine refreshed tenant {} after {}: {} rows",
+        tenantId,
+        event.reason(),
+        refreshed.size());
+  }
+
+  private ColumnarTransactions loadMonths(String tenantId, Set<YearMonth> months) {
+    Map<String, ColumnarTransactions.Builder> builders = new HashMap<>();
+    for (YearMonth month : months) {
+      // A single-month range lets PostgreSQL read just that partition
+      addRows(
+          builders,
+          SELECT_ROWS + " WHERE tenant_id = ? AND transaction_date BETWEEN ? AND ?",
+          tenantId,
+          month.atDay(1),
+          month.atEndOfMonth());
+    }
+    return build(builders).getOrDefault(tenantId, ColumnarTransactions.empty());
+  }
+
+  private ColumnarTransactions loadTenant(String tenantId) {
+    Map<String, ColumnarTransactions.Builder> builders = new HashMap<>();
+    addRows(
+        builders, SELECT_ROWS + " WHERE tenant_id = ? ORDER BY transaction_date", tenantId);
+    return build(builders).getOrDefault(tenantId, ColumnarTransactions.empty());
+  }
+
+  private Map<String, ColumnarTransactions> loadAll() {
+    Map<String, ColumnarTransactions.Builder> builders = new HashMap<>();
+    addRows(builders, SELECT_ROWS + " ORDER BY tenant_id, transaction_date");
+    return build(builders);
+  }
+
+  private void addRows(
+      Map<String, ColumnarTransactions.Builder> builders, String sql, Object... args) {
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          builders
+              .computeIfAbsent(
+                  rs.getString("tenant_id"), tenant -> new ColumnarTransactions.Builder())
+              .add(
+                  (int) rs.getObject("transaction_date", LocalDate.class).toEpochDay(),
+                  rs.getBigDecimal("amount").movePointRight(2).longValueExact(),
+                  rs.getString("merchant"),
+                  rs.getLong("id"));
+        },
+        args);
+  }
+
+  private Map<String, ColumnarTransactions> build(
+      Map<String, ColumnarTransactions.Builder> builders) {
+    Map<String, ColumnarTransactions> built = new HashMap<>();
+    builders.forEach((tenantId, builder) -> built.put(tenantId, builder.build()));
+    return Map.copyOf(built);
+  }
+
+  private long totalRows(Map<String, ColumnarTransactions> byTenant) {
+    return byTenant.values().stream().mapToLong(ColumnarTransactions::size).sum();
+  }
+
+  /** The snapshot, if there is one and the table has neither gained nor lost rows since. */
+  private Map<String, ColumnarTransactions> readSnapshot() {
+    if (snapshotFile.isBlank()) return null;
+    Path path = Path.of(snapshotFile);
+    if (!Files.isRegularFile(path)) return null;
+
+    Map<String, ColumnarTransactions> snapshot = new HashMap<>();
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != SNAPSHOT_FILE_MAGIC) {
+        throw new IOException("Not a multi-tenant analytics snapshot");
+      }
+      int tenants = in.readInt();
+      for (int i = 0; i < tenants; i++) {
+        String tenantId = in.readUTF();
+        snapshot.put(tenantId, ColumnarTransactions.readFrom(in));
+      }
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable analytics snapshot {}: {}", path, e.getMessage());
+      return null;
+    }
+
+    // New rows always raise the max id and deletes lower the count, so both matching means the
+    // snapshot holds exactly the current rows
+    Map<String, Object> current =
+        jdbcTemplate.queryForMap(
+            "SELECT count(*) AS row_count, coalesce(max(id), 0) AS max_id FROM transactions");
+    long rowCount = ((Number) current.get("row_count")).longValue();
+    long maxId = ((Number) current.get("max_id")).longValue();
+    long snapshotMaxId =
+        snapshot.values().stream().mapToLong(ColumnarTransactions::maxId).max().orElse(0);
+    if (rowCount != totalRows(snapshot) || maxId != snapshotMaxId) {
+      logger.info("Analytics snapshot {} is out of date, reloading from the database", path);
+      return null;
+    }
+    return Map.copyOf(snapshot);
+  }
+
+  /** Writes the columns to the snapshot file in the background, unless newer ones replace them. */
+  private void saveSnapshot(Map<String, ColumnarTransactions> columns) {
+    if (snapshotFile.isBlank()) return;
+    if (unsavedColumns.getAndSet(columns) == null) {
+      snapshotExecutor.execute(() -> writeSnapshot(unsavedColumns.getAndSet(null)));
+    }
+  }
+
+  private void writeSnapshot(Map<String, ColumnarTransactions> snapshot) {
+    Path path = Path.of(snapshotFile).toAbsolutePath();
+    try {
+      Files.createDirectories(path.getParent());
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(SNAPSHOT_FILE_MAGIC);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, ColumnarTransactions> tenant : snapshot.entrySet()) {
+          out.writeUTF(tenant.getKey());
+          tenant.getValue().writeTo(out);
+        }
+      }
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Could not write analytics snapshot {}: {}", path, e.getMessage());
+    }
+  }
+}
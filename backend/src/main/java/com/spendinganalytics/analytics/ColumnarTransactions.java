@@ -0,0 +1,315 @@
+package com.spendinganalytics.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable, column-oriented copy of the transactions table: one primitive array per column, rows
+ * sorted by date. Prefix sums over the spending rows let a date range be summed with two binary
+ * searches, independent of how many rows it covers.
+ *
+ * <p>Amounts are signed cents as stored; spending rows are the negative ones, and the spending
+ * sums are positive, like {@code StatisticsService} reports them. Merchants are dictionary
+ * encoded.
+ */
+public final class ColumnarTransactions {
+
+  private static final int SNAPSHOT_MAGIC = 0x53504e44; // "SPND"
+  private static final int SNAPSHOT_VERSION = 1;
+
+  private final int[] epochDays;
+  private final long[] amountCents;
+  private final int[] merchantIds;
+  private final String[] merchants;
+  private final long maxId;
+
+  // spendingPrefix[i] is the spending in rows [0, i); spendingDayPrefix counts the days that start
+  // spending in those rows
+  private final long[] spendingPrefix;
+  private final int[] spendingDayPrefix;
+
+  private final long totalAbsoluteCents;
+  private final int activeDays;
+
+  private ColumnarTransactions(
+      int[] epochDays, long[] amountCents, int[] merchantIds, String[] merchants, long maxId) {
+    this.epochDays = epochDays;
+    this.amountCents = amountCents;
+    this.merchantIds = merchantIds;
+    this.merchants = merchants;
+    this.maxId = maxId;
+
+    int rows = epochDays.length;
+    spendingPrefix = new long[rows + 1];
+    spendingDayPrefix = new int[rows + 1];
+    long absolute = 0;
+    int days = 0;
+    int lastSpendingDay = Integer.MIN_VALUE;
+    for (int i = 0; i < rows; i++) {
+      long amount = amountCents[i];
+      boolean spending = amount < 0;
+      boolean newSpendingDay = spending && epochDays[i] != lastSpendingDay;
+      spendingPrefix[i + 1] = spendingPrefix[i] + (spending ? -amount : 0);
+      spendingDayPrefix[i + 1] = spendingDayPrefix[i] + (newSpendingDay ? 1 : 0);
+      if (spending) lastSpendingDay = epochDays[i];
+
+      absolute += Math.abs(amount);
+      if (i == 0 || epochDays[i] != epochDays[i - 1]) days++;
+    }
+    totalAbsoluteCents = absolute;
+    activeDays = days;
+  }
+
+  public static ColumnarTransactions empty() {
+    return new Builder().build();
+  }
+
+  public int size() {
+    return epochDays.length;
+  }
+
+  /** Highest transaction id contained, used to tell whether a snapshot is still current. */
+  public long maxId() {
+    return maxId;
+  }
+
+  public int merchantCount() {
+    return merchants.length;
+  }
+
+  /** Spending between the dates (inclusive) in cents. */
+  public long spendingCentsBetween(LocalDate from, LocalDate to) {
+    int lo = firstRowOnOrAfter((int) from.toEpochDay());
+    int hi = firstRowOnOrAfter((int) to.toEpochDay() + 1);
+    return lo < hi ? spendingPrefix[hi] - spendingPrefix[lo] : 0;
+  }
+
+  /** Number of days between the dates (inclusive) with any spending. */
+  public int spendingDaysBetween(LocalDate from, LocalDate to) {
+    int lo = firstRowOnOrAfter((int) from.toEpochDay());
+    int hi = firstRowOnOrAfter((int) to.toEpochDay() + 1);
+    return lo < hi ? spendingDayPrefix[hi] - spendingDayPrefix[lo] : 0;
+  }
+
+  /** Spending of every day between the dates (inclusive) that has any, as positive amounts. */
+  public NavigableMap<LocalDate, BigDecimal> dailySpendingBetween(LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, BigDecimal> daily = new TreeMap<>();
+    int row = firstRowOnOrAfter((int) from.toEpochDay());
+    int end = firstRowOnOrAfter((int) to.toEpochDay() + 1);
+    while (row < end) {
+      int day = epochDays[row];
+      int dayEnd = firstRowOnOrAfter(day + 1);
+      long cents = spendingPrefix[dayEnd] - spendingPrefix[row];
+      if (spendingDayPrefix[dayEnd] > spendingDayPrefix[row]) {
+        daily.put(LocalDate.ofEpochDay(day), BigDecimal.valueOf(cents, 2));
+      }
+      row = dayEnd;
+    }
+    return daily;
+  }
+
+  /** Sum of the absolute amounts of all rows, spending and income, in cents. */
+  public long totalAbsoluteCents() {
+    return totalAbsoluteCents;
+  }
+
+  /** Number of distinct days with any transaction. */
+  public int activeDays() {
+    return activeDays;
+  }
+
+  /**
+   * A copy in which the rows of the given months are replaced by those of {@code replacement},
+   * which is expected to hold exactly those months; its rows outside them are ignored. The sorted
+   * arrays are merged run by run, so the rows of the other months are copied in bulk rather than
+   * sorted again. Merchants only the replaced rows used stay in the dictionary.
+   */
+  public ColumnarTransactions replaceMonths(
+      Set<YearMonth> months, ColumnarTransactions replacement) {
+    NavigableSet<YearMonth> sortedMonths = new TreeSet<>(months);
+    int[] removedFrom = new int[sortedMonths.size()];
+    int[] removedTo = new int[sortedMonths.size()];
+    int[] addedFrom = new int[sortedMonths.size()];
+    int[] addedTo = new int[sortedMonths.size()];
+    int rows = size();
+    int m = 0;
+    for (YearMonth month : sortedMonths) {
+      int first = (int) month.atDay(1).toEpochDay();
+      int next = (int) month.plusMonths(1).atDay(1).toEpochDay();
+      removedFrom[m] = firstRowOnOrAfter(first);
+      removedTo[m] = firstRowOnOrAfter(next);
+      addedFrom[m] = replacement.firstRowOnOrAfter(first);
+      addedTo[m] = replacement.firstRowOnOrAfter(next);
+      rows += (addedTo[m] - addedFrom[m]) - (removedTo[m] - removedFrom[m]);
+      m++;
+    }
+
+    // The replacement's merchants, numbered after the ones already known
+    Map<String, Integer> dictionary = new HashMap<>(merchants.length * 2);
+    for (int id = 0; id < merchants.length; id++) {
+      dictionary.put(merchants[id], id);
+    }
+    String[] mergedMerchants =
+        Arrays.copyOf(merchants, merchants.length + replacement.merchants.length);
+    int merchantCount = merchants.length;
+    int[] merchantIdOf = new int[replacement.merchants.length];
+    for (int id = 0; id < replacement.merchants.length; id++) {
+      String merchant = replacement.merchants[id];
+      Integer known = dictionary.get(merchant);
+      if (known == null) {
+        known = merchantCount++;
+        mergedMerchants[known] = merchant;
+        dictionary.put(merchant, known);
+      }
+      merchantIdOf[id] = known;
+    }
+    mergedMerchants = Arrays.copyOf(mergedMerchants, merchantCount);
+
+    int[] mergedDays = new int[rows];
+    long[] mergedAmounts = new long[rows];
+    int[] mergedMerchantIds = new int[rows];
+    int kept = 0;
+    int out = 0;
+    for (m = 0; m < removedFrom.length; m++) {
+      int run = removedFrom[m] - kept;
+      System.arraycopy(epochDays, kept, mergedDays, out, run);
+      System.arraycopy(amountCents, kept, mergedAmounts, out, run);
+      System.arraycopy(merchantIds, kept, mergedMerchantIds, out, run);
+      out += run;
+      kept = removedTo[m];
+
+      run = addedTo[m] - addedFrom[m];
+      System.arraycopy(replacement.epochDays, addedFrom[m], mergedDays, out, run);
+      System.arraycopy(replacement.amountCents, addedFrom[m], mergedAmounts, out, run);
+      for (int i = addedFrom[m]; i < addedTo[m]; i++) {
+        mergedMerchantIds[out++] = merchantIdOf[replacement.merchantIds[i]];
+      }
+    }
+    int run = size() - kept;
+    System.arraycopy(epochDays, kept, mergedDays, out, run);
+    System.arraycopy(amountCents, kept, mergedAmounts, out, run);
+    System.arraycopy(merchantIds, kept, mergedMerchantIds, out, run);
+
+    return new ColumnarTransactions(
+        mergedDays,
+        mergedAmounts,
+        mergedMerchantIds,
+        mergedMerchants,
+        Math.max(maxId, replacement.maxId));
+  }
+
+  public void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(SNAPSHOT_MAGIC);
+    out.writeInt(SNAPSHOT_VERSION);
+    out.writeLong(maxId);
+    out.writeInt(merchants.length);
+    for (String merchant : merchants) {
+      out.writeUTF(merchant);
+    }
+    out.writeInt(size());
+    for (int i = 0; i < size(); i++) {
+      out.writeInt(epochDays[i]);
+      out.writeLong(amountCents[i]);
+      out.writeInt(merchantIds[i]);
+    }
+  }
+
+  public static ColumnarTransactions readFrom(DataInputStream in) throws IOException {
+    if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+      throw new IOException("Not an analytics snapshot of a supported version");
+    }
+    long maxId = in.readLong();
+    String[] merchants = new String[in.readInt()];
+    for (int i = 0; i < merchants.length; i++) {
+      merchants[i] = in.readUTF();
+    }
+    int rows = in.readInt();
+    int[] epochDays = new int[rows];
+    long[] amountCents = new long[rows];
+    int[] merchantIds = new int[rows];
+    for (int i = 0; i < rows; i++) {
+      epochDays[i] = in.readInt();
+      amountCents[i] = in.readLong();
+      merchantIds[i] = in.readInt();
+      if (i > 0 && epochDays[i] < epochDays[i - 1]) {
+        throw new IOException("Analytics snapshot rows are not sorted by date");
+      }
+    }
+    return new ColumnarTransactions(epochDays, amountCents, merchantIds, merchants, maxId);
+  }
+
+  private int firstRowOnOrAfter(int epochDay) {
+    int lo = 0;
+    int hi = epochDays.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (epochDays[mid] < epochDay) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Collects rows in any order; {@link #build} sorts them by date. */
+  public static final class Builder {
+    private int[] epochDays = new int[1024];
+    private long[] amountCents = new long[1024];
+    private int[] merchantIds = new int[1024];
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int size;
+    private long maxId;
+
+    public Builder add(int epochDay, long amountCents, String merchant, long id) {
+      if (size == epochDays.length) {
+        int capacity = size * 2;
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        this.amountCents = Arrays.copyOf(this.amountCents, capacity);
+        merchantIds = Arrays.copyOf(merchantIds, capacity);
+      }
+      epochDays[size] = epochDay;
+      this.amountCents[size] = amountCents;
+      merchantIds[size] = dictionary.computeIfAbsent(merchant, m -> dictionary.size());
+      size++;
+      maxId = Math.max(maxId, id);
+      return this;
+    }
+
+    public ColumnarTransactions build() {
+      // Sort row indexes by date, keeping insertion order within a day
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = ((long) epochDays[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+
+      int[] sortedDays = new int[size];
+      long[] sortedAmounts = new long[size];
+      int[] sortedMerchants = new int[size];
+      for (int i = 0; i < size; i++) {
+        int row = (int) keys[i];
+        sortedDays[i] = epochDays[row];
+        sortedAmounts[i] = amountCents[row];
+        sortedMerchants[i] = merchantIds[row];
+      }
+
+      String[] merchants = new String[dictionary.size()];
+      dictionary.forEach((merchant, id) -> merchants[id] = merchant);
+      return new ColumnarTransactions(
+          sortedDays, sortedAmounts, sortedMerchants, merchants, maxId);
+    }
+  }
+}
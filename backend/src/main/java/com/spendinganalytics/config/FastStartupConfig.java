@@ -0,0 +1,35 @@
+package com.spendinganalytics.config;
+
+import com.spendinganalytics.controller.ImportController;
+import com.spendinganalytics.parser.StatementParser;
+import com.spendinganalytics.parser.StatementParserRegistry;
+import com.spendinganalytics.service.TransactionImportService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Settings of the {@code fast-startup} profile that cannot be expressed as properties. The profile
+ * turns on lazy initialization, which is narrowed here to the import pipeline: the upload
+ * endpoints, the import service and the statement parsers, which pull in Apache POI and are not
+ * needed until the first upload. All other beans stay eager, so the scheduled jobs and the startup
+ * checks run as they do without the profile.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+  @Bean
+  static LazyInitializationExcludeFilter eagerOutsideImportPipeline() {
+    return (beanName, definition, beanType) -> !isImportPipeline(beanType);
+  }
+
+  private static boolean isImportPipeline(Class<?> beanType) {
+    return beanType != null
+        && (ImportController.class.isAssignableFrom(beanType)
+            || TransactionImportService.class.isAssignableFrom(beanType)
+            || StatementParserRegistry.class.isAssignableFrom(beanType)
+            || StatementParser.class.isAssignableFrom(beanType));
+  }
+}
@@ -0,0 +1,60 @@
+package com.spendinganalytics.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/** Reports indexes that the query hot paths rely on but are missing from the database. */
+@Component
+@RequiredArgsConstructor
+public class IndexStartupCheck {
+
+  private static final Logger logger = LoggerFactory.getLogger(IndexStartupCheck.class);
+
+  static final List<String> EXPECTED_INDEXES =
+      List.of(
+          "pk_transactions",
+          "uk_transactions_tenant_dedup_hash",
+          "idx_transactions_tenant_spending_date",
+          "idx_transactions_tenant_merchant_date",
+          "idx_transactions_tenant_date",
+          "idx_transactions_tenant_merchant_trgm");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void checkIndexes() {
+    Set<String> existing;
+    try {
+      existing =
+          new HashSet<>(
+              jdbcTemplate.queryForList(
+                  "SELECT indexname FROM pg_indexes WHERE tablename = 'transactions'",
+                  String.class));
+    } catch (Exception e) {
+      logger.warn("Could not check transaction indexes: {}", e.getMessage());
+      return;
+    }
+
+    List<String> missing = new ArrayList<>();
+    for (String index : EXPECTED_INDEXES) {
+      if (!existing.contains(index)) {
+        missing.add(index);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      logger.info("All {} expected transaction indexes are present", EXPECTED_INDEXES.size());
+    } else {
+      logger.warn("Missing transaction indexes: {}", missing);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.spendinganalytics.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Splits database traffic between the primary and a streaming read replica when {@code
+ * spending.datasource.replica.enabled} is set. Transactions marked {@code readOnly} (the dashboard
+ * and transaction listing) read from the replica; imports, deletes, snapshot writes and Flyway use
+ * the primary. Without the property the auto-configured single datasource is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spending.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+  @Bean
+  @FlywayDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("spending.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      @Value("${spending.datasource.replica.url}") String url,
+      @Value("${spending.datasource.replica.username}") String username,
+      @Value("${spending.datasource.replica.password}") String password) {
+    HikariDataSource dataSource =
+        DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName("org.postgresql.Driver")
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      @Value("${spending.datasource.replica.max-lag:5s}") Duration maxLag) {
+    return new ReplicaLagMonitor(primary, replica, maxLag);
+  }
+
+  /** The datasource everything else (JPA, JdbcTemplate) is built on. */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      ReplicaLagMonitor lagMonitor) {
+    return new LazyConnectionDataSourceProxy(
+        new ReadWriteRoutingDataSource(primary, replica, lagMonitor));
+  }
+}
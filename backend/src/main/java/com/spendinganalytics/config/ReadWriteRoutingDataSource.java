@@ -0,0 +1,37 @@
+package com.spendinganalytics.config;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to the replica while {@link ReplicaLagMonitor}
+ * considers it current, and everything else to the primary. The lookup happens when a connection
+ * is first used, so this must sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; otherwise the transaction
+ * manager fetches the connection before the read-only flag of the transaction is visible.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private final ReplicaLagMonitor lagMonitor;
+
+  ReadWriteRoutingDataSource(
+      DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+    this.lagMonitor = lagMonitor;
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    return readOnly && lagMonitor.isReplicaUsable() ? Target.REPLICA : Target.PRIMARY;
+  }
+}
@@ -0,0 +1,147 @@
+package com.spendinganalytics.config;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Decides whether read-only transactions may use the replica. The replica is used while it
+ * answers, lags by at most {@code spending.datasource.replica.max-lag}, and has replayed the last
+ * import or delete made through this instance. The last condition keeps dashboards from showing
+ * data older than the change that caused them to be reloaded: after a change, reads go to the
+ * primary until the replica has caught up with the primary's WAL position at that moment.
+ *
+ * <p>Until the first successful check after startup, every read goes to the primary. Checks and
+ * changes are serialized, so a check that started before a change cannot publish its result after
+ * the change marked the replica stale.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  /** Order of the change listener; listeners that reload data use a later order. */
+  public static final int LISTENER_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+  // The lag is zero when everything received has been replayed, even if nothing was written for
+  // a while; otherwise it is the age of the last replayed transaction. Null on a primary.
+  private static final String REPLICA_STATE_SQL =
+      "SELECT pg_is_in_recovery() AS standby, "
+          + "pg_last_wal_replay_lsn()::text AS replayed, "
+          + "CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+          + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END AS lag_seconds";
+
+  private final JdbcTemplate primaryJdbc;
+  private final JdbcTemplate replicaJdbc;
+  private final Duration maxLag;
+
+  // WAL position the replica must have replayed before reads return to it
+  private final AtomicLong requiredLsn = new AtomicLong();
+
+  private volatile boolean replicaUsable;
+  private volatile double lagSeconds = Double.NaN;
+
+  public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+    this.primaryJdbc = new JdbcTemplate(primary);
+    this.replicaJdbc = new JdbcTemplate(replica);
+    this.replicaJdbc.setQueryTimeout(5);
+    this.maxLag = maxLag;
+  }
+
+  public boolean isReplicaUsable() {
+    return replicaUsable;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${spending.datasource.replica.lag-check-ms:1000}",
+      initialDelayString = "${spending.datasource.replica.lag-check-ms:1000}")
+  public synchronized void check() {
+    boolean usable;
+    try {
+      Map<String, Object> state = replicaJdbc.queryForMap(REPLICA_STATE_SQL);
+      if (!Boolean.TRUE.equals(state.get("standby"))) {
+        // Pointed at a primary (e.g. the same server in development): always current
+        lagSeconds = 0;
+        usable = true;
+      } else {
+        Number lag = (Number) state.get("lag_seconds");
+        lagSeconds = lag != null ? lag.doubleValue() : Double.NaN;
+        long replayed = parseLsn((String) state.get("replayed"));
+        usable =
+            lag != null
+                && lagSeconds * 1000 <= maxLag.toMillis()
+                && replayed >= requiredLsn.get();
+      }
+    } catch (RuntimeException e) {
+      lagSeconds = Double.NaN;
+      usable = false;
+      if (replicaUsable) {
+        logger.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+      }
+    }
+
+    if (usable != replicaUsable) {
+      if (usable) {
+        logger.info("Read replica current (lag {}s), routing read-only queries to it", lagSeconds);
+      } else if (!Double.isNaN(lagSeconds)) {
+        logger.info("Read replica behind (lag {}s), reading from the primary", lagSeconds);
+      }
+      replicaUsable = usable;
+    }
+  }
+
+  /**
+   * Holds reads on the primary until the replica has replayed the change. Runs strictly before the
+   * listeners that reload data after the change, which are ordered after {@link #LISTENER_ORDER}.
+   */
+  @Order(LISTENER_ORDER)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    long changeLsn = 0;
+    try {
+      String current =
+          primaryJdbc.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+      changeLsn = parseLsn(current);
+    } catch (RuntimeException e) {
+      logger.warn("Could not read the primary WAL position: {}", e.getMessage());
+    }
+    synchronized (this) {
+      requiredLsn.accumulateAndGet(changeLsn, Math::max);
+      replicaUsable = false;
+      check();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("spending.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+        .baseUnit("seconds")
+        .description("Replay lag of the read replica")
+        .register(registry);
+    Gauge.builder("spending.datasource.replica.active", this, m -> m.replicaUsable ? 1 : 0)
+        .description("1 while read-only queries are routed to the replica")
+        .register(registry);
+  }
+
+  /** Converts a PostgreSQL LSN ("16/B374D848") to a comparable number; null counts as zero. */
+  private static long parseLsn(String lsn) {
+    if (lsn == null) return 0;
+    int slash = lsn.indexOf('/');
+    return (Long.parseLong(lsn.substring(0, slash), 16) << 32)
+        | Long.parseLong(lsn.substring(slash + 1), 16);
+  }
+}
@@ -0,0 +1,27 @@
+package com.spendinganalytics.config;
+
+import java.util.regex.Pattern;
+
+/**
+ * How requests name their tenant (household). Requests without the header belong to the {@link
+ * #DEFAULT_TENANT}, which also owns the data stored before tenants were introduced.
+ */
+public final class Tenancy {
+
+  public static final String TENANT_HEADER = "X-Tenant-Id";
+
+  public static final String DEFAULT_TENANT = "default";
+
+  /** Length of the {@code tenant_id} columns. */
+  public static final int MAX_TENANT_ID_LENGTH = 64;
+
+  // Safe to store, log and put inside a quoted ETag as is
+  private static final Pattern TENANT_ID =
+      Pattern.compile("[A-Za-z0-9._-]{1," + MAX_TENANT_ID_LENGTH + "}");
+
+  private Tenancy() {}
+
+  public static boolean isValidTenantId(String tenantId) {
+    return tenantId != null && TENANT_ID.matcher(tenantId).matches();
+  }
+}
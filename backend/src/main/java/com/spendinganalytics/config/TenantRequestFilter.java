@@ -0,0 +1,69 @@
+package com.spendinganalytics.config;
+
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Checks the tenant named by an API request before any controller sees it, and keeps tenant
+ * responses out of shared caches.
+ *
+ * <p>A tenant id (the {@value Tenancy#TENANT_HEADER} header, or the {@code tenantId} parameter
+ * the dashboard stream accepts) that is too long for the database or has characters outside
+ * {@code [A-Za-z0-9._-]} is answered with 400. Every API response varies by the tenant header and
+ * is {@code private, no-cache}: the same URL returns a different household's data depending on the
+ * header, so only the browser may keep a copy, and only to revalidate it with its ETag.
+ *
+ * <p>This only checks that the tenant id is well formed. Nothing ties it to the caller: any client
+ * may name any tenant, so tenants separate households' data but do not isolate them from each
+ * other (see the README).
+ */
+@Component
+public class TenantRequestFilter extends OncePerRequestFilter {
+
+  static final String TENANT_PARAMETER = "tenantId";
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    // Only the stream (a GET) takes the parameter; reading parameters of a POST would parse an
+    // upload here
+    String tenantParameter =
+        "GET".equals(request.getMethod()) ? request.getParameter(TENANT_PARAMETER) : null;
+    if (!isValidIfPresent(request.getHeader(TENANT_HEADER)) || !isValidIfPresent(tenantParameter)) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+      response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+      response
+          .getWriter()
+          .write(
+              "Tenant ids are 1 to "
+                  + Tenancy.MAX_TENANT_ID_LENGTH
+                  + " letters, digits, '.', '_' or '-'");
+      return;
+    }
+
+    response.addHeader(HttpHeaders.VARY, TENANT_HEADER);
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    chain.doFilter(request, response);
+  }
+
+  private static boolean isValidIfPresent(String tenantId) {
+    return tenantId == null || Tenancy.isValidTenantId(tenantId);
+  }
+}
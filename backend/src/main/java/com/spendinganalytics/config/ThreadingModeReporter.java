@@ -0,0 +1,51 @@
+package com.spendinganalytics.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which request threading mode is in effect. Spring Boot only honours {@code
+ * spring.threads.virtual.enabled} on Java 21+, so on older runtimes requests keep running on the
+ * bounded Tomcat platform-thread pool.
+ */
+@Component
+public class ThreadingModeReporter {
+
+  private static final Logger logger = LoggerFactory.getLogger(ThreadingModeReporter.class);
+
+  private static final int VIRTUAL_THREADS_MIN_JAVA = 21;
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreadsRequested;
+
+  @Value("${server.tomcat.threads.max:200}")
+  private int maxPlatformThreads;
+
+  @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+  private int maxPoolSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void reportThreadingMode() {
+    int javaVersion = Runtime.version().feature();
+    if (virtualThreadsRequested && javaVersion >= VIRTUAL_THREADS_MIN_JAVA) {
+      logger.info(
+          "Handling requests on virtual threads (Java {}), database pool size {}",
+          javaVersion,
+          maxPoolSize);
+    } else {
+      if (virtualThreadsRequested) {
+        logger.warn(
+            "Virtual threads requested but running on Java {}; falling back to platform threads",
+            javaVersion);
+      }
+      logger.info(
+          "Handling requests on up to {} platform threads, database pool size {}",
+          maxPlatformThreads,
+          maxPoolSize);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.spendinganalytics.controller;
+
+import static com.spendinganalytics.config.Tenancy.DEFAULT_TENANT;
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+
+import com.spendinganalytics.dto.SpendingAnomalyDto;
+import com.spendinganalytics.service.AnomalyDetectionService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/anomalies")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class AnomalyController {
+
+  private static final int MAX_LIMIT = 500;
+
+  private final AnomalyDetectionService anomalyDetectionService;
+
+  /** Transactions flagged as unusually large when they were imported, newest first. */
+  @GetMapping
+  public ResponseEntity<List<SpendingAnomalyDto>> getRecentAnomalies(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam(defaultValue = "50") int limit) {
+    int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+    return ResponseEntity.ok(anomalyDetectionService.getRecentAnomalies(tenantId, boundedLimit));
+  }
+}
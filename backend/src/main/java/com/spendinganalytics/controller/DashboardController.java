@@ -1,11 +1,30 @@
 package com.spendinganalytics.controller;
 
+import static com.spendinganalytics.config.Tenancy.DEFAULT_TENANT;
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+
+import com.spendinganalytics.dto.CalendarHeatmapDto;
+import com.spendinganalytics.dto.CompactDashboardResponseDto;
+import com.spendinganalytics.dto.DashboardRequestDto;
 import com.spendinganalytics.dto.DashboardResponseDto;
+import com.spendinganalytics.dto.SpendingForecastDto;
+import com.spendinganalytics.enums.DashboardFormat;
 import com.spendinganalytics.enums.DashboardPeriod;
 import com.spendinganalytics.service.DashboardService;
+import com.spendinganalytics.service.DashboardStreamService;
+import com.spendinganalytics.service.DataVersionService;
+import com.spendinganalytics.service.ForecastService;
+import com.spendinganalytics.service.SpendingMatrixService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -13,13 +32,133 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class DashboardController {
 
+  // Each batch entry widens the shared date range, so keep batches to a screenful of periods
+  private static final int MAX_BATCH_SIZE = 24;
+
+  private static final int MAX_MATRIX_YEARS = 50;
+
   private final DashboardService dashboardService;
+  private final DashboardStreamService dashboardStreamService;
+  private final DataVersionService dataVersionService;
+  private final ForecastService forecastService;
+  private final SpendingMatrixService spendingMatrixService;
 
   @GetMapping
-  public ResponseEntity<DashboardResponseDto> getDashboard(
+  public ResponseEntity<?> getDashboard(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
       @RequestParam(defaultValue = "THIS_MONTH") DashboardPeriod period,
       @RequestParam(required = false) Integer month,
+      @RequestParam(required = false) Integer year,
+      @RequestParam(defaultValue = "FULL") DashboardFormat format,
+      WebRequest request) {
+    String etag = dataVersionService.etag(tenantId, period, month, year, format);
+    long lastModified = dataVersionService.lastModifiedMillis(tenantId);
+    if (request.checkNotModified(etag, lastModified)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .lastModified(lastModified)
+          .build();
+    }
+
+    DashboardResponseDto dashboard = dashboardService.getDashboard(tenantId, period, month, year);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).lastModified(lastModified);
+    if (format == DashboardFormat.COMPACT) {
+      return response.body(dashboardService.toCompact(dashboard, period));
+    }
+    return response.body(dashboard);
+  }
+
+  /**
+   * Several dashboards in one call, computed from a single read of the data they share. The
+   * response lists them in request order.
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<?> getDashboards(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestBody List<DashboardRequestDto> requests,
+      @RequestParam(defaultValue = "FULL") DashboardFormat format) {
+    if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+      return ResponseEntity.badRequest()
+          .body("Between 1 and " + MAX_BATCH_SIZE + " dashboards can be requested at once");
+    }
+
+    List<DashboardResponseDto> dashboards = dashboardService.getDashboards(tenantId, requests);
+    if (format == DashboardFormat.COMPACT) {
+      List<CompactDashboardResponseDto> compact = new ArrayList<>(dashboards.size());
+      for (int i = 0; i < dashboards.size(); i++) {
+        DashboardPeriod period = requests.get(i).period();
+        compact.add(
+            dashboardService.toCompact(
+                dashboards.get(i), period != null ? period : DashboardPeriod.THIS_MONTH));
+      }
+      return ResponseEntity.ok(compact);
+    }
+    return ResponseEntity.ok(dashboards);
+  }
+
+  /**
+   * Spending forecast of the current month and the {@code months} months after it (1 to 12). The
+   * model is fit after each import, so this is served from memory.
+   */
+  @GetMapping("/forecast")
+  public ResponseEntity<SpendingForecastDto> getForecast(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam(defaultValue = "6") int months) {
+    int boundedMonths = Math.max(1, Math.min(months, ForecastService.MAX_MONTHS));
+    return ResponseEntity.ok(forecastService.getForecast(tenantId, boundedMonths));
+  }
+
+  /**
+   * Spending by year and month for year-over-year comparison, from one grouped query whatever
+   * the number of years. Defaults to the last five years.
+   */
+  @GetMapping("/matrix/year-month")
+  public ResponseEntity<?> getYearMonthMatrix(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam(required = false) Integer fromYear,
+      @RequestParam(required = false) Integer toYear) {
+    int lastYear = toYear != null ? toYear : LocalDate.now().getYear();
+    int firstYear = fromYear != null ? fromYear : lastYear - 4;
+    if (firstYear > lastYear || lastYear - firstYear >= MAX_MATRIX_YEARS) {
+      return ResponseEntity.badRequest()
+          .body("fromYear must not be after toYear, and at most " + MAX_MATRIX_YEARS + " years");
+    }
+    return ResponseEntity.ok(spendingMatrixService.yearMonthMatrix(tenantId, firstYear, lastYear));
+  }
+
+  /** Daily spending of a year as weeks x weekdays, for a calendar heatmap. */
+  @GetMapping("/matrix/calendar")
+  public ResponseEntity<CalendarHeatmapDto> getCalendarHeatmap(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
       @RequestParam(required = false) Integer year) {
-    return ResponseEntity.ok(dashboardService.getDashboard(period, month, year));
+    int selectedYear = year != null && year > 0 ? year : LocalDate.now().getYear();
+    return ResponseEntity.ok(spendingMatrixService.calendarHeatmap(tenantId, selectedYear));
+  }
+
+  /**
+   * Server-Sent Events stream of the given dashboards: a full update of each on connect, then
+   * only what changed after every import or delete. Browsers' EventSource cannot send headers,
+   * so the tenant may also be given as the {@code tenantId} parameter.
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamDashboards(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantHeader,
+      @RequestParam(name = "tenantId", required = false) String tenantParam,
+      @RequestParam(defaultValue = "THIS_MONTH") List<DashboardPeriod> periods,
+      @RequestParam(required = false) Integer month,
+      @RequestParam(required = false) Integer year) {
+    String tenantId = tenantParam != null && !tenantParam.isBlank() ? tenantParam : tenantHeader;
+    List<DashboardRequestDto> requests =
+        periods.stream().distinct().map(period -> streamRequest(period, month, year)).toList();
+    return dashboardStreamService.subscribe(tenantId, requests);
+  }
+
+  /** Drops parameters the period ignores, so subscribers of the same dashboard share it. */
+  private DashboardRequestDto streamRequest(DashboardPeriod period, Integer month, Integer year) {
+    return switch (period) {
+      case THIS_MONTH -> new DashboardRequestDto(period, null, null);
+      case MONTH -> new DashboardRequestDto(period, month, year);
+      case YTD, YEAR -> new DashboardRequestDto(period, null, year);
+    };
   }
 }
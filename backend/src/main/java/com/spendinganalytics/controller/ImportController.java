@@ -1,10 +1,19 @@
 package com.spendinganalytics.controller;
 
+import static com.spendinganalytics.config.Tenancy.DEFAULT_TENANT;
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+
 import com.spendinganalytics.dto.DeleteAllDataResultDTO;
+import com.spendinganalytics.dto.ImportHistoryDto;
+import com.spendinganalytics.dto.PurgeDataResultDto;
 import com.spendinganalytics.dto.TransactionImportResult;
 import com.spendinganalytics.service.DataService;
 import com.spendinganalytics.service.TransactionImportService;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,19 +28,46 @@ public class ImportController {
   private final DataService dataService;
 
   @PostMapping
-  public ResponseEntity<?> importTransactions(@RequestParam("files") MultipartFile[] files) {
+  public ResponseEntity<?> importTransactions(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam("files") MultipartFile[] files,
+      @RequestParam(name = "charset", required = false) String charset) {
     try {
-      TransactionImportResult result = transactionImportService.importTransactions(files);
+      // CSV and QIF exports carry no charset of their own; older Turkish banks use windows-1254
+      Charset textCharset = charset != null ? Charset.forName(charset) : null;
+      TransactionImportResult result =
+          transactionImportService.importTransactions(tenantId, files, textCharset);
       return ResponseEntity.ok(result);
     } catch (Exception e) {
       return ResponseEntity.badRequest().body("Error importing files: " + e.getMessage());
     }
   }
 
+  @GetMapping("/history")
+  public ResponseEntity<Page<ImportHistoryDto>> getImportHistory(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "20") int size) {
+    return ResponseEntity.ok(transactionImportService.getImportHistory(tenantId, page, size));
+  }
+
   @DeleteMapping("/delete-all")
-  public ResponseEntity<DeleteAllDataResultDTO> deleteAllData() {
+  public ResponseEntity<DeleteAllDataResultDTO> deleteAllData(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId) {
+    try {
+      DeleteAllDataResultDTO result = dataService.deleteAllData(tenantId);
+      return ResponseEntity.ok(result);
+    } catch (Exception e) {
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  @DeleteMapping("/purge")
+  public ResponseEntity<PurgeDataResultDto> purgeBefore(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
     try {
-      DeleteAllDataResultDTO result = dataService.deleteAllData();
+      PurgeDataResultDto result = dataService.purgeBefore(tenantId, before);
       return ResponseEntity.ok(result);
     } catch (Exception e) {
       return ResponseEntity.internalServerError().build();
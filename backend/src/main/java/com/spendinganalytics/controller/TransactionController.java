@@ -1,5 +1,8 @@
 package com.spendinganalytics.controller;
 
+import static com.spendinganalytics.config.Tenancy.DEFAULT_TENANT;
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+
 import com.spendinganalytics.dto.TransactionDto;
 import com.spendinganalytics.service.TransactionService;
 import java.math.BigDecimal;
@@ -21,6 +24,7 @@ public class TransactionController {
 
   @GetMapping
   public ResponseEntity<Page<TransactionDto>> getTransactions(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
           LocalDate startDate,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
@@ -32,13 +36,14 @@ public class TransactionController {
       @RequestParam(defaultValue = "50") int size) {
     Page<TransactionDto> transactions =
         transactionService.getTransactions(
-            startDate, endDate, minAmount, maxAmount, merchant, page, size);
+            tenantId, startDate, endDate, minAmount, maxAmount, merchant, page, size);
     return ResponseEntity.ok(transactions);
   }
 
   @GetMapping("/merchants")
-  public ResponseEntity<List<String>> getMerchants() {
-    List<String> merchants = transactionService.getDistinctMerchants();
+  public ResponseEntity<List<String>> getMerchants(
+      @RequestHeader(name = TENANT_HEADER, defaultValue = DEFAULT_TENANT) String tenantId) {
+    List<String> merchants = transactionService.getDistinctMerchants(tenantId);
     return ResponseEntity.ok(merchants);
   }
 }
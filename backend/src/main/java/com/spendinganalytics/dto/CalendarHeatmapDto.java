@@ -0,0 +1,11 @@
+package com.spendinganalytics.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Daily spending laid out as a calendar: {@code totalsCents[w][d]} is the spending in cents of
+ * weekday {@code d} (Monday is 0) in the week starting {@code w} weeks after {@code
+ * firstWeekStart}. Days before {@code start} or after {@code end} are zero.
+ */
+public record CalendarHeatmapDto(
+    LocalDate start, LocalDate end, LocalDate firstWeekStart, long[][] totalsCents) {}
@@ -0,0 +1,21 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * {@link DashboardResponseDto} with the chart data points as a dense series: one amount per {@code
+ * step} starting at {@code seriesStart}, in cents.
+ */
+public record CompactDashboardResponseDto(
+    BigDecimal totalSpent,
+    BigDecimal previousPeriodSpent,
+    BigDecimal changePercent,
+    BigDecimal avgPerDay,
+    BigDecimal projectedMonthEnd,
+    BigDecimal projectedMonthEndComparedPercent,
+    BigDecimal overallAvgPerDay,
+    BigDecimal avgMonthlySpend,
+    SpendingDistributionDto distribution,
+    String seriesStart,
+    String step,
+    long[] amountsCents) {}
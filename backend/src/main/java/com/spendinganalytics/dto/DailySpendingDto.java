@@ -0,0 +1,7 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Spending of one day; {@code total} is the (negative) sum of the day's spending amounts. */
+public record DailySpendingDto(LocalDate day, BigDecimal total, Long transactionCount) {}
@@ -0,0 +1,6 @@
+package com.spendinganalytics.dto;
+
+import com.spendinganalytics.enums.DashboardPeriod;
+
+/** One dashboard of a batch request; the fields mean the same as the GET query parameters. */
+public record DashboardRequestDto(DashboardPeriod period, Integer month, Integer year) {}
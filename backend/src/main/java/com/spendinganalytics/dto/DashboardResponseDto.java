@@ -12,4 +12,5 @@ public record DashboardResponseDto(
     BigDecimal projectedMonthEndComparedPercent,
     BigDecimal overallAvgPerDay,
     BigDecimal avgMonthlySpend,
+    SpendingDistributionDto distribution,
     Map<String, BigDecimal> dataPoints) {}
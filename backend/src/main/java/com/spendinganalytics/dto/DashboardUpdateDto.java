@@ -0,0 +1,42 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Dashboard change pushed to stream subscribers. A {@code full} update carries every data point
+ * and replaces what the client holds; otherwise {@code dataPoints} holds only the entries that
+ * changed and should be merged in. The totals are always current.
+ */
+public record DashboardUpdateDto(
+    DashboardRequestDto request,
+    boolean full,
+    BigDecimal totalSpent,
+    BigDecimal previousPeriodSpent,
+    BigDecimal changePercent,
+    BigDecimal avgPerDay,
+    BigDecimal projectedMonthEnd,
+    BigDecimal projectedMonthEndComparedPercent,
+    BigDecimal overallAvgPerDay,
+    BigDecimal avgMonthlySpend,
+    Map<String, BigDecimal> dataPoints) {
+
+  public static DashboardUpdateDto of(
+      DashboardRequestDto request,
+      boolean full,
+      DashboardResponseDto dashboard,
+      Map<String, BigDecimal> dataPoints) {
+    return new DashboardUpdateDto(
+        request,
+        full,
+        dashboard.totalSpent(),
+        dashboard.previousPeriodSpent(),
+        dashboard.changePercent(),
+        dashboard.avgPerDay(),
+        dashboard.projectedMonthEnd(),
+        dashboard.projectedMonthEndComparedPercent(),
+        dashboard.overallAvgPerDay(),
+        dashboard.avgMonthlySpend(),
+        dataPoints);
+  }
+}
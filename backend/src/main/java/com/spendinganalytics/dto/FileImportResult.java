@@ -1,6 +1,16 @@
 package com.spendinganalytics.dto;
 
 import java.util.List;
+import java.util.Map;
 
+/**
+ * @param rowsPerSheet rows parsed from each sheet of a workbook, in sheet order; empty for text
+ *     formats and for files answered from the import ledger
+ */
 public record FileImportResult(
-    String fileName, int rowsParsed, int inserted, int skippedDuplicates, List<String> errors) {}
+    String fileName,
+    int rowsParsed,
+    int inserted,
+    int skippedDuplicates,
+    List<String> errors,
+    Map<String, Integer> rowsPerSheet) {}
@@ -0,0 +1,18 @@
+package com.spendinganalytics.dto;
+
+import com.spendinganalytics.enums.ImportStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record ImportHistoryDto(
+    Long id,
+    String fileName,
+    String fileType,
+    String contentHash,
+    ImportStatus status,
+    LocalDate dateFrom,
+    LocalDate dateTo,
+    int rowsParsed,
+    int inserted,
+    int skippedDuplicates,
+    LocalDateTime importedAt) {}
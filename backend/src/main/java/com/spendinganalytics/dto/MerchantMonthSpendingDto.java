@@ -0,0 +1,7 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/** Spending at one merchant in one month; {@code total} is the (negative) sum of the amounts. */
+public record MerchantMonthSpendingDto(
+    String merchant, Integer year, Integer month, BigDecimal total, Long transactionCount) {}
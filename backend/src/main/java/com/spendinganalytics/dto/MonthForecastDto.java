@@ -0,0 +1,16 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projected spending of one future month ({@code yyyy-MM}): the recurring charges plus the usual
+ * other spending scaled by the month's seasonal index. {@code lower} and {@code upper} bound an
+ * 80% interval from how far past months strayed from the model.
+ */
+public record MonthForecastDto(
+    String month,
+    BigDecimal projected,
+    BigDecimal lower,
+    BigDecimal upper,
+    BigDecimal recurring,
+    BigDecimal seasonalIndex) {}
@@ -0,0 +1,6 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/** Spending of one calendar month; {@code total} is the (negative) sum of its spending amounts. */
+public record MonthlySpendingDto(Integer year, Integer month, BigDecimal total) {}
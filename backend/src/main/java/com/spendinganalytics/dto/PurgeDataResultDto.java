@@ -0,0 +1,5 @@
+package com.spendinganalytics.dto;
+
+import java.time.LocalDate;
+
+public record PurgeDataResultDto(LocalDate before, long transactionsDeleted, int partitionsEmptied) {}
@@ -0,0 +1,6 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/** A merchant charging about the same amount nearly every month, such as a subscription. */
+public record RecurringChargeDto(String merchant, BigDecimal monthlyAmount, int monthsSeen) {}
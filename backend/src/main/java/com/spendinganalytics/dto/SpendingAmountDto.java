@@ -0,0 +1,7 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Date and (negative) amount of one spending transaction. */
+public record SpendingAmountDto(LocalDate day, BigDecimal amount) {}
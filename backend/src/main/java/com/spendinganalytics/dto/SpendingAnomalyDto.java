@@ -0,0 +1,21 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * @param dimension MERCHANT or WEEKDAY: whose usual spending the transaction stood out from
+ * @param typicalAmount geometric mean of that baseline's spending amounts
+ * @param zScore standard deviations above the baseline, on the log scale of amounts
+ */
+public record SpendingAnomalyDto(
+    Long id,
+    LocalDate transactionDate,
+    String merchant,
+    BigDecimal amount,
+    String dimension,
+    String dimensionKey,
+    BigDecimal typicalAmount,
+    double zScore,
+    LocalDateTime detectedAt) {}
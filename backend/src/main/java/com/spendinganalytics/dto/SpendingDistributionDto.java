@@ -0,0 +1,14 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * How spending of a period is spread: percentiles of its single spending amounts, and the median
+ * of its daily totals over the days with any spending. Unlike the averages, none of them moves
+ * much because of one large purchase.
+ */
+public record SpendingDistributionDto(
+    BigDecimal medianTransaction,
+    BigDecimal p90Transaction,
+    BigDecimal p99Transaction,
+    BigDecimal medianDailySpend) {}
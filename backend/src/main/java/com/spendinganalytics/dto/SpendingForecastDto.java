@@ -0,0 +1,13 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Forecast as of {@code asOf}: the current month's projection and the months after it. */
+public record SpendingForecastDto(
+    LocalDate asOf,
+    ProjectedMonthEndDto currentMonth,
+    BigDecimal recurringMonthly,
+    List<RecurringChargeDto> recurringCharges,
+    List<MonthForecastDto> months) {}
@@ -0,0 +1,6 @@
+package com.spendinganalytics.dto;
+
+import java.math.BigDecimal;
+
+/** Sum of absolute amounts and number of distinct transaction days over all transactions. */
+public record SpendingSummaryDto(BigDecimal totalAbsolute, Long activeDays) {}
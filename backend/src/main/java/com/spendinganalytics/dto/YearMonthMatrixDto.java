@@ -0,0 +1,7 @@
+package com.spendinganalytics.dto;
+
+/**
+ * Spending of consecutive years by calendar month, for year-over-year comparison: {@code
+ * totalsCents[y][m]} is month {@code m + 1} of year {@code firstYear + y}, in cents.
+ */
+public record YearMonthMatrixDto(int firstYear, int lastYear, long[][] totalsCents) {}
@@ -0,0 +1,61 @@
+package com.spendinganalytics.entity;
+
+import com.spendinganalytics.enums.ImportStatus;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "import_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportLedgerEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false, length = 64)
+  private String tenantId;
+
+  // SHA-256 of the uploaded file bytes, unique per tenant
+  @Column(name = "content_hash", nullable = false, length = 64)
+  private String contentHash;
+
+  @Column(name = "file_name")
+  private String fileName;
+
+  @Column(name = "file_type", length = 32)
+  private String fileType; // debit or credit, null until detected
+
+  // Range of transaction dates found in the file
+  @Column(name = "date_from")
+  private LocalDate dateFrom;
+
+  @Column(name = "date_to")
+  private LocalDate dateTo;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private ImportStatus status = ImportStatus.IN_PROGRESS;
+
+  // Rows of the file whose chunk has been committed; an interrupted import resumes after them
+  @Column(name = "rows_committed", nullable = false)
+  private Integer rowsCommitted = 0;
+
+  @Column(name = "rows_parsed", nullable = false)
+  private Integer rowsParsed = 0;
+
+  @Column(nullable = false)
+  private Integer inserted = 0;
+
+  @Column(name = "skipped_duplicates", nullable = false)
+  private Integer skippedDuplicates = 0;
+
+  @Column(name = "imported_at", nullable = false)
+  private LocalDateTime importedAt = LocalDateTime.now();
+}
@@ -0,0 +1,85 @@
+package com.spendinganalytics.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Spending snapshot of one closed month. Snapshots are only ever inserted (a rebuilt month is
+ * deleted first), so they are {@link Persistable} to make {@code save} insert without a lookup.
+ */
+@Entity
+@Table(name = "monthly_statistics")
+@IdClass(MonthlyStatistics.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStatistics implements Persistable<MonthlyStatistics.Key> {
+
+  @Id
+  @Column(name = "tenant_id", length = 64)
+  private String tenantId;
+
+  // First day of the month
+  @Id private LocalDate month;
+
+  @Column(name = "total_spent", nullable = false, precision = 15, scale = 2)
+  private BigDecimal totalSpent;
+
+  @Column(name = "transaction_count", nullable = false)
+  private Integer transactionCount;
+
+  // dailyCumulative[d - 1] is the spending from day 1 through day d
+  @JdbcTypeCode(SqlTypes.ARRAY)
+  @Column(name = "daily_cumulative", nullable = false)
+  private BigDecimal[] dailyCumulative;
+
+  // QuantileSketch of the month's spending amounts, and one of its daily spending totals
+  @Column(name = "amount_sketch", nullable = false)
+  private byte[] amountSketch;
+
+  @Column(name = "daily_sketch", nullable = false)
+  private byte[] dailySketch;
+
+  @Column(name = "computed_at", nullable = false)
+  private LocalDateTime computedAt;
+
+  @Transient private boolean persisted;
+
+  @Override
+  public Key getId() {
+    return new Key(tenantId, month);
+  }
+
+  @Override
+  public boolean isNew() {
+    return !persisted;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markPersisted() {
+    persisted = true;
+  }
+
+  /** Spending from the first of the month through {@code day}, capped at the month's last day. */
+  public BigDecimal spentThroughDay(int day) {
+    return dailyCumulative[Math.min(day, dailyCumulative.length) - 1];
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private String tenantId;
+    private LocalDate month;
+  }
+}
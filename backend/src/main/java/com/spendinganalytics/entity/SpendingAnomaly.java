@@ -0,0 +1,55 @@
+package com.spendinganalytics.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** An imported transaction that was unusually large for its merchant or its weekday. */
+@Entity
+@Table(name = "spending_anomalies")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingAnomaly {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "tenant_id", nullable = false, length = 64)
+  private String tenantId;
+
+  @Column(name = "transaction_date", nullable = false)
+  private LocalDate transactionDate;
+
+  @Column(nullable = false)
+  private String merchant;
+
+  @Column(nullable = false, precision = 15, scale = 2)
+  private BigDecimal amount;
+
+  @Column(name = "dedup_hash", nullable = false, length = 64)
+  private String dedupHash;
+
+  // The baseline the transaction stood out from: MERCHANT or WEEKDAY, and its key
+  @Column(nullable = false, length = 16)
+  private String dimension;
+
+  @Column(name = "dimension_key", nullable = false)
+  private String dimensionKey;
+
+  // Geometric mean of the baseline's amounts, positive
+  @Column(name = "typical_amount", nullable = false, precision = 15, scale = 2)
+  private BigDecimal typicalAmount;
+
+  // Standard deviations above the baseline mean, on the log scale
+  @Column(name = "z_score", nullable = false)
+  private Double zScore;
+
+  @Column(name = "detected_at", nullable = false)
+  private LocalDateTime detectedAt;
+}
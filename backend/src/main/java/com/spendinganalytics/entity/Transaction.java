@@ -19,6 +19,10 @@ public class Transaction {
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  // Household the transaction belongs to; every query is scoped to one tenant
+  @Column(name = "tenant_id", nullable = false, length = 64)
+  private String tenantId;
+
   // Deduplication keys
   @Column(name = "transaction_date", nullable = false)
   private LocalDate transactionDate;
@@ -44,7 +48,7 @@ public class Transaction {
   @Column(name = "import_timestamp")
   private LocalDateTime importTimestamp = LocalDateTime.now();
 
-  // Composite dedup key
-  @Column(name = "dedup_hash", nullable = false, unique = true)
+  // Composite dedup key, unique per tenant together with transaction_date (the partition key)
+  @Column(name = "dedup_hash", nullable = false)
   private String dedupHash;
 }
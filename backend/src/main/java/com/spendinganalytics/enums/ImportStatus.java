@@ -0,0 +1,6 @@
+package com.spendinganalytics.enums;
+
+public enum ImportStatus {
+  IN_PROGRESS,
+  COMPLETED
+}
@@ -0,0 +1,27 @@
+package com.spendinganalytics.event;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Published whenever stored transactions change. Listeners should react after the change has been
+ * committed.
+ *
+ * @param tenantId tenant whose data changed
+ * @param reason what changed the data
+ * @param affectedMonths months that received new rows; empty for {@link Reason#DELETE_ALL} and
+ *     {@link Reason#PURGE}, which callers should treat as affecting every month of the tenant
+ */
+public record TransactionsChangedEvent(
+    String tenantId, Reason reason, Set<YearMonth> affectedMonths) {
+
+  public enum Reason {
+    IMPORT,
+    DELETE_ALL,
+    PURGE
+  }
+
+  public boolean affectsAllMonths() {
+    return reason != Reason.IMPORT;
+  }
+}
@@ -0,0 +1,289 @@
+package com.spendinganalytics.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delimited text exports (.csv) with a header line. The delimiter (comma, semicolon or tab) is
+ * taken from the header line, and columns are found by name from a list of common English and
+ * Turkish headers. Records are read one at a time, including quoted fields that span lines, so
+ * large exports are never held in memory.
+ *
+ * <p>The amount is either a single signed column or a pair of debit (money out) and credit (money
+ * in) columns.
+ */
+@Component
+@Order(50)
+public class CsvStatementParser implements StatementParser {
+
+  private static final char[] DELIMITERS = {',', ';', '\t'};
+
+  private static final List<String> DATE_HEADERS =
+      List.of("Date", "Transaction Date", "Posting Date", "Booking Date", "Tarih", "İşlem Tarihi");
+  private static final List<String> DESCRIPTION_HEADERS =
+      List.of("Description", "Merchant", "Payee", "Name", "Details", "Açıklama", "İşlem", "Memo");
+  private static final List<String> AMOUNT_HEADERS =
+      List.of("Amount", "Tutar", "Tutar(TL)", "Value");
+  private static final List<String> DEBIT_HEADERS =
+      List.of("Debit", "Withdrawal", "Money Out", "Paid Out", "Borç");
+  private static final List<String> CREDIT_HEADERS =
+      List.of("Credit", "Deposit", "Money In", "Paid In", "Alacak");
+  private static final List<String> BALANCE_HEADERS = List.of("Balance", "Bakiye");
+  private static final List<String> REFERENCE_HEADERS =
+      List.of("Reference", "Ref", "Transaction ID", "Dekont No", "FITID", "Check Number");
+  private static final List<String> CATEGORY_HEADERS = List.of("Category", "Etiket");
+
+  @Override
+  public String fileType() {
+    return "csv";
+  }
+
+  @Override
+  public String description() {
+    return "CSV: header line with a date, a description and an amount (or debit/credit) column";
+  }
+
+  @Override
+  public boolean supports(StatementSource source) throws Exception {
+    if (source.isSpreadsheet()) return false;
+    String head = source.headText();
+    int end = head.indexOf('\n');
+    String headerLine = end >= 0 ? head.substring(0, end) : head;
+    char delimiter = detectDelimiter(headerLine);
+    Columns columns = Columns.of(splitLine(headerLine, delimiter));
+    return columns.isComplete();
+  }
+
+  @Override
+  public void parse(StatementSource source, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception {
+    try (BufferedReader reader = source.openReader()) {
+      String headerLine = reader.readLine();
+      if (headerLine == null) {
+        errors.add("Empty file");
+        return;
+      }
+      char delimiter = detectDelimiter(headerLine);
+      Columns columns = Columns.of(splitLine(headerLine, delimiter));
+
+      RecordReader records = new RecordReader(reader, delimiter);
+      List<String> fields;
+      while ((fields = records.next()) != null) {
+        int line = records.startLine;
+        if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+        try {
+          LocalDate date = StatementFields.parseDate(columns.value(fields, columns.date));
+          if (date == null) {
+            errors.add(String.format("Line %d: Missing or invalid date", line));
+            continue;
+          }
+
+          String merchant = columns.value(fields, columns.description);
+          if (merchant == null || merchant.isBlank()) continue;
+
+          BigDecimal amount = columns.amount(fields);
+          if (amount == null) {
+            errors.add(String.format("Line %d: Missing amount", line));
+            continue;
+          }
+
+          sink.accept(
+              new StatementRow(
+                  date,
+                  merchant.trim(),
+                  amount,
+                  StatementFields.parseAmount(columns.value(fields, columns.balance)),
+                  columns.value(fields, columns.reference),
+                  columns.value(fields, columns.category),
+                  merchant));
+        } catch (CancellationException e) {
+          throw e;
+        } catch (Exception e) {
+          errors.add(String.format("Line %d: %s", line, e.getMessage()));
+        }
+      }
+    }
+  }
+
+  @Override
+  public String dedupKey(StatementRow row) {
+    String dateISO = row.date().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    String merchantTrim = row.merchant().trim();
+    String referenceTrimOrEmpty = row.transactionId() != null ? row.transactionId().trim() : "";
+    return "CSV|"
+        + dateISO
+        + "|"
+        + merchantTrim
+        + "|"
+        + row.amount().toPlainString()
+        + "|"
+        + referenceTrimOrEmpty;
+  }
+
+  /** The candidate delimiter occurring most often outside quotes in the header line. */
+  private char detectDelimiter(String headerLine) {
+    char best = ',';
+    int bestCount = 0;
+    for (char delimiter : DELIMITERS) {
+      int count = 0;
+      boolean quoted = false;
+      for (int i = 0; i < headerLine.length(); i++) {
+        char c = headerLine.charAt(i);
+        if (c == '"') {
+          quoted = !quoted;
+        } else if (c == delimiter && !quoted) {
+          count++;
+        }
+      }
+      if (count > bestCount) {
+        best = delimiter;
+        bestCount = count;
+      }
+    }
+    return best;
+  }
+
+  private List<String> splitLine(String line, char delimiter) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == delimiter && !quoted) {
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      } else if (c != '\r') {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString().trim());
+    return fields;
+  }
+
+  /** Positions of the known columns in the header, -1 when absent. */
+  private static final class Columns {
+    int date = -1;
+    int description = -1;
+    int amount = -1;
+    int debit = -1;
+    int credit = -1;
+    int balance = -1;
+    int reference = -1;
+    int category = -1;
+
+    static Columns of(List<String> headers) {
+      Columns columns = new Columns();
+      for (int i = 0; i < headers.size(); i++) {
+        String header = headers.get(i);
+        if (columns.date < 0 && matches(DATE_HEADERS, header)) columns.date = i;
+        else if (columns.description < 0 && matches(DESCRIPTION_HEADERS, header))
+          columns.description = i;
+        else if (columns.amount < 0 && matches(AMOUNT_HEADERS, header)) columns.amount = i;
+        else if (columns.debit < 0 && matches(DEBIT_HEADERS, header)) columns.debit = i;
+        else if (columns.credit < 0 && matches(CREDIT_HEADERS, header)) columns.credit = i;
+        else if (columns.balance < 0 && matches(BALANCE_HEADERS, header)) columns.balance = i;
+        else if (columns.reference < 0 && matches(REFERENCE_HEADERS, header))
+          columns.reference = i;
+        else if (columns.category < 0 && matches(CATEGORY_HEADERS, header)) columns.category = i;
+      }
+      return columns;
+    }
+
+    private static boolean matches(List<String> aliases, String header) {
+      for (String alias : aliases) {
+        if (alias.equalsIgnoreCase(header)) return true;
+      }
+      return false;
+    }
+
+    boolean isComplete() {
+      return date >= 0 && description >= 0 && (amount >= 0 || debit >= 0 || credit >= 0);
+    }
+
+    String value(List<String> fields, int column) {
+      if (column < 0 || column >= fields.size()) return null;
+      String value = fields.get(column);
+      return value.isEmpty() ? null : value;
+    }
+
+    /** The signed amount: spending is negative, as in the bank statements. */
+    BigDecimal amount(List<String> fields) {
+      if (amount >= 0) {
+        return StatementFields.parseAmount(value(fields, amount));
+      }
+      BigDecimal out = StatementFields.parseAmount(value(fields, debit));
+      BigDecimal in = StatementFields.parseAmount(value(fields, credit));
+      if (out == null && in == null) return null;
+      BigDecimal total = in != null ? in : BigDecimal.ZERO.setScale(2);
+      return out != null ? total.subtract(out.abs()) : total;
+    }
+  }
+
+  /**
+   * Reads one record at a time. A quoted field may contain delimiters, doubled quotes and line
+   * breaks.
+   */
+  private static final class RecordReader {
+    private final BufferedReader reader;
+    private final char delimiter;
+    private final StringBuilder field = new StringBuilder();
+    private int line = 1; // The header line has been read
+    int startLine;
+
+    RecordReader(BufferedReader reader, char delimiter) {
+      this.reader = reader;
+      this.delimiter = delimiter;
+    }
+
+    List<String> next() throws IOException {
+      int c = reader.read();
+      if (c == -1) return null;
+
+      line++;
+      startLine = line;
+      List<String> fields = new ArrayList<>();
+      field.setLength(0);
+      boolean quoted = false;
+      while (c != -1) {
+        if (quoted) {
+          if (c == '"') {
+            reader.mark(1);
+            int following = reader.read();
+            if (following == '"') {
+              field.append('"');
+            } else {
+              quoted = false;
+              if (following != -1) reader.reset();
+            }
+          } else {
+            if (c == '\n') line++;
+            field.append((char) c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == delimiter) {
+          fields.add(field.toString().trim());
+          field.setLength(0);
+        } else if (c == '\n') {
+          break;
+        } else if (c != '\r') {
+          field.append((char) c);
+        }
+        c = reader.read();
+      }
+      fields.add(field.toString().trim());
+      return fields;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.spendinganalytics.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Garanti Bank credit card statement (.xlsx), identified by its "Bonus" column. */
+@Component
+@Order(40)
+public class GarantiCreditStatementParser extends SpreadsheetStatementParser {
+
+  private static final Set<String> HEADERS =
+      Set.of("Tarih", "İşlem", "Etiket", "Bonus", "Tutar(TL)");
+
+  @Override
+  public String fileType() {
+    return "credit";
+  }
+
+  @Override
+  public String description() {
+    return "Credit: Tarih, İşlem, Etiket, Bonus, Tutar(TL)";
+  }
+
+  @Override
+  protected Set<String> requiredHeaders() {
+    return HEADERS;
+  }
+
+  @Override
+  protected StatementRow parseRow(
+      SheetRow row, Map<String, Integer> columns, List<String> errors) {
+    // Date (Tarih)
+    Integer dateCol = columns.get("Tarih");
+    if (dateCol == null) return null;
+    LocalDate date = parseDateCell(row.cell(dateCol));
+    if (date == null) return null;
+
+    // Merchant (İşlem)
+    Integer merchantCol = columns.get("İşlem");
+    if (merchantCol == null) return null;
+    String merchant = getCellValueAsString(row.cell(merchantCol));
+    if (merchant == null || merchant.trim().isEmpty()) return null;
+
+    // Category (Etiket) - optional, treat as empty string if missing
+    String category = null;
+    Integer categoryCol = columns.get("Etiket");
+    if (categoryCol != null) {
+      category = getCellValueAsString(row.cell(categoryCol));
+    }
+    if (category == null) {
+      category = "";
+    }
+
+    // Skip rows with specific tags
+    if (isSkippedCategory(category)) return null;
+
+    // Amount (Tutar(TL)); the Bonus column is not imported
+    Integer amountCol = columns.get("Tutar(TL)");
+    if (amountCol == null) return null;
+    BigDecimal amount = parseTurkishAmount(row.cell(amountCol));
+    if (amount == null) return null;
+
+    return new StatementRow(date, merchant, amount, null, null, category, merchant);
+  }
+
+  @Override
+  public String dedupKey(StatementRow row) {
+    // CREDIT|dateISO|islemTrim|etiketTrimOrEmpty|amountNormalized
+    String dateISO = row.date().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    String islemTrim = row.merchant().trim();
+    String etiketTrimOrEmpty = row.category() != null ? row.category().trim() : "";
+    String amountNormalized = row.amount().setScale(2, RoundingMode.HALF_UP).toPlainString();
+    return "CREDIT|" + dateISO + "|" + islemTrim + "|" + etiketTrimOrEmpty + "|" + amountNormalized;
+  }
+}
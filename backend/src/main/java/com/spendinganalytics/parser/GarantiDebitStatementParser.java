@@ -0,0 +1,98 @@
+package com.spendinganalytics.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Garanti Bank debit account statement (.xlsx), identified by its "Dekont No" column. */
+@Component
+@Order(30)
+public class GarantiDebitStatementParser extends SpreadsheetStatementParser {
+
+  private static final Set<String> HEADERS =
+      Set.of("Tarih", "Açıklama", "Etiket", "Tutar", "Bakiye", "Dekont No");
+
+  @Override
+  public String fileType() {
+    return "debit";
+  }
+
+  @Override
+  public String description() {
+    return "Debit: Tarih, Açıklama, Etiket, Tutar, Bakiye, Dekont No";
+  }
+
+  @Override
+  protected Set<String> requiredHeaders() {
+    return HEADERS;
+  }
+
+  @Override
+  protected StatementRow parseRow(
+      SheetRow row, Map<String, Integer> columns, List<String> errors) {
+    // Date (Tarih)
+    Integer dateCol = columns.get("Tarih");
+    if (dateCol == null) return null;
+    LocalDate date = parseDateCell(row.cell(dateCol));
+    if (date == null) return null;
+
+    // Merchant (Açıklama)
+    Integer merchantCol = columns.get("Açıklama");
+    if (merchantCol == null) return null;
+    String merchant = getCellValueAsString(row.cell(merchantCol));
+    if (merchant == null || merchant.trim().isEmpty()) return null;
+
+    // Category (Etiket)
+    String category = null;
+    Integer categoryCol = columns.get("Etiket");
+    if (categoryCol != null) {
+      category = getCellValueAsString(row.cell(categoryCol));
+    }
+
+    // Skip rows with specific tags
+    if (isSkippedCategory(category)) return null;
+
+    // Amount (Tutar)
+    Integer amountCol = columns.get("Tutar");
+    if (amountCol == null) return null;
+    BigDecimal amount = parseTurkishAmount(row.cell(amountCol));
+    if (amount == null) return null;
+
+    // Balance (Bakiye)
+    BigDecimal balance = null;
+    Integer balanceCol = columns.get("Bakiye");
+    if (balanceCol != null) {
+      balance = parseTurkishAmount(row.cell(balanceCol));
+    }
+
+    // Transaction ID (Dekont No) - REQUIRED for debit
+    Integer transactionIdCol = columns.get("Dekont No");
+    if (transactionIdCol == null) {
+      errors.add(String.format("Row %d: Missing Dekont No column", row.index() + 1));
+      return null;
+    }
+    String transactionId = getCellValueAsString(row.cell(transactionIdCol));
+    if (transactionId == null || transactionId.trim().isEmpty()) {
+      errors.add(String.format("Row %d: Missing Dekont No value", row.index() + 1));
+      return null; // Skip row if Dekont No is missing
+    }
+
+    return new StatementRow(date, merchant, amount, balance, transactionId, category, merchant);
+  }
+
+  @Override
+  public String dedupKey(StatementRow row) {
+    // DEBIT|dateISO|descriptionTrim|amountNormalized|dekontNoTrim
+    String dateISO = row.date().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    String descriptionTrim = row.merchant().trim();
+    String amountNormalized = row.amount().setScale(2, RoundingMode.HALF_UP).toPlainString();
+    String dekontNoTrim = row.transactionId() != null ? row.transactionId().trim() : "";
+    return "DEBIT|" + dateISO + "|" + descriptionTrim + "|" + amountNormalized + "|" + dekontNoTrim;
+  }
+}
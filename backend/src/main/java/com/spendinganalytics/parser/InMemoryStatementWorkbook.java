@@ -0,0 +1,96 @@
+package com.spendinganalytics.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * A workbook loaded whole through POI's user model. Only used for what the event API of {@link
+ * XlsxStatementWorkbook} cannot read: legacy OLE2 {@code .xls} files, which are limited to 65,536
+ * rows a sheet anyway, and Strict OOXML. POI workbooks are not thread-safe, so its sheets are read
+ * one at a time.
+ */
+final class InMemoryStatementWorkbook implements StatementWorkbook {
+
+  private final Workbook workbook;
+  private final boolean date1904;
+  private final List<String> sheetNames = new ArrayList<>();
+
+  private InMemoryStatementWorkbook(Workbook workbook) {
+    this.workbook = workbook;
+    this.date1904 =
+        workbook instanceof XSSFWorkbook xssf
+            ? xssf.isDate1904()
+            : workbook instanceof HSSFWorkbook hssf
+                && hssf.getInternalWorkbook().isUsing1904DateWindowing();
+    for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+      sheetNames.add(workbook.getSheetName(i));
+    }
+  }
+
+  static InMemoryStatementWorkbook open(InputStreamSource content) throws IOException {
+    try (InputStream in = content.getInputStream()) {
+      return new InMemoryStatementWorkbook(WorkbookFactory.create(in));
+    }
+  }
+
+  @Override
+  public List<String> sheetNames() {
+    return sheetNames;
+  }
+
+  @Override
+  public void readSheet(int sheetIndex, int rowLimit, Consumer<SheetRow> rows) {
+    Sheet sheet = workbook.getSheetAt(sheetIndex);
+    for (Row row : sheet) {
+      if (row.getRowNum() >= rowLimit) break;
+      List<SheetCell> cells = new ArrayList<>();
+      for (Cell cell : row) {
+        SheetCell value = toCell(cell);
+        if (value == null) continue;
+        while (cells.size() <= cell.getColumnIndex()) {
+          cells.add(null);
+        }
+        cells.set(cell.getColumnIndex(), value);
+      }
+      if (!cells.isEmpty()) {
+        rows.accept(new SheetRow(row.getRowNum(), cells));
+      }
+    }
+  }
+
+  @Override
+  public boolean readsSheetsConcurrently() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    workbook.close();
+  }
+
+  private SheetCell toCell(Cell cell) {
+    boolean formula = cell.getCellType() == CellType.FORMULA;
+    CellType type = formula ? cell.getCachedFormulaResultType() : cell.getCellType();
+    return switch (type) {
+      case STRING -> SheetCell.text(cell.getStringCellValue(), formula);
+      case NUMERIC ->
+          SheetCell.number(
+              cell.getNumericCellValue(), formula, DateUtil.isCellDateFormatted(cell), date1904);
+      case BOOLEAN -> SheetCell.bool(cell.getBooleanCellValue(), formula);
+      default -> null;
+    };
+  }
+}
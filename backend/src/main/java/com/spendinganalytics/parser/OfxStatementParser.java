@@ -0,0 +1,214 @@
+package com.spendinganalytics.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Open Financial Exchange statements (.ofx, .qfx), both the SGML flavour of OFX 1.x, where leaf
+ * elements have no closing tag, and the XML flavour of OFX 2.x. The file is scanned tag by tag
+ * and every {@code <STMTTRN>} aggregate becomes a row, so memory use does not grow with the size
+ * of the statement.
+ *
+ * <p>The charset is the one the file declares: the {@code ENCODING} and {@code CHARSET} header of
+ * OFX 1.x ({@code CHARSET:1252} is Windows code page 1252) or the XML declaration of OFX 2.x. A
+ * file that declares none is read in the source's text charset.
+ */
+@Component
+@Order(10)
+public class OfxStatementParser implements StatementParser {
+
+  private static final Pattern XML_ENCODING =
+      Pattern.compile("<\\?xml[^>]*\\bencoding\\s*=\\s*[\"']([^\"']+)[\"']");
+  private static final Pattern SGML_HEADER =
+      Pattern.compile("^(ENCODING|CHARSET):\\s*(\\S+)", Pattern.MULTILINE);
+
+  @Override
+  public String fileType() {
+    return "ofx";
+  }
+
+  @Override
+  public String description() {
+    return "OFX: <OFX> document with STMTTRN records";
+  }
+
+  @Override
+  public boolean supports(StatementSource source) throws Exception {
+    if (source.isSpreadsheet()) return false;
+    String head = source.headText().toUpperCase(Locale.ROOT);
+    return head.contains("OFXHEADER") || head.contains("<OFX>");
+  }
+
+  @Override
+  public void parse(StatementSource source, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception {
+    try (BufferedReader reader = source.openReader(charset(source))) {
+      Map<String, String> fields = null;
+      int record = 0;
+      String tag;
+      StringBuilder text = new StringBuilder();
+      while ((tag = nextTag(reader)) != null) {
+        if (tag.equals("STMTTRN")) {
+          fields = new HashMap<>();
+          record++;
+        } else if (tag.equals("/STMTTRN")) {
+          if (fields != null) {
+            emit(fields, record, errors, sink);
+          }
+          fields = null;
+        } else if (fields != null && !tag.startsWith("/")) {
+          // Leaf value: the text up to the next tag
+          String value = readText(reader, text);
+          if (!value.isEmpty()) {
+            fields.put(tag, value);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public String dedupKey(StatementRow row) {
+    // FITID is unique per account; statements without one fall back to the payee
+    String dateISO = row.date().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    String id =
+        row.transactionId() != null && !row.transactionId().isBlank()
+            ? row.transactionId().trim()
+            : row.merchant().trim();
+    return "OFX|" + dateISO + "|" + id + "|" + row.amount().toPlainString();
+  }
+
+  /** The charset the file declares, or the source's text charset if it declares none. */
+  private Charset charset(StatementSource source) throws IOException {
+    // The headers themselves are ASCII, whatever the charset of the rest
+    String head = source.headText(StandardCharsets.ISO_8859_1);
+    Matcher xml = XML_ENCODING.matcher(head);
+    if (xml.find()) {
+      return Charset.forName(xml.group(1).trim());
+    }
+    String encoding = null;
+    String charset = null;
+    Matcher header = SGML_HEADER.matcher(head);
+    while (header.find()) {
+      if (header.group(1).equals("ENCODING")) {
+        encoding = header.group(2);
+      } else {
+        charset = header.group(2);
+      }
+    }
+    if ("UTF-8".equalsIgnoreCase(encoding)) {
+      return StandardCharsets.UTF_8;
+    }
+    if (charset == null || charset.equalsIgnoreCase("NONE")) {
+      return source.getTextCharset();
+    }
+    // OFX 1.x names Windows code pages by number
+    boolean codePage = charset.chars().allMatch(Character::isDigit);
+    return Charset.forName(codePage ? "windows-" + charset : charset);
+  }
+
+  private void emit(
+      Map<String, String> fields, int record, List<String> errors, Consumer<StatementRow> sink) {
+    try {
+      LocalDate date = parseOfxDate(fields.get("DTPOSTED"));
+      if (date == null) {
+        errors.add(String.format("Transaction %d: Missing or invalid DTPOSTED", record));
+        return;
+      }
+      BigDecimal amount = StatementFields.parseAmount(fields.get("TRNAMT"));
+      if (amount == null) {
+        errors.add(String.format("Transaction %d: Missing TRNAMT", record));
+        return;
+      }
+      String name = fields.get("NAME");
+      String memo = fields.get("MEMO");
+      String merchant = name != null ? name : memo;
+      if (merchant == null) {
+        errors.add(String.format("Transaction %d: Missing NAME and MEMO", record));
+        return;
+      }
+      String rawDescription = name != null && memo != null ? name + " " + memo : merchant;
+
+      sink.accept(
+          new StatementRow(
+              date, merchant, amount, null, fields.get("FITID"), null, rawDescription));
+    } catch (CancellationException e) {
+      throw e;
+    } catch (Exception e) {
+      errors.add(String.format("Transaction %d: %s", record, e.getMessage()));
+    }
+  }
+
+  /** Reads up to and including the next {@code <...>} and returns its upper-cased name. */
+  private String nextTag(BufferedReader reader) throws IOException {
+    int c;
+    while ((c = reader.read()) != -1 && c != '<') {
+      // Skip text between tags and the OFX 1.x header block
+    }
+    if (c == -1) return null;
+
+    StringBuilder name = new StringBuilder();
+    while ((c = reader.read()) != -1 && c != '>') {
+      name.append((char) c);
+    }
+    return name.toString().trim().toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Reads the text of a leaf element, stopping in front of the next tag. The reader is marked so
+   * the {@code <} is not consumed.
+   */
+  private String readText(BufferedReader reader, StringBuilder text) throws IOException {
+    text.setLength(0);
+    int c;
+    reader.mark(1);
+    while ((c = reader.read()) != -1 && c != '<') {
+      text.append((char) c);
+      reader.mark(1);
+    }
+    if (c == '<') {
+      reader.reset();
+    }
+    String value = decodeEntities(text.toString().trim());
+    text.setLength(0);
+    return value;
+  }
+
+  private String decodeEntities(String value) {
+    if (value.indexOf('&') < 0) return value;
+    return value
+        .replace("&lt;", "<")
+        .replace("&gt;", ">")
+        .replace("&quot;", "\"")
+        .replace("&apos;", "'")
+        .replace("&nbsp;", " ")
+        .replace("&amp;", "&");
+  }
+
+  /** DTPOSTED is YYYYMMDD optionally followed by a time and a zone: 20240115120000[-5:EST]. */
+  private LocalDate parseOfxDate(String value) {
+    if (value == null || value.length() < 8) return null;
+    for (int i = 0; i < 8; i++) {
+      if (!Character.isDigit(value.charAt(i))) return null;
+    }
+    int year = Integer.parseInt(value.substring(0, 4));
+    int month = Integer.parseInt(value.substring(4, 6));
+    int day = Integer.parseInt(value.substring(6, 8));
+    return LocalDate.of(year, month, day);
+  }
+}
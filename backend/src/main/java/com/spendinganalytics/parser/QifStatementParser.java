@@ -0,0 +1,173 @@
+package com.spendinganalytics.parser;
+
+import java.io.BufferedReader;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Quicken Interchange Format statements (.qif). The file is read line by line; each line starts
+ * with a field code and a {@code ^} line ends the record. Only the cash-like account types are
+ * imported; investment, category and account list sections are skipped.
+ */
+@Component
+@Order(20)
+public class QifStatementParser implements StatementParser {
+
+  private static final Set<String> TRANSACTION_TYPES =
+      Set.of("bank", "cash", "ccard", "oth a", "oth l");
+
+  @Override
+  public String fileType() {
+    return "qif";
+  }
+
+  @Override
+  public String description() {
+    return "QIF: !Type:Bank, !Type:CCard or !Type:Cash records";
+  }
+
+  @Override
+  public boolean supports(StatementSource source) throws Exception {
+    if (source.isSpreadsheet()) return false;
+    String head = source.headText().stripLeading();
+    return head.startsWith("!Type:") || head.startsWith("!Account") || head.startsWith("!Option");
+  }
+
+  @Override
+  public void parse(StatementSource source, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception {
+    try (BufferedReader reader = source.openReader()) {
+      QifRecord record = new QifRecord();
+      boolean inTransactions = false;
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) continue;
+
+        char code = line.charAt(0);
+        String value = line.substring(1).trim();
+        if (code == '!') {
+          // Section header; records of other sections describe accounts, categories, etc.
+          inTransactions =
+              value.regionMatches(true, 0, "Type:", 0, 5)
+                  && TRANSACTION_TYPES.contains(value.substring(5).trim().toLowerCase());
+          record = new QifRecord();
+          continue;
+        }
+        if (!inTransactions) continue;
+
+        switch (code) {
+          case 'D' -> record.date = value;
+          case 'T' -> record.amount = value;
+          case 'U' -> {
+            if (record.amount == null) record.amount = value;
+          }
+          case 'P' -> record.payee = value;
+          case 'M' -> record.memo = value;
+          case 'N' -> record.number = value;
+          case 'L' -> record.category = value;
+          case '^' -> {
+            emit(record, lineNumber, errors, sink);
+            record = new QifRecord();
+          }
+          default -> {
+            // Splits, addresses and cleared status are not imported
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public String dedupKey(StatementRow row) {
+    String dateISO = row.date().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    String payeeTrim = row.merchant().trim();
+    String numberTrimOrEmpty = row.transactionId() != null ? row.transactionId().trim() : "";
+    return "QIF|"
+        + dateISO
+        + "|"
+        + payeeTrim
+        + "|"
+        + row.amount().toPlainString()
+        + "|"
+        + numberTrimOrEmpty;
+  }
+
+  private void emit(
+      QifRecord record, int lineNumber, List<String> errors, Consumer<StatementRow> sink) {
+    try {
+      LocalDate date = parseQifDate(record.date);
+      if (date == null) {
+        errors.add(String.format("Line %d: Missing or invalid date", lineNumber));
+        return;
+      }
+      BigDecimal amount = StatementFields.parseAmount(record.amount);
+      if (amount == null) {
+        errors.add(String.format("Line %d: Missing amount", lineNumber));
+        return;
+      }
+      String merchant = record.payee != null && !record.payee.isEmpty() ? record.payee : record.memo;
+      if (merchant == null || merchant.isEmpty()) {
+        errors.add(String.format("Line %d: Missing payee", lineNumber));
+        return;
+      }
+      String rawDescription =
+          record.memo != null && !merchant.equals(record.memo)
+              ? merchant + " " + record.memo
+              : merchant;
+
+      sink.accept(
+          new StatementRow(
+              date, merchant, amount, null, record.number, record.category, rawDescription));
+    } catch (CancellationException e) {
+      throw e;
+    } catch (Exception e) {
+      errors.add(String.format("Line %d: %s", lineNumber, e.getMessage()));
+    }
+  }
+
+  /**
+   * QIF dates are month first: "1/15/2024", "01-15-24", or "1/15'24" where the apostrophe marks a
+   * year after 2000. Two-digit years without an apostrophe before 70 are also taken as 20xx.
+   */
+  private LocalDate parseQifDate(String value) {
+    if (value == null) return null;
+    String compact = value.replace(" ", "");
+    boolean century21 = compact.indexOf('\'') >= 0;
+    String[] parts = compact.split("[/'.-]");
+    if (parts.length != 3) return null;
+    try {
+      if (parts[0].length() == 4) {
+        return LocalDate.of(
+            Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+      }
+      int month = Integer.parseInt(parts[0]);
+      int day = Integer.parseInt(parts[1]);
+      int year = Integer.parseInt(parts[2]);
+      if (parts[2].length() <= 2) {
+        year += century21 || year < 70 ? 2000 : 1900;
+      }
+      return LocalDate.of(year, month, day);
+    } catch (NumberFormatException | DateTimeException e) {
+      return null;
+    }
+  }
+
+  private static class QifRecord {
+    String date;
+    String amount;
+    String payee;
+    String memo;
+    String number;
+    String category;
+  }
+}
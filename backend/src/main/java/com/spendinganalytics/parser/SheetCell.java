@@ -0,0 +1,49 @@
+package com.spendinganalytics.parser;
+
+/**
+ * A non-empty worksheet cell as the statement layouts read it, independent of how the workbook was
+ * opened. Blank and error cells are not reported at all.
+ *
+ * @param kind what the cell holds; for a formula, what its cached result is
+ * @param text the text of a {@link Kind#TEXT} cell, {@code "true"}/{@code "false"} for a {@link
+ *     Kind#BOOLEAN} one, otherwise {@code null}
+ * @param number the value of a {@link Kind#NUMBER} cell (an Excel serial for dates)
+ * @param formula whether the value is the cached result of a formula
+ * @param dateFormatted whether a number is displayed with a date format
+ * @param date1904 whether the workbook counts serial dates from 1904 rather than 1900
+ */
+public record SheetCell(
+    Kind kind,
+    String text,
+    double number,
+    boolean formula,
+    boolean dateFormatted,
+    boolean date1904) {
+
+  public enum Kind {
+    TEXT,
+    NUMBER,
+    BOOLEAN
+  }
+
+  static SheetCell text(String text, boolean formula) {
+    return new SheetCell(Kind.TEXT, text, 0, formula, false, false);
+  }
+
+  static SheetCell number(
+      double number, boolean formula, boolean dateFormatted, boolean date1904) {
+    return new SheetCell(Kind.NUMBER, null, number, formula, dateFormatted, date1904);
+  }
+
+  static SheetCell bool(boolean value, boolean formula) {
+    return new SheetCell(Kind.BOOLEAN, String.valueOf(value), 0, formula, false, false);
+  }
+
+  /**
+   * Text of a header cell. Headers are always text, so numbers and booleans are never formatted
+   * into temporary strings.
+   */
+  public String headerText() {
+    return kind == Kind.TEXT ? text : null;
+  }
+}
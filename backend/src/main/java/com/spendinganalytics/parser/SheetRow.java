@@ -0,0 +1,18 @@
+package com.spendinganalytics.parser;
+
+import java.util.List;
+
+/**
+ * One row of a worksheet.
+ *
+ * @param index zero-based row index in the sheet; error messages show it plus one, like Excel
+ * @param cells the row's cells by column index, {@code null} where a cell is empty
+ */
+public record SheetRow(int index, List<SheetCell> cells) {
+
+  /** The cell in {@code column}, or {@code null} if it is empty or the column is unknown. */
+  public SheetCell cell(Integer column) {
+    if (column == null || column >= cells.size()) return null;
+    return cells.get(column);
+  }
+}
@@ -0,0 +1,352 @@
+package com.spendinganalytics.parser;
+
+import com.spendinganalytics.util.CellDecoder;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base for bank statement layouts exported as Excel workbooks. A layout is recognised by a header
+ * row containing all of its {@link #requiredHeaders()}, on any sheet.
+ *
+ * <p>Every sheet with such a header is imported, so exports that split a year into one sheet per
+ * month need no splitting by hand. Sheets are streamed, so no sheet is ever held in memory whole.
+ * When several sheets match and the workbook allows it (every sheet of an .xlsx is its own XML
+ * part), they are parsed concurrently; their rows are still handed on in sheet order, so the first
+ * occurrence of a duplicate is always the same row.
+ */
+public abstract class SpreadsheetStatementParser implements StatementParser {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpreadsheetStatementParser.class);
+
+  // Rows a sheet thread hands over at a time, and how many such batches it may parse ahead
+  private static final int BATCH_SIZE = 500;
+  private static final int BATCHES_AHEAD = 4;
+
+  private static final List<StatementRow> END_OF_SHEET = Collections.emptyList();
+
+  private static final AtomicInteger sheetThreadCount = new AtomicInteger();
+
+  private final ExecutorService sheetExecutor =
+      Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors(),
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "sheet-parser-" + sheetThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** Header names that identify the layout. */
+  protected abstract Set<String> requiredHeaders();
+
+  /**
+   * Reads one data row below the header row.
+   *
+   * @param columns column index of each header name
+   * @return the transaction, or {@code null} if the row holds none
+   */
+  protected abstract StatementRow parseRow(
+      SheetRow row, Map<String, Integer> columns, List<String> errors) throws Exception;
+
+  @Override
+  public boolean supports(StatementSource source) throws Exception {
+    return source.isSpreadsheet() && !matchingSheets(source).isEmpty();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sheetExecutor.shutdownNow();
+  }
+
+  @Override
+  public void parse(StatementSource source, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception {
+    List<Integer> sheets = matchingSheets(source);
+    if (sheets.size() > 1 && source.readsSheetsConcurrently()) {
+      parseConcurrently(source, sheets, errors, sink);
+      return;
+    }
+    for (int index : sheets) {
+      List<String> sheetErrors = sheets.size() == 1 ? errors : new ArrayList<>();
+      SheetParser sheet = new SheetParser(sheetErrors, sink);
+      source.readSheet(index, sheet);
+      finishSheet(source, index, sheet, errors);
+    }
+  }
+
+  /**
+   * Parses every sheet on its own thread. The calling thread hands the rows on sheet by sheet, so
+   * they still arrive in sheet order; a sheet further ahead waits once it has {@link
+   * #BATCHES_AHEAD} batches ready, which keeps memory bounded however long the sheets are.
+   */
+  private void parseConcurrently(
+      StatementSource source, List<Integer> sheets, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception {
+    List<SheetTask> tasks = new ArrayList<>(sheets.size());
+    try {
+      for (int index : sheets) {
+        SheetTask task = new SheetTask(source, index);
+        task.future = sheetExecutor.submit(task);
+        tasks.add(task);
+      }
+      for (SheetTask task : tasks) {
+        task.drainTo(sink);
+        finishSheet(source, task.sheetIndex, task.parser, errors);
+      }
+    } finally {
+      tasks.forEach(task -> task.future.cancel(true));
+    }
+  }
+
+  private void finishSheet(
+      StatementSource source, int sheetIndex, SheetParser sheet, List<String> errors)
+      throws Exception {
+    String sheetName = source.sheetName(sheetIndex);
+    if (sheet.columns == null) {
+      sheet.errors.add("Could not find header row");
+    }
+    if (sheet.errors != errors) {
+      sheet.errors.forEach(error -> errors.add("Sheet " + sheetName + ": " + error));
+    }
+    source.recordSheetRows(sheetName, sheet.rows);
+  }
+
+  private List<Integer> matchingSheets(StatementSource source) throws Exception {
+    List<Integer> sheets = new ArrayList<>();
+    for (int sheet = 0; sheet < source.sheetCount(); sheet++) {
+      for (Set<String> headers : source.headerRows(sheet)) {
+        if (headers.containsAll(requiredHeaders())) {
+          sheets.add(sheet);
+          break;
+        }
+      }
+    }
+    return sheets;
+  }
+
+  /**
+   * One sheet parsed on the sheet executor. Its rows are queued in batches for the calling thread;
+   * everything else it records is read only after {@link #END_OF_SHEET}, which the queue publishes
+   * safely.
+   */
+  private final class SheetTask implements Runnable {
+
+    private final StatementSource source;
+    private final int sheetIndex;
+    private final SheetParser parser;
+    private final BlockingQueue<List<StatementRow>> batches =
+        new ArrayBlockingQueue<>(BATCHES_AHEAD);
+
+    private List<StatementRow> batch = new ArrayList<>(BATCH_SIZE);
+    private Exception failure;
+    private Future<?> future;
+
+    SheetTask(StatementSource source, int sheetIndex) {
+      this.source = source;
+      this.sheetIndex = sheetIndex;
+      this.parser = new SheetParser(new ArrayList<>(), this::add);
+    }
+
+    @Override
+    public void run() {
+      try {
+        source.readSheet(sheetIndex, parser);
+        if (!batch.isEmpty()) {
+          put(batch);
+        }
+      } catch (Exception e) {
+        failure = e;
+      } finally {
+        try {
+          batches.put(END_OF_SHEET);
+        } catch (InterruptedException e) {
+          // Cancelled: nobody is waiting for the rest of this sheet
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void add(StatementRow row) {
+      batch.add(row);
+      if (batch.size() >= BATCH_SIZE) {
+        put(batch);
+        batch = new ArrayList<>(BATCH_SIZE);
+      }
+    }
+
+    private void put(List<StatementRow> rows) {
+      try {
+        batches.put(rows);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Import cancelled");
+      }
+    }
+
+    /** Hands the sheet's rows to {@code sink} as they are parsed, until the sheet is done. */
+    void drainTo(Consumer<StatementRow> sink) throws Exception {
+      try {
+        List<StatementRow> rows;
+        while ((rows = batches.take()) != END_OF_SHEET) {
+          rows.forEach(sink);
+        }
+      } catch (InterruptedException e) {
+        // The import gave up on this file
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Import cancelled");
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /** Finds the header row among the first rows of a sheet, then reads the rows below it. */
+  private final class SheetParser implements Consumer<SheetRow> {
+
+    private final List<String> errors;
+    private final Consumer<StatementRow> sink;
+
+    private Map<String, Integer> columns;
+    private int rows;
+
+    SheetParser(List<String> errors, Consumer<StatementRow> sink) {
+      this.errors = errors;
+      this.sink = sink;
+    }
+
+    @Override
+    public void accept(SheetRow row) {
+      if (columns == null) {
+        if (row.index() < StatementSource.HEADER_SCAN_ROWS) {
+          Map<String, Integer> header = mapColumns(row);
+          if (header.keySet().containsAll(requiredHeaders())) {
+            columns = header;
+          }
+        }
+        return;
+      }
+      try {
+        StatementRow parsed = parseRow(row, columns, errors);
+        if (parsed != null) {
+          rows++;
+          sink.accept(parsed);
+        }
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        errors.add(String.format("Row %d: %s", row.index() + 1, e.getMessage()));
+      }
+    }
+  }
+
+  /** Rows tagged as currency exchange or card payments are transfers, not spending. */
+  protected boolean isSkippedCategory(String category) {
+    if (category == null) return false;
+    String etiketLower = category.toLowerCase().trim();
+    return etiketLower.contains("döviz al / sat") || etiketLower.contains("kart ödemesi");
+  }
+
+  protected Map<String, Integer> mapColumns(SheetRow header) {
+    Map<String, Integer> columnMap = new HashMap<>();
+    for (int column = 0; column < header.cells().size(); column++) {
+      SheetCell cell = header.cells().get(column);
+      String value = cell != null ? cell.headerText() : null;
+      if (value != null) {
+        columnMap.put(value.trim(), column);
+      }
+    }
+    return columnMap;
+  }
+
+  protected String getCellValueAsString(SheetCell cell) {
+    if (cell == null) return null;
+
+    return switch (cell.kind()) {
+      case TEXT -> cell.formula() ? cell.text() : cell.text().trim();
+      case NUMBER -> {
+        double value = cell.number();
+        if (cell.formula()) {
+          yield String.valueOf(value);
+        } else if (cell.dateFormatted()) {
+          yield DateUtil.getLocalDateTime(value, cell.date1904()).toString();
+        } else if (value == (long) value) {
+          yield String.valueOf((long) value);
+        } else {
+          yield String.valueOf(value);
+        }
+      }
+      case BOOLEAN -> cell.text();
+    };
+  }
+
+  protected LocalDate parseDateCell(SheetCell cell) {
+    if (cell == null || cell.formula()) return null;
+
+    try {
+      if (cell.kind() == SheetCell.Kind.NUMBER && cell.dateFormatted()) {
+        return CellDecoder.excelSerialToLocalDate(cell.number(), cell.date1904());
+      } else if (cell.kind() == SheetCell.Kind.TEXT) {
+        String dateStr = cell.text().trim();
+        LocalDate date = CellDecoder.parseDayMonthYear(dateStr);
+        if (date != null) return date;
+
+        // Parse DD/MM/YYYY format
+        String[] parts = dateStr.split("/");
+        if (parts.length == 3) {
+          int day = Integer.parseInt(parts[0]);
+          int month = Integer.parseInt(parts[1]);
+          int year = Integer.parseInt(parts[2]);
+          return LocalDate.of(year, month, day);
+        }
+      }
+    } catch (Exception e) {
+      logger.warn("Error parsing date cell: {}", e.getMessage());
+    }
+    return null;
+  }
+
+  protected BigDecimal parseTurkishAmount(SheetCell cell) {
+    if (cell == null) return null;
+
+    try {
+      if (cell.kind() == SheetCell.Kind.NUMBER) {
+        return BigDecimal.valueOf(cell.number()).setScale(2, RoundingMode.HALF_UP);
+      } else if (cell.kind() == SheetCell.Kind.TEXT) {
+        return parseTurkishAmount(cell.text());
+      }
+    } catch (Exception e) {
+      logger.warn("Error parsing amount cell: {}", e.getMessage());
+    }
+    return null;
+  }
+
+  protected BigDecimal parseTurkishAmount(String text) {
+    String value = text.trim();
+    long cents = CellDecoder.parseTurkishAmountCents(value);
+    if (cents != CellDecoder.NOT_PARSED) {
+      return BigDecimal.valueOf(cents, 2);
+    }
+    value = value.replace(".", "").replace(",", ".");
+    return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
+  }
+}
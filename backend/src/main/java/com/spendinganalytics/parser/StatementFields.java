@@ -0,0 +1,94 @@
+package com.spendinganalytics.parser;
+
+import com.spendinganalytics.util.CellDecoder;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import lombok.experimental.UtilityClass;
+
+/** Amount and date parsing shared by the text statement formats. */
+@UtilityClass
+class StatementFields {
+
+  /**
+   * Parses an amount written either the Turkish way ("-1.234,56") or the English way
+   * ("-1,234.56"), whichever separator comes last being the decimal one. When only one kind of
+   * separator is used, it groups thousands if it repeats or is followed by exactly three digits
+   * ("1,234", "1.234.567"), and is the decimal separator otherwise. Currency signs, spaces and a
+   * leading plus are ignored, and an amount in parentheses is negative.
+   *
+   * @return the amount rounded to cents, or {@code null} for a blank value
+   */
+  BigDecimal parseAmount(String text) {
+    if (text == null) return null;
+    StringBuilder value = new StringBuilder(text.length());
+    boolean negative = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if ((c >= '0' && c <= '9') || c == '.' || c == ',') {
+        value.append(c);
+      } else if (c == '-' || c == '(') {
+        negative = true;
+      }
+    }
+    if (value.length() == 0) return null;
+
+    BigDecimal amount;
+    if (isThousandsGrouping(value)) {
+      amount = new BigDecimal(value.toString().replace(",", "").replace(".", ""));
+    } else if (value.lastIndexOf(",") > value.lastIndexOf(".")) {
+      long cents = CellDecoder.parseTurkishAmountCents(value);
+      amount =
+          cents != CellDecoder.NOT_PARSED
+              ? BigDecimal.valueOf(cents, 2)
+              : new BigDecimal(value.toString().replace(".", "").replace(",", "."));
+    } else {
+      amount = new BigDecimal(value.toString().replace(",", ""));
+    }
+    amount = amount.setScale(2, RoundingMode.HALF_UP);
+    return negative ? amount.negate() : amount;
+  }
+
+  private boolean isThousandsGrouping(CharSequence value) {
+    String digits = value.toString();
+    int comma = digits.indexOf(',');
+    int dot = digits.indexOf('.');
+    if ((comma < 0) == (dot < 0)) return false;
+    char separator = comma >= 0 ? ',' : '.';
+    int first = Math.max(comma, dot);
+    int last = digits.lastIndexOf(separator);
+    return first != last || (first > 0 && digits.length() - last - 1 == 3);
+  }
+
+  /**
+   * Parses a day-first date ("15/01/2024", "15.01.2024", "15-01-2024") or an ISO date
+   * ("2024-01-15"). A time part after the date is ignored.
+   *
+   * @return the date, or {@code null} if the value is not a date in one of these forms
+   */
+  LocalDate parseDate(String text) {
+    if (text == null) return null;
+    String value = text.trim();
+    int space = value.indexOf(' ');
+    if (space > 0) {
+      value = value.substring(0, space);
+    }
+
+    LocalDate date = CellDecoder.parseDayMonthYear(value);
+    if (date != null) return date;
+
+    String[] parts = value.split("[./-]");
+    if (parts.length != 3) return null;
+    try {
+      int first = Integer.parseInt(parts[0]);
+      int second = Integer.parseInt(parts[1]);
+      int third = Integer.parseInt(parts[2]);
+      return parts[0].length() == 4
+          ? LocalDate.of(first, second, third)
+          : LocalDate.of(third, second, first);
+    } catch (NumberFormatException | DateTimeException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.spendinganalytics.parser;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A statement file format. Implementations are Spring components; {@link StatementParserRegistry}
+ * asks them in {@link org.springframework.core.annotation.Order} order whether they recognise an
+ * uploaded file.
+ */
+public interface StatementParser {
+
+  /** Short name of the format, stored in the import ledger (e.g. "debit"). */
+  String fileType();
+
+  /** Human readable description of what the format looks like, used in detection errors. */
+  String description();
+
+  /** Whether the file is in this format, judged from its magic bytes and headers. */
+  boolean supports(StatementSource source) throws Exception;
+
+  /**
+   * Reads the rows of the file and hands each one to {@code sink} as soon as it is parsed. Rows
+   * that cannot be read are reported in {@code errors} and skipped.
+   */
+  void parse(StatementSource source, List<String> errors, Consumer<StatementRow> sink)
+      throws Exception;
+
+  /**
+   * The natural key of a row in this format; its SHA-256 is the row's dedup hash. It must not
+   * change once rows have been imported, or re-imports will no longer be recognised.
+   */
+  String dedupKey(StatementRow row);
+}
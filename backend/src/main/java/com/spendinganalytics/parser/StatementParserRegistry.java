@@ -0,0 +1,30 @@
+package com.spendinganalytics.parser;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/** Picks the {@link StatementParser} for an uploaded file. */
+@Component
+@RequiredArgsConstructor
+public class StatementParserRegistry {
+
+  // Injected in @Order order: cheap magic-byte checks first, the generic CSV parser last
+  private final List<StatementParser> parsers;
+
+  public StatementParser detect(StatementSource source) throws Exception {
+    for (StatementParser parser : parsers) {
+      if (parser.supports(source)) {
+        return parser;
+      }
+    }
+    throw new Exception(
+        "Unable to detect file type. Supported formats: "
+            + parsers.stream().map(StatementParser::description).collect(Collectors.joining("; ")));
+  }
+
+  public List<StatementParser> getParsers() {
+    return parsers;
+  }
+}
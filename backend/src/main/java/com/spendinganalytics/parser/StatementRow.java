@@ -0,0 +1,20 @@
+package com.spendinganalytics.parser;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One transaction read from a statement file, before it is turned into a {@link
+ * com.spendinganalytics.entity.Transaction}.
+ *
+ * @param transactionId bank reference of the row (Dekont No, FITID, check number), if any
+ * @param category label attached by the bank or the user (Etiket, QIF category), if any
+ */
+public record StatementRow(
+    LocalDate date,
+    String merchant,
+    BigDecimal amount,
+    BigDecimal balance,
+    String transactionId,
+    String category,
+    String rawDescription) {}
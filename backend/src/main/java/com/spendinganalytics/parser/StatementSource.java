@@ -0,0 +1,287 @@
+package com.spendinganalytics.parser;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * An uploaded statement file as seen by the parsers. The content is re-read from its source on
+ * demand, so text formats can be streamed without holding the file in memory, and workbook sheets
+ * are read row by row. What detection needs (the first bytes, the sheet list and the header rows)
+ * is read once and cached. Parsers of multi-sheet workbooks record here how many rows each sheet
+ * held.
+ *
+ * <p>Text is decoded strictly: a byte order mark decides the charset, otherwise the one the parser
+ * asks for or the source's {@link #getTextCharset() text charset}. Bytes that are not valid in
+ * that charset fail the import instead of turning into replacement characters.
+ */
+public class StatementSource implements Closeable {
+
+  public static final int HEADER_SCAN_ROWS = 20;
+
+  private static final int HEAD_SIZE = 4096;
+
+  private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+  private static final byte[] OLE2_MAGIC = {
+    (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+  };
+
+  private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+  private static final byte[] UTF16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+  private static final byte[] UTF16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+  private static final int UTF16_BOM_LENGTH = 2;
+
+  private final String fileName;
+  private final InputStreamSource content;
+  private final Charset textCharset;
+
+  private byte[] head;
+  private boolean workbookOpened;
+  private StatementWorkbook workbook;
+  private final Map<Integer, List<Set<String>>> headerRowsBySheet = new HashMap<>();
+  private final Map<String, Integer> rowsPerSheet = new LinkedHashMap<>();
+
+  public StatementSource(String fileName, InputStreamSource content) {
+    this(fileName, content, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param textCharset charset of text files that neither start with a byte order mark nor
+   *     declare their own, such as CSV exports of Turkish banks in windows-1254
+   */
+  public StatementSource(String fileName, InputStreamSource content, Charset textCharset) {
+    this.fileName = fileName;
+    this.content = content;
+    this.textCharset = textCharset;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public Charset getTextCharset() {
+    return textCharset;
+  }
+
+  public InputStream openStream() throws IOException {
+    return content.getInputStream();
+  }
+
+  /** Reader over the text content in the {@link #getTextCharset() text charset}. */
+  public BufferedReader openReader() throws IOException {
+    return openReader(textCharset);
+  }
+
+  /**
+   * Reader over the text content in {@code charset}, unless the file starts with a byte order mark,
+   * which then decides the charset and is skipped. Undecodable input makes reads throw.
+   */
+  public BufferedReader openReader(Charset charset) throws IOException {
+    InputStream in = openStream();
+    Charset marked = byteOrderMark();
+    if (marked != null) {
+      in.skipNBytes(marked == StandardCharsets.UTF_8 ? UTF8_BOM.length : UTF16_BOM_LENGTH);
+    }
+    Charset decoding = marked != null ? marked : charset;
+    CharsetDecoder decoder =
+        decoding
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    return new BufferedReader(new StrictReader(new InputStreamReader(in, decoder), decoding));
+  }
+
+  /** The first few kilobytes of the file. */
+  public byte[] head() throws IOException {
+    if (head == null) {
+      try (InputStream in = openStream()) {
+        head = in.readNBytes(HEAD_SIZE);
+      }
+    }
+    return head;
+  }
+
+  /**
+   * The first few kilobytes as text, without a byte order mark, for format detection. Decoded
+   * leniently, since the cut may fall inside a character.
+   */
+  public String headText() throws IOException {
+    return headText(textCharset);
+  }
+
+  /** Like {@link #headText()}, in {@code charset} unless a byte order mark says otherwise. */
+  public String headText(Charset charset) throws IOException {
+    byte[] bytes = head();
+    Charset marked = byteOrderMark();
+    if (marked == null) {
+      return new String(bytes, charset);
+    }
+    int bom = marked == StandardCharsets.UTF_8 ? UTF8_BOM.length : UTF16_BOM_LENGTH;
+    return new String(bytes, bom, bytes.length - bom, marked);
+  }
+
+  /** The charset named by a byte order mark at the start of the file, or {@code null}. */
+  public Charset byteOrderMark() throws IOException {
+    if (startsWith(UTF8_BOM)) return StandardCharsets.UTF_8;
+    if (startsWith(UTF16LE_BOM)) return StandardCharsets.UTF_16LE;
+    if (startsWith(UTF16BE_BOM)) return StandardCharsets.UTF_16BE;
+    return null;
+  }
+
+  /** Whether the file is an Excel workbook: OOXML (a zip archive) or legacy OLE2. */
+  public boolean isSpreadsheet() throws IOException {
+    return startsWith(ZIP_MAGIC) || startsWith(OLE2_MAGIC);
+  }
+
+  /** Number of sheets in the workbook, or 0 if the file is not a spreadsheet. */
+  public int sheetCount() throws Exception {
+    StatementWorkbook wb = workbook();
+    return wb != null ? wb.sheetNames().size() : 0;
+  }
+
+  /** Name of a sheet of the workbook. */
+  public String sheetName(int sheetIndex) throws Exception {
+    return workbook().sheetNames().get(sheetIndex);
+  }
+
+  /** The non-empty text cells of the first rows of a sheet, one set per row. */
+  public List<Set<String>> headerRows(int sheetIndex) throws Exception {
+    List<Set<String>> headerRows = headerRowsBySheet.get(sheetIndex);
+    if (headerRows == null) {
+      List<Set<String>> rows = new ArrayList<>();
+      workbook()
+          .readSheet(
+              sheetIndex,
+              HEADER_SCAN_ROWS,
+              row -> {
+                Set<String> headers = new HashSet<>();
+                for (SheetCell cell : row.cells()) {
+                  String value = cell != null ? cell.headerText() : null;
+                  if (value != null && !value.trim().isEmpty()) {
+                    headers.add(value.trim());
+                  }
+                }
+                rows.add(headers);
+              });
+      headerRows = rows;
+      headerRowsBySheet.put(sheetIndex, headerRows);
+    }
+    return headerRows;
+  }
+
+  /** Streams the rows of a sheet to {@code rows}, in order, as they are read. */
+  public void readSheet(int sheetIndex, Consumer<SheetRow> rows) throws Exception {
+    workbook().readSheet(sheetIndex, Integer.MAX_VALUE, rows);
+  }
+
+  /** Whether {@link #readSheet} may be called for different sheets from several threads at once. */
+  public boolean readsSheetsConcurrently() throws Exception {
+    return workbook().readsSheetsConcurrently();
+  }
+
+  /** Records the number of rows read from a sheet; sheets are listed in the order recorded. */
+  public synchronized void recordSheetRows(String sheetName, int rows) {
+    rowsPerSheet.merge(sheetName, rows, Integer::sum);
+  }
+
+  /** Rows read per sheet, empty for text formats. */
+  public synchronized Map<String, Integer> rowsPerSheet() {
+    return new LinkedHashMap<>(rowsPerSheet);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (workbook != null) {
+      workbook.close();
+    }
+  }
+
+  private StatementWorkbook workbook() throws Exception {
+    if (!workbookOpened) {
+      workbookOpened = true;
+      if (isSpreadsheet()) {
+        workbook = openWorkbook();
+      }
+    }
+    return workbook;
+  }
+
+  private StatementWorkbook openWorkbook() throws Exception {
+    if (startsWith(OLE2_MAGIC)) {
+      return InMemoryStatementWorkbook.open(content);
+    }
+    try {
+      return XlsxStatementWorkbook.open(content);
+    } catch (Exception e) {
+      if (e.getMessage() != null && e.getMessage().contains("Strict OOXML")) {
+        return InMemoryStatementWorkbook.open(content);
+      }
+      throw e;
+    }
+  }
+
+  private boolean startsWith(byte[] magic) throws IOException {
+    byte[] bytes = head();
+    if (bytes.length < magic.length) return false;
+    for (int i = 0; i < magic.length; i++) {
+      if (bytes[i] != magic[i]) return false;
+    }
+    return true;
+  }
+
+  /** Reports undecodable input as an error naming the charset, not as "Input length = 1". */
+  private static final class StrictReader extends FilterReader {
+
+    private final Charset charset;
+
+    StrictReader(Reader in, Charset charset) {
+      super(in);
+      this.charset = charset;
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        return super.read();
+      } catch (CharacterCodingException e) {
+        throw undecodable(e);
+      }
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      try {
+        return super.read(buffer, offset, length);
+      } catch (CharacterCodingException e) {
+        throw undecodable(e);
+      }
+    }
+
+    private IOException undecodable(CharacterCodingException e) {
+      return new IOException(
+          "File is not valid "
+              + charset.name()
+              + " text; upload it again with the charset it was exported in"
+              + " (the charset parameter, e.g. windows-1254)",
+          e);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.spendinganalytics.parser;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** The sheets of an opened statement workbook, read row by row. */
+interface StatementWorkbook extends Closeable {
+
+  /** Sheet names in workbook order. */
+  List<String> sheetNames();
+
+  /**
+   * Hands the rows of a sheet to {@code rows} in order, stopping before the row with index {@code
+   * rowLimit}. Rows without any cells may be skipped.
+   */
+  void readSheet(int sheetIndex, int rowLimit, Consumer<SheetRow> rows) throws Exception;
+
+  /** Whether different sheets may be read at the same time, each on its own thread. */
+  boolean readsSheetsConcurrently();
+}
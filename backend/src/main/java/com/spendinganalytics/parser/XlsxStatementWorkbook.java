@@ -0,0 +1,268 @@
+package com.spendinganalytics.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.core.io.InputStreamSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * An OOXML workbook read with POI's event API: every sheet's XML is parsed with SAX ({@link
+ * XSSFSheetXMLHandler}) and its rows are handed on as they are read, so the heap does not grow with
+ * the number of rows. Only the shared strings and which cell styles are date formats stay in
+ * memory.
+ *
+ * <p>The upload is copied to a temporary file first: opened from a file, the package reads its zip
+ * entries in place, while opened from a stream it would buffer the whole archive.
+ */
+final class XlsxStatementWorkbook implements StatementWorkbook {
+
+  private final Path file;
+  private final OPCPackage pkg;
+  private final SharedStrings sharedStrings;
+  private final boolean[] dateStyles;
+  private final boolean date1904;
+  private final List<String> sheetNames = new ArrayList<>();
+  private final List<PackagePart> sheetParts = new ArrayList<>();
+
+  private XlsxStatementWorkbook(Path file, OPCPackage pkg) throws Exception {
+    this.file = file;
+    this.pkg = pkg;
+    // Throws for Strict OOXML, which the caller then loads whole instead
+    XSSFReader reader = new XSSFReader(pkg);
+    this.sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+    this.dateStyles = dateStyles(reader.getStylesTable());
+    this.date1904 = isDate1904(reader);
+    XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+    while (sheets.hasNext()) {
+      sheets.next().close();
+      sheetNames.add(sheets.getSheetName());
+      sheetParts.add(sheets.getSheetPart());
+    }
+  }
+
+  static XlsxStatementWorkbook open(InputStreamSource content) throws Exception {
+    Path file = Files.createTempFile("statement-", ".xlsx");
+    OPCPackage pkg = null;
+    try {
+      try (InputStream in = content.getInputStream()) {
+        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+      return new XlsxStatementWorkbook(file, pkg);
+    } catch (Exception e) {
+      if (pkg != null) {
+        pkg.revert();
+      }
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  @Override
+  public List<String> sheetNames() {
+    return sheetNames;
+  }
+
+  @Override
+  public void readSheet(int sheetIndex, int rowLimit, Consumer<SheetRow> rows) throws Exception {
+    RowCollector collector = new RowCollector(rows);
+    XMLReader xmlReader = XMLHelper.newXMLReader();
+    xmlReader.setContentHandler(new SheetHandler(collector, rowLimit));
+    try (InputStream in = sheetParts.get(sheetIndex).getInputStream()) {
+      xmlReader.parse(new InputSource(in));
+    } catch (RowLimitReached e) {
+      // The rest of the sheet is not needed
+    }
+  }
+
+  /**
+   * Every sheet is its own XML part, parsed by its own reader; the shared strings and date styles
+   * are only read.
+   */
+  @Override
+  public boolean readsSheetsConcurrently() {
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Opened read-only: revert closes the package without trying to save it
+    pkg.revert();
+    Files.deleteIfExists(file);
+  }
+
+  // Resolved once, so parsing never touches the (XMLBeans backed) style objects
+  private static boolean[] dateStyles(StylesTable styles) {
+    if (styles == null) return new boolean[0];
+    boolean[] dates = new boolean[styles.getNumCellStyles()];
+    for (int i = 0; i < dates.length; i++) {
+      XSSFCellStyle style = styles.getStyleAt(i);
+      dates[i] =
+          style != null
+              && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+    }
+    return dates;
+  }
+
+  private static boolean isDate1904(XSSFReader reader) throws Exception {
+    boolean[] date1904 = {false};
+    XMLReader xmlReader = XMLHelper.newXMLReader();
+    xmlReader.setContentHandler(
+        new DefaultHandler() {
+          @Override
+          public void startElement(
+              String uri, String localName, String qName, Attributes attributes) {
+            if ("workbookPr".equals(localName)) {
+              String value = attributes.getValue("date1904");
+              date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+            }
+          }
+        });
+    try (InputStream in = reader.getWorkbookData()) {
+      xmlReader.parse(new InputSource(in));
+    }
+    return date1904[0];
+  }
+
+  /** Thrown out of the SAX parse once the rows asked for have been read. */
+  private static final class RowLimitReached extends SAXException {}
+
+  /**
+   * POI's sheet handler, which resolves shared strings and formula results. It is given no styles,
+   * so numbers arrive unformatted; the cell type, style and formula flag it does not pass on are
+   * picked up here from the cell's attributes.
+   */
+  private final class SheetHandler extends XSSFSheetXMLHandler {
+
+    private final RowCollector collector;
+    private final int rowLimit;
+
+    SheetHandler(RowCollector collector, int rowLimit) {
+      super(null, sharedStrings, collector, new DataFormatter(), false);
+      this.collector = collector;
+      this.rowLimit = rowLimit;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes)
+        throws SAXException {
+      if ("c".equals(localName)) {
+        collector.startCell(attributes.getValue("t"), attributes.getValue("s"));
+      } else if ("f".equals(localName)) {
+        collector.formula = true;
+      }
+      super.startElement(uri, localName, qName, attributes);
+      if ("row".equals(localName) && collector.rowIndex >= rowLimit) {
+        throw new RowLimitReached();
+      }
+    }
+  }
+
+  /** Turns the values POI reports into {@link SheetRow}s. */
+  private final class RowCollector implements SheetContentsHandler {
+
+    private final Consumer<SheetRow> rows;
+
+    private int rowIndex;
+    private List<SheetCell> cells = new ArrayList<>();
+    private int nextColumn;
+
+    private String cellType;
+    private int cellStyle;
+    private boolean formula;
+
+    RowCollector(Consumer<SheetRow> rows) {
+      this.rows = rows;
+    }
+
+    void startCell(String type, String style) {
+      cellType = type;
+      cellStyle = style != null ? Integer.parseInt(style) : 0;
+      formula = false;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      rowIndex = rowNum;
+      cells = new ArrayList<>();
+      nextColumn = 0;
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      if (!cells.isEmpty()) {
+        rows.accept(new SheetRow(rowNum, cells));
+      }
+    }
+
+    @Override
+    public void cell(String cellReference, String value, XSSFComment comment) {
+      int column = cellReference != null ? column(cellReference) : nextColumn;
+      nextColumn = column + 1;
+      SheetCell cell = toCell(value);
+      if (cell == null) return;
+      while (cells.size() <= column) {
+        cells.add(null);
+      }
+      cells.set(column, cell);
+    }
+
+    private SheetCell toCell(String value) {
+      if (value == null) return null;
+      if (cellType == null || "n".equals(cellType)) {
+        if (value.isEmpty()) return null;
+        try {
+          double number = Double.parseDouble(value);
+          boolean dateStyle = cellStyle < dateStyles.length && dateStyles[cellStyle];
+          return SheetCell.number(
+              number, formula, dateStyle && DateUtil.isValidExcelDate(number), date1904);
+        } catch (NumberFormatException e) {
+          return SheetCell.text(value, formula);
+        }
+      }
+      return switch (cellType) {
+        case "s", "inlineStr" -> SheetCell.text(value, false);
+        case "str" -> SheetCell.text(value, true);
+        // ISO 8601 date cells, which Excel itself does not write, are kept as text
+        case "d" -> SheetCell.text(value, formula);
+        case "b" -> SheetCell.bool("TRUE".equals(value), formula);
+        default -> null; // "e": error values are treated as empty
+      };
+    }
+  }
+
+  // "AB12" -> 27
+  private static int column(String cellReference) {
+    int column = 0;
+    for (int i = 0; i < cellReference.length(); i++) {
+      char c = cellReference.charAt(i);
+      if (c < 'A' || c > 'Z') break;
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+}
@@ -0,0 +1,28 @@
+package com.spendinganalytics.repository;
+
+import com.spendinganalytics.entity.ImportLedgerEntry;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportLedgerRepository extends JpaRepository<ImportLedgerEntry, Long> {
+
+  Optional<ImportLedgerEntry> findByTenantIdAndContentHash(String tenantId, String contentHash);
+
+  Page<ImportLedgerEntry> findByTenantIdOrderByImportedAtDesc(String tenantId, Pageable pageable);
+
+  // Files whose rows were (partly) purged can no longer be short-circuited
+  @Modifying
+  @Query("delete from ImportLedgerEntry e where e.tenantId = ?1 and e.dateFrom < ?2")
+  int deleteCoveringBefore(String tenantId, LocalDate cutoff);
+
+  @Modifying
+  @Query("delete from ImportLedgerEntry e where e.tenantId = ?1")
+  int deleteByTenantId(String tenantId);
+}
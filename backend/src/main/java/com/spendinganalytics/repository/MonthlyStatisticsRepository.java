@@ -0,0 +1,26 @@
+package com.spendinganalytics.repository;
+
+import com.spendinganalytics.entity.MonthlyStatistics;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MonthlyStatisticsRepository
+    extends JpaRepository<MonthlyStatistics, MonthlyStatistics.Key> {
+
+  List<MonthlyStatistics> findByTenantIdAndMonthBetweenOrderByMonth(
+      String tenantId, LocalDate monthStart, LocalDate monthEnd);
+
+  @Modifying
+  @Query("delete from MonthlyStatistics s where s.tenantId = ?1 and s.month in ?2")
+  int deleteByTenantIdAndMonthIn(String tenantId, Collection<LocalDate> months);
+
+  @Modifying
+  @Query("delete from MonthlyStatistics s where s.tenantId = ?1")
+  int deleteByTenantId(String tenantId);
+}
@@ -0,0 +1,19 @@
+package com.spendinganalytics.repository;
+
+import com.spendinganalytics.entity.SpendingAnomaly;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SpendingAnomalyRepository extends JpaRepository<SpendingAnomaly, Long> {
+
+  List<SpendingAnomaly> findByTenantIdOrderByIdDesc(String tenantId, Pageable pageable);
+
+  @Modifying
+  @Query("delete from SpendingAnomaly a where a.tenantId = ?1")
+  int deleteByTenantId(String tenantId);
+}
@@ -1,12 +1,17 @@
 package com.spendinganalytics.repository;
 
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.MerchantMonthSpendingDto;
+import com.spendinganalytics.dto.MonthlySpendingDto;
+import com.spendinganalytics.dto.SpendingAmountDto;
+import com.spendinganalytics.dto.SpendingSummaryDto;
 import com.spendinganalytics.entity.Transaction;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,12 +20,65 @@ import org.springframework.stereotype.Repository;
 public interface TransactionRepository
     extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
 
-  Optional<Transaction> findByDedupHash(String dedupHash);
+  // Every query leads with tenant_id, so it reads only that tenant's range of the tenant-leading
+  // indexes; the transaction_date range lets PostgreSQL prune the monthly partitions outside it
+  @Query(
+      "select new com.spendinganalytics.dto.DailySpendingDto("
+          + "t.transactionDate, sum(t.amount), count(t)) from Transaction t "
+          + "where t.tenantId = ?1 and t.transactionDate between ?2 and ?3 and t.amount < 0 "
+          + "group by t.transactionDate order by t.transactionDate")
+  List<DailySpendingDto> sumSpendingByDayBetween(
+      String tenantId, LocalDate transactionDateStart, LocalDate transactionDateEnd);
 
-  @Query("select t from Transaction t where t.transactionDate between ?1 and ?2 and t.amount < 0")
-  List<Transaction> findSpendingBetween(
-      LocalDate transactionDateStart, LocalDate transactionDateEnd);
+  @Query(
+      "select new com.spendinganalytics.dto.SpendingAmountDto(t.transactionDate, t.amount) "
+          + "from Transaction t "
+          + "where t.tenantId = ?1 and t.transactionDate between ?2 and ?3 and t.amount < 0 "
+          + "order by t.transactionDate")
+  List<SpendingAmountDto> findSpendingAmountsBetween(
+      String tenantId, LocalDate transactionDateStart, LocalDate transactionDateEnd);
 
-  @Query("SELECT t.dedupHash FROM Transaction t WHERE t.dedupHash IN :hashes")
-  Set<String> findExistingDedupHashes(@Param("hashes") Set<String> hashes);
+  @Query(
+      "select new com.spendinganalytics.dto.MonthlySpendingDto("
+          + "year(t.transactionDate), month(t.transactionDate), sum(t.amount)) "
+          + "from Transaction t "
+          + "where t.tenantId = ?1 and t.transactionDate between ?2 and ?3 and t.amount < 0 "
+          + "group by year(t.transactionDate), month(t.transactionDate)")
+  List<MonthlySpendingDto> sumSpendingByMonthBetween(
+      String tenantId, LocalDate transactionDateStart, LocalDate transactionDateEnd);
+
+  @Query(
+      "select new com.spendinganalytics.dto.MerchantMonthSpendingDto(t.merchant, "
+          + "year(t.transactionDate), month(t.transactionDate), sum(t.amount), count(t)) "
+          + "from Transaction t "
+          + "where t.tenantId = ?1 and t.transactionDate between ?2 and ?3 and t.amount < 0 "
+          + "group by t.merchant, year(t.transactionDate), month(t.transactionDate)")
+  List<MerchantMonthSpendingDto> sumSpendingByMerchantAndMonthBetween(
+      String tenantId, LocalDate transactionDateStart, LocalDate transactionDateEnd);
+
+  @Query(
+      "select new com.spendinganalytics.dto.SpendingSummaryDto("
+          + "coalesce(sum(abs(t.amount)), 0), count(distinct t.transactionDate)) "
+          + "from Transaction t where t.tenantId = ?1")
+  SpendingSummaryDto summarize(String tenantId);
+
+  long countByTenantId(String tenantId);
+
+  @Query("select distinct t.merchant from Transaction t where t.tenantId = ?1 order by t.merchant")
+  List<String> findDistinctMerchants(String tenantId);
+
+  @Query(
+      "SELECT t.dedupHash FROM Transaction t "
+          + "WHERE t.tenantId = :tenantId AND t.dedupHash IN :hashes")
+  Set<String> findExistingDedupHashes(
+      @Param("tenantId") String tenantId, @Param("hashes") Set<String> hashes);
+
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM transactions WHERE (id, transaction_date) IN ("
+              + "SELECT id, transaction_date FROM transactions "
+              + "WHERE tenant_id = ?1 AND transaction_date < ?2 LIMIT ?3)",
+      nativeQuery = true)
+  int deleteBatchBefore(String tenantId, LocalDate cutoff, int batchSize);
 }
@@ -0,0 +1,286 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.dto.SpendingAnomalyDto;
+import com.spendinganalytics.entity.SpendingAnomaly;
+import com.spendinganalytics.entity.Transaction;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.repository.SpendingAnomalyRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Flags imported transactions that are unusually large for their merchant or for their weekday.
+ * Every (merchant) and (weekday) of a tenant keeps Welford running statistics of ln(|amount|) in
+ * {@code spending_baselines}. New rows are scored against the statistics as they were before the
+ * chunk that brought them, and the chunk is then merged in, so an import costs time proportional
+ * to its new rows however long the history is.
+ *
+ * <p>Amounts are compared on the log scale because spending is roughly log-normal: a purchase is
+ * unusual when it is many times the usual amount, not when it is some fixed sum above it.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnomalyDetectionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectionService.class);
+
+  static final String MERCHANT = "MERCHANT";
+  static final String WEEKDAY = "WEEKDAY";
+
+  // A merchant that always charges the same price has no spread at all; this floor (about 10%)
+  // keeps a small price change from counting as infinitely unusual
+  private static final double MIN_LOG_STD_DEV = 0.1;
+
+  private static final Comparator<BaselineKey> KEY_ORDER =
+      Comparator.comparing(BaselineKey::dimension).thenComparing(BaselineKey::key);
+
+  private static final String SELECT_BASELINES_SQL =
+      "SELECT dimension, dimension_key, sample_count, mean, m2 FROM spending_baselines "
+          + "WHERE tenant_id = ? AND (dimension, dimension_key) IN "
+          + "(SELECT * FROM unnest(?::varchar[], ?::varchar[]))";
+
+  // Chan et al.'s pairwise combination of two Welford states. The keys arrive sorted, so
+  // concurrent imports lock baseline rows in the same order.
+  private static final String MERGE_BASELINES_SQL =
+      "INSERT INTO spending_baselines AS b "
+          + "(tenant_id, dimension, dimension_key, sample_count, mean, m2, updated_at) "
+          + "SELECT ?, u.dimension, u.dimension_key, u.sample_count, u.mean, u.m2, now() "
+          + "FROM unnest(?::varchar[], ?::varchar[], ?::bigint[], ?::float8[], ?::float8[]) "
+          + "AS u(dimension, dimension_key, sample_count, mean, m2) "
+          + "ON CONFLICT (tenant_id, dimension, dimension_key) DO UPDATE SET "
+          + "sample_count = b.sample_count + EXCLUDED.sample_count, "
+          + "mean = b.mean + (EXCLUDED.mean - b.mean) * EXCLUDED.sample_count "
+          + "/ (b.sample_count + EXCLUDED.sample_count), "
+          + "m2 = b.m2 + EXCLUDED.m2 + (EXCLUDED.mean - b.mean) * (EXCLUDED.mean - b.mean) "
+          + "* b.sample_count * EXCLUDED.sample_count / (b.sample_count + EXCLUDED.sample_count), "
+          + "updated_at = EXCLUDED.updated_at";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final SpendingAnomalyRepository spendingAnomalyRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${spending.anomalies.enabled:true}")
+  private boolean enabled;
+
+  @Value("${spending.anomalies.z-threshold:3.0}")
+  private double zThreshold;
+
+  @Value("${spending.anomalies.min-samples:5}")
+  private long minSamples;
+
+  /**
+   * Scores newly inserted transactions and merges them into the baselines. Called inside the
+   * transaction that inserts them, so every stored row is counted exactly once, also when an
+   * interrupted import is resumed.
+   *
+   * @return the number of anomalies recorded
+   */
+  public int observe(String tenantId, List<Transaction> inserted) {
+    if (!enabled) return 0;
+    List<Transaction> spending =
+        inserted.stream().filter(t -> t.getAmount().signum() < 0).toList();
+    if (spending.isEmpty()) return 0;
+
+    Set<BaselineKey> keys = new HashSet<>();
+    for (Transaction t : spending) {
+      keys.add(merchantKey(t));
+      keys.add(weekdayKey(t));
+    }
+    Map<BaselineKey, Baseline> before = loadBaselines(tenantId, keys);
+
+    Map<BaselineKey, Baseline> added = new TreeMap<>(KEY_ORDER);
+    LocalDateTime now = LocalDateTime.now();
+    List<SpendingAnomaly> anomalies = new ArrayList<>();
+    for (Transaction t : spending) {
+      double x = Math.log(t.getAmount().negate().doubleValue());
+      SpendingAnomaly worst = null;
+      for (BaselineKey key : List.of(merchantKey(t), weekdayKey(t))) {
+        Baseline baseline = before.get(key);
+        double z = baseline != null ? baseline.zScore(x, minSamples) : Double.NaN;
+        if (z >= zThreshold && (worst == null || z > worst.getZScore())) {
+          worst = anomaly(t, key, baseline, z, now);
+        }
+        added.computeIfAbsent(key, k -> new Baseline()).add(x);
+      }
+      if (worst != null) {
+        anomalies.add(worst);
+      }
+    }
+
+    merge(tenantId, added);
+    if (!anomalies.isEmpty()) {
+      spendingAnomalyRepository.saveAll(anomalies);
+      logger.debug("Flagged {} of {} new transactions", anomalies.size(), spending.size());
+    }
+    return anomalies.size();
+  }
+
+  /** The latest anomalies, newest first; reads one index range whatever the history size. */
+  @Transactional(readOnly = true)
+  public List<SpendingAnomalyDto> getRecentAnomalies(String tenantId, int limit) {
+    return spendingAnomalyRepository
+        .findByTenantIdOrderByIdDesc(tenantId, PageRequest.of(0, limit))
+        .stream()
+        .map(this::toDto)
+        .toList();
+  }
+
+  /**
+   * Deleting everything also forgets what was usual. A purge keeps both tables: the baselines
+   * still describe the tenant's spending, and the anomalies are a log.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    if (event.reason() != TransactionsChangedEvent.Reason.DELETE_ALL) return;
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          jdbcTemplate.update(
+              "DELETE FROM spending_baselines WHERE tenant_id = ?", event.tenantId());
+          spendingAnomalyRepository.deleteByTenantId(event.tenantId());
+        });
+  }
+
+  private Map<BaselineKey, Baseline> loadBaselines(String tenantId, Set<BaselineKey> keys) {
+    List<String> dimensions = new ArrayList<>();
+    List<String> dimensionKeys = new ArrayList<>();
+    for (BaselineKey key : keys) {
+      dimensions.add(key.dimension());
+      dimensionKeys.add(key.key());
+    }
+
+    Map<BaselineKey, Baseline> baselines = new HashMap<>();
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(SELECT_BASELINES_SQL);
+          statement.setString(1, tenantId);
+          statement.setArray(2, connection.createArrayOf("varchar", dimensions.toArray()));
+          statement.setArray(3, connection.createArrayOf("varchar", dimensionKeys.toArray()));
+          return statement;
+        },
+        rs -> {
+          baselines.put(
+              new BaselineKey(rs.getString("dimension"), rs.getString("dimension_key")),
+              new Baseline(rs.getLong("sample_count"), rs.getDouble("mean"), rs.getDouble("m2")));
+        });
+    return baselines;
+  }
+
+  private void merge(String tenantId, Map<BaselineKey, Baseline> added) {
+    int size = added.size();
+    String[] dimensions = new String[size];
+    String[] dimensionKeys = new String[size];
+    Long[] counts = new Long[size];
+    Double[] means = new Double[size];
+    Double[] m2s = new Double[size];
+    int i = 0;
+    for (Map.Entry<BaselineKey, Baseline> entry : added.entrySet()) {
+      dimensions[i] = entry.getKey().dimension();
+      dimensionKeys[i] = entry.getKey().key();
+      counts[i] = entry.getValue().count;
+      means[i] = entry.getValue().mean;
+      m2s[i] = entry.getValue().m2;
+      i++;
+    }
+
+    jdbcTemplate.update(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(MERGE_BASELINES_SQL);
+          statement.setString(1, tenantId);
+          statement.setArray(2, connection.createArrayOf("varchar", dimensions));
+          statement.setArray(3, connection.createArrayOf("varchar", dimensionKeys));
+          statement.setArray(4, connection.createArrayOf("bigint", counts));
+          statement.setArray(5, connection.createArrayOf("float8", means));
+          statement.setArray(6, connection.createArrayOf("float8", m2s));
+          return statement;
+        });
+  }
+
+  private static BaselineKey merchantKey(Transaction t) {
+    return new BaselineKey(MERCHANT, t.getMerchant());
+  }
+
+  private static BaselineKey weekdayKey(Transaction t) {
+    return new BaselineKey(WEEKDAY, t.getTransactionDate().getDayOfWeek().name());
+  }
+
+  private static SpendingAnomaly anomaly(
+      Transaction t, BaselineKey key, Baseline baseline, double z, LocalDateTime now) {
+    return new SpendingAnomaly(
+        null,
+        t.getTenantId(),
+        t.getTransactionDate(),
+        t.getMerchant(),
+        t.getAmount(),
+        t.getDedupHash(),
+        key.dimension(),
+        key.key(),
+        BigDecimal.valueOf(Math.exp(baseline.mean)).setScale(2, RoundingMode.HALF_UP),
+        z,
+        now);
+  }
+
+  private SpendingAnomalyDto toDto(SpendingAnomaly anomaly) {
+    return new SpendingAnomalyDto(
+        anomaly.getId(),
+        anomaly.getTransactionDate(),
+        anomaly.getMerchant(),
+        anomaly.getAmount(),
+        anomaly.getDimension(),
+        anomaly.getDimensionKey(),
+        anomaly.getTypicalAmount(),
+        anomaly.getZScore(),
+        anomaly.getDetectedAt());
+  }
+
+  private record BaselineKey(String dimension, String key) {}
+
+  /** Welford state: sample count, mean, and the sum of squared deviations from the mean. */
+  private static final class Baseline {
+
+    private long count;
+    private double mean;
+    private double m2;
+
+    Baseline() {}
+
+    Baseline(long count, double mean, double m2) {
+      this.count = count;
+      this.mean = mean;
+      this.m2 = m2;
+    }
+
+    void add(double x) {
+      count++;
+      double delta = x - mean;
+      mean += delta / count;
+      m2 += delta * (x - mean);
+    }
+
+    /** Standard deviations of {@code x} above the mean, or NaN while there are too few samples. */
+    double zScore(double x, long minSamples) {
+      if (count < minSamples || count < 2) return Double.NaN;
+      double stdDev = Math.max(Math.sqrt(m2 / (count - 1)), MIN_LOG_STD_DEV);
+      return (x - mean) / stdDev;
+    }
+  }
+}
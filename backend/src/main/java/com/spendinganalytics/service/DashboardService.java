@@ -1,36 +1,162 @@
 package com.spendinganalytics.service;
 
+import static java.util.Comparator.naturalOrder;
+
+import com.spendinganalytics.analytics.ColumnarAnalyticsEngine;
+import com.spendinganalytics.analytics.ColumnarTransactions;
+import com.spendinganalytics.dto.CompactDashboardResponseDto;
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.DashboardRequestDto;
 import com.spendinganalytics.dto.DashboardResponseDto;
-import com.spendinganalytics.entity.Transaction;
+import com.spendinganalytics.dto.SpendingDistributionDto;
+import com.spendinganalytics.dto.SpendingSummaryDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
 import com.spendinganalytics.enums.DashboardPeriod;
-import com.spendinganalytics.repository.TransactionRepository;
+import com.spendinganalytics.util.QuantileSketch;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-  private final TransactionRepository transactionRepository;
+  private final SpendingAggregateCache spendingAggregates;
   private final StatisticsService statisticsService;
+  private final MonthlyStatisticsService monthlyStatisticsService;
+  private final ColumnarAnalyticsEngine analyticsEngine;
+
+  @Transactional(readOnly = true)
+  public DashboardResponseDto getDashboard(
+      String tenantId, DashboardPeriod period, Integer month, Integer year) {
+    return getDashboards(tenantId, List.of(new DashboardRequestDto(period, month, year))).get(0);
+  }
 
-  public DashboardResponseDto getDashboard(DashboardPeriod period, Integer month, Integer year) {
+  /**
+   * Computes several dashboards from shared data: the daily spending totals of the union of their
+   * date ranges are read with one aggregate query, and the overall average with another (or both
+   * from the in-memory {@link ColumnarAnalyticsEngine} when it is enabled), through the {@link
+   * SpendingAggregateCache}. Each dashboard is then derived in memory, so asking for N periods costs
+   * about as much as one.
+   * Read-only, so the queries may be served by the read replica.
+   */
+  @Transactional(readOnly = true)
+  public List<DashboardResponseDto> getDashboards(
+      String tenantId, List<DashboardRequestDto> requests) {
     LocalDate today = LocalDate.now();
+    List<DashboardRange> ranges =
+        requests.stream().map(request -> resolveRange(request, today)).toList();
 
-    LocalDate startDate = resolveStartDate(period, month, year, today);
-    LocalDate endDate = resolveEndDate(period, month, year, today);
+    LocalDate from =
+        ranges.stream().map(DashboardRange::previousStartDate).min(naturalOrder()).orElse(today);
+    LocalDate to = ranges.stream().map(DashboardRange::endDate).max(naturalOrder()).orElse(today);
+    NavigableMap<LocalDate, BigDecimal> dailyTotals = loadDailyTotals(tenantId, from, to);
 
-    LocalDate previousStartDate = resolvePreviousStartDate(period, startDate);
-    LocalDate previousEndDate = resolvePreviousEndDate(period, previousStartDate, endDate);
+    // Calculate overall average per day across all of the tenant's transactions
+    ColumnarTransactions columns = analyticsEngine.columns(tenantId);
+    SpendingSummaryDto summary =
+        columns != null
+            ? new SpendingSummaryDto(
+                BigDecimal.valueOf(columns.totalAbsoluteCents(), 2), (long) columns.activeDays())
+            : spendingAggregates.summarize(tenantId);
+    BigDecimal overallTotalSpent =
+        summary.totalAbsolute().setScale(2, java.math.RoundingMode.HALF_UP);
+    BigDecimal overallAvgPerDay =
+        statisticsService.averagePerActiveDay(overallTotalSpent, summary.activeDays());
+
+    // Monthly statistics of every month the dashboards cover, and of the year before the current
+    // month when the month-end projection needs it
+    YearMonth currentMonth = YearMonth.from(today);
+    NavigableMap<YearMonth, MonthlyStatistics> monthStatistics =
+        loadMonthStatistics(tenantId, ranges, currentMonth, today);
+    List<MonthlyStatistics> lastTwelveFullMonths =
+        new ArrayList<>(
+            monthStatistics
+                .subMap(currentMonth.minusMonths(12), true, currentMonth.minusMonths(1), true)
+                .values());
+
+    List<DashboardResponseDto> dashboards = new ArrayList<>(ranges.size());
+    for (DashboardRange range : ranges) {
+      dashboards.add(
+          buildDashboard(
+              range,
+              today,
+              dailyTotals,
+              overallAvgPerDay,
+              lastTwelveFullMonths,
+              distribution(range, monthStatistics)));
+    }
+    return dashboards;
+  }
+
+  /**
+   * Snapshots of the closed months, read (or computed once and stored) with one call, and the
+   * current month computed from its rows through today. Months after the current one have no
+   * statistics.
+   */
+  private NavigableMap<YearMonth, MonthlyStatistics> loadMonthStatistics(
+      String tenantId, List<DashboardRange> ranges, YearMonth currentMonth, LocalDate today) {
+    YearMonth first =
+        ranges.stream()
+            .map(range -> YearMonth.from(range.startDate()))
+            .min(naturalOrder())
+            .orElse(currentMonth);
+    YearMonth last =
+        ranges.stream()
+            .map(range -> YearMonth.from(range.endDate()))
+            .max(naturalOrder())
+            .orElse(currentMonth);
+    if (ranges.stream().anyMatch(range -> range.period() == DashboardPeriod.THIS_MONTH)) {
+      first = first.isBefore(currentMonth.minusMonths(12)) ? first : currentMonth.minusMonths(12);
+    }
+
+    NavigableMap<YearMonth, MonthlyStatistics> byMonth = new TreeMap<>();
+    for (MonthlyStatistics snapshot : monthlyStatisticsService.getSnapshots(tenantId, first, last)) {
+      byMonth.put(YearMonth.from(snapshot.getMonth()), snapshot);
+    }
+    if (!first.isAfter(currentMonth) && !last.isBefore(currentMonth)) {
+      byMonth.put(currentMonth, monthlyStatisticsService.computeCurrentMonth(tenantId, today));
+    }
+    return byMonth;
+  }
+
+  /** Percentiles of a range from its merged monthly sketches; ranges always cover whole months. */
+  private SpendingDistributionDto distribution(
+      DashboardRange range, NavigableMap<YearMonth, MonthlyStatistics> monthStatistics) {
+    QuantileSketch amounts = new QuantileSketch();
+    QuantileSketch dailyTotals = new QuantileSketch();
+    for (MonthlyStatistics month :
+        monthStatistics
+            .subMap(YearMonth.from(range.startDate()), true, YearMonth.from(range.endDate()), true)
+            .values()) {
+      amounts.merge(QuantileSketch.fromBytes(month.getAmountSketch()));
+      dailyTotals.merge(QuantileSketch.fromBytes(month.getDailySketch()));
+    }
+    return statisticsService.distribution(amounts, dailyTotals);
+  }
+
+  private DashboardResponseDto buildDashboard(
+      DashboardRange range,
+      LocalDate today,
+      NavigableMap<LocalDate, BigDecimal> dailyTotals,
+      BigDecimal overallAvgPerDay,
+      List<MonthlyStatistics> lastTwelveFullMonths,
+      SpendingDistributionDto distribution) {
+    DashboardPeriod period = range.period();
+    LocalDate startDate = range.startDate();
+    LocalDate endDate = range.endDate();
 
-    List<Transaction> current = transactionRepository.findSpendingBetween(startDate, endDate);
-    List<Transaction> previous =
-        transactionRepository.findSpendingBetween(previousStartDate, previousEndDate);
+    Map<LocalDate, BigDecimal> current = dailyTotals.subMap(startDate, true, endDate, true);
+    Map<LocalDate, BigDecimal> previous =
+        dailyTotals.subMap(range.previousStartDate(), true, range.previousEndDate(), true);
 
     BigDecimal totalSpent = statisticsService.totalSpent(current);
     BigDecimal previousSpent = statisticsService.totalSpent(previous);
@@ -40,40 +166,81 @@ public class DashboardService {
     BigDecimal projectedMonthEnd = null;
     BigDecimal projectedMonthEndComparedPercent = null;
     if (period == DashboardPeriod.THIS_MONTH) {
-      List<Transaction> lastTwelveFullMonths = loadLastTwelveFullMonths(today);
       var projectionDto = statisticsService.projectedMonthEnd(today, current, lastTwelveFullMonths);
       projectedMonthEnd = projectionDto.projection();
       projectedMonthEndComparedPercent = projectionDto.comparedPercentage();
     }
 
-    // Calculate overall average per day across all transactions
-    List<Transaction> allTransactions = transactionRepository.findAll();
-    BigDecimal overallTotalSpent = statisticsService.totalSpent(allTransactions);
-    BigDecimal overallAvgPerDay = statisticsService.averagePerActiveDay(overallTotalSpent, allTransactions);
+    Map<String, BigDecimal> dataPoints =
+        statisticsService.dataPoints(current, startDate, endDate, period);
 
     // Calculate average monthly spend for YTD and YEAR
     BigDecimal avgMonthlySpend = null;
     if (period == DashboardPeriod.YTD || period == DashboardPeriod.YEAR) {
-      Map<String, BigDecimal> monthlyDataPoints = statisticsService.dataPoints(current, startDate, endDate, period);
-      if (!monthlyDataPoints.isEmpty()) {
-        BigDecimal sum = monthlyDataPoints.values().stream()
+      if (!dataPoints.isEmpty()) {
+        BigDecimal sum = dataPoints.values().stream()
             .reduce(BigDecimal.ZERO, BigDecimal::add);
-        avgMonthlySpend = sum.divide(BigDecimal.valueOf(monthlyDataPoints.size()), 2, java.math.RoundingMode.HALF_UP);
+        avgMonthlySpend = sum.divide(BigDecimal.valueOf(dataPoints.size()), 2, java.math.RoundingMode.HALF_UP);
       }
     }
 
-    Map<String, BigDecimal> dataPoints =
-        statisticsService.dataPoints(current, startDate, endDate, period);
-
     return new DashboardResponseDto(
-        totalSpent, previousSpent, changePercent, avgPerDay, projectedMonthEnd, projectedMonthEndComparedPercent, overallAvgPerDay, avgMonthlySpend, dataPoints);
+        totalSpent, previousSpent, changePercent, avgPerDay, projectedMonthEnd, projectedMonthEndComparedPercent, overallAvgPerDay, avgMonthlySpend, distribution, dataPoints);
+  }
+
+  /** Positive spending total of every day between the dates that has any spending. */
+  private NavigableMap<LocalDate, BigDecimal> loadDailyTotals(
+      String tenantId, LocalDate from, LocalDate to) {
+    ColumnarTransactions columns = analyticsEngine.columns(tenantId);
+    if (columns != null) {
+      return columns.dailySpendingBetween(from, to);
+    }
+    NavigableMap<LocalDate, BigDecimal> dailyTotals = new TreeMap<>();
+    for (DailySpendingDto day : spendingAggregates.sumSpendingByDayBetween(tenantId, from, to)) {
+      dailyTotals.put(day.day(), day.total().abs());
+    }
+    return dailyTotals;
   }
 
-  private List<Transaction> loadLastTwelveFullMonths(LocalDate today) {
-    YearMonth current = YearMonth.from(today);
-    YearMonth start = current.minusMonths(12);
-    YearMonth end = current.minusMonths(1);
-    return transactionRepository.findSpendingBetween(start.atDay(1), end.atEndOfMonth());
+  /** Replaces the keyed data points with a dense series of cents starting at the first key. */
+  public CompactDashboardResponseDto toCompact(
+      DashboardResponseDto dashboard, DashboardPeriod period) {
+    String step = (period == DashboardPeriod.YTD || period == DashboardPeriod.YEAR) ? "MONTH" : "DAY";
+
+    Map<String, BigDecimal> dataPoints = dashboard.dataPoints();
+    long[] amountsCents = new long[dataPoints.size()];
+    String seriesStart = null;
+    int i = 0;
+    for (Map.Entry<String, BigDecimal> entry : dataPoints.entrySet()) {
+      if (seriesStart == null) {
+        seriesStart = entry.getKey();
+      }
+      amountsCents[i++] = entry.getValue().movePointRight(2).longValue();
+    }
+
+    return new CompactDashboardResponseDto(
+        dashboard.totalSpent(),
+        dashboard.previousPeriodSpent(),
+        dashboard.changePercent(),
+        dashboard.avgPerDay(),
+        dashboard.projectedMonthEnd(),
+        dashboard.projectedMonthEndComparedPercent(),
+        dashboard.overallAvgPerDay(),
+        dashboard.avgMonthlySpend(),
+        dashboard.distribution(),
+        seriesStart,
+        step,
+        amountsCents);
+  }
+
+  private DashboardRange resolveRange(DashboardRequestDto request, LocalDate today) {
+    DashboardPeriod period =
+        request.period() != null ? request.period() : DashboardPeriod.THIS_MONTH;
+    LocalDate startDate = resolveStartDate(period, request.month(), request.year(), today);
+    LocalDate endDate = resolveEndDate(period, request.month(), request.year(), today);
+    LocalDate previousStartDate = resolvePreviousStartDate(period, startDate);
+    LocalDate previousEndDate = resolvePreviousEndDate(period, previousStartDate, endDate);
+    return new DashboardRange(period, startDate, endDate, previousStartDate, previousEndDate);
   }
 
   private LocalDate resolveStartDate(
@@ -131,4 +298,11 @@ public class DashboardService {
     if (year <= 0) return today.getYear();
     return year;
   }
+
+  private record DashboardRange(
+      DashboardPeriod period,
+      LocalDate startDate,
+      LocalDate endDate,
+      LocalDate previousStartDate,
+      LocalDate previousEndDate) {}
 }
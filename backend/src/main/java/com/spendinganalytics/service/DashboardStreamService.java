@@ -0,0 +1,370 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.dto.DashboardRequestDto;
+import com.spendinganalytics.dto.DashboardResponseDto;
+import com.spendinganalytics.dto.DashboardUpdateDto;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes dashboard updates to Server-Sent Events subscribers. After every committed change of a
+ * tenant's data, the dashboards its subscribers follow are computed once, with a single {@link
+ * DashboardService#getDashboards} call, and compared with what was last pushed. Each subscriber
+ * then receives only the dashboards that changed, and of those only the changed data points.
+ *
+ * <p>All computing happens on one background thread, so imports are not held up and the last
+ * pushed state needs no locking. That state is kept per day: dashboards such as THIS_MONTH change
+ * at midnight without any new data, so a new subscriber never gets yesterday's.
+ *
+ * <p>Events wait in a small queue per subscriber and are sent from a shared pool, so a client that
+ * stops reading holds up nobody else. It is dropped once {@link #MAX_PENDING_EVENTS} events are
+ * waiting, and reconnects to a full update.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardStreamService {
+
+  private static final Logger logger = LoggerFactory.getLogger(DashboardStreamService.class);
+
+  private static final String EVENT_NAME = "dashboard";
+
+  private static final int MAX_PENDING_EVENTS = 16;
+
+  private final DashboardService dashboardService;
+
+  private final Map<String, List<Subscriber>> subscribersByTenant = new ConcurrentHashMap<>();
+
+  // Last dashboards pushed per tenant; only used on the stream thread
+  private final Map<String, PushedDashboards> lastPushed = new HashMap<>();
+
+  private final ExecutorService streamExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  // Drains subscriber queues; a thread per subscriber that has events waiting
+  private final ExecutorService sendExecutor = newSendExecutor();
+
+  @Value("${spending.dashboard.stream.timeout-ms:1800000}")
+  private long timeoutMillis;
+
+  @PreDestroy
+  public void shutdown() {
+    streamExecutor.shutdownNow();
+    sendExecutor.shutdownNow();
+  }
+
+  /**
+   * Registers a subscriber for the given dashboards. The first event it receives is a full update
+   * of each of them.
+   */
+  public SseEmitter subscribe(String tenantId, List<DashboardRequestDto> requests) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    Subscriber subscriber = new Subscriber(emitter, new LinkedHashSet<>(requests));
+    subscribersByTenant
+        .computeIfAbsent(tenantId, t -> new CopyOnWriteArrayList<>())
+        .add(subscriber);
+
+    Runnable unsubscribe = () -> unsubscribe(tenantId, subscriber);
+    emitter.onCompletion(unsubscribe);
+    emitter.onTimeout(unsubscribe);
+    emitter.onError(error -> unsubscribe.run());
+
+    streamExecutor.execute(() -> sendInitial(tenantId, subscriber));
+    return emitter;
+  }
+
+  /**
+   * Runs after the listeners that refresh the caches the dashboards are computed from, so the
+   * shared computation sees the new data.
+   */
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    if (!subscribersByTenant.containsKey(event.tenantId())) return;
+    streamExecutor.execute(() -> pushChanges(event.tenantId()));
+  }
+
+  /** Keeps idle connections from being closed by proxies and notices clients that went away. */
+  @Scheduled(fixedDelayString = "${spending.dashboard.stream.heartbeat-ms:30000}")
+  public void sendHeartbeats() {
+    streamExecutor.execute(
+        () ->
+            subscribersByTenant.forEach(
+                (tenantId, subscribers) -> {
+                  for (Subscriber subscriber : subscribers) {
+                    send(tenantId, subscriber, SseEmitter.event().comment("heartbeat"));
+                  }
+                }));
+  }
+
+  private void sendInitial(String tenantId, Subscriber subscriber) {
+    Map<DashboardRequestDto, DashboardResponseDto> pushed = pushedToday(tenantId);
+    List<DashboardRequestDto> missing =
+        subscriber.requests().stream().filter(request -> !pushed.containsKey(request)).toList();
+    if (!missing.isEmpty()) {
+      putAll(pushed, missing, dashboardService.getDashboards(tenantId, missing));
+    }
+
+    for (DashboardRequestDto request : subscriber.requests()) {
+      DashboardResponseDto dashboard = pushed.get(request);
+      sendUpdate(
+          tenantId,
+          subscriber,
+          DashboardUpdateDto.of(request, true, dashboard, dashboard.dataPoints()));
+    }
+  }
+
+  private void pushChanges(String tenantId) {
+    List<Subscriber> subscribers = subscribersByTenant.get(tenantId);
+    if (subscribers == null || subscribers.isEmpty()) return;
+
+    // One computation for every dashboard any subscriber of the tenant follows
+    Set<DashboardRequestDto> followed = new LinkedHashSet<>();
+    subscribers.forEach(subscriber -> followed.addAll(subscriber.requests()));
+    List<DashboardRequestDto> requests = new ArrayList<>(followed);
+    List<DashboardResponseDto> dashboards;
+    try {
+      dashboards = dashboardService.getDashboards(tenantId, requests);
+    } catch (RuntimeException e) {
+      logger.warn("Could not compute dashboard updates for tenant {}", tenantId, e);
+      return;
+    }
+
+    Map<DashboardRequestDto, DashboardResponseDto> pushed = pushedToday(tenantId);
+    Map<DashboardRequestDto, DashboardUpdateDto> updates = new HashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      DashboardRequestDto request = requests.get(i);
+      DashboardUpdateDto update = diff(request, pushed.get(request), dashboards.get(i));
+      if (update != null) {
+        updates.put(request, update);
+      }
+    }
+    // Dashboards nobody follows any more would go stale
+    pushed.keySet().retainAll(followed);
+    putAll(pushed, requests, dashboards);
+    if (updates.isEmpty()) return;
+
+    for (Subscriber subscriber : subscribers) {
+      for (DashboardRequestDto request : subscriber.requests()) {
+        DashboardUpdateDto update = updates.get(request);
+        if (update != null) {
+          sendUpdate(tenantId, subscriber, update);
+        }
+      }
+    }
+    logger.debug(
+        "Pushed {} changed dashboards to {} subscribers of tenant {}",
+        updates.size(),
+        subscribers.size(),
+        tenantId);
+  }
+
+  /** What was pushed to the tenant's subscribers today; anything from an earlier day is dropped. */
+  private Map<DashboardRequestDto, DashboardResponseDto> pushedToday(String tenantId) {
+    LocalDate today = LocalDate.now();
+    PushedDashboards pushed = lastPushed.get(tenantId);
+    if (pushed == null || !pushed.day().equals(today)) {
+      pushed = new PushedDashboards(today, new HashMap<>());
+      lastPushed.put(tenantId, pushed);
+    }
+    return pushed.dashboards();
+  }
+
+  /**
+   * The update that turns {@code previous} into {@code current}, or {@code null} if nothing
+   * changed. Data points that disappeared (after a delete, or when THIS_MONTH moves on) cannot be
+   * expressed as a merge, so those changes are sent in full.
+   */
+  private DashboardUpdateDto diff(
+      DashboardRequestDto request, DashboardResponseDto previous, DashboardResponseDto current) {
+    if (previous == null
+        || !current.dataPoints().keySet().containsAll(previous.dataPoints().keySet())) {
+      return DashboardUpdateDto.of(request, true, current, current.dataPoints());
+    }
+
+    Map<String, BigDecimal> changed = new LinkedHashMap<>();
+    current
+        .dataPoints()
+        .forEach(
+            (key, value) -> {
+              BigDecimal before = previous.dataPoints().get(key);
+              if (before == null || before.compareTo(value) != 0) {
+                changed.put(key, value);
+              }
+            });
+    if (changed.isEmpty() && sameTotals(previous, current)) {
+      return null;
+    }
+    return DashboardUpdateDto.of(request, false, current, changed);
+  }
+
+  private boolean sameTotals(DashboardResponseDto a, DashboardResponseDto b) {
+    return Objects.equals(a.totalSpent(), b.totalSpent())
+        && Objects.equals(a.previousPeriodSpent(), b.previousPeriodSpent())
+        && Objects.equals(a.changePercent(), b.changePercent())
+        && Objects.equals(a.avgPerDay(), b.avgPerDay())
+        && Objects.equals(a.projectedMonthEnd(), b.projectedMonthEnd())
+        && Objects.equals(
+            a.projectedMonthEndComparedPercent(), b.projectedMonthEndComparedPercent())
+        && Objects.equals(a.overallAvgPerDay(), b.overallAvgPerDay())
+        && Objects.equals(a.avgMonthlySpend(), b.avgMonthlySpend());
+  }
+
+  private void putAll(
+      Map<DashboardRequestDto, DashboardResponseDto> pushed,
+      List<DashboardRequestDto> requests,
+      List<DashboardResponseDto> dashboards) {
+    for (int i = 0; i < requests.size(); i++) {
+      pushed.put(requests.get(i), dashboards.get(i));
+    }
+  }
+
+  private void sendUpdate(String tenantId, Subscriber subscriber, DashboardUpdateDto update) {
+    send(tenantId, subscriber, SseEmitter.event().name(EVENT_NAME).data(update));
+  }
+
+  private void send(String tenantId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+    if (!subscriber.enqueue(event)) {
+      logger.info("Dropping a dashboard subscriber of tenant {} that stopped reading", tenantId);
+      subscriber.close();
+      unsubscribe(tenantId, subscriber);
+      // Completing waits for the blocked send, so not on the stream thread
+      sendExecutor.execute(() -> subscriber.emitter().complete());
+      return;
+    }
+    if (subscriber.startDraining()) {
+      sendExecutor.execute(() -> drain(tenantId, subscriber));
+    }
+  }
+
+  private void drain(String tenantId, Subscriber subscriber) {
+    SseEmitter.SseEventBuilder event;
+    while ((event = subscriber.next()) != null) {
+      try {
+        subscriber.emitter().send(event);
+      } catch (IOException | IllegalStateException e) {
+        // The client disconnected or the emitter already completed
+        subscriber.close();
+        subscriber.emitter().completeWithError(e);
+        unsubscribe(tenantId, subscriber);
+        return;
+      }
+    }
+  }
+
+  private void unsubscribe(String tenantId, Subscriber subscriber) {
+    subscribersByTenant.computeIfPresent(
+        tenantId,
+        (t, subscribers) -> {
+          subscribers.remove(subscriber);
+          return subscribers.isEmpty() ? null : subscribers;
+        });
+    if (!subscribersByTenant.containsKey(tenantId)) {
+      // Nobody follows the tenant any more; its last pushed state would only go stale
+      streamExecutor.execute(
+          () -> {
+            if (!subscribersByTenant.containsKey(tenantId)) {
+              lastPushed.remove(tenantId);
+            }
+          });
+    }
+  }
+
+  private static ExecutorService newSendExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newCachedThreadPool(
+        runnable -> {
+          Thread thread = new Thread(runnable, "dashboard-send-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private record PushedDashboards(
+      LocalDate day, Map<DashboardRequestDto, DashboardResponseDto> dashboards) {}
+
+  /** A connected client and the events waiting to be sent to it. */
+  private static final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final Set<DashboardRequestDto> requests;
+
+    private final Deque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    Subscriber(SseEmitter emitter, Set<DashboardRequestDto> requests) {
+      this.emitter = emitter;
+      this.requests = requests;
+    }
+
+    SseEmitter emitter() {
+      return emitter;
+    }
+
+    Set<DashboardRequestDto> requests() {
+      return requests;
+    }
+
+    /** Queues the event; false if too many are already waiting. */
+    synchronized boolean enqueue(SseEmitter.SseEventBuilder event) {
+      if (closed) return true;
+      if (pending.size() >= MAX_PENDING_EVENTS) return false;
+      pending.add(event);
+      return true;
+    }
+
+    /** True if the caller should start draining: events are waiting and nobody drains them. */
+    synchronized boolean startDraining() {
+      if (draining || closed || pending.isEmpty()) return false;
+      draining = true;
+      return true;
+    }
+
+    /** The next event to send, or null (ending the drain) when none is waiting. */
+    synchronized SseEmitter.SseEventBuilder next() {
+      SseEmitter.SseEventBuilder event = closed ? null : pending.poll();
+      if (event == null) {
+        draining = false;
+      }
+      return event;
+    }
+
+    synchronized void close() {
+      closed = true;
+      pending.clear();
+    }
+  }
+}
@@ -1,21 +1,106 @@
 package com.spendinganalytics.service;
 
 import com.spendinganalytics.dto.DeleteAllDataResultDTO;
+import com.spendinganalytics.dto.PurgeDataResultDto;
+import com.spendinganalytics.event.TransactionsChangedEvent;
 import com.spendinganalytics.repository.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/** Bulk maintenance of a tenant's transactions: wiping everything and purging old history. */
 @Service
 @RequiredArgsConstructor
 public class DataService {
 
+  private static final Logger logger = LoggerFactory.getLogger(DataService.class);
+
   private final TransactionRepository transactionRepository;
+  private final ImportLedgerRepository importLedgerRepository;
+  private final TransactionPartitionService transactionPartitionService;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  // Later than any transaction date, for deleting all of a tenant's rows
+  private static final LocalDate END_OF_TIME = LocalDate.of(9999, 12, 31);
+
+  @Value("${spending.maintenance.purge-batch-size:5000}")
+  private int purgeBatchSize;
 
-  @Transactional
-  public DeleteAllDataResultDTO deleteAllData() {
-    long transactionCount = transactionRepository.count();
-    transactionRepository.deleteAll();
+  /**
+   * Deletes all transactions of a tenant. Past partitions holding only this tenant's rows are
+   * emptied whole; its rows in shared partitions and in the current and upcoming months are deleted
+   * in batches.
+   */
+  public DeleteAllDataResultDTO deleteAllData(String tenantId) {
+    long transactionCount = transactionRepository.countByTenantId(tenantId);
+    deleteTenantRows(
+        tenantId,
+        transactionPartitionService.listPastPartitionsWithRowsOf(tenantId, YearMonth.now()),
+        END_OF_TIME);
+    transactionTemplate.execute(status -> importLedgerRepository.deleteByTenantId(tenantId));
+    eventPublisher.publishEvent(
+        new TransactionsChangedEvent(
+            tenantId, TransactionsChangedEvent.Reason.DELETE_ALL, Set.of()));
     return new DeleteAllDataResultDTO(transactionCount);
   }
+
+  /**
+   * Deletes every transaction of a tenant dated before {@code cutoff}. Past months entirely before
+   * the cutoff whose partition holds only this tenant's rows are removed by emptying the partition;
+   * the remaining rows are deleted in batches of {@code spending.maintenance.purge-batch-size},
+   * each committed on its own so locks and WAL volume stay bounded.
+   */
+  public PurgeDataResultDto purgeBefore(String tenantId, LocalDate cutoff) {
+    List<String> partitions =
+        transactionPartitionService.listPastPartitionsWithRowsOf(tenantId, YearMonth.from(cutoff));
+    DeleteOutcome outcome = deleteTenantRows(tenantId, partitions, cutoff);
+
+    transactionTemplate.execute(
+        status -> importLedgerRepository.deleteCoveringBefore(tenantId, cutoff));
+
+    eventPublisher.publishEvent(
+        new TransactionsChangedEvent(tenantId, TransactionsChangedEvent.Reason.PURGE, Set.of()));
+    logger.info(
+        "Purged {} transactions of tenant {} before {} ({} partitions emptied)",
+        outcome.deleted(),
+        tenantId,
+        cutoff,
+        outcome.partitionsEmptied());
+    return new PurgeDataResultDto(cutoff, outcome.deleted(), outcome.partitionsEmptied());
+  }
+
+  private DeleteOutcome deleteTenantRows(
+      String tenantId, List<String> candidatePartitions, LocalDate cutoff) {
+    long deleted = 0;
+    int partitionsEmptied = 0;
+    for (String partition : candidatePartitions) {
+      long rows = transactionPartitionService.truncatePartitionIfOwnedBy(partition, tenantId);
+      if (rows >= 0) {
+        deleted += rows;
+        partitionsEmptied++;
+      }
+    }
+
+    int batchDeleted;
+    do {
+      Integer result =
+          transactionTemplate.execute(
+              status -> transactionRepository.deleteBatchBefore(tenantId, cutoff, purgeBatchSize));
+      batchDeleted = result != null ? result : 0;
+      deleted += batchDeleted;
+    } while (batchDeleted >= purgeBatchSize);
+
+    return new DeleteOutcome(deleted, partitionsEmptied);
+  }
+
+  private record DeleteOutcome(long deleted, int partitionsEmptied) {}
 }
@@ -0,0 +1,65 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tracks a version of each tenant's stored transaction data for HTTP conditional requests.
+ * Versions are seeded from the startup time so that validators issued before a restart are never
+ * reused, and a tenant's version is bumped after every committed import or delete of its data;
+ * other tenants' validators stay valid.
+ */
+@Service
+public class DataVersionService {
+
+  private final long startupVersion = System.currentTimeMillis();
+  private final Instant startup = Instant.now();
+
+  private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+  private final Map<String, Instant> lastModified = new ConcurrentHashMap<>();
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    versions
+        .computeIfAbsent(event.tenantId(), tenantId -> new AtomicLong(startupVersion))
+        .incrementAndGet();
+    lastModified.put(event.tenantId(), Instant.now());
+  }
+
+  public long currentVersion(String tenantId) {
+    AtomicLong version = versions.get(tenantId);
+    return version != null ? version.get() : startupVersion;
+  }
+
+  /**
+   * Builds an ETag for a response derived from the tenant's data. Responses that depend on the
+   * current date (such as THIS_MONTH) change at midnight even without new data, so today's date
+   * is part of the tag.
+   */
+  public String etag(String tenantId, Object... discriminators) {
+    StringBuilder tag = new StringBuilder("\"v").append(currentVersion(tenantId));
+    tag.append('-').append(LocalDate.now());
+    tag.append('-').append(tenantId);
+    for (Object discriminator : discriminators) {
+      tag.append('-').append(discriminator);
+    }
+    return tag.append('"').toString();
+  }
+
+  /**
+   * Last change of the tenant's data, but never earlier than the start of today (see {@link
+   * #etag}).
+   */
+  public long lastModifiedMillis(String tenantId) {
+    Instant startOfToday = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
+    Instant changed = lastModified.getOrDefault(tenantId, startup);
+    return (changed.isAfter(startOfToday) ? changed : startOfToday).toEpochMilli();
+  }
+}
@@ -0,0 +1,262 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-tenant {@link BloomFilter} over the stored dedup hashes, so that imports only ask the
+ * database about hashes that may already be stored. Most rows of a new statement are new, and
+ * the filter answers those without a lookup.
+ *
+ * <p>The filters are built in the background once the application is ready, by streaming the
+ * hashes from the database; until then every hash goes to the database. Imports add their hashes
+ * after committing them. Delete-all empties the tenant's filter; a purge, and a filter filled
+ * past its capacity, rebuild it. A filter can wrongly say "maybe stored", never "not stored", so
+ * a stale filter costs lookups but never lets a duplicate through.
+ *
+ * <p>Metrics: {@code spending.dedup.filter.checks}, {@code spending.dedup.filter.lookups.avoided},
+ * {@code spending.dedup.filter.false.positives} and the observed {@code
+ * spending.dedup.filter.false.positive.rate}.
+ */
+@Service
+@RequiredArgsConstructor
+public class DedupHashFilter implements MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(DedupHashFilter.class);
+
+  private static final int FETCH_SIZE = 10_000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${spending.import.dedup-filter.enabled:true}")
+  private boolean enabled;
+
+  @Value("${spending.import.dedup-filter.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  @Value("${spending.import.dedup-filter.min-capacity:100000}")
+  private long minCapacity;
+
+  private final Map<String, BloomFilter> filters = new ConcurrentHashMap<>();
+
+  // Filters being rebuilt; hashes committed meanwhile are added to them as well
+  private final Map<String, BloomFilter> rebuilding = new ConcurrentHashMap<>();
+  private boolean rebuildingAll;
+  private volatile boolean loaded;
+
+  private final AtomicLong checks = new AtomicLong();
+  private final AtomicLong lookupsAvoided = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+
+  private final ExecutorService rebuildExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "dedup-filter");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @PreDestroy
+  public void shutdown() {
+    rebuildExecutor.shutdownNow();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) return;
+    rebuildExecutor.execute(
+        () -> {
+          // Without filters every hash must go to the database, so stay unloaded on failure
+          loaded = rebuild(null);
+        });
+  }
+
+  /** The hashes that may already be stored for the tenant; the others are certainly new. */
+  public Set<String> filterMaybeStored(String tenantId, Set<String> hashes) {
+    checks.addAndGet(hashes.size());
+    if (!loaded) return hashes;
+
+    BloomFilter filter = filters.get(tenantId);
+    if (filter == null) {
+      // Loaded, and the tenant has nothing stored yet
+      lookupsAvoided.addAndGet(hashes.size());
+      return Set.of();
+    }
+    Set<String> maybeStored = new HashSet<>();
+    for (String hash : hashes) {
+      if (filter.mightContain(hash)) {
+        maybeStored.add(hash);
+      }
+    }
+    lookupsAvoided.addAndGet(hashes.size() - maybeStored.size());
+    return maybeStored;
+  }
+
+  /** Records how many of the hashes the filter passed on the database actually had. */
+  public void recordDatabaseMatches(int maybeStored, int found) {
+    if (loaded) {
+      falsePositives.addAndGet(maybeStored - found);
+    }
+  }
+
+  /** Adds hashes that were just committed. */
+  public synchronized void added(String tenantId, Collection<String> hashes) {
+    if (!enabled || hashes.isEmpty()) return;
+    BloomFilter filter = filters.computeIfAbsent(tenantId, t -> newFilter(0));
+    BloomFilter pending =
+        rebuildingAll
+            ? rebuilding.computeIfAbsent(tenantId, t -> newFilter(0))
+            : rebuilding.get(tenantId);
+    for (String hash : hashes) {
+      filter.add(hash);
+      if (pending != null) {
+        pending.add(hash);
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    if (!enabled) return;
+    String tenantId = event.tenantId();
+    switch (event.reason()) {
+      case DELETE_ALL -> filters.remove(tenantId);
+      case PURGE -> rebuildExecutor.execute(() -> rebuild(tenantId));
+      case IMPORT -> {
+        BloomFilter filter = filters.get(tenantId);
+        if (filter != null && filter.insertions() > filter.capacity()) {
+          logger.info("Dedup filter of tenant {} is over capacity, rebuilding", tenantId);
+          rebuildExecutor.execute(() -> rebuild(tenantId));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("spending.dedup.filter.checks", checks, AtomicLong::get)
+        .description("Dedup hashes checked against the filter")
+        .register(registry);
+    FunctionCounter.builder(
+            "spending.dedup.filter.lookups.avoided", lookupsAvoided, AtomicLong::get)
+        .description("Dedup hashes the filter ruled out without a database lookup")
+        .register(registry);
+    FunctionCounter.builder(
+            "spending.dedup.filter.false.positives", falsePositives, AtomicLong::get)
+        .description("Dedup hashes the filter passed on that the database did not have")
+        .register(registry);
+    Gauge.builder("spending.dedup.filter.false.positive.rate", this, DedupHashFilter::observedRate)
+        .description("Share of new dedup hashes the filter wrongly reported as maybe stored")
+        .register(registry);
+  }
+
+  private double observedRate() {
+    // Every new hash was either ruled out by the filter or is a false positive
+    long wrong = falsePositives.get();
+    long newHashes = wrong + lookupsAvoided.get();
+    return newHashes == 0 ? 0.0 : (double) wrong / newHashes;
+  }
+
+  /**
+   * Rebuilds the filter of one tenant, or of every tenant when {@code tenantId} is null. On
+   * failure the previous filters stay in place; they hold every stored hash, plus possibly some
+   * deleted ones.
+   *
+   * @return whether the filters were rebuilt
+   */
+  private boolean rebuild(String tenantId) {
+    long started = System.nanoTime();
+    try {
+      Map<String, Long> counts = countRows(tenantId);
+      synchronized (this) {
+        rebuildingAll = tenantId == null;
+        counts.forEach((tenant, rows) -> rebuilding.put(tenant, newFilter(rows)));
+        if (tenantId != null) {
+          rebuilding.putIfAbsent(tenantId, newFilter(0));
+        }
+      }
+
+      String sql = "SELECT tenant_id, dedup_hash FROM transactions";
+      transactionTemplate.executeWithoutResult(
+          status ->
+              jdbcTemplate.query(
+                  connection -> {
+                    // A cursor, so the hashes stream instead of being read into memory at once
+                    PreparedStatement statement =
+                        connection.prepareStatement(
+                            tenantId == null ? sql : sql + " WHERE tenant_id = ?");
+                    statement.setFetchSize(FETCH_SIZE);
+                    if (tenantId != null) {
+                      statement.setString(1, tenantId);
+                    }
+                    return statement;
+                  },
+                  rs -> {
+                    rebuilding
+                        .computeIfAbsent(rs.getString(1), t -> newFilter(0))
+                        .add(rs.getString(2));
+                  }));
+
+      synchronized (this) {
+        filters.putAll(rebuilding);
+      }
+      logger.info(
+          "Built dedup filters for {} tenants in {} ms",
+          rebuilding.size(),
+          (System.nanoTime() - started) / 1_000_000);
+      return true;
+    } catch (RuntimeException e) {
+      logger.warn("Could not rebuild the dedup filter, keeping the previous one", e);
+      return false;
+    } finally {
+      synchronized (this) {
+        rebuilding.clear();
+        rebuildingAll = false;
+      }
+    }
+  }
+
+  private Map<String, Long> countRows(String tenantId) {
+    Map<String, Long> counts = new HashMap<>();
+    String sql = "SELECT tenant_id, count(*) FROM transactions";
+    String grouping = " GROUP BY tenant_id";
+    jdbcTemplate.query(
+        tenantId == null ? sql + grouping : sql + " WHERE tenant_id = ?" + grouping,
+        rs -> {
+          counts.put(rs.getString(1), rs.getLong(2));
+        },
+        tenantId == null ? new Object[0] : new Object[] {tenantId});
+    return counts;
+  }
+
+  // Room to grow to twice the current rows before the filter needs rebuilding
+  private BloomFilter newFilter(long rows) {
+    return BloomFilter.withCapacity(Math.max(minCapacity, rows * 2), falsePositiveRate);
+  }
+}
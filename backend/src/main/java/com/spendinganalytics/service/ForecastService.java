@@ -0,0 +1,335 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.MerchantMonthSpendingDto;
+import com.spendinganalytics.dto.MonthForecastDto;
+import com.spendinganalytics.dto.ProjectedMonthEndDto;
+import com.spendinganalytics.dto.RecurringChargeDto;
+import com.spendinganalytics.dto.SpendingForecastDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Forecasts monthly spending up to twelve months ahead. A month's spending is modelled as the
+ * recurring charges (merchants charging about the same amount nearly every month) plus the other
+ * spending, which is a level times the calendar month's seasonal index:
+ *
+ * <ul>
+ *   <li>Seasonal indexes compare each month with the mean of its year, averaged over the complete
+ *       years of history and shrunk toward 1 when there are few of them.
+ *   <li>The level is the deseasonalised other spending of the last twelve closed months, plus the
+ *       current month as projected by {@link StatisticsService#projectedMonthEnd}, weighted by how
+ *       much of the month has passed.
+ * </ul>
+ *
+ * <p>Fitting reads years of monthly snapshots, so it runs once per tenant after every committed
+ * import or delete, on a background thread so the import does not wait for it, and requests are
+ * served from memory. A request arriving before the refit finishes fits the forecast itself. A
+ * forecast fit on an earlier day is fit again on its first request, because the current month's
+ * projection moves with the date.
+ */
+@Service
+@RequiredArgsConstructor
+public class ForecastService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ForecastService.class);
+
+  public static final int MAX_MONTHS = 12;
+
+  // A year with fewer months of spending than this (such as the year of the first import) says
+  // nothing about seasons
+  private static final int MIN_ACTIVE_MONTHS_PER_YEAR = 10;
+  private static final int MIN_LEVEL_MONTHS = 3;
+  private static final int MAX_RECURRING_CHARGES_PER_MONTH = 2;
+
+  // Half-width of a two-sided 80% interval in standard deviations; with too little history for a
+  // deviation, the interval is the level plus or minus FALLBACK_SPREAD of it
+  private static final double INTERVAL_Z = 1.2816;
+  private static final double FALLBACK_SPREAD = 0.5;
+
+  private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+  private final TransactionRepository transactionRepository;
+  private final MonthlyStatisticsService monthlyStatisticsService;
+  private final StatisticsService statisticsService;
+
+  @Value("${spending.forecast.history-years:3}")
+  private int historyYears;
+
+  @Value("${spending.forecast.recurring.window-months:6}")
+  private int recurringWindowMonths;
+
+  @Value("${spending.forecast.recurring.min-months:5}")
+  private int recurringMinMonths;
+
+  @Value("${spending.forecast.recurring.max-spread:0.25}")
+  private double recurringMaxSpread;
+
+  private final Map<String, SpendingForecastDto> forecasts = new ConcurrentHashMap<>();
+
+  // Bumped by every change to a tenant's data, so a fit that started before the change never
+  // replaces one that started after it. Other tenants' changes do not hold back the tenant's fits.
+  private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+  // Tenants with a refit queued and not started yet; further changes before it starts share it
+  private final Set<String> refitsQueued = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService refitExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "forecast-refit");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @PreDestroy
+  public void shutdown() {
+    refitExecutor.shutdownNow();
+  }
+
+  /** Forecast of the next {@code months} months (1 to {@link #MAX_MONTHS}). */
+  @Transactional(readOnly = true)
+  public SpendingForecastDto getForecast(String tenantId, int months) {
+    LocalDate today = LocalDate.now();
+    SpendingForecastDto forecast = forecasts.get(tenantId);
+    if (forecast == null || !forecast.asOf().equals(today)) {
+      forecast = fitAndCache(tenantId, today);
+    }
+    return new SpendingForecastDto(
+        forecast.asOf(),
+        forecast.currentMonth(),
+        forecast.recurringMonthly(),
+        forecast.recurringCharges(),
+        forecast.months().subList(0, Math.min(months, forecast.months().size())));
+  }
+
+  /**
+   * Drops the tenant's forecast and queues a refit; runs after the snapshots of the changed months
+   * are rebuilt.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    String tenantId = event.tenantId();
+    generation(tenantId).incrementAndGet();
+    forecasts.remove(tenantId);
+    if (refitsQueued.add(tenantId)) {
+      refitExecutor.execute(() -> refit(tenantId, event.reason()));
+    }
+  }
+
+  private void refit(String tenantId, TransactionsChangedEvent.Reason reason) {
+    // A change from here on queues another refit, since this one may read data from before it
+    refitsQueued.remove(tenantId);
+    try {
+      fitAndCache(tenantId, LocalDate.now());
+      logger.debug("Refit the forecast of tenant {} after {}", tenantId, reason);
+    } catch (RuntimeException e) {
+      // The next request fits it instead
+      logger.warn("Could not fit the forecast of tenant {}: {}", tenantId, e.getMessage());
+    }
+  }
+
+  private SpendingForecastDto fitAndCache(String tenantId, LocalDate today) {
+    AtomicLong generation = generation(tenantId);
+    long started = generation.get();
+    SpendingForecastDto forecast = fit(tenantId, today);
+    if (generation.get() == started) {
+      forecasts.put(tenantId, forecast);
+    }
+    return forecast;
+  }
+
+  private AtomicLong generation(String tenantId) {
+    return generations.computeIfAbsent(tenantId, t -> new AtomicLong());
+  }
+
+  private SpendingForecastDto fit(String tenantId, LocalDate today) {
+    YearMonth current = YearMonth.from(today);
+    List<MonthlyStatistics> snapshots =
+        monthlyStatisticsService.getSnapshots(
+            tenantId, current.minusMonths(12L * historyYears), current.minusMonths(1));
+    Map<YearMonth, Double> totals = new HashMap<>();
+    List<MonthlyStatistics> lastTwelveFullMonths = new ArrayList<>();
+    for (MonthlyStatistics snapshot : snapshots) {
+      YearMonth month = YearMonth.from(snapshot.getMonth());
+      totals.put(month, snapshot.getTotalSpent().doubleValue());
+      if (!month.isBefore(current.minusMonths(12))) {
+        lastTwelveFullMonths.add(snapshot);
+      }
+    }
+
+    Map<LocalDate, BigDecimal> currentDailyTotals = new HashMap<>();
+    for (DailySpendingDto day :
+        transactionRepository.sumSpendingByDayBetween(tenantId, current.atDay(1), today)) {
+      currentDailyTotals.put(day.day(), day.total().abs());
+    }
+    ProjectedMonthEndDto currentMonth =
+        statisticsService.projectedMonthEnd(today, currentDailyTotals, lastTwelveFullMonths);
+
+    List<RecurringChargeDto> recurringCharges = recurringCharges(tenantId, current);
+    double recurring =
+        recurringCharges.stream().mapToDouble(c -> c.monthlyAmount().doubleValue()).sum();
+
+    // Other spending of each closed month: the total less what the recurring charges cost now
+    Map<YearMonth, Double> other = new HashMap<>();
+    totals.forEach((month, total) -> other.put(month, Math.max(0, total - recurring)));
+    double[] seasonal = seasonalIndexes(other, current);
+
+    List<Double> levels = new ArrayList<>();
+    for (YearMonth month = current.minusMonths(12);
+        month.isBefore(current);
+        month = month.plusMonths(1)) {
+      // Months before the first import have no spending at all and are left out
+      if (totals.getOrDefault(month, 0.0) > 0) {
+        levels.add(other.get(month) / seasonalIndex(seasonal, month));
+      }
+    }
+    double currentLevel =
+        Math.max(0, currentMonth.projection().doubleValue() - recurring)
+            / seasonalIndex(seasonal, current);
+    double currentWeight = today.getDayOfMonth() / (double) today.lengthOfMonth();
+
+    double level;
+    double spread;
+    if (levels.size() < MIN_LEVEL_MONTHS) {
+      level = currentLevel;
+      spread = FALLBACK_SPREAD * level;
+    } else {
+      double historyMean = levels.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+      level =
+          (historyMean * levels.size() + currentLevel * currentWeight)
+              / (levels.size() + currentWeight);
+      double squares =
+          levels.stream().mapToDouble(l -> (l - historyMean) * (l - historyMean)).sum();
+      spread = INTERVAL_Z * Math.sqrt(squares / (levels.size() - 1));
+    }
+
+    List<MonthForecastDto> months = new ArrayList<>(MAX_MONTHS);
+    for (int ahead = 1; ahead <= MAX_MONTHS; ahead++) {
+      YearMonth month = current.plusMonths(ahead);
+      double index = seasonalIndex(seasonal, month);
+      double projected = recurring + level * index;
+      months.add(
+          new MonthForecastDto(
+              month.format(MONTH_FORMAT),
+              money(projected),
+              money(Math.max(recurring, projected - spread * index)),
+              money(projected + spread * index),
+              money(recurring),
+              BigDecimal.valueOf(index).setScale(3, RoundingMode.HALF_UP)));
+    }
+    return new SpendingForecastDto(
+        today, currentMonth, money(recurring), List.copyOf(recurringCharges), List.copyOf(months));
+  }
+
+  /**
+   * Merchants seen in at least {@code recurring.min-months} of the last {@code
+   * recurring.window-months} closed months, at most twice a month, whose monthly totals stay
+   * within {@code recurring.max-spread} of their median. The median is the expected charge.
+   */
+  private List<RecurringChargeDto> recurringCharges(String tenantId, YearMonth current) {
+    Map<String, List<Double>> monthlyTotals = new HashMap<>();
+    Map<String, Long> mostChargesInAMonth = new HashMap<>();
+    for (MerchantMonthSpendingDto spending :
+        transactionRepository.sumSpendingByMerchantAndMonthBetween(
+            tenantId,
+            current.minusMonths(recurringWindowMonths).atDay(1),
+            current.minusMonths(1).atEndOfMonth())) {
+      monthlyTotals
+          .computeIfAbsent(spending.merchant(), merchant -> new ArrayList<>())
+          .add(spending.total().abs().doubleValue());
+      mostChargesInAMonth.merge(spending.merchant(), spending.transactionCount(), Math::max);
+    }
+
+    List<RecurringChargeDto> charges = new ArrayList<>();
+    monthlyTotals.forEach(
+        (merchant, amounts) -> {
+          if (amounts.size() < recurringMinMonths
+              || mostChargesInAMonth.get(merchant) > MAX_RECURRING_CHARGES_PER_MONTH) {
+            return;
+          }
+          double[] sorted = amounts.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+          double median = sorted[sorted.length / 2];
+          double spread = (sorted[sorted.length - 1] - sorted[0]) / median;
+          if (median > 0 && spread <= recurringMaxSpread) {
+            charges.add(new RecurringChargeDto(merchant, money(median), amounts.size()));
+          }
+        });
+    charges.sort(Comparator.comparing(RecurringChargeDto::monthlyAmount).reversed());
+    return charges;
+  }
+
+  /**
+   * Seasonal index of each calendar month (January first). Every complete year before the
+   * current month gives each month its ratio to the year's mean; the ratios are averaged and
+   * shrunk toward 1 by years / (years + 1), since one year of history is as likely noise as
+   * season. The indexes of a year average 1, so they move spending between months only.
+   */
+  private double[] seasonalIndexes(Map<YearMonth, Double> other, YearMonth current) {
+    double[] ratioSums = new double[12];
+    int years = 0;
+    for (int year = 1; year <= historyYears; year++) {
+      YearMonth first = current.minusMonths(12L * year);
+      double sum = 0;
+      int activeMonths = 0;
+      for (int i = 0; i < 12; i++) {
+        double spent = other.getOrDefault(first.plusMonths(i), 0.0);
+        sum += spent;
+        activeMonths += spent > 0 ? 1 : 0;
+      }
+      if (activeMonths < MIN_ACTIVE_MONTHS_PER_YEAR) continue;
+
+      double mean = sum / 12;
+      for (int i = 0; i < 12; i++) {
+        YearMonth month = first.plusMonths(i);
+        ratioSums[month.getMonthValue() - 1] += other.getOrDefault(month, 0.0) / mean;
+      }
+      years++;
+    }
+
+    double[] indexes = new double[12];
+    Arrays.fill(indexes, 1);
+    if (years > 0) {
+      double weight = years / (years + 1.0);
+      for (int i = 0; i < 12; i++) {
+        indexes[i] = 1 + (ratioSums[i] / years - 1) * weight;
+      }
+    }
+    return indexes;
+  }
+
+  // Never zero, so dividing by it is safe: a month with no other spending in every year keeps a
+  // small index
+  private static double seasonalIndex(double[] indexes, YearMonth month) {
+    return Math.max(indexes[month.getMonthValue() - 1], 0.05);
+  }
+
+  private static BigDecimal money(double amount) {
+    return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+  }
+}
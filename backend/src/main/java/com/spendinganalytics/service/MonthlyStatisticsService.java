@@ -0,0 +1,252 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.config.ReplicaLagMonitor;
+import com.spendinganalytics.dto.SpendingAmountDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.repository.MonthlyStatisticsRepository;
+import com.spendinganalytics.repository.TransactionRepository;
+import com.spendinganalytics.util.QuantileSketch;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the {@link MonthlyStatistics} snapshots of closed months. A month's transactions only
+ * change through imports and deletes, so a snapshot stays valid until a {@link
+ * TransactionsChangedEvent} touches its month. The current month is never snapshotted.
+ * Snapshots are kept per tenant.
+ *
+ * <p>Readers store the months they had to compute. A change committed while a reader computes
+ * would make its snapshots stale, so each tenant's changes are counted, and a reader only keeps
+ * what it stored if no change was counted from before its computation until after its store.
+ */
+@Service
+@RequiredArgsConstructor
+public class MonthlyStatisticsService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MonthlyStatisticsService.class);
+
+  private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+  private final MonthlyStatisticsRepository monthlyStatisticsRepository;
+  private final TransactionRepository transactionRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  private final Map<String, AtomicLong> changeCounts = new ConcurrentHashMap<>();
+
+  /**
+   * Snapshots of the closed months from {@code first} through {@code last}, one per month in
+   * order. Months without a stored snapshot are computed and stored.
+   */
+  public List<MonthlyStatistics> getSnapshots(String tenantId, YearMonth first, YearMonth last) {
+    YearMonth lastClosed = YearMonth.now().minusMonths(1);
+    if (last.isAfter(lastClosed)) {
+      last = lastClosed;
+    }
+    if (first.isAfter(last)) {
+      return List.of();
+    }
+
+    long changeCount = changeCount(tenantId).get();
+    Map<YearMonth, MonthlyStatistics> byMonth = new TreeMap<>();
+    for (MonthlyStatistics snapshot :
+        monthlyStatisticsRepository.findByTenantIdAndMonthBetweenOrderByMonth(
+            tenantId, first.atDay(1), last.atDay(1))) {
+      byMonth.put(YearMonth.from(snapshot.getMonth()), snapshot);
+    }
+
+    List<YearMonth> missing = new ArrayList<>();
+    for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+      if (!byMonth.containsKey(month)) {
+        missing.add(month);
+      }
+    }
+    if (!missing.isEmpty()) {
+      List<MonthlyStatistics> computed = compute(tenantId, missing);
+      storeUnlessChanged(tenantId, computed, changeCount);
+      computed.forEach(snapshot -> byMonth.put(YearMonth.from(snapshot.getMonth()), snapshot));
+    }
+    return new ArrayList<>(byMonth.values());
+  }
+
+  /**
+   * Rebuilds the snapshots of the closed months an import added rows to. Deletes can remove rows
+   * from any month, so they drop every snapshot and leave the rebuild to the next read. Runs after
+   * the replica monitor has sent reads back to the primary, and before the dashboard stream
+   * recomputes the dashboards that use the snapshots.
+   */
+  @Order(ReplicaLagMonitor.LISTENER_ORDER + 1)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    // Before anything is dropped, so readers computing from the old data do not keep it
+    changeCount(event.tenantId()).incrementAndGet();
+    if (event.affectsAllMonths()) {
+      transactionTemplate.executeWithoutResult(
+          status -> monthlyStatisticsRepository.deleteByTenantId(event.tenantId()));
+      logger.debug(
+          "Dropped monthly statistics of tenant {} after {}", event.tenantId(), event.reason());
+      return;
+    }
+
+    YearMonth current = YearMonth.now();
+    List<YearMonth> months =
+        event.affectedMonths().stream().filter(month -> month.isBefore(current)).sorted().toList();
+    if (!months.isEmpty()) {
+      store(event.tenantId(), compute(event.tenantId(), months), true);
+      logger.debug("Rebuilt monthly statistics of tenant {} for {}", event.tenantId(), months);
+    }
+  }
+
+  /**
+   * Statistics of the current month through {@code through}, computed from its transactions and
+   * not stored: the current month is never snapshotted.
+   */
+  public MonthlyStatistics computeCurrentMonth(String tenantId, LocalDate through) {
+    return compute(tenantId, List.of(YearMonth.from(through)), through).get(0);
+  }
+
+  private List<MonthlyStatistics> compute(String tenantId, List<YearMonth> months) {
+    YearMonth last = months.get(months.size() - 1);
+    return compute(tenantId, months, last.atEndOfMonth());
+  }
+
+  private List<MonthlyStatistics> compute(
+      String tenantId, List<YearMonth> months, LocalDate through) {
+    // One scan over the span; months in between that were not asked for are ignored
+    YearMonth first = months.get(0);
+    Map<YearMonth, List<SpendingAmountDto>> amountsByMonth = new HashMap<>();
+    for (SpendingAmountDto spending :
+        transactionRepository.findSpendingAmountsBetween(tenantId, first.atDay(1), through)) {
+      amountsByMonth
+          .computeIfAbsent(YearMonth.from(spending.day()), m -> new ArrayList<>())
+          .add(spending);
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    List<MonthlyStatistics> snapshots = new ArrayList<>(months.size());
+    for (YearMonth month : months) {
+      BigDecimal[] cumulative = new BigDecimal[month.lengthOfMonth()];
+      BigDecimal running = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+      QuantileSketch amounts = new QuantileSketch();
+      QuantileSketch dailyTotals = new QuantileSketch();
+      BigDecimal dayTotal = BigDecimal.ZERO;
+      int count = 0;
+      int day = 1;
+      // Rows are in date order, so each day's rows are contiguous
+      for (SpendingAmountDto spending : amountsByMonth.getOrDefault(month, List.of())) {
+        int spendingDay = spending.day().getDayOfMonth();
+        if (spendingDay != day && dayTotal.signum() > 0) {
+          dailyTotals.add(dayTotal.doubleValue());
+          dayTotal = BigDecimal.ZERO;
+        }
+        for (; day < spendingDay; day++) {
+          cumulative[day - 1] = running;
+        }
+        BigDecimal amount = spending.amount().abs();
+        running = running.add(amount);
+        dayTotal = dayTotal.add(amount);
+        amounts.add(amount.doubleValue());
+        count++;
+      }
+      if (dayTotal.signum() > 0) {
+        dailyTotals.add(dayTotal.doubleValue());
+      }
+      for (; day <= cumulative.length; day++) {
+        cumulative[day - 1] = running;
+      }
+      snapshots.add(
+          new MonthlyStatistics(
+              tenantId,
+              month.atDay(1),
+              running,
+              count,
+              cumulative,
+              amounts.toBytes(),
+              dailyTotals.toBytes(),
+              now,
+              false));
+    }
+    return snapshots;
+  }
+
+  private AtomicLong changeCount(String tenantId) {
+    return changeCounts.computeIfAbsent(tenantId, t -> new AtomicLong());
+  }
+
+  /**
+   * Stores snapshots a reader computed, unless the tenant's data changed since {@code
+   * changeCount} was read. A change can still be counted between the check and the commit, so the
+   * count is checked again afterwards and the inserted snapshots are removed if it moved.
+   */
+  private void storeUnlessChanged(
+      String tenantId, List<MonthlyStatistics> snapshots, long changeCount) {
+    AtomicLong changes = changeCount(tenantId);
+    if (changes.get() != changeCount) {
+      logger.debug("Data of tenant {} changed during computation, not storing", tenantId);
+      return;
+    }
+    store(tenantId, snapshots, false);
+    if (changes.get() != changeCount) {
+      List<LocalDate> months = snapshots.stream().map(MonthlyStatistics::getMonth).toList();
+      writeTemplate()
+          .executeWithoutResult(
+              status -> monthlyStatisticsRepository.deleteByTenantIdAndMonthIn(tenantId, months));
+      logger.debug("Data of tenant {} changed while storing, removed {}", tenantId, months);
+    }
+  }
+
+  /**
+   * Inserts the snapshots in one transaction. When {@code replace} is set, existing snapshots of
+   * the same months are deleted first. A concurrent reader storing the same month makes the insert
+   * fail, and two rebuilds of overlapping months can deadlock; the other copy is kept, unless this
+   * is a rebuild, which is retried.
+   *
+   * <p>Always a transaction of its own: readers call this from read-only dashboard transactions,
+   * which may be running on the read replica.
+   */
+  private void store(String tenantId, List<MonthlyStatistics> snapshots, boolean replace) {
+    List<LocalDate> months = snapshots.stream().map(MonthlyStatistics::getMonth).toList();
+    TransactionTemplate writeTemplate = writeTemplate();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        writeTemplate.executeWithoutResult(
+            status -> {
+              if (replace) {
+                monthlyStatisticsRepository.deleteByTenantIdAndMonthIn(tenantId, months);
+              }
+              monthlyStatisticsRepository.saveAll(snapshots);
+            });
+        return;
+      } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+        snapshots.forEach(snapshot -> snapshot.setPersisted(false));
+        if (!replace || attempt >= MAX_REBUILD_ATTEMPTS) {
+          logger.debug("Monthly statistics for {} stored concurrently", months);
+          return;
+        }
+      }
+    }
+  }
+
+  private TransactionTemplate writeTemplate() {
+    TransactionTemplate writeTemplate =
+        new TransactionTemplate(transactionTemplate.getTransactionManager());
+    writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return writeTemplate;
+  }
+}
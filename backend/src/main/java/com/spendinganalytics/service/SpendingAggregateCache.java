@@ -0,0 +1,163 @@
+package com.spendinganalytics.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.spendinganalytics.config.ReplicaLagMonitor;
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.SpendingSummaryDto;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional in-process cache of the aggregates the dashboards read from PostgreSQL: the daily
+ * spending of a tenant's date range and the tenant's overall summary. Data only changes through
+ * imports, deletes and purges, so an entry stays valid until the tenant's next {@link
+ * TransactionsChangedEvent}, which evicts all of the tenant's entries.
+ *
+ * <p>Every key carries the tenant's generation at the time of the read, and the event bumps it. A
+ * read that started before a change and finishes after it is keyed by the old generation, where no
+ * later read looks, and is dropped again.
+ *
+ * <p>Metrics: the Caffeine cache meters ({@code cache.gets}, {@code cache.evictions}, ...) tagged
+ * {@code cache=spending.daily} and {@code cache=spending.summary}, and their hit ratios as {@code
+ * spending.cache.hit.ratio}.
+ */
+@Service
+public class SpendingAggregateCache implements MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpendingAggregateCache.class);
+
+  private final TransactionRepository transactionRepository;
+  private final boolean enabled;
+
+  private final Cache<DailyKey, List<DailySpendingDto>> dailySpending;
+  private final Cache<SummaryKey, SpendingSummaryDto> summaries;
+
+  private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+  public SpendingAggregateCache(
+      TransactionRepository transactionRepository,
+      @Value("${spending.cache.enabled:false}") boolean enabled,
+      @Value("${spending.cache.maximum-size:10000}") long maximumSize,
+      @Value("${spending.cache.expire-after-write:1h}") Duration expireAfterWrite) {
+    this.transactionRepository = transactionRepository;
+    this.enabled = enabled;
+    this.dailySpending =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    this.summaries =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+  }
+
+  /** {@link TransactionRepository#sumSpendingByDayBetween}, cached when enabled. */
+  public List<DailySpendingDto> sumSpendingByDayBetween(
+      String tenantId, LocalDate from, LocalDate to) {
+    if (!enabled) {
+      return transactionRepository.sumSpendingByDayBetween(tenantId, from, to);
+    }
+    return get(
+        dailySpending,
+        new DailyKey(tenantId, generation(tenantId).get(), from, to),
+        () -> List.copyOf(transactionRepository.sumSpendingByDayBetween(tenantId, from, to)));
+  }
+
+  /** {@link TransactionRepository#summarize}, cached when enabled. */
+  public SpendingSummaryDto summarize(String tenantId) {
+    if (!enabled) {
+      return transactionRepository.summarize(tenantId);
+    }
+    return get(
+        summaries,
+        new SummaryKey(tenantId, generation(tenantId).get()),
+        () -> transactionRepository.summarize(tenantId));
+  }
+
+  // Loads outside the cache's locks, so a slow query never holds up eviction
+  private <K extends Key, V> V get(Cache<K, V> cache, K key, Supplier<V> loader) {
+    V value = cache.getIfPresent(key);
+    if (value == null) {
+      value = loader.get();
+      cache.put(key, value);
+      if (generation(key.tenantId()).get() != key.generation()) {
+        // The tenant's data changed during the read; the entry would never be read again
+        cache.invalidate(key);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Drops the tenant's entries once its change is committed. Runs before the listeners that push
+   * or recompute dashboards, so they read the new data.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(ReplicaLagMonitor.LISTENER_ORDER + 1)
+  public void onTransactionsChanged(TransactionsChangedEvent event) {
+    if (!enabled) return;
+    String tenantId = event.tenantId();
+    generation(tenantId).incrementAndGet();
+    dailySpending.asMap().keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    summaries.asMap().keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    logger.debug("Evicted cached spending of tenant {} after {}", tenantId, event.reason());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    if (!enabled) return;
+    CaffeineCacheMetrics.monitor(registry, dailySpending, "spending.daily");
+    CaffeineCacheMetrics.monitor(registry, summaries, "spending.summary");
+    Gauge.builder("spending.cache.hit.ratio", dailySpending, cache -> hitRatio(cache.stats()))
+        .tag("cache", "spending.daily")
+        .description("Hit ratio of the cached daily spending of date ranges")
+        .register(registry);
+    Gauge.builder("spending.cache.hit.ratio", summaries, cache -> hitRatio(cache.stats()))
+        .tag("cache", "spending.summary")
+        .description("Hit ratio of the cached overall spending summaries")
+        .register(registry);
+  }
+
+  private AtomicLong generation(String tenantId) {
+    return generations.computeIfAbsent(tenantId, t -> new AtomicLong());
+  }
+
+  private static double hitRatio(CacheStats stats) {
+    long total = stats.requestCount();
+    return total == 0 ? 0.0 : (double) stats.hitCount() / total;
+  }
+
+  private interface Key {
+    String tenantId();
+
+    long generation();
+  }
+
+  private record DailyKey(String tenantId, long generation, LocalDate from, LocalDate to)
+      implements Key {}
+
+  private record SummaryKey(String tenantId, long generation) implements Key {}
+}
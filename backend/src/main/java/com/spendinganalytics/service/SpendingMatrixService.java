@@ -0,0 +1,87 @@
+package com.spendinganalytics.service;
+
+import com.spendinganalytics.analytics.ColumnarAnalyticsEngine;
+import com.spendinganalytics.analytics.ColumnarTransactions;
+import com.spendinganalytics.dto.CalendarHeatmapDto;
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.MonthlySpendingDto;
+import com.spendinganalytics.dto.YearMonthMatrixDto;
+import com.spendinganalytics.repository.TransactionRepository;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spending matrices for comparison views, as dense arrays of cents. Each is filled from a single
+ * grouped query over the whole range (or one pass over the in-memory {@link
+ * ColumnarAnalyticsEngine} columns when they are loaded), however many years it spans.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpendingMatrixService {
+
+  private final TransactionRepository transactionRepository;
+  private final SpendingAggregateCache spendingAggregates;
+  private final ColumnarAnalyticsEngine analyticsEngine;
+
+  /** Spending of every month of {@code firstYear} through {@code lastYear}, a row per year. */
+  @Transactional(readOnly = true)
+  public YearMonthMatrixDto yearMonthMatrix(String tenantId, int firstYear, int lastYear) {
+    long[][] totals = new long[lastYear - firstYear + 1][12];
+    LocalDate from = LocalDate.of(firstYear, 1, 1);
+    LocalDate to = LocalDate.of(lastYear, 12, 31);
+
+    ColumnarTransactions columns = analyticsEngine.columns(tenantId);
+    if (columns != null) {
+      columns
+          .dailySpendingBetween(from, to)
+          .forEach(
+              (day, amount) ->
+                  totals[day.getYear() - firstYear][day.getMonthValue() - 1] += cents(amount));
+    } else {
+      for (MonthlySpendingDto month :
+          transactionRepository.sumSpendingByMonthBetween(tenantId, from, to)) {
+        totals[month.year() - firstYear][month.month() - 1] = cents(month.total());
+      }
+    }
+    return new YearMonthMatrixDto(firstYear, lastYear, totals);
+  }
+
+  /** Daily spending of {@code year} in whole weeks, Monday first. */
+  @Transactional(readOnly = true)
+  public CalendarHeatmapDto calendarHeatmap(String tenantId, int year) {
+    LocalDate start = LocalDate.of(year, 1, 1);
+    LocalDate end = LocalDate.of(year, 12, 31);
+    LocalDate firstWeekStart = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    long[][] totals = new long[(int) (ChronoUnit.DAYS.between(firstWeekStart, end) / 7) + 1][7];
+
+    ColumnarTransactions columns = analyticsEngine.columns(tenantId);
+    if (columns != null) {
+      columns
+          .dailySpendingBetween(start, end)
+          .forEach((day, amount) -> addDay(totals, firstWeekStart, day, amount));
+    } else {
+      for (DailySpendingDto day :
+          spendingAggregates.sumSpendingByDayBetween(tenantId, start, end)) {
+        addDay(totals, firstWeekStart, day.day(), day.total());
+      }
+    }
+    return new CalendarHeatmapDto(start, end, firstWeekStart, totals);
+  }
+
+  private static void addDay(
+      long[][] totals, LocalDate firstWeekStart, LocalDate day, BigDecimal amount) {
+    int offset = (int) ChronoUnit.DAYS.between(firstWeekStart, day);
+    totals[offset / 7][offset % 7] += cents(amount);
+  }
+
+  // Spending totals are negative in the database and positive in the columns; cells are positive
+  private static long cents(BigDecimal amount) {
+    return amount.abs().movePointRight(2).longValueExact();
+  }
+}
@@ -1,15 +1,16 @@
 package com.spendinganalytics.service;
 
 import com.spendinganalytics.dto.ProjectedMonthEndDto;
-import com.spendinganalytics.entity.Transaction;
+import com.spendinganalytics.dto.SpendingDistributionDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
 import com.spendinganalytics.enums.DashboardPeriod;
+import com.spendinganalytics.util.QuantileSketch;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -28,10 +29,9 @@ public class StatisticsService {
   private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
   private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
 
-  public BigDecimal totalSpent(List<Transaction> transactions) {
-    return transactions.stream()
-        .map(Transaction::getAmount)
-        .map(BigDecimal::abs)
+  /** Sum of daily spending totals, which are positive amounts keyed by day. */
+  public BigDecimal totalSpent(Map<LocalDate, BigDecimal> dailyTotals) {
+    return dailyTotals.values().stream()
         .reduce(ZERO, BigDecimal::add)
         .setScale(MONEY_SCALE, ROUNDING_MODE);
   }
@@ -47,9 +47,12 @@ public class StatisticsService {
         .setScale(MONEY_SCALE, ROUNDING_MODE);
   }
 
-  public BigDecimal averagePerActiveDay(BigDecimal totalSpent, List<Transaction> transactions) {
-    long activeDays = transactions.stream().map(Transaction::getTransactionDate).distinct().count();
+  public BigDecimal averagePerActiveDay(
+      BigDecimal totalSpent, Map<LocalDate, BigDecimal> dailyTotals) {
+    return averagePerActiveDay(totalSpent, dailyTotals.size());
+  }
 
+  public BigDecimal averagePerActiveDay(BigDecimal totalSpent, long activeDays) {
     if (activeDays <= 0) {
       return ZERO.setScale(MONEY_SCALE, ROUNDING_MODE);
     }
@@ -57,32 +60,50 @@ public class StatisticsService {
     return totalSpent.divide(BigDecimal.valueOf(activeDays), MONEY_SCALE, ROUNDING_MODE);
   }
 
+  /**
+   * Median, 90th and 99th percentile of the spending amounts and median daily spending, from the
+   * merged monthly sketches of a period. Zero when the period has no spending.
+   */
+  public SpendingDistributionDto distribution(
+      QuantileSketch transactionAmounts, QuantileSketch dailyTotals) {
+    return new SpendingDistributionDto(
+        quantile(transactionAmounts, 0.5),
+        quantile(transactionAmounts, 0.9),
+        quantile(transactionAmounts, 0.99),
+        quantile(dailyTotals, 0.5));
+  }
+
   /** Data points for charts: - THIS_MONTH and MONTH => daily totals - YTD and YEAR => monthly totals */
   public Map<String, BigDecimal> dataPoints(
-      List<Transaction> transactions,
+      Map<LocalDate, BigDecimal> dailyTotals,
       LocalDate startDate,
       LocalDate endDate,
       DashboardPeriod period) {
     return (period == DashboardPeriod.YTD || period == DashboardPeriod.YEAR)
-        ? monthlyTotals(transactions, startDate, endDate)
-        : dailyTotals(transactions, startDate, endDate);
+        ? monthlyTotals(dailyTotals, startDate, endDate)
+        : dailyTotals(dailyTotals, startDate, endDate);
   }
 
+  /**
+   * Projects the spending of the month containing {@code asOfDate} from the spending so far and
+   * the snapshots of (up to) the twelve preceding months.
+   */
   public ProjectedMonthEndDto projectedMonthEnd(
       LocalDate asOfDate,
-      List<Transaction> currentMonthTransactions,
-      List<Transaction> lastTwelveFullMonthsTransactions) {
-    BigDecimal spentSoFar = totalSpent(currentMonthTransactions);
+      Map<LocalDate, BigDecimal> currentMonthDailyTotals,
+      List<MonthlyStatistics> lastTwelveFullMonths) {
+    BigDecimal spentSoFar = totalSpent(currentMonthDailyTotals);
 
     int dayNumber = asOfDate.getDayOfMonth();
     int totalDaysInMonth = asOfDate.lengthOfMonth();
 
-    Map<YearMonth, BigDecimal> monthTotal =
-        lastTwelveFullMonthsTransactions.stream()
-            .collect(
-                Collectors.groupingBy(
-                    t -> YearMonth.from(t.getTransactionDate()),
-                    Collectors.reducing(ZERO, t -> t.getAmount().abs(), BigDecimal::add)));
+    Map<YearMonth, MonthlyStatistics> snapshots = new HashMap<>();
+    Map<YearMonth, BigDecimal> monthTotal = new HashMap<>();
+    for (MonthlyStatistics snapshot : lastTwelveFullMonths) {
+      YearMonth month = YearMonth.from(snapshot.getMonth());
+      snapshots.put(month, snapshot);
+      monthTotal.put(month, snapshot.getTotalSpent());
+    }
 
     List<YearMonth> nonZeroMonths =
         monthTotal.entrySet().stream()
@@ -101,8 +122,7 @@ public class StatisticsService {
       return new ProjectedMonthEndDto(projected, comparedPercentage);
     } else {
       BigDecimal usualFraction =
-          averageFractionSpentByDay(
-              lastTwelveFullMonthsTransactions, monthTotal, nonZeroMonths, dayNumber);
+          averageFractionSpentByDay(snapshots, monthTotal, nonZeroMonths, dayNumber);
 
       if (usualFraction.compareTo(ZERO) <= 0) {
         projected = paceProjection(spentSoFar, dayNumber, totalDaysInMonth);
@@ -141,14 +161,7 @@ public class StatisticsService {
   }
 
   private Map<String, BigDecimal> dailyTotals(
-      List<Transaction> transactions, LocalDate startDate, LocalDate endDate) {
-    Map<LocalDate, BigDecimal> dailyTotals =
-        transactions.stream()
-            .collect(
-                Collectors.groupingBy(
-                    Transaction::getTransactionDate,
-                    Collectors.reducing(ZERO, t -> t.getAmount().abs(), BigDecimal::add)));
-
+      Map<LocalDate, BigDecimal> dailyTotals, LocalDate startDate, LocalDate endDate) {
     Map<String, BigDecimal> result = new LinkedHashMap<>();
     for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
       BigDecimal amount = dailyTotals.getOrDefault(d, ZERO);
@@ -158,13 +171,10 @@ public class StatisticsService {
   }
 
   private Map<String, BigDecimal> monthlyTotals(
-      List<Transaction> transactions, LocalDate startDate, LocalDate endDate) {
-    Map<YearMonth, BigDecimal> monthlyTotals =
-        transactions.stream()
-            .collect(
-                Collectors.groupingBy(
-                    t -> YearMonth.from(t.getTransactionDate()),
-                    Collectors.reducing(ZERO, t -> t.getAmount().abs(), BigDecimal::add)));
+      Map<LocalDate, BigDecimal> dailyTotals, LocalDate startDate, LocalDate endDate) {
+    Map<YearMonth, BigDecimal> monthlyTotals = new HashMap<>();
+    dailyTotals.forEach(
+        (day, amount) -> monthlyTotals.merge(YearMonth.from(day), amount, BigDecimal::add));
 
     Map<String, BigDecimal> result = new LinkedHashMap<>();
     YearMonth current = YearMonth.from(startDate);
@@ -178,6 +188,13 @@ public class StatisticsService {
     return result;
   }
 
+  private BigDecimal quantile(QuantileSketch sketch, double q) {
+    if (sketch.isEmpty()) {
+      return ZERO.setScale(MONEY_SCALE, ROUNDING_MODE);
+    }
+    return BigDecimal.valueOf(sketch.quantile(q)).setScale(MONEY_SCALE, ROUNDING_MODE);
+  }
+
   private BigDecimal averageMonthlyTotal(
       Map<YearMonth, BigDecimal> monthTotal, List<YearMonth> months) {
     BigDecimal sum = ZERO;
@@ -188,19 +205,10 @@ public class StatisticsService {
   }
 
   private BigDecimal averageFractionSpentByDay(
-      List<Transaction> history,
+      Map<YearMonth, MonthlyStatistics> snapshots,
       Map<YearMonth, BigDecimal> monthTotal,
       List<YearMonth> nonZeroMonths,
       int dayNumber) {
-    Map<YearMonth, Map<LocalDate, BigDecimal>> dailyByMonth =
-        history.stream()
-            .collect(
-                Collectors.groupingBy(
-                    t -> YearMonth.from(t.getTransactionDate()),
-                    Collectors.groupingBy(
-                        Transaction::getTransactionDate,
-                        Collectors.reducing(ZERO, t -> t.getAmount().abs(), BigDecimal::add))));
-
     BigDecimal sumFractions = ZERO;
     int count = 0;
 
@@ -208,17 +216,7 @@ public class StatisticsService {
       BigDecimal total = monthTotal.getOrDefault(month, ZERO);
       if (total.compareTo(ZERO) <= 0) continue;
 
-      int comparisonDay = Math.min(dayNumber, month.lengthOfMonth());
-      LocalDate cutOff = month.atDay(comparisonDay);
-
-      Map<LocalDate, BigDecimal> dailyTotals = dailyByMonth.getOrDefault(month, Map.of());
-
-      BigDecimal cumulative = ZERO;
-      for (var entry : dailyTotals.entrySet()) {
-        if (!entry.getKey().isAfter(cutOff)) {
-          cumulative = cumulative.add(entry.getValue());
-        }
-      }
+      BigDecimal cumulative = snapshots.get(month).spentThroughDay(dayNumber);
 
       BigDecimal fraction =
           cumulative
@@ -1,156 +1,172 @@
 package com.spendinganalytics.service;
 
 import com.spendinganalytics.dto.FileImportResult;
+import com.spendinganalytics.dto.ImportHistoryDto;
 import com.spendinganalytics.dto.TransactionImportResult;
+import com.spendinganalytics.entity.ImportLedgerEntry;
 import com.spendinganalytics.entity.Transaction;
+import com.spendinganalytics.enums.ImportStatus;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.parser.StatementParser;
+import com.spendinganalytics.parser.StatementParserRegistry;
+import com.spendinganalytics.parser.StatementRow;
+import com.spendinganalytics.parser.StatementSource;
+import com.spendinganalytics.repository.ImportLedgerRepository;
 import com.spendinganalytics.repository.TransactionRepository;
 import com.spendinganalytics.util.HashUtil;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import jakarta.annotation.PreDestroy;
 import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+/**
+ * Imports bank statement files as a pipeline: a parser thread turns rows into hashed {@link
+ * Transaction}s and hands them over in chunks through a bounded queue, while the calling thread
+ * looks up and inserts each chunk in its own database transaction. Parsing of the next chunk
+ * overlaps with the database work of the current one, and only a few chunks are held in memory at
+ * a time.
+ *
+ * <p>Progress is recorded per file in the import ledger after every chunk, so re-uploading a file
+ * whose import was interrupted resumes after the last committed chunk.
+ *
+ * <p>Imports may run concurrently. Rows are inserted with {@code ON CONFLICT DO NOTHING}, so a row
+ * another import stored after the duplicate check is counted as a duplicate instead of failing
+ * the chunk. Uploads of the same file are serialized, so the second one finds the first in the
+ * ledger.
+ */
 @Service
 @RequiredArgsConstructor
 public class TransactionImportService {
 
   private static final Logger logger = LoggerFactory.getLogger(TransactionImportService.class);
 
-  private final TransactionRepository transactionRepository;
-
-  @Transactional
-  public TransactionImportResult importTransactions(MultipartFile[] files) {
-    logger.info("Starting import for {} files", files.length);
+  // Marks the end of a file in the chunk queue
+  private static final List<Transaction> END_OF_FILE = Collections.emptyList();
 
-    // Parse all files and collect transactions per file
-    List<List<Transaction>> fileTransactionsList = new ArrayList<>();
-    List<FileImportResult> fileResults = new ArrayList<>();
+  // One statement per chunk; rows another import inserted meanwhile are skipped, not an error
+  private static final String INSERT_NEW_SQL =
+      "INSERT INTO transactions (tenant_id, transaction_date, merchant, amount, balance, "
+          + "transaction_id, is_subscription, raw_description, import_timestamp, dedup_hash) "
+          + "SELECT * FROM unnest(?::varchar[], ?::date[], ?::varchar[], ?::numeric[], "
+          + "?::numeric[], ?::varchar[], ?::boolean[], ?::varchar[], ?::timestamp[], "
+          + "?::varchar[]) ON CONFLICT DO NOTHING RETURNING dedup_hash";
 
-    for (int i = 0; i < files.length; i++) {
-      MultipartFile file = files[i];
-      try {
-        List<Transaction> fileTransactions = parseFileToTransactions(file);
-        fileTransactionsList.add(fileTransactions);
-      } catch (Exception e) {
-        logger.error("Error parsing file {}: {}", file.getOriginalFilename(), e.getMessage(), e);
-        fileTransactionsList.add(new ArrayList<>());
-        fileResults.add(
-            new FileImportResult(
-                file.getOriginalFilename(), 0, 0, 0, List.of("Error: " + e.getMessage())));
-      }
-    }
+  private static final int FILE_LOCK_STRIPES = 64;
 
-    // Collect all transactions and deduplicate within batch (keep first occurrence)
-    Map<String, Transaction> uniqueTransactions = new LinkedHashMap<>();
-    for (List<Transaction> fileTransactions : fileTransactionsList) {
-      for (Transaction t : fileTransactions) {
-        Transaction existing = uniqueTransactions.putIfAbsent(t.getDedupHash(), t);
-        if (existing != null) {
-          // Duplicate found within batch
-          logger.info(
-              "Duplicate transaction found within batch - Hash: {}, "
-                  + "Existing: {} | {} | {} | {}, "
-                  + "Duplicate: {} | {} | {} | {}",
-              t.getDedupHash(),
-              existing.getTransactionDate(),
-              existing.getMerchant(),
-              existing.getAmount(),
-              existing.getTransactionId(),
-              t.getTransactionDate(),
-              t.getMerchant(),
-              t.getAmount(),
-              t.getTransactionId());
-        }
-      }
-    }
+  private final TransactionRepository transactionRepository;
+  private final ImportLedgerRepository importLedgerRepository;
+  private final TransactionPartitionService transactionPartitionService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final JdbcTemplate jdbcTemplate;
+  private final StatementParserRegistry statementParserRegistry;
+  private final DedupHashFilter dedupHashFilter;
+  private final AnomalyDetectionService anomalyDetectionService;
+
+  // Striped by tenant and content hash, so only uploads of the same file wait for each other
+  private final ReentrantLock[] fileLocks = newFileLocks();
+
+  private final AtomicInteger parserThreadCount = new AtomicInteger();
+  private final ExecutorService parserExecutor =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "import-parser-" + parserThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @Value("${spending.import.chunk-size:1000}")
+  private int chunkSize;
+
+  @Value("${spending.import.queue-capacity:4}")
+  private int queueCapacity;
+
+  @Value("${spending.import.text-charset:UTF-8}")
+  private Charset defaultTextCharset;
+
+  @PreDestroy
+  public void shutdown() {
+    parserExecutor.shutdownNow();
+  }
 
-    // Check against database for existing hashes
-    Set<String> allHashes = uniqueTransactions.keySet();
-    Set<String> existingHashes =
-        new HashSet<>(transactionRepository.findExistingDedupHashes(allHashes));
-
-    // Filter out transactions that already exist in database
-    List<Transaction> newTransactions = new ArrayList<>();
-    for (Transaction t : uniqueTransactions.values()) {
-      if (existingHashes.contains(t.getDedupHash())) {
-        // Duplicate found in database
-        transactionRepository
-            .findByDedupHash(t.getDedupHash())
-            .ifPresent(
-                existing -> {
-                  logger.info(
-                      "Duplicate transaction found in database - Hash: {}, "
-                          + "Existing in DB: {} | {} | {} | {}, "
-                          + "Skipped: {} | {} | {} | {}",
-                      t.getDedupHash(),
-                      existing.getTransactionDate(),
-                      existing.getMerchant(),
-                      existing.getAmount(),
-                      existing.getTransactionId(),
-                      t.getTransactionDate(),
-                      t.getMerchant(),
-                      t.getAmount(),
-                      t.getTransactionId());
-                });
-      } else {
-        newTransactions.add(t);
-      }
-    }
+  public TransactionImportResult importTransactions(String tenantId, MultipartFile[] files) {
+    return importTransactions(tenantId, files, null);
+  }
 
-    // Save all new transactions in one batch
-    if (!newTransactions.isEmpty()) {
-      transactionRepository.saveAll(newTransactions);
-    }
+  /**
+   * Imports the files one after another.
+   *
+   * @param textCharset charset of CSV and QIF files without a byte order mark, or {@code null} for
+   *     {@code spending.import.text-charset}; OFX files declare their own
+   */
+  public TransactionImportResult importTransactions(
+      String tenantId, MultipartFile[] files, Charset textCharset) {
+    Charset charset = textCharset != null ? textCharset : defaultTextCharset;
+    logger.info("Starting import for {} files into tenant {}", files.length, tenantId);
 
-    Set<String> insertedHashes =
-        newTransactions.stream().map(Transaction::getDedupHash).collect(Collectors.toSet());
+    List<FileImportResult> fileResults = new ArrayList<>();
+    Set<YearMonth> affectedMonths = new HashSet<>();
 
-    // Calculate per-file statistics
     int totalRowsParsed = 0;
     int totalInserted = 0;
     int totalSkippedDuplicates = 0;
 
-    for (int i = 0; i < files.length; i++) {
-      if (i < fileResults.size()) {
-        // Already added error result
-        continue;
+    for (MultipartFile file : files) {
+      FileImportResult result;
+      try {
+        result = importFile(tenantId, file, charset, affectedMonths);
+      } catch (Exception e) {
+        logger.error("Error importing file {}: {}", file.getOriginalFilename(), e.getMessage(), e);
+        result =
+            new FileImportResult(
+                file.getOriginalFilename(),
+                0,
+                0,
+                0,
+                List.of("Error: " + e.getMessage()),
+                Map.of());
       }
 
-      List<Transaction> fileTransactions = fileTransactionsList.get(i);
-      int rowsParsed = fileTransactions.size();
-
-      // Count unique inserted transactions from this file
-      Set<String> fileInsertedHashes =
-          fileTransactions.stream()
-              .map(Transaction::getDedupHash)
-              .filter(insertedHashes::contains)
-              .collect(Collectors.toSet());
-
-      int inserted = fileInsertedHashes.size();
-      int skipped = rowsParsed - inserted;
-
-      totalRowsParsed += rowsParsed;
-      totalInserted += inserted;
-      totalSkippedDuplicates += skipped;
+      totalRowsParsed += result.rowsParsed();
+      totalInserted += result.inserted();
+      totalSkippedDuplicates += result.skippedDuplicates();
+      fileResults.add(result);
+    }
 
-      fileResults.add(
-          new FileImportResult(
-              files[i].getOriginalFilename(), rowsParsed, inserted, skipped, new ArrayList<>()));
+    // Chunks commit on their own, so a failed file may still have added transactions
+    if (!affectedMonths.isEmpty()) {
+      eventPublisher.publishEvent(
+          new TransactionsChangedEvent(
+              tenantId, TransactionsChangedEvent.Reason.IMPORT, affectedMonths));
     }
 
     logger.info(
@@ -164,445 +180,402 @@ public class TransactionImportService {
         files.length, totalRowsParsed, totalInserted, totalSkippedDuplicates, fileResults);
   }
 
-  private List<Transaction> parseFileToTransactions(MultipartFile file) throws Exception {
-    logger.info("Parsing file: {}", file.getOriginalFilename());
-
-    List<String> errors = new ArrayList<>();
-    List<Transaction> transactions = new ArrayList<>();
-
-    try (InputStream inputStream = file.getInputStream()) {
-      // Buffer the input stream
-      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-      byte[] data = new byte[16384];
-      int nRead;
-      while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-        buffer.write(data, 0, nRead);
-      }
-      buffer.flush();
-      byte[] excelData = buffer.toByteArray();
-
-      Workbook workbook;
-      try {
-        workbook = new XSSFWorkbook(new ByteArrayInputStream(excelData));
-      } catch (Exception e) {
-        if (e.getMessage() != null && e.getMessage().contains("Strict OOXML")) {
-          workbook = WorkbookFactory.create(new ByteArrayInputStream(excelData));
-        } else {
-          throw e;
-        }
-      }
-
-      Sheet sheet = workbook.getSheetAt(0);
-
-      // Detect file type by header row
-      String fileType = detectFileType(sheet);
-      if (fileType == null) {
-        workbook.close();
-        throw new Exception(
-            "Unable to detect file type (debit or credit). Expected headers: "
-                + "Debit: Tarih, Açıklama, Etiket, Tutar, Bakiye, Dekont No; "
-                + "Credit: Tarih, İşlem, Etiket, Bonus, Tutar(TL)");
-      }
-
-      logger.info("Detected file type: {} for file: {}", fileType, file.getOriginalFilename());
-
-      // Parse transactions based on file type
-      List<ParsedRow> parsedRows;
-      if ("debit".equals(fileType)) {
-        parsedRows = parseDebitFile(sheet, errors);
-      } else {
-        parsedRows = parseCreditFile(sheet, errors);
-      }
-
-      workbook.close();
-
-      // Convert parsed rows to Transaction entities
-      for (ParsedRow row : parsedRows) {
-        try {
-          Transaction transaction = createTransaction(row, fileType);
-          transactions.add(transaction);
-        } catch (Exception e) {
-          errors.add("Row error: " + e.getMessage());
-        }
-      }
-    }
-
-    if (!errors.isEmpty()) {
-      logger.warn("Errors parsing file {}: {}", file.getOriginalFilename(), errors);
-    }
-
-    return transactions;
+  public Page<ImportHistoryDto> getImportHistory(String tenantId, int page, int size) {
+    return importLedgerRepository
+        .findByTenantIdOrderByImportedAtDesc(tenantId, PageRequest.of(page, size))
+        .map(this::toHistoryDto);
   }
 
-  private String detectFileType(Sheet sheet) {
-    // Scan first 20 rows for header
-    for (int i = 0; i < Math.min(20, sheet.getLastRowNum() + 1); i++) {
-      Row row = sheet.getRow(i);
-      if (row == null) continue;
-
-      Set<String> headers = new HashSet<>();
-      for (Cell cell : row) {
-        String value = getCellValueAsString(cell);
-        if (value != null && !value.trim().isEmpty()) {
-          headers.add(value.trim());
-        }
-      }
+  private FileImportResult importFile(
+      String tenantId, MultipartFile file, Charset textCharset, Set<YearMonth> affectedMonths)
+      throws Exception {
+    String fileName = file.getOriginalFilename();
+    String contentHash;
+    try (InputStream in = file.getInputStream()) {
+      contentHash = HashUtil.generateSHA256(in);
+    }
 
-      // Check for debit headers
-      boolean hasDebitHeaders =
-          headers.contains("Tarih")
-              && headers.contains("Açıklama")
-              && headers.contains("Etiket")
-              && headers.contains("Tutar")
-              && headers.contains("Bakiye")
-              && headers.contains("Dekont No");
-
-      // Check for credit headers
-      boolean hasCreditHeaders =
-          headers.contains("Tarih")
-              && headers.contains("İşlem")
-              && headers.contains("Etiket")
-              && headers.contains("Bonus")
-              && headers.contains("Tutar(TL)");
-
-      if (hasDebitHeaders) {
-        return "debit";
-      }
-      if (hasCreditHeaders) {
-        return "credit";
-      }
+    ReentrantLock fileLock = fileLock(tenantId, contentHash);
+    fileLock.lockInterruptibly();
+    try {
+      return importLockedFile(
+          tenantId, fileName, contentHash, file, textCharset, affectedMonths);
+    } finally {
+      fileLock.unlock();
     }
-    return null;
   }
 
-  private List<ParsedRow> parseDebitFile(Sheet sheet, List<String> errors) {
-    List<ParsedRow> rows = new ArrayList<>();
-
-    // Find header row
-    int headerRow = findHeaderRow(sheet, "Tarih");
-    if (headerRow == -1) {
-      errors.add("Could not find header row");
-      return rows;
+  private FileImportResult importLockedFile(
+      String tenantId,
+      String fileName,
+      String contentHash,
+      MultipartFile file,
+      Charset textCharset,
+      Set<YearMonth> affectedMonths)
+      throws Exception {
+    // Another tenant importing the same file does not make it a repeat for this one
+    ImportLedgerEntry entry =
+        importLedgerRepository.findByTenantIdAndContentHash(tenantId, contentHash).orElse(null);
+    if (entry != null && entry.getStatus() == ImportStatus.COMPLETED) {
+      // Identical file imported before: answer from the ledger without opening the workbook
+      logger.info(
+          "File {} is identical to {} imported at {}, skipping",
+          fileName,
+          entry.getFileName(),
+          entry.getImportedAt());
+      return repeatedImportResult(fileName, entry);
     }
 
-    // Map columns
-    Row header = sheet.getRow(headerRow);
-    Map<String, Integer> columnMap = new HashMap<>();
-    for (Cell cell : header) {
-      String value = getCellValueAsString(cell);
-      if (value != null) {
-        columnMap.put(value.trim(), cell.getColumnIndex());
-      }
+    if (entry == null) {
+      entry = new ImportLedgerEntry();
+      entry.setTenantId(tenantId);
+      entry.setContentHash(contentHash);
+      entry.setFileName(fileName);
+      entry.setImportedAt(LocalDateTime.now());
+      entry = importLedgerRepository.save(entry);
+    } else {
+      logger.info(
+          "Resuming interrupted import of {} after {} committed rows",
+          fileName,
+          entry.getRowsCommitted());
     }
+    int resumeAfter = entry.getRowsCommitted();
 
-    // Parse data rows
-    for (int i = headerRow + 1; i <= sheet.getLastRowNum(); i++) {
-      Row row = sheet.getRow(i);
-      if (row == null) continue;
+    BlockingQueue<List<Transaction>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+    Future<ParsedFile> parser =
+        parserExecutor.submit(
+            () -> parseFileToChunks(tenantId, fileName, file, textCharset, chunks));
 
-      try {
-        ParsedRow parsed = new ParsedRow();
-        parsed.fileType = "debit";
-
-        // Date (Tarih)
-        Integer dateCol = columnMap.get("Tarih");
-        if (dateCol == null) continue;
-        parsed.date = parseDateCell(row.getCell(dateCol));
-        if (parsed.date == null) continue;
-
-        // Merchant (Açıklama)
-        Integer merchantCol = columnMap.get("Açıklama");
-        if (merchantCol == null) continue;
-        parsed.merchant = getCellValueAsString(row.getCell(merchantCol));
-        if (parsed.merchant == null || parsed.merchant.trim().isEmpty()) continue;
-        parsed.rawDescription = parsed.merchant;
-
-        // Category (Etiket)
-        Integer categoryCol = columnMap.get("Etiket");
-        if (categoryCol != null) {
-          parsed.userCategory = getCellValueAsString(row.getCell(categoryCol));
-        }
-
-        // Skip rows with specific tags
-        if (parsed.userCategory != null) {
-          String etiketLower = parsed.userCategory.toLowerCase().trim();
-          if (etiketLower.contains("döviz al / sat") || etiketLower.contains("kart ödemesi")) {
-            continue; // Skip this row
-          }
+    int rowsParsed = 0;
+    LocalDate dateFrom = null;
+    LocalDate dateTo = null;
+    ParsedFile parsedFile;
+    try {
+      while (true) {
+        List<Transaction> chunk = chunks.poll(1, TimeUnit.SECONDS);
+        if (chunk == null) {
+          // A parser that failed ends without END_OF_FILE; get() below rethrows its error
+          if (parser.isDone() && chunks.isEmpty()) break;
+          continue;
         }
+        if (chunk == END_OF_FILE) break;
 
-        // Amount (Tutar)
-        Integer amountCol = columnMap.get("Tutar");
-        if (amountCol == null) continue;
-        parsed.amount = parseTurkishAmount(row.getCell(amountCol));
-        if (parsed.amount == null) continue;
-
-        // Balance (Bakiye)
-        Integer balanceCol = columnMap.get("Bakiye");
-        if (balanceCol != null) {
-          parsed.balance = parseTurkishAmount(row.getCell(balanceCol));
+        for (Transaction t : chunk) {
+          LocalDate date = t.getTransactionDate();
+          if (dateFrom == null || date.isBefore(dateFrom)) dateFrom = date;
+          if (dateTo == null || date.isAfter(dateTo)) dateTo = date;
         }
 
-        // Transaction ID (Dekont No) - REQUIRED for debit
-        Integer transactionIdCol = columnMap.get("Dekont No");
-        if (transactionIdCol == null) {
-          errors.add(String.format("Row %d: Missing Dekont No column", i + 1));
-          continue;
-        }
-        parsed.transactionId = getCellValueAsString(row.getCell(transactionIdCol));
-        if (parsed.transactionId == null || parsed.transactionId.trim().isEmpty()) {
-          errors.add(String.format("Row %d: Missing Dekont No value", i + 1));
-          continue; // Skip row if Dekont No is missing
+        int chunkStart = rowsParsed;
+        rowsParsed += chunk.size();
+        if (rowsParsed <= resumeAfter) {
+          continue; // Committed by an earlier, interrupted import of this file
         }
-
-        rows.add(parsed);
-      } catch (Exception e) {
-        errors.add(String.format("Row %d: %s", i + 1, e.getMessage()));
+        List<Transaction> pending =
+            chunkStart < resumeAfter ? chunk.subList(resumeAfter - chunkStart, chunk.size()) : chunk;
+        entry = writeChunk(tenantId, pending, entry, affectedMonths);
       }
+      parsedFile = parser.get();
+    } catch (Exception e) {
+      Exception failure =
+          e instanceof ExecutionException && e.getCause() instanceof Exception cause ? cause : e;
+      forgetIfNothingCommitted(entry, failure);
+      throw failure;
+    } finally {
+      parser.cancel(true);
     }
 
-    return rows;
+    entry.setFileType(parsedFile.fileType());
+    entry.setDateFrom(dateFrom);
+    entry.setDateTo(dateTo);
+    entry.setRowsParsed(rowsParsed);
+    entry.setStatus(ImportStatus.COMPLETED);
+    entry = importLedgerRepository.save(entry);
+
+    return new FileImportResult(
+        fileName,
+        rowsParsed,
+        entry.getInserted(),
+        entry.getSkippedDuplicates(),
+        new ArrayList<>(),
+        parsedFile.rowsPerSheet());
   }
 
-  private List<ParsedRow> parseCreditFile(Sheet sheet, List<String> errors) {
-    List<ParsedRow> rows = new ArrayList<>();
-
-    // Find header row
-    int headerRow = findHeaderRow(sheet, "Tarih");
-    if (headerRow == -1) {
-      errors.add("Could not find header row");
-      return rows;
+  /**
+   * Removes the ledger entry of an import that failed before committing any rows, typically
+   * because no parser recognised the file. Left behind, it would stay IN_PROGRESS for good.
+   */
+  private void forgetIfNothingCommitted(ImportLedgerEntry entry, Exception failure) {
+    if (entry.getRowsCommitted() != 0) return;
+    try {
+      importLedgerRepository.delete(entry);
+    } catch (RuntimeException e) {
+      failure.addSuppressed(e);
     }
+  }
 
-    // Map columns
-    Row header = sheet.getRow(headerRow);
-    Map<String, Integer> columnMap = new HashMap<>();
-    for (Cell cell : header) {
-      String value = getCellValueAsString(cell);
-      if (value != null) {
-        columnMap.put(value.trim(), cell.getColumnIndex());
+  /**
+   * Deduplicates one chunk and inserts its new transactions, committing them together with the
+   * file's progress in the ledger.
+   */
+  private ImportLedgerEntry writeChunk(
+      String tenantId,
+      List<Transaction> chunk,
+      ImportLedgerEntry entry,
+      Set<YearMonth> affectedMonths) {
+    // Deduplicate within the chunk (keep first occurrence). Duplicates of rows in earlier chunks
+    // are found in the database, because those chunks are already committed.
+    Map<String, Transaction> uniqueTransactions = new LinkedHashMap<>();
+    for (Transaction t : chunk) {
+      Transaction existing = uniqueTransactions.putIfAbsent(t.getDedupHash(), t);
+      if (existing != null) {
+        // Duplicate found within batch
+        logger.info(
+            "Duplicate transaction found within batch - Hash: {}, "
+                + "Existing: {} | {} | {} | {}, "
+                + "Duplicate: {} | {} | {} | {}",
+            t.getDedupHash(),
+            existing.getTransactionDate(),
+            existing.getMerchant(),
+            existing.getAmount(),
+            existing.getTransactionId(),
+            t.getTransactionDate(),
+            t.getMerchant(),
+            t.getAmount(),
+            t.getTransactionId());
       }
     }
 
-    // Parse data rows
-    for (int i = headerRow + 1; i <= sheet.getLastRowNum(); i++) {
-      Row row = sheet.getRow(i);
-      if (row == null) continue;
-
-      try {
-        ParsedRow parsed = new ParsedRow();
-        parsed.fileType = "credit";
-
-        // Date (Tarih)
-        Integer dateCol = columnMap.get("Tarih");
-        if (dateCol == null) continue;
-        parsed.date = parseDateCell(row.getCell(dateCol));
-        if (parsed.date == null) continue;
-
-        // Merchant (İşlem)
-        Integer merchantCol = columnMap.get("İşlem");
-        if (merchantCol == null) continue;
-        parsed.merchant = getCellValueAsString(row.getCell(merchantCol));
-        if (parsed.merchant == null || parsed.merchant.trim().isEmpty()) continue;
-        parsed.rawDescription = parsed.merchant;
-
-        // Category (Etiket) - optional, treat as empty string if missing
-        Integer categoryCol = columnMap.get("Etiket");
-        if (categoryCol != null) {
-          parsed.userCategory = getCellValueAsString(row.getCell(categoryCol));
-        }
-        if (parsed.userCategory == null) {
-          parsed.userCategory = "";
-        }
-
-        // Skip rows with specific tags
-        if (parsed.userCategory != null && !parsed.userCategory.isEmpty()) {
-          String etiketLower = parsed.userCategory.toLowerCase().trim();
-          if (etiketLower.contains("döviz al / sat") || etiketLower.contains("kart ödemesi")) {
-            continue; // Skip this row
-          }
-        }
-
-        // Amount (Tutar(TL))
-        Integer amountCol = columnMap.get("Tutar(TL)");
-        if (amountCol == null) continue;
-        parsed.amount = parseTurkishAmount(row.getCell(amountCol));
-        if (parsed.amount == null) continue;
-
-        // Bonus - read but don't use in dedup
-        Integer bonusCol = columnMap.get("Bonus");
-        if (bonusCol != null) {
-          parsed.bonusPoints = parseTurkishAmount(row.getCell(bonusCol));
-        }
+    transactionPartitionService.ensurePartitions(
+        uniqueTransactions.values().stream().map(Transaction::getTransactionDate).toList());
+
+    Set<String> committedHashes = new HashSet<>();
+    ImportLedgerEntry updated =
+        transactionTemplate.execute(
+            status -> {
+              // Check against database for existing hashes, skipping those that are certainly new
+              Set<String> maybeStored =
+                  dedupHashFilter.filterMaybeStored(tenantId, uniqueTransactions.keySet());
+              Set<String> existingHashes =
+                  maybeStored.isEmpty()
+                      ? Set.of()
+                      : new HashSet<>(
+                          transactionRepository.findExistingDedupHashes(tenantId, maybeStored));
+              dedupHashFilter.recordDatabaseMatches(maybeStored.size(), existingHashes.size());
+
+              List<Transaction> newTransactions = new ArrayList<>();
+              for (Transaction t : uniqueTransactions.values()) {
+                if (existingHashes.contains(t.getDedupHash())) {
+                  logger.debug(
+                      "Duplicate transaction found in database - Hash: {}, "
+                          + "Skipped: {} | {} | {} | {}",
+                      t.getDedupHash(),
+                      t.getTransactionDate(),
+                      t.getMerchant(),
+                      t.getAmount(),
+                      t.getTransactionId());
+                } else {
+                  newTransactions.add(t);
+                }
+              }
+
+              int inserted = 0;
+              if (!newTransactions.isEmpty()) {
+                Set<String> insertedHashes = insertNew(newTransactions);
+                List<Transaction> insertedRows = new ArrayList<>(insertedHashes.size());
+                for (Transaction t : newTransactions) {
+                  if (insertedHashes.contains(t.getDedupHash())) {
+                    affectedMonths.add(YearMonth.from(t.getTransactionDate()));
+                    insertedRows.add(t);
+                  }
+                }
+                anomalyDetectionService.observe(tenantId, insertedRows);
+                inserted = insertedHashes.size();
+                committedHashes.addAll(insertedHashes);
+                if (inserted < newTransactions.size()) {
+                  logger.debug(
+                      "{} rows of the chunk were inserted concurrently by another import",
+                      newTransactions.size() - inserted);
+                }
+              }
+
+              entry.setRowsCommitted(entry.getRowsCommitted() + chunk.size());
+              entry.setInserted(entry.getInserted() + inserted);
+              entry.setSkippedDuplicates(entry.getSkippedDuplicates() + chunk.size() - inserted);
+              return importLedgerRepository.save(entry);
+            });
+    // Only after the commit, so a filter rebuilt meanwhile cannot miss them
+    dedupHashFilter.added(tenantId, committedHashes);
+    return updated;
+  }
 
-        rows.add(parsed);
-      } catch (Exception e) {
-        errors.add(String.format("Row %d: %s", i + 1, e.getMessage()));
-      }
+  /**
+   * Inserts the transactions, skipping any whose dedup key is already stored, and returns the
+   * hashes of the rows actually inserted. The rows are sorted by hash so that concurrent imports
+   * of overlapping rows take their index locks in the same order and cannot deadlock.
+   */
+  private Set<String> insertNew(List<Transaction> transactions) {
+    List<Transaction> rows = new ArrayList<>(transactions);
+    rows.sort(Comparator.comparing(Transaction::getDedupHash));
+
+    int size = rows.size();
+    String[] tenantIds = new String[size];
+    java.sql.Date[] dates = new java.sql.Date[size];
+    String[] merchants = new String[size];
+    BigDecimal[] amounts = new BigDecimal[size];
+    BigDecimal[] balances = new BigDecimal[size];
+    String[] transactionIds = new String[size];
+    Boolean[] subscriptions = new Boolean[size];
+    String[] rawDescriptions = new String[size];
+    Timestamp[] importTimestamps = new Timestamp[size];
+    String[] hashes = new String[size];
+    for (int i = 0; i < size; i++) {
+      Transaction t = rows.get(i);
+      tenantIds[i] = t.getTenantId();
+      dates[i] = java.sql.Date.valueOf(t.getTransactionDate());
+      merchants[i] = t.getMerchant();
+      amounts[i] = t.getAmount();
+      balances[i] = t.getBalance();
+      transactionIds[i] = t.getTransactionId();
+      subscriptions[i] = t.getIsSubscription();
+      rawDescriptions[i] = t.getRawDescription();
+      importTimestamps[i] = Timestamp.valueOf(t.getImportTimestamp());
+      hashes[i] = t.getDedupHash();
     }
 
-    return rows;
+    Set<String> inserted = new HashSet<>();
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(INSERT_NEW_SQL);
+          statement.setArray(1, connection.createArrayOf("varchar", tenantIds));
+          statement.setArray(2, connection.createArrayOf("date", dates));
+          statement.setArray(3, connection.createArrayOf("varchar", merchants));
+          statement.setArray(4, connection.createArrayOf("numeric", amounts));
+          statement.setArray(5, connection.createArrayOf("numeric", balances));
+          statement.setArray(6, connection.createArrayOf("varchar", transactionIds));
+          statement.setArray(7, connection.createArrayOf("boolean", subscriptions));
+          statement.setArray(8, connection.createArrayOf("varchar", rawDescriptions));
+          statement.setArray(9, connection.createArrayOf("timestamp", importTimestamps));
+          statement.setArray(10, connection.createArrayOf("varchar", hashes));
+          return statement;
+        },
+        rs -> {
+          inserted.add(rs.getString(1));
+        });
+    return inserted;
   }
 
-  private Transaction createTransaction(ParsedRow row, String fileType) {
-    Transaction transaction = new Transaction();
-    transaction.setTransactionDate(row.date);
-    transaction.setMerchant(row.merchant);
-    transaction.setAmount(row.amount);
-    transaction.setBalance(row.balance);
-    transaction.setTransactionId(row.transactionId);
-    transaction.setRawDescription(row.rawDescription);
-    transaction.setImportTimestamp(LocalDateTime.now());
-    transaction.setIsSubscription(false);
+  private ReentrantLock fileLock(String tenantId, String contentHash) {
+    int hash = Objects.hash(tenantId, contentHash);
+    return fileLocks[Math.floorMod(hash, FILE_LOCK_STRIPES)];
+  }
 
-    // Generate dedup hash based on file type
-    String dedupHash;
-    if ("debit".equals(fileType)) {
-      // Debit: SHA256("DEBIT|" + dateISO + "|" + descriptionTrim + "|" + amountNormalized + "|" +
-      // dekontNoTrim)
-      String dateISO = row.date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-      String descriptionTrim = row.merchant.trim();
-      String amountNormalized = row.amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
-      String dekontNoTrim = row.transactionId != null ? row.transactionId.trim() : "";
-      dedupHash =
-          HashUtil.generateSHA256(
-              "DEBIT|"
-                  + dateISO
-                  + "|"
-                  + descriptionTrim
-                  + "|"
-                  + amountNormalized
-                  + "|"
-                  + dekontNoTrim);
-    } else {
-      // Credit: SHA256("CREDIT|" + dateISO + "|" + islemTrim + "|" + etiketTrimOrEmpty + "|" +
-      // amountNormalized)
-      String dateISO = row.date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-      String islemTrim = row.merchant.trim();
-      String etiketTrimOrEmpty = (row.userCategory != null ? row.userCategory.trim() : "");
-      String amountNormalized = row.amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
-      dedupHash =
-          HashUtil.generateSHA256(
-              "CREDIT|"
-                  + dateISO
-                  + "|"
-                  + islemTrim
-                  + "|"
-                  + etiketTrimOrEmpty
-                  + "|"
-                  + amountNormalized);
+  private static ReentrantLock[] newFileLocks() {
+    ReentrantLock[] locks = new ReentrantLock[FILE_LOCK_STRIPES];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
     }
-
-    transaction.setDedupHash(dedupHash);
-    return transaction;
+    return locks;
   }
 
-  private int findHeaderRow(Sheet sheet, String headerName) {
-    for (int i = 0; i < Math.min(20, sheet.getLastRowNum() + 1); i++) {
-      Row row = sheet.getRow(i);
-      if (row == null) continue;
-
-      for (Cell cell : row) {
-        String value = getCellValueAsString(cell);
-        if (value != null && value.trim().equalsIgnoreCase(headerName)) {
-          return i;
-        }
-      }
-    }
-    return -1;
+  private ImportHistoryDto toHistoryDto(ImportLedgerEntry entry) {
+    return new ImportHistoryDto(
+        entry.getId(),
+        entry.getFileName(),
+        entry.getFileType(),
+        entry.getContentHash(),
+        entry.getStatus(),
+        entry.getDateFrom(),
+        entry.getDateTo(),
+        entry.getRowsParsed(),
+        entry.getInserted(),
+        entry.getSkippedDuplicates(),
+        entry.getImportedAt());
   }
 
-  private String getCellValueAsString(Cell cell) {
-    if (cell == null) return null;
-
-    switch (cell.getCellType()) {
-      case STRING:
-        return cell.getStringCellValue().trim();
-      case NUMERIC:
-        if (DateUtil.isCellDateFormatted(cell)) {
-          return cell.getLocalDateTimeCellValue().toString();
-        } else {
-          double value = cell.getNumericCellValue();
-          if (value == (long) value) {
-            return String.valueOf((long) value);
-          } else {
-            return String.valueOf(value);
-          }
-        }
-      case BOOLEAN:
-        return String.valueOf(cell.getBooleanCellValue());
-      case FORMULA:
-        try {
-          return cell.getStringCellValue();
-        } catch (Exception e) {
-          return String.valueOf(cell.getNumericCellValue());
-        }
-      default:
-        return null;
-    }
+  private FileImportResult repeatedImportResult(String fileName, ImportLedgerEntry previous) {
+    // Every row of an identical file is a duplicate of what the first import stored
+    return new FileImportResult(
+        fileName,
+        previous.getRowsParsed(),
+        0,
+        previous.getRowsParsed(),
+        new ArrayList<>(),
+        Map.of());
   }
 
-  private LocalDate parseDateCell(Cell cell) {
-    if (cell == null) return null;
+  /**
+   * Runs on the parser thread. Detects the statement format, parses the file and puts its
+   * transactions on the queue in chunks of {@code spending.import.chunk-size}, followed by {@link
+   * #END_OF_FILE}.
+   *
+   * @return the detected file type and, for workbooks, the rows read from each sheet
+   */
+  private ParsedFile parseFileToChunks(
+      String tenantId,
+      String fileName,
+      InputStreamSource content,
+      Charset textCharset,
+      BlockingQueue<List<Transaction>> chunks)
+      throws Exception {
+    logger.info("Parsing file: {}", fileName);
 
-    try {
-      if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
-        Date date = cell.getDateCellValue();
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-      } else if (cell.getCellType() == CellType.STRING) {
-        String dateStr = cell.getStringCellValue().trim();
-        // Parse DD/MM/YYYY format
-        String[] parts = dateStr.split("/");
-        if (parts.length == 3) {
-          int day = Integer.parseInt(parts[0]);
-          int month = Integer.parseInt(parts[1]);
-          int year = Integer.parseInt(parts[2]);
-          return LocalDate.of(year, month, day);
-        }
+    List<String> errors = new ArrayList<>();
+
+    try (StatementSource source = new StatementSource(fileName, content, textCharset)) {
+      StatementParser parser = statementParserRegistry.detect(source);
+      logger.info("Detected file type: {} for file: {}", parser.fileType(), fileName);
+
+      List<Transaction> chunk = new ArrayList<>(chunkSize);
+      parser.parse(
+          source,
+          errors,
+          row -> {
+            chunk.add(
+                createTransaction(
+                    tenantId, row, HashUtil.generateSHA256(parser.dedupKey(row))));
+            if (chunk.size() >= chunkSize) {
+              putChunk(chunks, new ArrayList<>(chunk));
+              chunk.clear();
+            }
+          });
+
+      if (!chunk.isEmpty()) {
+        putChunk(chunks, chunk);
       }
-    } catch (Exception e) {
-      logger.warn("Error parsing date cell: {}", e.getMessage());
+      putChunk(chunks, END_OF_FILE);
+
+      if (!errors.isEmpty()) {
+        logger.warn("Errors parsing file {}: {}", fileName, errors);
+      }
+      return new ParsedFile(parser.fileType(), source.rowsPerSheet());
     }
-    return null;
   }
 
-  private BigDecimal parseTurkishAmount(Cell cell) {
-    if (cell == null) return null;
+  private record ParsedFile(String fileType, Map<String, Integer> rowsPerSheet) {}
 
+  private void putChunk(BlockingQueue<List<Transaction>> chunks, List<Transaction> chunk) {
     try {
-      if (cell.getCellType() == CellType.NUMERIC) {
-        return BigDecimal.valueOf(cell.getNumericCellValue()).setScale(2, RoundingMode.HALF_UP);
-      } else if (cell.getCellType() == CellType.STRING) {
-        String value = cell.getStringCellValue().trim();
-        value = value.replace(".", "").replace(",", ".");
-        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
-      } else if (cell.getCellType() == CellType.FORMULA) {
-        try {
-          double numericValue = cell.getNumericCellValue();
-          return BigDecimal.valueOf(numericValue).setScale(2, RoundingMode.HALF_UP);
-        } catch (Exception e) {
-          // Try as string
-          String value = cell.getStringCellValue().trim();
-          value = value.replace(".", "").replace(",", ".");
-          return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
-        }
-      }
-    } catch (Exception e) {
-      logger.warn("Error parsing amount cell: {}", e.getMessage());
+      chunks.put(chunk);
+    } catch (InterruptedException e) {
+      // The importing thread gave up on this file
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Import cancelled");
     }
-    return null;
   }
 
-  // Inner class for parsed row data
-  private static class ParsedRow {
-    String fileType;
-    LocalDate date;
-    String merchant;
-    BigDecimal amount;
-    BigDecimal balance;
-    String transactionId;
-    String userCategory;
-    BigDecimal bonusPoints;
-    String rawDescription;
+  private Transaction createTransaction(String tenantId, StatementRow row, String dedupHash) {
+    Transaction transaction = new Transaction();
+    transaction.setTenantId(tenantId);
+    transaction.setTransactionDate(row.date());
+    transaction.setMerchant(row.merchant());
+    transaction.setAmount(row.amount());
+    transaction.setBalance(row.balance());
+    transaction.setTransactionId(row.transactionId());
+    transaction.setRawDescription(row.rawDescription());
+    transaction.setImportTimestamp(LocalDateTime.now());
+    transaction.setIsSubscription(false);
+    transaction.setDedupHash(dedupHash);
+    return transaction;
   }
 }
@@ -0,0 +1,136 @@
+package com.spendinganalytics.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the monthly range partitions of the {@code transactions} table (see
+ * V1__partitioned_transactions.sql).
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionPartitionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+  private static final String LIST_PARTITIONS_SQL =
+      "SELECT c.relname FROM pg_inherits i "
+          + "JOIN pg_class c ON c.oid = i.inhrelid "
+          + "JOIN pg_class p ON p.oid = i.inhparent "
+          + "WHERE p.relname = 'transactions' ORDER BY c.relname";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${spending.partitions.months-ahead:3}")
+  private int monthsAhead;
+
+  /** Creates the partitions for the current month and the configured number of months ahead. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${spending.partitions.maintenance-cron:0 0 3 * * *}")
+  public void createUpcomingPartitions() {
+    YearMonth current = YearMonth.now();
+    for (int i = 0; i <= monthsAhead; i++) {
+      createPartition(current.plusMonths(i));
+    }
+  }
+
+  /**
+   * Makes sure a partition exists for every month covered by the given dates. Runs in its own
+   * transaction so the lock taken on the parent table while attaching a partition is released
+   * before the caller starts inserting.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void ensurePartitions(Collection<LocalDate> dates) {
+    Set<YearMonth> months = new TreeSet<>();
+    for (LocalDate date : dates) {
+      months.add(YearMonth.from(date));
+    }
+    months.forEach(this::createPartition);
+  }
+
+  public List<String> listPartitions() {
+    return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+  }
+
+  /** Partitions whose whole month lies before the given month, oldest first. */
+  public List<String> listPartitionsBefore(YearMonth month) {
+    String boundary = partitionName(month);
+    return listPartitions().stream().filter(name -> name.compareTo(boundary) < 0).toList();
+  }
+
+  /**
+   * Past partitions (whole month before the current one) holding any row of the tenant, oldest
+   * first. Each check is a single probe of the partition's tenant-leading index and takes no lock
+   * beyond what a read does. Current and upcoming months are never returned: imports create their
+   * partitions ahead of inserting into them.
+   */
+  public List<String> listPastPartitionsWithRowsOf(String tenantId, YearMonth before) {
+    YearMonth current = YearMonth.now();
+    YearMonth boundary = before.isBefore(current) ? before : current;
+    return listPartitionsBefore(boundary).stream()
+        .filter(
+            partition ->
+                Boolean.TRUE.equals(
+                    jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM \"" + partition + "\" WHERE tenant_id = ?)",
+                        Boolean.class,
+                        tenantId)))
+        .toList();
+  }
+
+  /**
+   * Empties the partition if every row in it belongs to the given tenant, so no other tenant's
+   * data goes with it. Only the partition is locked, not the parent table: other tenants keep
+   * reading and writing every other month, and the partition stays attached, so an import of
+   * another tenant waits for the lock and then inserts into it instead of failing. Truncating
+   * discards the rows as cheaply as dropping the partition would. The min/max lookups read just
+   * the ends of the tenant-leading index.
+   *
+   * @return the number of rows removed, or -1 if the partition is shared (or no longer holds the
+   *     tenant's rows) and was kept
+   */
+  @Transactional
+  public long truncatePartitionIfOwnedBy(String partition, String tenantId) {
+    jdbcTemplate.execute("LOCK TABLE \"" + partition + "\" IN ACCESS EXCLUSIVE MODE");
+    Map<String, Object> range =
+        jdbcTemplate.queryForMap(
+            "SELECT min(tenant_id) AS first_tenant, max(tenant_id) AS last_tenant, "
+                + "count(*) AS row_count FROM \""
+                + partition
+                + "\"");
+    boolean owned =
+        tenantId.equals(range.get("first_tenant")) && tenantId.equals(range.get("last_tenant"));
+    if (!owned) return -1;
+
+    long rows = ((Number) range.get("row_count")).longValue();
+    jdbcTemplate.execute("TRUNCATE TABLE \"" + partition + "\"");
+    logger.info(
+        "Emptied transaction partition {} of tenant {} ({} rows)", partition, tenantId, rows);
+    return rows;
+  }
+
+  private String partitionName(YearMonth month) {
+    return String.format("transactions_%04d_%02d", month.getYear(), month.getMonthValue());
+  }
+
+  private void createPartition(YearMonth month) {
+    jdbcTemplate.queryForObject(
+        "SELECT ensure_transactions_partition(?)", Object.class, month.atDay(1));
+  }
+}
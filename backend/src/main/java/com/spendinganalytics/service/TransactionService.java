@@ -6,7 +6,6 @@ import com.spendinganalytics.repository.TransactionRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,14 +13,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class TransactionService {
 
   @Autowired
   private TransactionRepository transactionRepository;
 
   public Page<TransactionDto> getTransactions(
+      String tenantId,
       LocalDate startDate,
       LocalDate endDate,
       BigDecimal minAmount,
@@ -30,7 +32,9 @@ public class TransactionService {
       int page,
       int size) {
 
-    Specification<Transaction> spec = Specification.where(null);
+    // Tenant first, so the query reads only this tenant's range of the tenant-leading indexes
+    Specification<Transaction> spec =
+        Specification.where((root, query, cb) -> cb.equal(root.get("tenantId"), tenantId));
 
     // Date range filter
     if (startDate != null) {
@@ -89,12 +93,8 @@ public class TransactionService {
     return transactions.map(this::toDto);
   }
 
-  public List<String> getDistinctMerchants() {
-    return transactionRepository.findAll().stream()
-        .map(Transaction::getMerchant)
-        .distinct()
-        .sorted()
-        .collect(Collectors.toList());
+  public List<String> getDistinctMerchants(String tenantId) {
+    return transactionRepository.findDistinctMerchants(tenantId);
   }
 
   private TransactionDto toDto(Transaction transaction) {
@@ -0,0 +1,87 @@
+package com.spendinganalytics.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over SHA-256 hex digests. The digests are already uniformly
+ * distributed, so the bit positions are derived from their first 32 hex digits by double hashing
+ * instead of hashing them again.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashFunctions;
+  private final long capacity;
+  private final AtomicLong insertions = new AtomicLong();
+
+  private BloomFilter(long bitCount, int hashFunctions, long capacity) {
+    this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    this.bitCount = (long) words.length() * 64;
+    this.hashFunctions = hashFunctions;
+    this.capacity = capacity;
+  }
+
+  /** A filter that keeps the given false positive rate up to {@code capacity} insertions. */
+  public static BloomFilter withCapacity(long capacity, double falsePositiveRate) {
+    long n = Math.max(1, capacity);
+    double bits = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    long bitCount = Math.min((long) Math.ceil(bits), (long) Integer.MAX_VALUE * 64);
+    int hashFunctions = Math.max(1, (int) Math.round(bitCount / (double) n * Math.log(2)));
+    return new BloomFilter(bitCount, hashFunctions, n);
+  }
+
+  public void add(String hexDigest) {
+    long h1 = hexLong(hexDigest, 0);
+    long h2 = hexLong(hexDigest, 16) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long mask = 1L << bit;
+      int word = (int) (bit >>> 6);
+      words.getAndUpdate(word, value -> value | mask);
+    }
+    insertions.incrementAndGet();
+  }
+
+  /** {@code false} means the digest was certainly never added. */
+  public boolean mightContain(String hexDigest) {
+    long h1 = hexLong(hexDigest, 0);
+    long h2 = hexLong(hexDigest, 16) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long capacity() {
+    return capacity;
+  }
+
+  /** Number of {@link #add} calls, counting repeated digests each time. */
+  public long insertions() {
+    return insertions.get();
+  }
+
+  /** False positive rate expected at the current number of insertions. */
+  public double expectedFalsePositiveRate() {
+    double filled = 1 - Math.exp(-hashFunctions * (double) insertions.get() / bitCount);
+    return Math.pow(filled, hashFunctions);
+  }
+
+  // 16 hex digits starting at offset; shorter or non-hex input still maps to some value
+  private static long hexLong(String hex, int offset) {
+    if (hex.length() < offset + 16) {
+      long h = hex.hashCode() * 0x9E3779B97F4A7C15L;
+      return offset == 0 ? h : Long.rotateLeft(h, 32) ^ 0xC2B2AE3D27D4EB4FL;
+    }
+    long value = 0;
+    for (int i = offset; i < offset + 16; i++) {
+      value = (value << 4) | (Character.digit(hex.charAt(i), 16) & 0xF);
+    }
+    return value;
+  }
+}
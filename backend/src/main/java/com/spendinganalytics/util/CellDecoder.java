@@ -0,0 +1,147 @@
+package com.spendinganalytics.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Allocation-free decoding of the cell values found in bank statements. Each method covers the
+ * common well-formed input; anything it does not recognise is reported as {@link #NOT_PARSED} or
+ * {@code null} so the caller can fall back to the general (allocating) parsing path.
+ */
+@UtilityClass
+public class CellDecoder {
+
+  /** Returned by {@link #parseTurkishAmountCents} when the input is not on the fast path. */
+  public final long NOT_PARSED = Long.MIN_VALUE;
+
+  // Whole units times 100 cents, plus one for rounding, must fit in a long: 16 digits do (at most
+  // about 10^18), 17 would not (about 10^19 > Long.MAX_VALUE)
+  private final int MAX_DIGITS = 16;
+
+  private final long DAY_MILLIS = 86_400_000L;
+
+  // Excel's 1900 date system counts a non-existent 1900-02-29 as serial 60
+  private final LocalDate EXCEL_1900_EPOCH = LocalDate.of(1899, 12, 31);
+  private final LocalDate EXCEL_1900_EPOCH_AFTER_LEAP_BUG = LocalDate.of(1899, 12, 30);
+  private final LocalDate EXCEL_1904_EPOCH = LocalDate.of(1904, 1, 1);
+
+  /**
+   * Parses a Turkish-formatted amount ("-1.234,56") into cents, rounding half up. Dots are
+   * grouping separators and are ignored; a single comma separates the fraction.
+   *
+   * @return the amount in cents, or {@link #NOT_PARSED} if the value is not a plain Turkish
+   *     amount
+   */
+  public long parseTurkishAmountCents(CharSequence value) {
+    int length = value.length();
+    int i = 0;
+    boolean negative = false;
+    if (i < length && value.charAt(i) == '-') {
+      negative = true;
+      i++;
+    }
+
+    long units = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean inFraction = false;
+    boolean roundUp = false;
+
+    for (; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        if (!inFraction) {
+          if (++digits > MAX_DIGITS) return NOT_PARSED;
+          units = units * 10 + (c - '0');
+        } else if (fractionDigits < 2) {
+          units = units * 10 + (c - '0');
+          fractionDigits++;
+        } else if (fractionDigits == 2) {
+          // First discarded digit decides HALF_UP rounding
+          roundUp = c >= '5';
+          fractionDigits++;
+        }
+      } else if (c == '.') {
+        // Grouping separator, dropped like the general path does
+      } else if (c == ',' && !inFraction) {
+        inFraction = true;
+      } else {
+        return NOT_PARSED;
+      }
+    }
+
+    if (digits == 0 && fractionDigits == 0) return NOT_PARSED;
+
+    for (int f = Math.min(fractionDigits, 2); f < 2; f++) {
+      units *= 10;
+    }
+    if (roundUp) {
+      units++;
+    }
+    return negative ? -units : units;
+  }
+
+  /**
+   * Parses a "DD/MM/YYYY" date made of digits and exactly two slashes.
+   *
+   * @return the date, or {@code null} if the value has another shape or is not a valid date
+   */
+  public LocalDate parseDayMonthYear(CharSequence value) {
+    int length = value.length();
+    int day = 0;
+    int month = 0;
+    int year = 0;
+    int field = 0;
+    int fieldDigits = 0;
+
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        if (++fieldDigits > 9) return null;
+        int digit = c - '0';
+        switch (field) {
+          case 0 -> day = day * 10 + digit;
+          case 1 -> month = month * 10 + digit;
+          default -> year = year * 10 + digit;
+        }
+      } else if (c == '/' && field < 2 && fieldDigits > 0) {
+        field++;
+        fieldDigits = 0;
+      } else {
+        return null;
+      }
+    }
+
+    if (field != 2 || fieldDigits == 0) return null;
+    try {
+      return LocalDate.of(year, month, day);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Converts an Excel serial date to the calendar day it represents, without going through {@link
+   * java.util.Date}. The time of day is rounded to the millisecond the way POI does, so a value a
+   * fraction of a millisecond before midnight belongs to the next day.
+   *
+   * @return the date, or {@code null} for negative serials, which Excel does not consider dates
+   */
+  public LocalDate excelSerialToLocalDate(double serial, boolean use1904Windowing) {
+    if (serial < 0 || Double.isNaN(serial) || Double.isInfinite(serial)) return null;
+
+    long wholeDays = (long) Math.floor(serial);
+    long millis = Math.round((serial - wholeDays) * DAY_MILLIS);
+
+    LocalDate date;
+    if (use1904Windowing) {
+      date = EXCEL_1904_EPOCH.plusDays(wholeDays);
+    } else if (wholeDays < 61) {
+      date = EXCEL_1900_EPOCH.plusDays(wholeDays);
+    } else {
+      date = EXCEL_1900_EPOCH_AFTER_LEAP_BUG.plusDays(wholeDays);
+    }
+    return millis >= DAY_MILLIS ? date.plusDays(1) : date;
+  }
+}
@@ -1,5 +1,7 @@
 package com.spendinganalytics.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -9,22 +11,44 @@ import lombok.experimental.UtilityClass;
 public class HashUtil {
 
   public String generateSHA256(String input) {
-    try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-      StringBuilder hexString = new StringBuilder();
-
-      for (byte b : hash) {
-        String hex = Integer.toHexString(0xff & b);
-        if (hex.length() == 1) {
-          hexString.append('0');
-        }
-        hexString.append(hex);
-      }
+    return generateSHA256(input.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public String generateSHA256(byte[] input) {
+    MessageDigest digest = sha256();
+    return toHex(digest.digest(input));
+  }
+
+  /** Hashes a stream without holding its content in memory. The stream is not closed. */
+  public String generateSHA256(InputStream input) throws IOException {
+    MessageDigest digest = sha256();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      digest.update(buffer, 0, read);
+    }
+    return toHex(digest.digest());
+  }
 
-      return hexString.toString();
+  private MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
     } catch (NoSuchAlgorithmException e) {
       throw new RuntimeException("SHA-256 algorithm not found", e);
     }
   }
+
+  private String toHex(byte[] hash) {
+    StringBuilder hexString = new StringBuilder();
+
+    for (byte b : hash) {
+      String hex = Integer.toHexString(0xff & b);
+      if (hex.length() == 1) {
+        hexString.append('0');
+      }
+      hexString.append(hex);
+    }
+
+    return hexString.toString();
+  }
 }
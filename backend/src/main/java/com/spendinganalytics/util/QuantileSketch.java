@@ -0,0 +1,169 @@
+package com.spendinganalytics.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch of non-negative values with a relative error guarantee, after
+ * DDSketch (Masson, Rim and Lee, 2019). Values are counted in logarithmic buckets whose bounds grow
+ * by 2% each, so any quantile is reported within 1% of a value of the right rank, whether amounts
+ * are a few lira or a few hundred thousand.
+ *
+ * <p>Merging adds bucket counts, so a merged sketch is exactly the sketch of all the values: a
+ * year's percentiles come from twelve monthly sketches without looking at a single transaction.
+ * A month of spending takes a few hundred buckets at most. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+  private static final double RELATIVE_ACCURACY = 0.01;
+  private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+  private static final double LOG_GAMMA = Math.log(GAMMA);
+
+  private static final byte FORMAT_VERSION = 1;
+
+  // Bucket i counts the values in (GAMMA^(i - 1), GAMMA^i]; zero has no logarithm and is counted
+  // on its own
+  private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+  private long zeroCount;
+  private long count;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  public void add(double value) {
+    if (!(value >= 0) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException("Not a non-negative finite value: " + value);
+    }
+    if (value == 0) {
+      zeroCount++;
+    } else {
+      buckets.merge(bucketIndex(value), 1L, Long::sum);
+    }
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /** Adds the values counted by {@code other} to this sketch. */
+  public QuantileSketch merge(QuantileSketch other) {
+    other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+    zeroCount += other.zeroCount;
+    count += other.count;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    return this;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * The value of rank {@code floor(q * (count - 1))} in ascending order, within 1%; the smallest
+   * and largest values are exact. NaN when the sketch is empty.
+   */
+  public double quantile(double q) {
+    if (q < 0 || q > 1) {
+      throw new IllegalArgumentException("Quantile outside [0, 1]: " + q);
+    }
+    if (count == 0) return Double.NaN;
+    if (q == 0) return min;
+    if (q == 1) return max;
+
+    long rank = (long) Math.floor(q * (count - 1));
+    if (rank < zeroCount) return 0;
+    long seen = zeroCount;
+    for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+      seen += bucket.getValue();
+      if (seen > rank) {
+        return Math.max(min, Math.min(max, bucketValue(bucket.getKey())));
+      }
+    }
+    return max;
+  }
+
+  /** Compact binary form: bucket indexes are delta encoded, all integers as varints. */
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + buckets.size() * 3);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      writeVarLong(out, zeroCount);
+      out.writeDouble(min);
+      out.writeDouble(max);
+      writeVarLong(out, buckets.size());
+      int previous = 0;
+      for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+        int delta = bucket.getKey() - previous;
+        // Only the first index can be negative (values below 1)
+        writeVarLong(out, (delta << 1) ^ (delta >> 31));
+        writeVarLong(out, bucket.getValue());
+        previous = bucket.getKey();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static QuantileSketch fromBytes(byte[] data) {
+    QuantileSketch sketch = new QuantileSketch();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      byte version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported quantile sketch version " + version);
+      }
+      sketch.zeroCount = readVarLong(in);
+      sketch.min = in.readDouble();
+      sketch.max = in.readDouble();
+      sketch.count = sketch.zeroCount;
+      long bucketCount = readVarLong(in);
+      int index = 0;
+      for (long i = 0; i < bucketCount; i++) {
+        int zigzag = (int) readVarLong(in);
+        index += (zigzag >>> 1) ^ -(zigzag & 1);
+        long valueCount = readVarLong(in);
+        sketch.buckets.put(index, valueCount);
+        sketch.count += valueCount;
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated quantile sketch", e);
+    }
+    return sketch;
+  }
+
+  private static int bucketIndex(double value) {
+    return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+  }
+
+  // The point of the bucket whose relative distance to both bounds is RELATIVE_ACCURACY
+  private static double bucketValue(int index) {
+    return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return value;
+    }
+    throw new IOException("Malformed varint");
+  }
+}
@@ -0,0 +1,74 @@
+-- Transactions table range-partitioned by month on transaction_date.
+--
+-- Installations created before migrations were introduced have a plain "transactions" table
+-- generated by Hibernate (ddl-auto=update). It is renamed here and its rows are moved into the
+-- partitioned table at the end of this script.
+
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_class WHERE relname = 'transactions' AND relkind = 'r') THEN
+    ALTER TABLE transactions RENAME TO transactions_legacy;
+  END IF;
+END $$;
+
+-- The partition key has to be part of every unique constraint, so the primary key and the dedup
+-- constraint both include transaction_date. The dedup hash already covers the date, which keeps
+-- (dedup_hash, transaction_date) as strict as the old single-column constraint.
+CREATE TABLE transactions (
+  id               BIGSERIAL      NOT NULL,
+  transaction_date DATE           NOT NULL,
+  merchant         VARCHAR(255)   NOT NULL,
+  amount           NUMERIC(15, 2) NOT NULL,
+  balance          NUMERIC(15, 2),
+  transaction_id   VARCHAR(255),
+  is_subscription  BOOLEAN,
+  raw_description  VARCHAR(1000),
+  import_timestamp TIMESTAMP(6),
+  dedup_hash       VARCHAR(255)   NOT NULL,
+  CONSTRAINT pk_transactions PRIMARY KEY (id, transaction_date),
+  CONSTRAINT uk_transactions_dedup_hash UNIQUE (dedup_hash, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+-- Creates the partition holding the month of the given date if it does not exist yet.
+-- Partitions are named transactions_YYYY_MM.
+CREATE OR REPLACE FUNCTION ensure_transactions_partition(day DATE) RETURNS VOID AS $$
+DECLARE
+  month_start    DATE := date_trunc('month', day)::date;
+  partition_name TEXT := 'transactions_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+  IF to_regclass(partition_name) IS NULL THEN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+        partition_name,
+        month_start,
+        (month_start + INTERVAL '1 month')::date);
+  END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+  month_start DATE;
+BEGIN
+  IF to_regclass('transactions_legacy') IS NOT NULL THEN
+    FOR month_start IN
+      SELECT DISTINCT date_trunc('month', transaction_date)::date FROM transactions_legacy
+    LOOP
+      PERFORM ensure_transactions_partition(month_start);
+    END LOOP;
+
+    INSERT INTO transactions (
+        id, transaction_date, merchant, amount, balance, transaction_id, is_subscription,
+        raw_description, import_timestamp, dedup_hash)
+    SELECT id, transaction_date, merchant, amount, balance, transaction_id, is_subscription,
+        raw_description, import_timestamp, dedup_hash
+    FROM transactions_legacy;
+
+    PERFORM setval(
+        pg_get_serial_sequence('transactions', 'id'),
+        COALESCE((SELECT MAX(id) FROM transactions), 0) + 1,
+        false);
+
+    DROP TABLE transactions_legacy;
+  END IF;
+END $$;
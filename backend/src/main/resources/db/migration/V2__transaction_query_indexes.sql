@@ -0,0 +1,20 @@
+-- Indexes for the query hot paths. Indexes created on the partitioned parent are created on every
+-- existing partition and on partitions attached later.
+
+-- Spending-only date range scans (findSpendingBetween and the transaction listing). The amount is
+-- included so the dashboard sums can be answered from the index alone.
+CREATE INDEX IF NOT EXISTS idx_transactions_spending_date
+    ON transactions (transaction_date)
+    INCLUDE (amount)
+    WHERE amount < 0;
+
+-- Per-merchant aggregates and the distinct merchant list.
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_date
+    ON transactions (merchant, transaction_date)
+    INCLUDE (amount);
+
+-- Case-insensitive substring search on merchant (lower(merchant) LIKE '%...%').
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_trgm
+    ON transactions USING gin (lower(merchant) gin_trgm_ops);
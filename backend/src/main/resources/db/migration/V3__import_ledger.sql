@@ -0,0 +1,17 @@
+-- One row per imported statement file, keyed by the SHA-256 of the file content. Lets a re-upload
+-- of an identical file be answered without opening the workbook.
+CREATE TABLE import_ledger (
+  id                 BIGSERIAL    PRIMARY KEY,
+  content_hash       VARCHAR(64)  NOT NULL,
+  file_name          VARCHAR(255),
+  file_type          VARCHAR(32)  NOT NULL,
+  date_from          DATE,
+  date_to            DATE,
+  rows_parsed        INTEGER      NOT NULL,
+  inserted           INTEGER      NOT NULL,
+  skipped_duplicates INTEGER      NOT NULL,
+  imported_at        TIMESTAMP(6) NOT NULL,
+  CONSTRAINT uk_import_ledger_content_hash UNIQUE (content_hash)
+);
+
+CREATE INDEX idx_import_ledger_imported_at ON import_ledger (imported_at DESC);
@@ -0,0 +1,7 @@
+-- Imports commit in chunks. The ledger row is created when a file starts importing and tracks how
+-- many rows have been committed, so an interrupted import of the same file resumes after them.
+ALTER TABLE import_ledger ADD COLUMN status VARCHAR(16) NOT NULL DEFAULT 'COMPLETED';
+ALTER TABLE import_ledger ADD COLUMN rows_committed INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE import_ledger ALTER COLUMN file_type DROP NOT NULL;
+
+UPDATE import_ledger SET rows_committed = rows_parsed;
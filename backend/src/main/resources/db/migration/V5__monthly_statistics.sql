@@ -0,0 +1,11 @@
+-- Per-month spending snapshot for closed months, used by the month-end projection instead of
+-- re-aggregating a year of transactions on every request. Rows are rebuilt for the months an
+-- import touches and computed on first use otherwise.
+CREATE TABLE monthly_statistics (
+  month             DATE             PRIMARY KEY, -- first day of the month
+  total_spent       NUMERIC(15, 2)   NOT NULL,
+  transaction_count INTEGER          NOT NULL,
+  -- Spending up to and including each day of the month: element 1 is day 1
+  daily_cumulative  NUMERIC(15, 2)[] NOT NULL,
+  computed_at       TIMESTAMP(6)     NOT NULL
+);
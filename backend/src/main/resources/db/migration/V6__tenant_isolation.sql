@@ -0,0 +1,40 @@
+-- Tenant (household) dimension. Every table is keyed by tenant first, so each tenant's queries
+-- read only its own index range. Rows that existed before belong to the 'default' tenant.
+
+ALTER TABLE transactions ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE transactions ALTER COLUMN tenant_id DROP DEFAULT;
+
+-- Dedup hashes only have to be unique within a tenant; two households may hold identical rows.
+ALTER TABLE transactions DROP CONSTRAINT uk_transactions_dedup_hash;
+ALTER TABLE transactions
+    ADD CONSTRAINT uk_transactions_tenant_dedup_hash UNIQUE (tenant_id, dedup_hash, transaction_date);
+
+DROP INDEX IF EXISTS idx_transactions_spending_date;
+CREATE INDEX idx_transactions_tenant_spending_date
+    ON transactions (tenant_id, transaction_date)
+    INCLUDE (amount)
+    WHERE amount < 0;
+
+DROP INDEX IF EXISTS idx_transactions_merchant_date;
+CREATE INDEX idx_transactions_tenant_merchant_date
+    ON transactions (tenant_id, merchant, transaction_date)
+    INCLUDE (amount);
+
+-- Unfiltered tenant scans: whole-tenant deletes, the overall average and the transaction listing.
+CREATE INDEX idx_transactions_tenant_date ON transactions (tenant_id, transaction_date);
+
+-- idx_transactions_merchant_trgm stays as it is: a trigram GIN index cannot lead with tenant_id
+-- without btree_gin, and substring searches are combined with the tenant-leading indexes above.
+
+ALTER TABLE import_ledger ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE import_ledger ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE import_ledger DROP CONSTRAINT uk_import_ledger_content_hash;
+ALTER TABLE import_ledger
+    ADD CONSTRAINT uk_import_ledger_tenant_content_hash UNIQUE (tenant_id, content_hash);
+DROP INDEX IF EXISTS idx_import_ledger_imported_at;
+CREATE INDEX idx_import_ledger_tenant_imported_at ON import_ledger (tenant_id, imported_at DESC);
+
+ALTER TABLE monthly_statistics ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE monthly_statistics ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE monthly_statistics DROP CONSTRAINT monthly_statistics_pkey;
+ALTER TABLE monthly_statistics ADD PRIMARY KEY (tenant_id, month);
@@ -0,0 +1,49 @@
+-- Running statistics of spending amounts for anomaly detection, as Welford state: the number of
+-- samples, their mean and the sum of squared deviations from the mean (m2). Amounts are taken as
+-- ln(|amount|), so a purchase is judged by how many times larger it is than usual. Imports merge
+-- their new rows into this state, so detection never rescans history.
+CREATE TABLE spending_baselines (
+  tenant_id     VARCHAR(64)      NOT NULL,
+  dimension     VARCHAR(16)      NOT NULL, -- MERCHANT or WEEKDAY
+  dimension_key VARCHAR(255)     NOT NULL, -- merchant name, or MONDAY .. SUNDAY
+  sample_count  BIGINT           NOT NULL,
+  mean          DOUBLE PRECISION NOT NULL,
+  m2            DOUBLE PRECISION NOT NULL,
+  updated_at    TIMESTAMP(6)     NOT NULL,
+  PRIMARY KEY (tenant_id, dimension, dimension_key)
+);
+
+-- Imported transactions that were unusually large for their merchant or weekday
+CREATE TABLE spending_anomalies (
+  id               BIGSERIAL        PRIMARY KEY,
+  tenant_id        VARCHAR(64)      NOT NULL,
+  transaction_date DATE             NOT NULL,
+  merchant         VARCHAR(255)     NOT NULL,
+  amount           NUMERIC(15, 2)   NOT NULL,
+  dedup_hash       VARCHAR(64)      NOT NULL,
+  dimension        VARCHAR(16)      NOT NULL,
+  dimension_key    VARCHAR(255)     NOT NULL,
+  typical_amount   NUMERIC(15, 2)   NOT NULL, -- exp(mean): the geometric mean of the baseline
+  z_score          DOUBLE PRECISION NOT NULL,
+  detected_at      TIMESTAMP(6)     NOT NULL
+);
+
+-- Recent anomalies are read newest first, so the listing costs the same at any history size
+CREATE INDEX idx_spending_anomalies_tenant_id ON spending_anomalies (tenant_id, id DESC);
+
+-- Seed the baselines from the transactions already stored
+INSERT INTO spending_baselines
+    (tenant_id, dimension, dimension_key, sample_count, mean, m2, updated_at)
+SELECT tenant_id, 'MERCHANT', merchant, count(*), avg(ln(-amount::float8)),
+       var_pop(ln(-amount::float8)) * count(*), now()
+FROM transactions
+WHERE amount < 0
+GROUP BY tenant_id, merchant;
+
+INSERT INTO spending_baselines
+    (tenant_id, dimension, dimension_key, sample_count, mean, m2, updated_at)
+SELECT tenant_id, 'WEEKDAY', trim(to_char(transaction_date, 'DAY')), count(*),
+       avg(ln(-amount::float8)), var_pop(ln(-amount::float8)) * count(*), now()
+FROM transactions
+WHERE amount < 0
+GROUP BY tenant_id, trim(to_char(transaction_date, 'DAY'));
@@ -0,0 +1,9 @@
+-- Quantile sketches (QuantileSketch) of each closed month: one of its spending amounts and one of
+-- its daily spending totals. They are mergeable, so the percentiles of a year come from twelve
+-- snapshots instead of sorting the year's transactions. Existing snapshots have no sketches; they
+-- are dropped and computed again on first use.
+DELETE FROM monthly_statistics;
+
+ALTER TABLE monthly_statistics
+  ADD COLUMN amount_sketch BYTEA NOT NULL,
+  ADD COLUMN daily_sketch  BYTEA NOT NULL;
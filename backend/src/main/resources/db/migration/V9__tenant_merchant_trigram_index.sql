@@ -0,0 +1,12 @@
+-- Case-insensitive merchant search within a tenant: tenant_id = ? AND lower(merchant) LIKE '%x%'.
+-- V6 kept the trigram index without the tenant and counted on the planner combining it with the
+-- tenant-leading btree indexes. It does not: the pattern is matched against every tenant's rows
+-- and the other tenants' matches are filtered out afterwards, so one household's search slows
+-- down as the others grow. btree_gin gives tenant_id a GIN operator class, so the trigram index
+-- can lead with the tenant and a search reads only that tenant's entries. Both extensions ship
+-- with PostgreSQL and are trusted, so the application's own role may create them.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+DROP INDEX IF EXISTS idx_transactions_merchant_trgm;
+CREATE INDEX idx_transactions_tenant_merchant_trgm
+    ON transactions USING gin (tenant_id, lower(merchant) gin_trgm_ops);
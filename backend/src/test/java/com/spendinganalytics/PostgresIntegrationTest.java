@@ -0,0 +1,77 @@
+package com.spendinganalytics;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base for tests that need the real schema: partitioned tables, Flyway migrations and PostgreSQL
+ * plans. They run against a PostgreSQL container started once for the whole test run, of the same
+ * image as docker-compose. Set {@code SPENDING_TEST_DATABASE_URL} (a JDBC URL, with {@code
+ * SPENDING_TEST_DATABASE_USERNAME} and {@code SPENDING_TEST_DATABASE_PASSWORD}) to use an existing
+ * database instead; it should be a scratch one, as the tests run the migrations on it and import
+ * data of their own. Without either a database or Docker the tests are skipped.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ExtendWith(PostgresIntegrationTest.DatabaseAvailable.class)
+public abstract class PostgresIntegrationTest {
+
+  private static final String DATABASE_URL = "SPENDING_TEST_DATABASE_URL";
+
+  private static final String IMAGE = "postgres:16-alpine";
+
+  private static PostgreSQLContainer<?> container;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) {
+    if (System.getenv(DATABASE_URL) != null) {
+      registry.add("spring.datasource.url", () -> System.getenv(DATABASE_URL));
+      registry.add(
+          "spring.datasource.username",
+          () -> environment("SPENDING_TEST_DATABASE_USERNAME", "spending_user"));
+      registry.add(
+          "spring.datasource.password",
+          () -> environment("SPENDING_TEST_DATABASE_PASSWORD", "spending_pass"));
+    } else {
+      PostgreSQLContainer<?> postgres = container();
+      registry.add("spring.datasource.url", postgres::getJdbcUrl);
+      registry.add("spring.datasource.username", postgres::getUsername);
+      registry.add("spring.datasource.password", postgres::getPassword);
+    }
+  }
+
+  // Shared by every test class and stopped by Testcontainers when the test JVM exits
+  private static synchronized PostgreSQLContainer<?> container() {
+    if (container == null) {
+      container = new PostgreSQLContainer<>(IMAGE).withDatabaseName("spending_analytics");
+      container.start();
+    }
+    return container;
+  }
+
+  private static String environment(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value != null ? value : defaultValue;
+  }
+
+  /** Skips the tests when there is neither a configured database nor Docker to start one. */
+  static class DatabaseAvailable implements ExecutionCondition {
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+      if (System.getenv(DATABASE_URL) != null) {
+        return ConditionEvaluationResult.enabled(DATABASE_URL + " is set");
+      }
+      return DockerClientFactory.instance().isDockerAvailable()
+          ? ConditionEvaluationResult.enabled("Docker is available for a PostgreSQL container")
+          : ConditionEvaluationResult.disabled(
+              "Neither " + DATABASE_URL + " is set nor Docker available");
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.spendinganalytics.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spendinganalytics.PostgresIntegrationTest;
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.SpendingSummaryDto;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import com.spendinganalytics.repository.TransactionRepository;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Loads the columns of a seeded tenant and compares them with the SQL aggregates the dashboard
+ * uses without them, before and after an import into some of its months.
+ */
+class ColumnarAnalyticsEngineTest extends PostgresIntegrationTest {
+
+  private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+  private static final LocalDate TO = LocalDate.of(2024, 8, 31);
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private TransactionRepository transactionRepository;
+
+  @TempDir private Path snapshotDirectory;
+
+  private final String tenantId = "columns-" + UUID.randomUUID().toString().substring(0, 8);
+  private Path snapshotFile;
+
+  @BeforeEach
+  void seed() {
+    jdbcTemplate.execute(
+        "SELECT ensure_transactions_partition(m::date) "
+            + "FROM generate_series(date '2024-01-01', date '2024-08-01', interval '1 month') m");
+    // Six months of rows, about two in three of them spending
+    insertRows("seed", LocalDate.of(2024, 1, 1), 182, 1_500);
+    snapshotFile = snapshotDirectory.resolve("analytics.snapshot");
+  }
+
+  @AfterEach
+  void removeTenant() {
+    jdbcTemplate.update("DELETE FROM transactions WHERE tenant_id = ?", tenantId);
+  }
+
+  @Test
+  void columnsMatchTheSqlAggregatesBeforeAndAfterAnImport() throws Exception {
+    ColumnarAnalyticsEngine engine = engine();
+    engine.load();
+    assertMatchesSql(engine.columns(tenantId));
+
+    // New rows in a loaded month and in a month the tenant had no rows in
+    insertRows("import", LocalDate.of(2024, 3, 1), 31, 200);
+    insertRows("import", LocalDate.of(2024, 8, 1), 31, 200);
+    engine.onTransactionsChanged(
+        new TransactionsChangedEvent(
+            tenantId, Reason.IMPORT, Set.of(YearMonth.of(2024, 3), YearMonth.of(2024, 8))));
+    assertMatchesSql(engine.columns(tenantId));
+
+    // The background write has the columns of the import
+    engine.shutdown();
+    assertMatchesSql(readSnapshot(tenantId));
+  }
+
+  @Test
+  void deleteReloadsTheTenant() throws Exception {
+    ColumnarAnalyticsEngine engine = engine();
+    engine.load();
+
+    jdbcTemplate.update(
+        "DELETE FROM transactions WHERE tenant_id = ? AND transaction_date < ?",
+        tenantId,
+        LocalDate.of(2024, 4, 1));
+    engine.onTransactionsChanged(new TransactionsChangedEvent(tenantId, Reason.PURGE, Set.of()));
+
+    assertMatchesSql(engine.columns(tenantId));
+    engine.shutdown();
+  }
+
+  private void assertMatchesSql(ColumnarTransactions columns) {
+    SpendingSummaryDto summary = transactionRepository.summarize(tenantId);
+    assertThat(BigDecimal.valueOf(columns.totalAbsoluteCents(), 2))
+        .isEqualByComparingTo(summary.totalAbsolute());
+    assertThat((long) columns.activeDays()).isEqualTo(summary.activeDays());
+
+    for (LocalDate from = FROM; from.isBefore(TO); from = from.plusDays(17)) {
+      LocalDate to = from.plusDays(40);
+      NavigableMap<LocalDate, BigDecimal> daily = new TreeMap<>();
+      long cents = 0;
+      for (DailySpendingDto day :
+          transactionRepository.sumSpendingByDayBetween(tenantId, from, to)) {
+        daily.put(day.day(), day.total().negate().setScale(2));
+        cents -= day.total().movePointRight(2).longValueExact();
+      }
+      String label = from + ".." + to;
+
+      assertThat(columns.dailySpendingBetween(from, to)).as(label).isEqualTo(daily);
+      assertThat(columns.spendingCentsBetween(from, to)).as(label).isEqualTo(cents);
+      assertThat(columns.spendingDaysBetween(from, to)).as(label).isEqualTo(daily.size());
+    }
+  }
+
+  private void insertRows(String prefix, LocalDate firstDay, int days, int rows) {
+    jdbcTemplate.update(
+        "INSERT INTO transactions (tenant_id, transaction_date, merchant, amount, dedup_hash) "
+            + "SELECT ?, ?::date + (g * 7919 % ?), 'Merchant ' || (g % 37), "
+            + "CASE WHEN g % 3 = 0 THEN 100 ELSE -1 END * (1 + g * 31 % 9973) / 100.0, "
+            + "md5(? || g) "
+            + "FROM generate_series(1, ?) g",
+        tenantId,
+        firstDay,
+        days,
+        tenantId + prefix + firstDay,
+        rows);
+  }
+
+  private ColumnarAnalyticsEngine engine() {
+    ColumnarAnalyticsEngine engine = new ColumnarAnalyticsEngine(jdbcTemplate);
+    ReflectionTestUtils.setField(engine, "enabled", true);
+    ReflectionTestUtils.setField(engine, "snapshotFile", snapshotFile.toString());
+    return engine;
+  }
+
+  // The snapshot file holds every tenant: a magic number and a count, then the tenants' columns
+  private ColumnarTransactions readSnapshot(String tenantId) throws Exception {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+      in.readInt();
+      int tenants = in.readInt();
+      for (int i = 0; i < tenants; i++) {
+        String tenant = in.readUTF();
+        ColumnarTransactions columns = ColumnarTransactions.readFrom(in);
+        if (tenant.equals(tenantId)) {
+          return columns;
+        }
+      }
+    }
+    throw new AssertionError("Tenant " + tenantId + " is not in the snapshot");
+  }
+}
@@ -0,0 +1,190 @@
+package com.spendinganalytics.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the columns against the same aggregates computed row by row. Rows are drawn from a fixed
+ * seed, so a failure reproduces. {@code ColumnarAnalyticsEngineTest} compares them with the SQL
+ * aggregates.
+ */
+class ColumnarTransactionsTest {
+
+  private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+  private static final int DAYS = 730;
+
+  private final Random random = new Random(20240601L);
+
+  @Test
+  void aggregatesMatchTheRows() {
+    List<Row> rows = randomRows(3_000, FIRST_DAY, DAYS);
+    ColumnarTransactions columns = build(rows);
+
+    assertMatches(columns, rows);
+  }
+
+  @Test
+  void replacedMonthsGiveTheSameColumnsAsARebuild() {
+    List<Row> rows = randomRows(3_000, FIRST_DAY, DAYS);
+    ColumnarTransactions columns = build(rows);
+    // A month inside the range, its last month, and months before and after it
+    Set<YearMonth> months =
+        Set.of(
+            YearMonth.of(2023, 3),
+            YearMonth.of(2024, 12),
+            YearMonth.of(2022, 11),
+            YearMonth.of(2025, 2));
+
+    List<Row> reloaded = new ArrayList<>();
+    for (YearMonth month : months) {
+      for (Row row : randomRows(150, month.atDay(1), month.lengthOfMonth())) {
+        reloaded.add(new Row(row.day(), row.cents(), "New " + row.merchant(), 10_000 + row.id()));
+      }
+    }
+    List<Row> expected = new ArrayList<>(reloaded);
+    for (Row row : rows) {
+      if (!months.contains(YearMonth.from(row.day()))) {
+        expected.add(row);
+      }
+    }
+
+    ColumnarTransactions merged = columns.replaceMonths(months, build(reloaded));
+
+    assertMatches(merged, expected);
+    assertThat(merged.maxId()).isEqualTo(Math.max(columns.maxId(), build(reloaded).maxId()));
+    // Merchants of the replaced rows are kept, the new ones added once
+    Set<String> merchants = new HashSet<>();
+    rows.forEach(row -> merchants.add(row.merchant()));
+    reloaded.forEach(row -> merchants.add(row.merchant()));
+    assertThat(merged.merchantCount()).isEqualTo(merchants.size());
+  }
+
+  @Test
+  void replacingAMonthWithNothingRemovesItsRows() {
+    List<Row> rows = randomRows(500, FIRST_DAY, 90);
+    ColumnarTransactions columns = build(rows);
+    Set<YearMonth> months = Set.of(YearMonth.of(2023, 2));
+
+    ColumnarTransactions merged = columns.replaceMonths(months, ColumnarTransactions.empty());
+
+    assertMatches(
+        merged, rows.stream().filter(row -> !months.contains(YearMonth.from(row.day()))).toList());
+    // Only the replacement's rows of the replaced months are taken
+    assertThat(ColumnarTransactions.empty().replaceMonths(months, columns).size())
+        .isEqualTo(columns.size() - merged.size());
+  }
+
+  @Test
+  void snapshotRoundTrips() throws IOException {
+    List<Row> rows = randomRows(2_000, FIRST_DAY, DAYS);
+    ColumnarTransactions columns = build(rows);
+
+    byte[] written = write(columns);
+    ColumnarTransactions read = read(written);
+
+    assertThat(write(read)).isEqualTo(written);
+    assertThat(read.maxId()).isEqualTo(columns.maxId());
+    assertThat(read.merchantCount()).isEqualTo(columns.merchantCount());
+    assertMatches(read, rows);
+    assertThat(read(write(ColumnarTransactions.empty())).size()).isZero();
+  }
+
+  @Test
+  void unknownSnapshotsAreRejected() throws IOException {
+    byte[] bytes = write(build(randomRows(10, FIRST_DAY, 30)));
+    bytes[7] = 2; // The version
+
+    assertThatThrownBy(() -> read(bytes)).isInstanceOf(IOException.class);
+  }
+
+  private void assertMatches(ColumnarTransactions columns, List<Row> rows) {
+    assertThat(columns.size()).isEqualTo(rows.size());
+    assertThat(columns.totalAbsoluteCents())
+        .isEqualTo(rows.stream().mapToLong(row -> Math.abs(row.cents())).sum());
+    assertThat(columns.activeDays())
+        .isEqualTo((int) rows.stream().map(Row::day).distinct().count());
+
+    NavigableMap<LocalDate, BigDecimal> daily = dailySpending(rows);
+    LocalDate first = LocalDate.of(2022, 10, 1);
+    LocalDate last = LocalDate.of(2025, 3, 31);
+    assertThat(columns.dailySpendingBetween(first, last)).isEqualTo(daily);
+    for (int i = 0; i < 200; i++) {
+      LocalDate from = first.plusDays(random.nextInt(900));
+      LocalDate to = from.plusDays(random.nextInt(120));
+      NavigableMap<LocalDate, BigDecimal> range = daily.subMap(from, true, to, true);
+      String label = from + ".." + to;
+
+      assertThat(columns.dailySpendingBetween(from, to)).as(label).isEqualTo(range);
+      long cents =
+          range.values().stream().mapToLong(total -> total.unscaledValue().longValue()).sum();
+      assertThat(columns.spendingCentsBetween(from, to)).as(label).isEqualTo(cents);
+      assertThat(columns.spendingDaysBetween(from, to)).as(label).isEqualTo(range.size());
+    }
+  }
+
+  // Positive totals of the days with spending, as StatisticsService reports them
+  private static NavigableMap<LocalDate, BigDecimal> dailySpending(List<Row> rows) {
+    NavigableMap<LocalDate, BigDecimal> daily = new TreeMap<>();
+    for (Row row : rows) {
+      if (row.cents() < 0) {
+        daily.merge(row.day(), BigDecimal.valueOf(-row.cents(), 2), BigDecimal::add);
+      }
+    }
+    return daily;
+  }
+
+  // About two in three rows are spending; some days hold income only
+  private List<Row> randomRows(int count, LocalDate firstDay, int days) {
+    List<Row> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      long cents = (1 + random.nextInt(50_000)) * (random.nextInt(3) == 0 ? 1L : -1L);
+      rows.add(
+          new Row(
+              firstDay.plusDays(random.nextInt(days)),
+              cents,
+              "Merchant " + random.nextInt(40),
+              i + 1));
+    }
+    return rows;
+  }
+
+  private static ColumnarTransactions build(List<Row> rows) {
+    ColumnarTransactions.Builder builder = new ColumnarTransactions.Builder();
+    rows.forEach(
+        row -> builder.add((int) row.day().toEpochDay(), row.cents(), row.merchant(), row.id()));
+    return builder.build();
+  }
+
+  private static byte[] write(ColumnarTransactions columns) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      columns.writeTo(out);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static ColumnarTransactions read(byte[] bytes) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return ColumnarTransactions.readFrom(in);
+    }
+  }
+
+  private record Row(LocalDate day, long cents, String merchant, long id) {}
+}
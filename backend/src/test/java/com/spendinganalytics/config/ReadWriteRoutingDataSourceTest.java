@@ -0,0 +1,160 @@
+package com.spendinganalytics.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes transactions through the same proxy and routing data source as {@link
+ * ReadReplicaConfig}. The monitor's queries are answered by mocked {@link JdbcTemplate}s, so the
+ * replica's state can be set per test.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+  private final DataSource primary = mock(DataSource.class);
+  private final DataSource replica = mock(DataSource.class);
+  private final Connection primaryConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+
+  private final JdbcTemplate primaryJdbc = mock(JdbcTemplate.class);
+  private final JdbcTemplate replicaJdbc = mock(JdbcTemplate.class);
+  private final ReplicaLagMonitor monitor =
+      new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(5));
+
+  private final DataSource dataSource =
+      new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, monitor));
+  private final DataSourceTransactionManager transactionManager =
+      new DataSourceTransactionManager(dataSource);
+
+  @BeforeEach
+  void connect() throws Exception {
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+    ReflectionTestUtils.setField(monitor, "primaryJdbc", primaryJdbc);
+    ReflectionTestUtils.setField(monitor, "replicaJdbc", replicaJdbc);
+  }
+
+  @Test
+  void readOnlyTransactionsGoToACurrentReplica() {
+    replicaState(true, "0/100", 0.0);
+    monitor.check();
+
+    assertThat(connectionUsedBy(true)).isSameAs(replicaConnection);
+    assertThat(connectionUsedBy(false)).isSameAs(primaryConnection);
+  }
+
+  @Test
+  void everythingGoesToThePrimaryBeforeTheFirstCheck() {
+    replicaState(true, "0/100", 0.0);
+
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+  }
+
+  @Test
+  void aLaggingReplicaFallsBackToThePrimary() {
+    replicaState(true, "0/100", 30.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+
+    replicaState(true, "0/180", 2.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void anUnreachableReplicaFallsBackToThePrimary() {
+    replicaState(true, "0/100", 0.0);
+    monitor.check();
+    when(replicaJdbc.queryForMap(anyString()))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+    monitor.check();
+
+    assertThat(monitor.isReplicaUsable()).isFalse();
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+  }
+
+  @Test
+  void aReplicaThatIsAPrimaryIsAlwaysCurrent() {
+    replicaState(false, null, null);
+    monitor.check();
+
+    assertThat(connectionUsedBy(true)).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void readsStayOnThePrimaryUntilTheReplicaReplaysTheChange() {
+    replicaState(true, "0/100", 0.0);
+    monitor.check();
+    when(primaryJdbc.queryForObject(anyString(), eq(String.class))).thenReturn("0/200");
+
+    monitor.onTransactionsChanged(
+        new TransactionsChangedEvent("tenant", Reason.IMPORT, Set.of()));
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+
+    // No lag, yet one byte short of the change
+    replicaState(true, "0/1FF", 0.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+
+    replicaState(true, "0/200", 0.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void aChangeAboveFourGigabytesOfWalIsComparedByBothHalves() {
+    replicaState(true, "1/0", 0.0);
+    monitor.check();
+    when(primaryJdbc.queryForObject(anyString(), eq(String.class))).thenReturn("1/10");
+
+    monitor.onTransactionsChanged(
+        new TransactionsChangedEvent("tenant", Reason.DELETE_ALL, Set.of()));
+    replicaState(true, "0/FFFFFFFF", 0.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(primaryConnection);
+
+    replicaState(true, "1/10", 0.0);
+    monitor.check();
+    assertThat(connectionUsedBy(true)).isSameAs(replicaConnection);
+  }
+
+  // The read-only flag is only visible once the transaction has begun, hence the lazy proxy
+  private Connection connectionUsedBy(boolean readOnly) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(readOnly);
+    return transactionTemplate.execute(
+        status ->
+            ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection());
+  }
+
+  // What REPLICA_STATE_SQL returns: null LSN and lag on a primary
+  private void replicaState(boolean standby, String replayed, Double lagSeconds) {
+    Map<String, Object> state = new HashMap<>();
+    state.put("standby", standby);
+    state.put("replayed", replayed);
+    state.put("lag_seconds", lagSeconds);
+    when(replicaJdbc.queryForMap(anyString())).thenReturn(state);
+  }
+}
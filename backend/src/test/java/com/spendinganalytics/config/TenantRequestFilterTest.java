@@ -0,0 +1,71 @@
+package com.spendinganalytics.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class TenantRequestFilterTest {
+
+  private final TenantRequestFilter filter = new TenantRequestFilter();
+
+  @Test
+  void passesValidTenantAndMarksResponsePrivate() throws Exception {
+    MockHttpServletResponse response = filter("GET", "/api/dashboard", "household-1.a_b", null);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeaders("Vary")).contains(Tenancy.TENANT_HEADER);
+    assertThat(response.getHeader("Cache-Control")).isEqualTo("private, no-cache");
+  }
+
+  @Test
+  void passesRequestsWithoutTenant() throws Exception {
+    assertThat(filter("GET", "/api/dashboard", null, null).getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void rejectsTenantLongerThanTheColumn() throws Exception {
+    assertThat(filter("POST", "/api/import/upload", "x".repeat(64), null).getStatus())
+        .isEqualTo(200);
+    assertThat(filter("POST", "/api/import/upload", "x".repeat(65), null).getStatus())
+        .isEqualTo(400);
+  }
+
+  @Test
+  void rejectsCharactersThatWouldBreakTheETag() throws Exception {
+    assertThat(filter("GET", "/api/dashboard", "a\"b", null).getStatus()).isEqualTo(400);
+    assertThat(filter("GET", "/api/dashboard", "", null).getStatus()).isEqualTo(400);
+    assertThat(filter("GET", "/api/dashboard", "a b", null).getStatus()).isEqualTo(400);
+  }
+
+  @Test
+  void checksTheStreamTenantParameter() throws Exception {
+    assertThat(filter("GET", "/api/dashboard/stream", null, "ok").getStatus()).isEqualTo(200);
+    assertThat(filter("GET", "/api/dashboard/stream", null, "not ok").getStatus())
+        .isEqualTo(400);
+  }
+
+  @Test
+  void leavesNonApiRequestsAlone() throws Exception {
+    MockHttpServletResponse response = filter("GET", "/actuator/health", "a\"b", null);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader("Cache-Control")).isNull();
+  }
+
+  private MockHttpServletResponse filter(
+      String method, String uri, String tenantHeader, String tenantParameter) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+    if (tenantHeader != null) {
+      request.addHeader(Tenancy.TENANT_HEADER, tenantHeader);
+    }
+    if (tenantParameter != null) {
+      request.addParameter(TenantRequestFilter.TENANT_PARAMETER, tenantParameter);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+}
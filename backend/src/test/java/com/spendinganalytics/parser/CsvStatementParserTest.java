@@ -0,0 +1,161 @@
+package com.spendinganalytics.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+class CsvStatementParserTest {
+
+  private static final Charset WINDOWS_1254 = Charset.forName("windows-1254");
+
+  private final CsvStatementParser csv = new CsvStatementParser();
+
+  @Test
+  void quotedFieldsMayHoldDelimitersQuotesAndLineBreaks() throws Exception {
+    StatementSource source = fixture("comma-quoted.csv", StandardCharsets.UTF_8);
+    assertThat(csv.supports(source)).isTrue();
+
+    List<String> errors = new ArrayList<>();
+    List<StatementRow> rows = parse(source, errors);
+
+    assertThat(rows)
+        .containsExactly(
+            new StatementRow(
+                LocalDate.of(2024, 1, 15),
+                "ACME, Inc.",
+                new BigDecimal("-12.50"),
+                null,
+                "R1",
+                "Shopping",
+                "ACME, Inc."),
+            new StatementRow(
+                LocalDate.of(2024, 1, 15),
+                "The \"Best\" Cafe",
+                new BigDecimal("-3.20"),
+                null,
+                null,
+                "Food",
+                "The \"Best\" Cafe"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 16),
+                "Multi\nline payee",
+                new BigDecimal("100.00"),
+                null,
+                "R3",
+                null,
+                "Multi\nline payee"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 17),
+                "Refund",
+                new BigDecimal("1234.56"),
+                null,
+                "R5",
+                null,
+                "Refund"));
+    // The multi-line record takes lines 4 and 5, so the bad date is on line 6
+    assertThat(errors).containsExactly("Line 6: Missing or invalid date");
+  }
+
+  @Test
+  void turkishSemicolonExportInWindows1254() throws Exception {
+    StatementSource source = fixture("semicolon-debit-credit-cp1254.csv", WINDOWS_1254);
+    assertThat(csv.supports(source)).isTrue();
+
+    List<String> errors = new ArrayList<>();
+    List<StatementRow> rows = parse(source, errors);
+
+    assertThat(rows)
+        .containsExactly(
+            new StatementRow(
+                LocalDate.of(2024, 1, 15),
+                "ŞOK MARKET",
+                new BigDecimal("-1234.56"),
+                new BigDecimal("8765.44"),
+                "D-1",
+                null,
+                "ŞOK MARKET"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 16),
+                "MAAŞ ÖDEMESİ",
+                new BigDecimal("25000.00"),
+                new BigDecimal("33765.44"),
+                "D-2",
+                null,
+                "MAAŞ ÖDEMESİ"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 17),
+                "İADE; KISMİ",
+                new BigDecimal("12.50"),
+                new BigDecimal("33777.94"),
+                "D-3",
+                null,
+                "İADE; KISMİ"));
+    assertThat(errors).isEmpty();
+  }
+
+  @Test
+  void malformedInputFailsInsteadOfBeingReplaced() {
+    // A windows-1254 export read as UTF-8
+    StatementSource source =
+        fixture("semicolon-debit-credit-cp1254.csv", StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> parse(source, new ArrayList<>()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("not valid UTF-8 text");
+  }
+
+  @Test
+  void byteOrderMarkDecidesTheCharset() throws Exception {
+    // Both are read in the charset of their mark, whatever the source's text charset
+    StatementSource tabs = fixture("tab-utf8-bom.csv", WINDOWS_1254);
+    assertThat(csv.supports(tabs)).isTrue();
+    List<String> errors = new ArrayList<>();
+
+    assertThat(parse(tabs, errors))
+        .extracting(StatementRow::merchant, StatementRow::amount)
+        .containsExactly(
+            tuple("Café Nero", new BigDecimal("-4.50")),
+            tuple("Refund", new BigDecimal("10.00")));
+    assertThat(errors).containsExactly("Line 4: Missing amount");
+
+    StatementSource utf16 = fixture("comma-utf16le-bom.csv", WINDOWS_1254);
+    assertThat(csv.supports(utf16)).isTrue();
+    assertThat(parse(utf16, new ArrayList<>()))
+        .extracting(StatementRow::merchant)
+        .containsExactly("Çay Ocağı");
+  }
+
+  @Test
+  void headerLineDecidesWhetherTheFileIsACsvStatement() throws Exception {
+    assertThat(csv.supports(text("Name,Phone\nAli,555\n"))).isFalse();
+    assertThat(csv.supports(text("Date;Payee;Paid Out\n01.02.2024;X;1,00\n"))).isTrue();
+    assertThat(csv.supports(fixture("sections-utf8-bom.qif", StandardCharsets.UTF_8))).isFalse();
+    assertThat(csv.supports(fixture("xml-utf8.ofx", StandardCharsets.UTF_8))).isFalse();
+  }
+
+  private List<StatementRow> parse(StatementSource source, List<String> errors) throws Exception {
+    List<StatementRow> rows = new ArrayList<>();
+    csv.parse(source, errors, rows::add);
+    return rows;
+  }
+
+  private static StatementSource text(String content) {
+    return new StatementSource(
+        "statement.csv", new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  static StatementSource fixture(String name, Charset textCharset) {
+    return new StatementSource(name, new ClassPathResource("statements/" + name), textCharset);
+  }
+}
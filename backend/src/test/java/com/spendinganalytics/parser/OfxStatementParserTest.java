@@ -0,0 +1,112 @@
+package com.spendinganalytics.parser;
+
+import static com.spendinganalytics.parser.CsvStatementParserTest.fixture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+class OfxStatementParserTest {
+
+  private final OfxStatementParser ofx = new OfxStatementParser();
+
+  @Test
+  void sgmlStatementIsReadInItsDeclaredCodePage() throws Exception {
+    // CHARSET:1254 wins over the UTF-8 the upload defaults to
+    StatementSource source = fixture("sgml-cp1254.ofx", StandardCharsets.UTF_8);
+    assertThat(ofx.supports(source)).isTrue();
+
+    List<String> errors = new ArrayList<>();
+    List<StatementRow> rows = parse(source, errors);
+
+    assertThat(rows)
+        .containsExactly(
+            new StatementRow(
+                LocalDate.of(2024, 1, 15),
+                "ŞOK MARKET",
+                new BigDecimal("-1234.56"),
+                null,
+                "T-1",
+                null,
+                "ŞOK MARKET Kadıköy & Moda"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 16),
+                "MAAŞ",
+                new BigDecimal("25000.00"),
+                null,
+                "T-2",
+                null,
+                "MAAŞ"));
+    assertThat(errors).containsExactly("Transaction 3: Missing or invalid DTPOSTED");
+  }
+
+  @Test
+  void xmlStatementIsReadInItsDeclaredEncoding() throws Exception {
+    StatementSource source = fixture("xml-utf8.ofx", Charset.forName("windows-1254"));
+    assertThat(ofx.supports(source)).isTrue();
+
+    List<String> errors = new ArrayList<>();
+    List<StatementRow> rows = parse(source, errors);
+
+    assertThat(rows)
+        .containsExactly(
+            new StatementRow(
+                LocalDate.of(2024, 3, 1),
+                "Café Nero",
+                new BigDecimal("-4.50"),
+                null,
+                "X-1",
+                null,
+                "Café Nero"),
+            new StatementRow(
+                LocalDate.of(2024, 3, 2),
+                "Smith & Sons",
+                new BigDecimal("-20.00"),
+                null,
+                "X-2",
+                null,
+                "Smith & Sons Hardware"));
+    assertThat(errors).isEmpty();
+  }
+
+  @Test
+  void statementWithoutACharsetIsReadInTheTextCharset() throws Exception {
+    byte[] file =
+        ("OFXHEADER:100\nDATA:OFXSGML\nCHARSET:NONE\n\n<OFX><STMTTRN><DTPOSTED>20240105"
+                + "<TRNAMT>-9,90<NAME>İŞ BANKASI ATM</STMTTRN></OFX>")
+            .getBytes(Charset.forName("windows-1254"));
+
+    StatementSource cp1254 =
+        new StatementSource(
+            "statement.ofx", new ByteArrayResource(file), Charset.forName("windows-1254"));
+    assertThat(parse(cp1254, new ArrayList<>()))
+        .extracting(StatementRow::merchant, StatementRow::amount)
+        .containsExactly(tuple("İŞ BANKASI ATM", new BigDecimal("-9.90")));
+
+    StatementSource utf8 = new StatementSource("statement.ofx", new ByteArrayResource(file));
+    assertThatThrownBy(() -> parse(utf8, new ArrayList<>()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("not valid UTF-8 text");
+  }
+
+  @Test
+  void onlyOfxDocumentsAreSupported() throws Exception {
+    assertThat(ofx.supports(fixture("comma-quoted.csv", StandardCharsets.UTF_8))).isFalse();
+    assertThat(ofx.supports(fixture("sections-utf8-bom.qif", StandardCharsets.UTF_8))).isFalse();
+  }
+
+  private List<StatementRow> parse(StatementSource source, List<String> errors) throws Exception {
+    List<StatementRow> rows = new ArrayList<>();
+    ofx.parse(source, errors, rows::add);
+    return rows;
+  }
+}
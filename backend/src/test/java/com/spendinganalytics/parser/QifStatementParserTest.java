@@ -0,0 +1,63 @@
+package com.spendinganalytics.parser;
+
+import static com.spendinganalytics.parser.CsvStatementParserTest.fixture;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class QifStatementParserTest {
+
+  private final QifStatementParser qif = new QifStatementParser();
+
+  @Test
+  void recordsEndAtCaretAndOnlyTransactionSectionsAreRead() throws Exception {
+    // Starts with a UTF-8 byte order mark, which detection must look past
+    StatementSource source = fixture("sections-utf8-bom.qif", StandardCharsets.ISO_8859_1);
+    assertThat(qif.supports(source)).isTrue();
+
+    List<String> errors = new ArrayList<>();
+    List<StatementRow> rows = new ArrayList<>();
+    qif.parse(source, errors, rows::add);
+
+    // The !Account and !Type:Cat records are skipped, as are split lines
+    assertThat(rows)
+        .containsExactly(
+            new StatementRow(
+                LocalDate.of(2024, 1, 15),
+                "MİGROS",
+                new BigDecimal("-1234.56"),
+                null,
+                "1001",
+                "Groceries",
+                "MİGROS Weekly shop"),
+            new StatementRow(
+                LocalDate.of(2024, 1, 16),
+                "Salary",
+                new BigDecimal("2500.00"),
+                null,
+                null,
+                null,
+                "Salary"),
+            new StatementRow(
+                LocalDate.of(2024, 2, 1),
+                "Coffee",
+                new BigDecimal("-42.00"),
+                null,
+                null,
+                null,
+                "Coffee"));
+    // Reported at the ^ that ends the record
+    assertThat(errors).containsExactly("Line 21: Missing or invalid date");
+  }
+
+  @Test
+  void onlyQifFilesAreSupported() throws Exception {
+    assertThat(qif.supports(fixture("comma-quoted.csv", StandardCharsets.UTF_8))).isFalse();
+    assertThat(qif.supports(fixture("sgml-cp1254.ofx", StandardCharsets.UTF_8))).isFalse();
+  }
+}
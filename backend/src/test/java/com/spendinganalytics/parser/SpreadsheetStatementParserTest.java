@@ -0,0 +1,228 @@
+package com.spendinganalytics.parser;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+class SpreadsheetStatementParserTest {
+
+  private static final String[] DEBIT_HEADERS = {
+    "Tarih", "Açıklama", "Etiket", "Tutar", "Bakiye", "Dekont No"
+  };
+  private static final String[] CREDIT_HEADERS = {"Tarih", "İşlem", "Etiket", "Bonus", "Tutar(TL)"};
+
+  private final GarantiDebitStatementParser debit = new GarantiDebitStatementParser();
+  private final GarantiCreditStatementParser credit = new GarantiCreditStatementParser();
+
+  @Test
+  void debitRowsAreStreamedFromTheSheetXml() throws Exception {
+    byte[] file = write(new XSSFWorkbook(), this::debitSheet);
+
+    try (StatementSource source = source(file)) {
+      assertThat(debit.supports(source)).isTrue();
+      assertThat(credit.supports(source)).isFalse();
+      List<String> errors = new ArrayList<>();
+      List<StatementRow> rows = parse(debit, source, errors);
+
+      assertThat(rows)
+          .containsExactly(
+              new StatementRow(
+                  LocalDate.of(2024, 1, 15),
+                  "MIGROS",
+                  new BigDecimal("-1234.56"),
+                  new BigDecimal("8765.44"),
+                  "123456",
+                  "Market",
+                  "MIGROS"),
+              new StatementRow(
+                  LocalDate.of(2024, 1, 16),
+                  "MAAS",
+                  new BigDecimal("25000.50"),
+                  new BigDecimal("33765.94"),
+                  "D-77",
+                  null,
+                  "MAAS"));
+      assertThat(errors).containsExactly("Row 7: Missing Dekont No value");
+      assertThat(source.rowsPerSheet()).containsExactly(entry("Hesap Hareketleri", 2));
+    }
+  }
+
+  @Test
+  void legacyWorkbooksGiveTheSameRows() throws Exception {
+    List<StatementRow> streamed;
+    try (StatementSource source = source(write(new XSSFWorkbook(), this::debitSheet))) {
+      streamed = parse(debit, source, new ArrayList<>());
+    }
+
+    try (StatementSource source = source(write(new HSSFWorkbook(), this::debitSheet))) {
+      assertThat(debit.supports(source)).isTrue();
+      assertThat(parse(debit, source, new ArrayList<>())).isEqualTo(streamed);
+    }
+  }
+
+  @Test
+  void everyMatchingSheetIsReadInSheetOrder() throws Exception {
+    byte[] file =
+        write(
+            new XSSFWorkbook(),
+            workbook -> {
+              creditSheet(workbook, "Ocak", LocalDate.of(2024, 1, 3), 2);
+              workbook.createSheet("Notlar").createRow(0).createCell(0).setCellValue("Tarih");
+              creditSheet(workbook, "Şubat", LocalDate.of(2024, 2, 3), 3);
+            });
+
+    try (StatementSource source = source(file)) {
+      assertThat(credit.supports(source)).isTrue();
+      List<String> errors = new ArrayList<>();
+      List<StatementRow> rows = parse(credit, source, errors);
+
+      assertThat(rows).extracting(StatementRow::date).isSorted().hasSize(5);
+      assertThat(rows).extracting(StatementRow::category).containsOnly("");
+      assertThat(source.rowsPerSheet()).containsExactly(entry("Ocak", 2), entry("Şubat", 3));
+      assertThat(errors).isEmpty();
+    }
+  }
+
+  @Test
+  void concurrentlyParsedSheetsAreMergedInSheetOrder() throws Exception {
+    int sheets = 4;
+    // Enough rows that the later sheets fill their queues and wait for the earlier ones
+    int rowsPerSheet = 2_500;
+    List<String> expected = new ArrayList<>();
+    byte[] file =
+        write(
+            new XSSFWorkbook(),
+            workbook -> {
+              for (int sheet = 0; sheet < sheets; sheet++) {
+                Sheet rows = workbook.createSheet("Ay " + sheet);
+                header(rows, 0, CREDIT_HEADERS);
+                for (int i = 0; i < rowsPerSheet; i++) {
+                  Row row = rows.createRow(i + 1);
+                  row.createCell(0).setCellValue("01/03/2024");
+                  row.createCell(1).setCellValue("S" + sheet + "-" + i);
+                  row.createCell(4).setCellValue(-(i + 1));
+                  expected.add("S" + sheet + "-" + i);
+                }
+              }
+            });
+
+    try (StatementSource source = source(file)) {
+      assertThat(source.readsSheetsConcurrently()).isTrue();
+      List<StatementRow> rows = parse(credit, source, new ArrayList<>());
+
+      assertThat(rows).extracting(StatementRow::merchant).isEqualTo(expected);
+      assertThat(source.rowsPerSheet().values()).hasSize(sheets).containsOnly(rowsPerSheet);
+    }
+  }
+
+  @Test
+  void workbookWithoutAKnownHeaderIsNotSupported() throws Exception {
+    byte[] file =
+        write(
+            new XSSFWorkbook(),
+            workbook -> {
+              Sheet sheet = workbook.createSheet("Rapor");
+              // The header is below the rows that detection looks at
+              header(sheet, StatementSource.HEADER_SCAN_ROWS, DEBIT_HEADERS);
+            });
+
+    try (StatementSource source = source(file)) {
+      assertThat(debit.supports(source)).isFalse();
+      assertThat(credit.supports(source)).isFalse();
+    }
+  }
+
+  private void debitSheet(Workbook workbook) {
+    Sheet sheet = workbook.createSheet("Hesap Hareketleri");
+    sheet.createRow(0).createCell(0).setCellValue("Garanti BBVA - Hesap Hareketleri");
+    header(sheet, 2, DEBIT_HEADERS);
+
+    CellStyle dateStyle = workbook.createCellStyle();
+    dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+
+    // Turkish text amount, numeric Dekont No
+    Row first = sheet.createRow(3);
+    first.createCell(0).setCellValue("15/01/2024");
+    first.createCell(1).setCellValue("  MIGROS ");
+    first.createCell(2).setCellValue("Market");
+    first.createCell(3).setCellValue("-1.234,56");
+    first.createCell(4).setCellValue("8.765,44");
+    first.createCell(5).setCellValue(123456);
+
+    // Date-formatted serial, numeric amounts, no category
+    Row second = sheet.createRow(4);
+    second.createCell(0).setCellValue(LocalDate.of(2024, 1, 16));
+    second.getCell(0).setCellStyle(dateStyle);
+    second.createCell(1).setCellValue("MAAS");
+    second.createCell(3).setCellValue(25000.5);
+    second.createCell(4).setCellValue(33765.94);
+    second.createCell(5).setCellValue("D-77");
+
+    // A transfer between own accounts
+    Row transfer = sheet.createRow(5);
+    transfer.createCell(0).setCellValue("17/01/2024");
+    transfer.createCell(1).setCellValue("KART ODEME");
+    transfer.createCell(2).setCellValue("Kart Ödemesi");
+    transfer.createCell(3).setCellValue("-500,00");
+    transfer.createCell(5).setCellValue("D-78");
+
+    Row missingDekont = sheet.createRow(6);
+    missingDekont.createCell(0).setCellValue("18/01/2024");
+    missingDekont.createCell(1).setCellValue("BIM");
+    missingDekont.createCell(3).setCellValue("-12,00");
+  }
+
+  private void creditSheet(Workbook workbook, String name, LocalDate first, int rows) {
+    Sheet sheet = workbook.createSheet(name);
+    header(sheet, 0, CREDIT_HEADERS);
+    for (int i = 0; i < rows; i++) {
+      Row row = sheet.createRow(i + 1);
+      row.createCell(0).setCellValue(String.format("%1$td/%1$tm/%1$tY", first.plusDays(i)));
+      row.createCell(1).setCellValue("Merchant " + i);
+      row.createCell(3).setCellValue("0,10");
+      row.createCell(4).setCellValue("-" + (i + 1) + "0,00");
+    }
+  }
+
+  private static void header(Sheet sheet, int rowIndex, String[] headers) {
+    Row row = sheet.createRow(rowIndex);
+    for (int i = 0; i < headers.length; i++) {
+      row.createCell(i).setCellValue(headers[i]);
+    }
+  }
+
+  private static List<StatementRow> parse(
+      StatementParser parser, StatementSource source, List<String> errors) throws Exception {
+    List<StatementRow> rows = new ArrayList<>();
+    parser.parse(source, errors, rows::add);
+    return rows;
+  }
+
+  private static StatementSource source(byte[] file) {
+    return new StatementSource("statement", new ByteArrayResource(file));
+  }
+
+  private static byte[] write(Workbook workbook, Consumer<Workbook> content) throws IOException {
+    try (workbook) {
+      content.accept(workbook);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      workbook.write(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.spendinganalytics.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class StatementFieldsTest {
+
+  @Test
+  void lastOfTwoSeparatorsIsTheDecimalOne() {
+    assertThat(StatementFields.parseAmount("-1.234,56")).isEqualTo(new BigDecimal("-1234.56"));
+    assertThat(StatementFields.parseAmount("-1,234.56")).isEqualTo(new BigDecimal("-1234.56"));
+    assertThat(StatementFields.parseAmount("1.234.567,8")).isEqualTo(new BigDecimal("1234567.80"));
+  }
+
+  @Test
+  void loneSeparatorBeforeThreeDigitsGroupsThousands() {
+    assertThat(StatementFields.parseAmount("1,234")).isEqualTo(new BigDecimal("1234.00"));
+    assertThat(StatementFields.parseAmount("-1.234")).isEqualTo(new BigDecimal("-1234.00"));
+    assertThat(StatementFields.parseAmount("$ 12,500")).isEqualTo(new BigDecimal("12500.00"));
+  }
+
+  @Test
+  void repeatedSeparatorGroupsThousands() {
+    assertThat(StatementFields.parseAmount("1,234,567")).isEqualTo(new BigDecimal("1234567.00"));
+    assertThat(StatementFields.parseAmount("1.234.567")).isEqualTo(new BigDecimal("1234567.00"));
+  }
+
+  @Test
+  void loneSeparatorBeforeOtherDigitCountsIsTheDecimalOne() {
+    assertThat(StatementFields.parseAmount("12,5")).isEqualTo(new BigDecimal("12.50"));
+    assertThat(StatementFields.parseAmount("(12.34)")).isEqualTo(new BigDecimal("-12.34"));
+    assertThat(StatementFields.parseAmount("1,2345")).isEqualTo(new BigDecimal("1.23"));
+    assertThat(StatementFields.parseAmount("1234")).isEqualTo(new BigDecimal("1234.00"));
+  }
+
+  @Test
+  void blankIsNull() {
+    assertThat(StatementFields.parseAmount(" ")).isNull();
+    assertThat(StatementFields.parseAmount(null)).isNull();
+  }
+}
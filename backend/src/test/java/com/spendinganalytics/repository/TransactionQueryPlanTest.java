@@ -0,0 +1,195 @@
+package com.spendinganalytics.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spendinganalytics.PostgresIntegrationTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * EXPLAINs the SQL of the tenant and date range queries in {@link TransactionRepository} against
+ * two years of data for many tenants, and checks that each is answered from a tenant-leading index
+ * and, when it has a date range, reads only the partitions of that range.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionQueryPlanTest extends PostgresIntegrationTest {
+
+  private static final int TENANTS = 30;
+  private static final int ROWS_PER_TENANT = 2_000;
+
+  // The conditions every spending query puts on a tenant's date range, as Hibernate renders them
+  private static final String SPENDING_BETWEEN =
+      "WHERE tenant_id = '%s' AND amount < 0 AND transaction_date BETWEEN ";
+  private static final String MONTH =
+      "extract(year FROM transaction_date), extract(month FROM transaction_date)";
+
+  private static final List<String> INDEX_NODES =
+      List.of("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+  private static final Pattern SEEDED_PARTITION =
+      Pattern.compile("transactions(_202[34]_\\d\\d)?");
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final String tenantPrefix = "plan-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+  private final String tenantId = tenantPrefix + 0;
+
+  @BeforeAll
+  void seed() {
+    jdbcTemplate.execute(
+        "SELECT ensure_transactions_partition(m::date) "
+            + "FROM generate_series(date '2023-01-01', date '2024-12-01', interval '1 month') m");
+    // Rows spread evenly over 2023 and 2024; about two in three are spending
+    jdbcTemplate.update(
+        "INSERT INTO transactions (tenant_id, transaction_date, merchant, amount, dedup_hash) "
+            + "SELECT ? || (g % ?), date '2023-01-01' + (g % 731), 'Merchant ' || (g % 53), "
+            + "CASE WHEN g % 3 = 0 THEN 100 ELSE -1 END * (1 + g % 997) / 10.0, "
+            + "md5(? || g) "
+            + "FROM generate_series(1, ?) g",
+        tenantPrefix,
+        TENANTS,
+        tenantPrefix,
+        TENANTS * ROWS_PER_TENANT);
+    jdbcTemplate.execute("ANALYZE transactions");
+  }
+
+  @AfterAll
+  void removeTenants() {
+    jdbcTemplate.update("DELETE FROM transactions WHERE tenant_id LIKE ?", tenantPrefix + "%");
+  }
+
+  @Test
+  void dailySpendingReadsOnlyTheMonthsPartition() throws Exception {
+    Plan plan =
+        explain(
+            "SELECT transaction_date, sum(amount), count(*) FROM transactions "
+                + SPENDING_BETWEEN
+                + "'2024-03-01' AND '2024-03-31' "
+                + "GROUP BY transaction_date ORDER BY transaction_date");
+
+    assertThat(plan.partitions()).containsOnly("transactions_2024_03");
+    assertIndexDriven(plan);
+  }
+
+  @Test
+  void spendingAmountsReadOnlyTheRangesPartitions() throws Exception {
+    Plan plan =
+        explain(
+            "SELECT transaction_date, amount FROM transactions "
+                + SPENDING_BETWEEN
+                + "'2024-01-01' AND '2024-03-31' ORDER BY transaction_date");
+
+    assertThat(plan.partitions())
+        .containsOnly("transactions_2024_01", "transactions_2024_02", "transactions_2024_03");
+    assertIndexDriven(plan);
+  }
+
+  @Test
+  void monthlySpendingReadsOnlyTheYearsPartitions() throws Exception {
+    Plan plan =
+        explain(
+            "SELECT " + MONTH + ", sum(amount) FROM transactions "
+                + SPENDING_BETWEEN
+                + "'2024-01-01' AND '2024-12-31' GROUP BY "
+                + MONTH);
+
+    assertThat(plan.partitions())
+        .hasSize(12)
+        .allMatch(partition -> partition.startsWith("transactions_2024_"));
+    assertIndexDriven(plan);
+  }
+
+  @Test
+  void merchantSpendingReadsOnlyTheRangesPartitions() throws Exception {
+    Plan plan =
+        explain(
+            "SELECT merchant, " + MONTH + ", sum(amount), count(*) FROM transactions "
+                + SPENDING_BETWEEN
+                + "'2024-06-01' AND '2024-08-31' GROUP BY merchant, "
+                + MONTH);
+
+    assertThat(plan.partitions())
+        .containsOnly("transactions_2024_06", "transactions_2024_07", "transactions_2024_08");
+    assertIndexDriven(plan);
+  }
+
+  @Test
+  void tenantWideQueriesUseTheTenantIndexes() throws Exception {
+    assertIndexDriven(
+        explain(
+            "SELECT coalesce(sum(abs(amount)), 0), count(DISTINCT transaction_date) "
+                + "FROM transactions WHERE tenant_id = '%s'"));
+    assertIndexDriven(explain("SELECT count(*) FROM transactions WHERE tenant_id = '%s'"));
+    assertIndexDriven(
+        explain(
+            "SELECT DISTINCT merchant FROM transactions WHERE tenant_id = '%s' ORDER BY merchant"));
+  }
+
+  @Test
+  void purgeBatchesReadOnlyPartitionsBeforeTheCutoff() throws Exception {
+    Plan plan =
+        explain(
+            "SELECT id, transaction_date FROM transactions "
+                + "WHERE tenant_id = '%s' AND transaction_date < '2023-04-01' LIMIT 5000");
+
+    assertThat(plan.partitions())
+        .containsOnly("transactions_2023_01", "transactions_2023_02", "transactions_2023_03");
+    assertIndexDriven(plan);
+  }
+
+  // Partitions outside the seeded years, such as those created at startup for the coming months,
+  // are empty, and scanning an empty table sequentially is the cheapest plan for it
+  private void assertIndexDriven(Plan plan) {
+    assertThat(plan.seqScanned())
+        .as(plan.json())
+        .noneMatch(relation -> SEEDED_PARTITION.matcher(relation).matches());
+    assertThat(plan.nodeTypes()).as(plan.json()).containsAnyElementsOf(INDEX_NODES);
+  }
+
+  private Plan explain(String sql) throws Exception {
+    String json =
+        jdbcTemplate.queryForObject(
+            "EXPLAIN (FORMAT JSON) " + String.format(sql, tenantId), String.class);
+    List<String> nodeTypes = new ArrayList<>();
+    List<String> partitions = new ArrayList<>();
+    List<String> seqScanned = new ArrayList<>();
+    collect(objectMapper.readTree(json).get(0).get("Plan"), nodeTypes, partitions, seqScanned);
+    return new Plan(json, nodeTypes, partitions.stream().distinct().toList(), seqScanned);
+  }
+
+  private static void collect(
+      JsonNode node, List<String> nodeTypes, List<String> partitions, List<String> seqScanned) {
+    String nodeType = node.get("Node Type").asText();
+    nodeTypes.add(nodeType);
+    if (node.has("Relation Name")) {
+      String relation = node.get("Relation Name").asText();
+      partitions.add(relation);
+      if (nodeType.equals("Seq Scan")) {
+        seqScanned.add(relation);
+      }
+    }
+    if (node.has("Index Name") && node.get("Index Name").asText().startsWith("transactions_")) {
+      // Bitmap index scans name only the partition's index, which is prefixed with the partition
+      String index = node.get("Index Name").asText();
+      partitions.add(index.substring(0, "transactions_YYYY_MM".length()));
+    }
+    if (node.has("Plans")) {
+      for (JsonNode child : node.get("Plans")) {
+        collect(child, nodeTypes, partitions, seqScanned);
+      }
+    }
+  }
+
+  private record Plan(
+      String json, List<String> nodeTypes, List<String> partitions, List<String> seqScanned) {}
+}
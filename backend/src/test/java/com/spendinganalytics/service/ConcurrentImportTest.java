@@ -0,0 +1,142 @@
+package com.spendinganalytics.service;
+
+import static com.spendinganalytics.config.Tenancy.TENANT_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spendinganalytics.PostgresIntegrationTest;
+import com.spendinganalytics.dto.FileImportResult;
+import com.spendinganalytics.dto.TransactionImportResult;
+import com.spendinganalytics.repository.TransactionRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Many uploads of overlapping statements at once. Every row must be stored exactly once, and each
+ * file's rows must be accounted for as either inserted or skipped, however the imports interleave.
+ */
+class ConcurrentImportTest extends PostgresIntegrationTest {
+
+  private static final int FILES = 24;
+  private static final int ROWS_PER_FILE = 120;
+  // Consecutive files share ROWS_PER_FILE - STRIDE rows, and a row is in up to three files
+  private static final int STRIDE = 40;
+  // Byte-identical copies of the first files, which go through the import ledger
+  private static final int REPEATED_FILES = 8;
+  private static final int CLIENTS = 16;
+
+  private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private TransactionRepository transactionRepository;
+  @Autowired private DataService dataService;
+
+  private final String tenantId = "import-test-" + UUID.randomUUID().toString().substring(0, 8);
+
+  @AfterEach
+  void removeTenantData() {
+    dataService.deleteAllData(tenantId);
+  }
+
+  @Test
+  void overlappingUploadsStoreEveryRowOnce() throws Exception {
+    List<Integer> uploads = new ArrayList<>();
+    for (int file = 0; file < FILES; file++) {
+      uploads.add(file);
+    }
+    for (int file = 0; file < REPEATED_FILES; file++) {
+      uploads.add(file);
+    }
+    Collections.shuffle(uploads);
+
+    ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+    List<FileImportResult> results = new ArrayList<>();
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<ResponseEntity<TransactionImportResult>>> responses = new ArrayList<>();
+      for (int file : uploads) {
+        responses.add(
+            clients.submit(
+                () -> {
+                  start.await();
+                  return upload(file);
+                }));
+      }
+      start.countDown();
+      for (Future<ResponseEntity<TransactionImportResult>> response : responses) {
+        ResponseEntity<TransactionImportResult> upload = response.get();
+        assertThat(upload.getStatusCode()).isEqualTo(HttpStatus.OK);
+        results.addAll(upload.getBody().fileResults());
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+
+    int distinctRows = (FILES - 1) * STRIDE + ROWS_PER_FILE;
+    long inserted = 0;
+    for (FileImportResult result : results) {
+      assertThat(result.errors()).isEmpty();
+      assertThat(result.rowsParsed()).isEqualTo(ROWS_PER_FILE);
+      assertThat(result.inserted() + result.skippedDuplicates()).isEqualTo(result.rowsParsed());
+      inserted += result.inserted();
+    }
+    assertThat(results).hasSize(FILES + REPEATED_FILES);
+    assertThat(inserted).isEqualTo(distinctRows);
+    assertThat(transactionRepository.countByTenantId(tenantId)).isEqualTo(distinctRows);
+  }
+
+  private ResponseEntity<TransactionImportResult> upload(int file) {
+    byte[] content = statement(file).getBytes(StandardCharsets.UTF_8);
+    MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+    body.add(
+        "files",
+        new ByteArrayResource(content) {
+          @Override
+          public String getFilename() {
+            return "statement-" + file + ".csv";
+          }
+        });
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+    headers.set(TENANT_HEADER, tenantId);
+    return restTemplate.postForEntity(
+        "/api/import", new HttpEntity<>(body, headers), TransactionImportResult.class);
+  }
+
+  private static String statement(int file) {
+    StringBuilder csv = new StringBuilder("Date,Description,Amount,Reference\n");
+    for (int row = file * STRIDE; row < file * STRIDE + ROWS_PER_FILE; row++) {
+      csv.append(FIRST_DAY.plusDays(row % 366))
+          .append(",Merchant ")
+          .append(row % 97)
+          .append(",-")
+          .append(row + 1)
+          .append('.')
+          .append(String.format("%02d", row % 100))
+          .append(",R")
+          .append(row)
+          .append('\n');
+    }
+    return csv.toString();
+  }
+}
@@ -0,0 +1,31 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import java.time.YearMonth;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class DataVersionServiceTest {
+
+  private final DataVersionService service = new DataVersionService();
+
+  @Test
+  void changeOfOneTenantKeepsOtherTenantsETags() {
+    String first = service.etag("a", "THIS_MONTH");
+    String second = service.etag("b", "THIS_MONTH");
+
+    service.onTransactionsChanged(
+        new TransactionsChangedEvent("a", Reason.IMPORT, Set.of(YearMonth.now())));
+
+    assertThat(service.etag("a", "THIS_MONTH")).isNotEqualTo(first);
+    assertThat(service.etag("b", "THIS_MONTH")).isEqualTo(second);
+  }
+
+  @Test
+  void tenantsNeverShareAnETag() {
+    assertThat(service.etag("a", "THIS_MONTH")).isNotEqualTo(service.etag("b", "THIS_MONTH"));
+  }
+}
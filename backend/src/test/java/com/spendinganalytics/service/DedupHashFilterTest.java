@@ -0,0 +1,214 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import com.spendinganalytics.util.HashUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The stored hashes are streamed from a mocked {@link JdbcTemplate}; the row counts it does not
+ * answer size every filter at the minimum capacity.
+ */
+class DedupHashFilterTest {
+
+  private static final int STORED = 200;
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+  private final DedupHashFilter filter = new DedupHashFilter(jdbcTemplate, transactionTemplate);
+
+  // Rows the rebuild streams, as tenant and hash
+  private final List<String[]> storedRows = new ArrayList<>();
+
+  @BeforeEach
+  void configure() {
+    ReflectionTestUtils.setField(filter, "enabled", true);
+    ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+    ReflectionTestUtils.setField(filter, "minCapacity", 10_000L);
+    doAnswer(
+            invocation -> {
+              invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+  }
+
+  @AfterEach
+  void stopRebuilds() {
+    filter.shutdown();
+  }
+
+  @Test
+  void hashesCommittedDuringARebuildAreKept() throws Exception {
+    store("a", hashes("a-stored", STORED));
+    CountDownLatch streaming = new CountDownLatch(1);
+    CountDownLatch committed = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(1);
+              for (int i = 0; i < storedRows.size(); i++) {
+                if (i == storedRows.size() / 2) {
+                  // An import commits while the rebuild is half way through the tenant's rows
+                  streaming.countDown();
+                  committed.await();
+                }
+                handler.processRow(row(storedRows.get(i)));
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+    filter.load();
+    assertThat(streaming.await(10, TimeUnit.SECONDS)).isTrue();
+    // Not loaded yet: every hash goes to the database
+    assertThat(filter.filterMaybeStored("a", Set.of(hash("a-new")))).containsOnly(hash("a-new"));
+    Set<String> committedA = hashes("a-committed", 20);
+    Set<String> committedB = hashes("b-committed", 20);
+    filter.added("a", committedA);
+    filter.added("b", committedB);
+    committed.countDown();
+    awaitLoaded();
+
+    assertThat(filter.filterMaybeStored("a", hashes("a-stored", STORED)))
+        .isEqualTo(hashes("a-stored", STORED));
+    assertThat(filter.filterMaybeStored("a", committedA)).isEqualTo(committedA);
+    // A tenant with no stored rows when the rebuild started
+    assertThat(filter.filterMaybeStored("b", committedB)).isEqualTo(committedB);
+  }
+
+  @Test
+  void deleteAllClearsOnlyThatTenantsFilter() throws Exception {
+    store("a", hashes("a-stored", STORED));
+    store("b", hashes("b-stored", STORED));
+    loadStoredRows();
+
+    filter.onTransactionsChanged(new TransactionsChangedEvent("a", Reason.DELETE_ALL, Set.of()));
+
+    assertThat(filter.filterMaybeStored("a", hashes("a-stored", STORED))).isEmpty();
+    assertThat(filter.filterMaybeStored("b", hashes("b-stored", STORED)))
+        .isEqualTo(hashes("b-stored", STORED));
+
+    // The tenant's next import starts a new filter
+    filter.added("a", Set.of(hash("a-again")));
+    assertThat(filter.filterMaybeStored("a", Set.of(hash("a-again")))).hasSize(1);
+  }
+
+  @Test
+  void countersSeparateAvoidedLookupsFromFalsePositives() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    filter.bindTo(registry);
+
+    // Before the filters are loaded nothing is avoided and database answers are not counted
+    filter.filterMaybeStored("a", hashes("early", 10));
+    filter.recordDatabaseMatches(10, 0);
+    assertThat(counters(registry))
+        .containsEntry("checks", 10.0)
+        .containsEntry("lookups.avoided", 0.0)
+        .containsEntry("false.positives", 0.0);
+
+    store("a", hashes("a-stored", STORED));
+    loadStoredRows();
+
+    Set<String> batch = new HashSet<>(hashes("a-stored", STORED));
+    Set<String> newHashes = hashes("a-new", 5_000);
+    batch.addAll(newHashes);
+    Set<String> maybeStored = filter.filterMaybeStored("a", batch);
+    filter.recordDatabaseMatches(maybeStored.size(), STORED);
+    // A tenant without a filter has nothing stored, so none of its hashes need a lookup
+    filter.filterMaybeStored("c", hashes("c-new", 30));
+
+    int falsePositives = maybeStored.size() - STORED;
+    assertThat(maybeStored).containsAll(hashes("a-stored", STORED));
+    assertThat(counters(registry))
+        .containsEntry("checks", 10.0 + batch.size() + 30)
+        .containsEntry("lookups.avoided", (double) (newHashes.size() - falsePositives + 30))
+        .containsEntry("false.positives", (double) falsePositives);
+    double rate = registry.get("spending.dedup.filter.false.positive.rate").gauge().value();
+    assertThat(rate).isEqualTo(falsePositives / (double) (newHashes.size() + 30));
+    // 200 hashes in a filter sized for 10,000
+    assertThat(rate).isLessThan(0.01);
+  }
+
+  private void store(String tenantId, Set<String> hashes) {
+    hashes.forEach(hash -> storedRows.add(new String[] {tenantId, hash}));
+  }
+
+  private void loadStoredRows() throws Exception {
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(1);
+              for (String[] stored : storedRows) {
+                handler.processRow(row(stored));
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    filter.load();
+    awaitLoaded();
+  }
+
+  private void awaitLoaded() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!(boolean) ReflectionTestUtils.getField(filter, "loaded")) {
+      assertThat(System.nanoTime()).as("filters loaded in time").isLessThan(deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  private static Map<String, Double> counters(SimpleMeterRegistry registry) {
+    return Map.of(
+        "checks", count(registry, "checks"),
+        "lookups.avoided", count(registry, "lookups.avoided"),
+        "false.positives", count(registry, "false.positives"));
+  }
+
+  private static double count(SimpleMeterRegistry registry, String name) {
+    return registry.get("spending.dedup.filter." + name).functionCounter().count();
+  }
+
+  private static ResultSet row(String[] stored) throws Exception {
+    ResultSet row = mock(ResultSet.class);
+    when(row.getString(1)).thenReturn(stored[0]);
+    when(row.getString(2)).thenReturn(stored[1]);
+    return row;
+  }
+
+  private static Set<String> hashes(String prefix, int count) {
+    Set<String> hashes = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      hashes.add(hash(prefix + i));
+    }
+    return hashes;
+  }
+
+  private static String hash(String key) {
+    return HashUtil.generateSHA256(key);
+  }
+}
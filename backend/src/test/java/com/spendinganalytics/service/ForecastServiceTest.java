@@ -0,0 +1,268 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spendinganalytics.dto.MerchantMonthSpendingDto;
+import com.spendinganalytics.dto.MonthForecastDto;
+import com.spendinganalytics.dto.ProjectedMonthEndDto;
+import com.spendinganalytics.dto.RecurringChargeDto;
+import com.spendinganalytics.dto.SpendingForecastDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import com.spendinganalytics.repository.TransactionRepository;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Snapshots and merchant totals come from mocks, relative to the current month, so the model's
+ * arithmetic can be checked by hand.
+ */
+class ForecastServiceTest {
+
+  private static final String TENANT = "tenant";
+
+  private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+  private final MonthlyStatisticsService monthlyStatisticsService =
+      mock(MonthlyStatisticsService.class);
+  private final StatisticsService statisticsService = mock(StatisticsService.class);
+  private final ForecastService service =
+      new ForecastService(transactionRepository, monthlyStatisticsService, statisticsService);
+
+  private final YearMonth current = YearMonth.now();
+
+  @BeforeEach
+  void configure() {
+    ReflectionTestUtils.setField(service, "historyYears", 3);
+    ReflectionTestUtils.setField(service, "recurringWindowMonths", 6);
+    ReflectionTestUtils.setField(service, "recurringMinMonths", 5);
+    ReflectionTestUtils.setField(service, "recurringMaxSpread", 0.25);
+    projectCurrentMonth(0);
+  }
+
+  @AfterEach
+  void stopRefits() {
+    service.shutdown();
+  }
+
+  @Test
+  void keepsAFitStartedBeforeAnotherTenantsChange() throws Exception {
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              deleteAll("other");
+              return List.of();
+            })
+        .thenReturn(List.of());
+
+    service.getForecast(TENANT, 3);
+    awaitRefits();
+    service.getForecast(TENANT, 3);
+
+    verify(monthlyStatisticsService, times(1)).getSnapshots(eq(TENANT), any(), any());
+  }
+
+  @Test
+  void dropsAFitStartedBeforeTheTenantsOwnChange() throws Exception {
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              deleteAll(TENANT);
+              return List.of();
+            })
+        .thenReturn(List.of());
+
+    service.getForecast(TENANT, 3);
+    awaitRefits();
+    service.getForecast(TENANT, 3);
+
+    // The first fit, the refit after the change, which is cached, and no third
+    verify(monthlyStatisticsService, times(2)).getSnapshots(eq(TENANT), any(), any());
+  }
+
+  @Test
+  void refitsInTheBackground() throws Exception {
+    AtomicReference<String> fittingThread = new AtomicReference<>();
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              fittingThread.set(Thread.currentThread().getName());
+              return List.of();
+            });
+
+    deleteAll(TENANT);
+    awaitRefits();
+
+    assertThat(fittingThread.get()).isEqualTo("forecast-refit");
+    service.getForecast(TENANT, 3);
+    verify(monthlyStatisticsService, times(1)).getSnapshots(eq(TENANT), any(), any());
+  }
+
+  @Test
+  void seasonalIndexesAreShrunkTowardOneByTheYearsOfHistory() throws Exception {
+    // December spends twice what the other months do: 2.2 / (13.2 / 12) = 2 times the mean
+    List<MonthlyStatistics> oneYear = seasonalYears(1);
+    List<MonthlyStatistics> twoYears = seasonalYears(2);
+    // A third year with too few months of spending is left out
+    for (int i = 30; i <= 36; i++) {
+      twoYears.add(snapshot(current.minusMonths(i), 5_000));
+    }
+
+    // Shrunk by 1 / 2: December 1 + (2 - 1) / 2, the others 1 + (1 / 1.1 - 1) / 2
+    assertSeasonalIndexes(oneYear, "1.500", "0.955");
+    // Shrunk by 2 / 3
+    assertSeasonalIndexes(twoYears, "1.667", "0.939");
+  }
+
+  @Test
+  void recurringChargesAreRegularInAmountAndFrequency() {
+    List<MerchantMonthSpendingDto> spending = new ArrayList<>();
+    addMonths(spending, "Streaming", 15.99, 15.99, 15.99, 15.99, 15.99, 15.99);
+    // Five months are enough, spread (110 - 95) / 100 is within 0.25
+    addMonths(spending, "Gym", 100, 100, 110, 95, 105);
+    addMonths(spending, "Phone", 40, 40, 40, 40, 40);
+    spending.add(merchantMonth("Phone", 1, 40, 2));
+    // Four months are not, and neither are (80 - 50) / 60 or three charges in a month
+    addMonths(spending, "Rare", 50, 50, 50, 50);
+    addMonths(spending, "Utility", 50, 60, 70, 80, 50, 60);
+    addMonths(spending, "Groceries", 300, 300, 300, 300, 300);
+    spending.add(merchantMonth("Groceries", 1, 300, 3));
+    when(transactionRepository.sumSpendingByMerchantAndMonthBetween(eq(TENANT), any(), any()))
+        .thenReturn(spending);
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any())).thenReturn(List.of());
+
+    SpendingForecastDto forecast = service.getForecast(TENANT, 12);
+
+    verify(transactionRepository)
+        .sumSpendingByMerchantAndMonthBetween(
+            TENANT, current.minusMonths(6).atDay(1), current.minusMonths(1).atEndOfMonth());
+    assertThat(forecast.recurringCharges())
+        .extracting(RecurringChargeDto::merchant, RecurringChargeDto::monthsSeen)
+        .containsExactly(tuple("Gym", 5), tuple("Phone", 6), tuple("Streaming", 6));
+    assertThat(forecast.recurringCharges())
+        .extracting(RecurringChargeDto::monthlyAmount)
+        .containsExactly(
+            new BigDecimal("100.00"), new BigDecimal("40.00"), new BigDecimal("15.99"));
+    assertThat(forecast.recurringMonthly()).isEqualByComparingTo("155.99");
+    // Nothing else is spent, so every month is the recurring charges alone
+    assertThat(forecast.months())
+        .extracting(MonthForecastDto::recurring, MonthForecastDto::projected)
+        .containsOnly(tuple(new BigDecimal("155.99"), new BigDecimal("155.99")));
+  }
+
+  @Test
+  void fallsBackToTheCurrentMonthWithShortHistory() {
+    // Two months are too few for a level, so the current month's projection is used alone
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any()))
+        .thenReturn(
+            List.of(snapshot(current.minusMonths(2), 400), snapshot(current.minusMonths(1), 400)));
+    projectCurrentMonth(1_000);
+
+    SpendingForecastDto forecast = service.getForecast(TENANT, 12);
+
+    assertThat(forecast.months()).hasSize(12);
+    assertThat(forecast.months())
+        .extracting(
+            MonthForecastDto::projected,
+            MonthForecastDto::lower,
+            MonthForecastDto::upper,
+            MonthForecastDto::seasonalIndex)
+        .containsOnly(
+            tuple(
+                new BigDecimal("1000.00"),
+                new BigDecimal("500.00"),
+                new BigDecimal("1500.00"),
+                new BigDecimal("1.000")));
+  }
+
+  private void assertSeasonalIndexes(
+      List<MonthlyStatistics> snapshots, String december, String otherMonths) throws Exception {
+    when(monthlyStatisticsService.getSnapshots(eq(TENANT), any(), any())).thenReturn(snapshots);
+    deleteAll(TENANT);
+    awaitRefits();
+
+    List<MonthForecastDto> months = service.getForecast(TENANT, 12).months();
+
+    for (MonthForecastDto month : months) {
+      String expected = month.month().endsWith("-12") ? december : otherMonths;
+      assertThat(month.seasonalIndex()).as(month.month()).isEqualTo(new BigDecimal(expected));
+    }
+    // The indexes of a year average 1
+    assertThat(months.stream().mapToDouble(month -> month.seasonalIndex().doubleValue()).sum())
+        .isCloseTo(12, within(0.01));
+  }
+
+  // The given number of years of closed months before the current one
+  private List<MonthlyStatistics> seasonalYears(int years) {
+    List<MonthlyStatistics> snapshots = new ArrayList<>();
+    for (int i = 1; i <= 12 * years; i++) {
+      YearMonth month = current.minusMonths(i);
+      snapshots.add(snapshot(month, month.getMonthValue() == 12 ? 2_200 : 1_000));
+    }
+    return snapshots;
+  }
+
+  // One charge a month, from six months ago on
+  private void addMonths(
+      List<MerchantMonthSpendingDto> spending, String merchant, double... amounts) {
+    for (int i = 0; i < amounts.length; i++) {
+      spending.add(merchantMonth(merchant, 6 - i, amounts[i], 1));
+    }
+  }
+
+  private MerchantMonthSpendingDto merchantMonth(
+      String merchant, int monthsAgo, double amount, long charges) {
+    YearMonth month = current.minusMonths(monthsAgo);
+    return new MerchantMonthSpendingDto(
+        merchant,
+        month.getYear(),
+        month.getMonthValue(),
+        BigDecimal.valueOf(-amount),
+        charges);
+  }
+
+  private static MonthlyStatistics snapshot(YearMonth month, double totalSpent) {
+    MonthlyStatistics snapshot = new MonthlyStatistics();
+    snapshot.setTenantId(TENANT);
+    snapshot.setMonth(month.atDay(1));
+    snapshot.setTotalSpent(BigDecimal.valueOf(totalSpent));
+    return snapshot;
+  }
+
+  private void projectCurrentMonth(double projection) {
+    when(statisticsService.projectedMonthEnd(any(), anyMap(), anyList()))
+        .thenReturn(new ProjectedMonthEndDto(BigDecimal.valueOf(projection), null));
+  }
+
+  private void deleteAll(String tenantId) {
+    service.onTransactionsChanged(
+        new TransactionsChangedEvent(tenantId, Reason.DELETE_ALL, Set.of()));
+  }
+
+  // Refits run one at a time, so a task queued now runs after every refit queued before it
+  private void awaitRefits() throws Exception {
+    ExecutorService refitExecutor =
+        (ExecutorService) ReflectionTestUtils.getField(service, "refitExecutor");
+    refitExecutor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,117 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spendinganalytics.dto.SpendingAmountDto;
+import com.spendinganalytics.entity.MonthlyStatistics;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import com.spendinganalytics.repository.MonthlyStatisticsRepository;
+import com.spendinganalytics.repository.TransactionRepository;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class MonthlyStatisticsServiceTest {
+
+  private static final String TENANT = "tenant";
+  private static final YearMonth MONTH = YearMonth.now().minusMonths(2);
+
+  private final MonthlyStatisticsRepository snapshots = mock(MonthlyStatisticsRepository.class);
+  private final TransactionRepository transactions = mock(TransactionRepository.class);
+  private final MonthlyStatisticsService service =
+      new MonthlyStatisticsService(
+          snapshots,
+          transactions,
+          new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+  private final List<SpendingAmountDto> spending =
+      List.of(new SpendingAmountDto(MONTH.atDay(3), new BigDecimal("-12.50")));
+
+  @Test
+  void storesComputedMonths() {
+    when(transactions.findSpendingAmountsBetween(eq(TENANT), any(), any())).thenReturn(spending);
+
+    List<MonthlyStatistics> result = service.getSnapshots(TENANT, MONTH, MONTH);
+
+    assertThat(result).hasSize(1);
+    verify(snapshots).saveAll(anyList());
+    verify(snapshots, never()).deleteByTenantIdAndMonthIn(any(), anyCollection());
+  }
+
+  @Test
+  void doesNotStoreMonthsComputedBeforeADelete() {
+    when(transactions.findSpendingAmountsBetween(eq(TENANT), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              deleteAll(TENANT);
+              return spending;
+            });
+
+    service.getSnapshots(TENANT, MONTH, MONTH);
+
+    verify(snapshots, never()).saveAll(anyList());
+  }
+
+  @Test
+  void removesMonthsStoredWhileADeleteCommitted() {
+    when(transactions.findSpendingAmountsBetween(eq(TENANT), any(), any())).thenReturn(spending);
+    when(snapshots.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              deleteAll(TENANT);
+              return invocation.getArgument(0);
+            });
+
+    service.getSnapshots(TENANT, MONTH, MONTH);
+
+    verify(snapshots).deleteByTenantIdAndMonthIn(TENANT, List.of(MONTH.atDay(1)));
+  }
+
+  @Test
+  void otherTenantsChangesDoNotMatter() {
+    when(transactions.findSpendingAmountsBetween(eq(TENANT), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              deleteAll("other");
+              return spending;
+            });
+
+    service.getSnapshots(TENANT, MONTH, MONTH);
+
+    verify(snapshots).saveAll(anyList());
+    verify(snapshots, never()).deleteByTenantIdAndMonthIn(eq(TENANT), anyCollection());
+  }
+
+  @Test
+  void rebuildIsRetriedAfterLosingADeadlock() {
+    when(transactions.findSpendingAmountsBetween(eq(TENANT), any(), any())).thenReturn(spending);
+    when(snapshots.saveAll(anyList()))
+        .thenThrow(new CannotAcquireLockException("deadlock detected"))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    service.onTransactionsChanged(
+        new TransactionsChangedEvent(TENANT, Reason.IMPORT, Set.of(MONTH)));
+
+    verify(snapshots, times(2)).saveAll(anyList());
+  }
+
+  private void deleteAll(String tenantId) {
+    service.onTransactionsChanged(
+        new TransactionsChangedEvent(tenantId, Reason.DELETE_ALL, Set.of()));
+  }
+}
@@ -0,0 +1,120 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spendinganalytics.dto.DailySpendingDto;
+import com.spendinganalytics.dto.SpendingSummaryDto;
+import com.spendinganalytics.event.TransactionsChangedEvent;
+import com.spendinganalytics.event.TransactionsChangedEvent.Reason;
+import com.spendinganalytics.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class SpendingAggregateCacheTest {
+
+  private static final String TENANT = "tenant";
+  private static final LocalDate FROM = LocalDate.of(2024, 3, 1);
+  private static final LocalDate TO = LocalDate.of(2024, 3, 31);
+
+  private final TransactionRepository transactions = mock(TransactionRepository.class);
+  private final SpendingAggregateCache cache =
+      new SpendingAggregateCache(transactions, true, 100, Duration.ofHours(1));
+
+  private final List<DailySpendingDto> march =
+      List.of(new DailySpendingDto(FROM, new BigDecimal("-12.50"), 1L));
+  private final List<DailySpendingDto> marchAfterImport =
+      List.of(new DailySpendingDto(FROM, new BigDecimal("-20.00"), 2L));
+
+  @Test
+  void repeatedReadsAreServedFromTheCache() {
+    when(transactions.sumSpendingByDayBetween(TENANT, FROM, TO)).thenReturn(march);
+    when(transactions.summarize(TENANT))
+        .thenReturn(new SpendingSummaryDto(new BigDecimal("12.50"), 1L));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(cache.sumSpendingByDayBetween(TENANT, FROM, TO)).isEqualTo(march);
+      cache.summarize(TENANT);
+    }
+
+    verify(transactions, times(1)).sumSpendingByDayBetween(TENANT, FROM, TO);
+    verify(transactions, times(1)).summarize(TENANT);
+  }
+
+  @Test
+  void aChangeEvictsOnlyThatTenant() {
+    when(transactions.sumSpendingByDayBetween(TENANT, FROM, TO))
+        .thenReturn(march, marchAfterImport);
+    when(transactions.sumSpendingByDayBetween("other", FROM, TO)).thenReturn(march);
+    cache.sumSpendingByDayBetween(TENANT, FROM, TO);
+    cache.sumSpendingByDayBetween("other", FROM, TO);
+
+    imported(TENANT);
+
+    assertThat(cache.sumSpendingByDayBetween(TENANT, FROM, TO)).isEqualTo(marchAfterImport);
+    cache.sumSpendingByDayBetween("other", FROM, TO);
+    verify(transactions, times(2)).sumSpendingByDayBetween(TENANT, FROM, TO);
+    verify(transactions, times(1)).sumSpendingByDayBetween("other", FROM, TO);
+  }
+
+  @Test
+  void aReadOverlappingAChangeIsNotServedAfterIt() {
+    when(transactions.sumSpendingByDayBetween(TENANT, FROM, TO))
+        .thenAnswer(
+            invocation -> {
+              // The import commits while the old rows are being read
+              imported(TENANT);
+              return march;
+            })
+        .thenReturn(marchAfterImport);
+
+    cache.sumSpendingByDayBetween(TENANT, FROM, TO);
+
+    assertThat(cache.sumSpendingByDayBetween(TENANT, FROM, TO)).isEqualTo(marchAfterImport);
+  }
+
+  @Test
+  void disabledCacheReadsThrough() {
+    SpendingAggregateCache disabled =
+        new SpendingAggregateCache(transactions, false, 100, Duration.ofHours(1));
+    when(transactions.sumSpendingByDayBetween(TENANT, FROM, TO)).thenReturn(march);
+
+    disabled.sumSpendingByDayBetween(TENANT, FROM, TO);
+    disabled.sumSpendingByDayBetween(TENANT, FROM, TO);
+
+    verify(transactions, times(2)).sumSpendingByDayBetween(TENANT, FROM, TO);
+  }
+
+  @Test
+  void hitRatioIsPublished() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cache.bindTo(registry);
+    when(transactions.sumSpendingByDayBetween(TENANT, FROM, TO)).thenReturn(march);
+
+    for (int i = 0; i < 4; i++) {
+      cache.sumSpendingByDayBetween(TENANT, FROM, TO);
+    }
+
+    assertThat(
+            registry
+                .get("spending.cache.hit.ratio")
+                .tag("cache", "spending.daily")
+                .gauge()
+                .value())
+        .isEqualTo(0.75);
+  }
+
+  private void imported(String tenantId) {
+    cache.onTransactionsChanged(
+        new TransactionsChangedEvent(tenantId, Reason.IMPORT, Set.of(YearMonth.from(FROM))));
+  }
+}
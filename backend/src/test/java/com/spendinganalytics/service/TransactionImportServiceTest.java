@@ -0,0 +1,48 @@
+package com.spendinganalytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spendinganalytics.PostgresIntegrationTest;
+import com.spendinganalytics.dto.TransactionImportResult;
+import com.spendinganalytics.repository.ImportLedgerRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+class TransactionImportServiceTest extends PostgresIntegrationTest {
+
+  @Autowired private TransactionImportService importService;
+  @Autowired private ImportLedgerRepository importLedgerRepository;
+  @Autowired private DataService dataService;
+
+  private final String tenantId = "ledger-test-" + UUID.randomUUID().toString().substring(0, 8);
+
+  @AfterEach
+  void removeTenantData() {
+    dataService.deleteAllData(tenantId);
+  }
+
+  @Test
+  void unrecognisedFileLeavesNoLedgerEntry() {
+    MultipartFile notes =
+        new MockMultipartFile(
+            "files", "notes.txt", "text/plain", "just some notes".getBytes(StandardCharsets.UTF_8));
+
+    TransactionImportResult result =
+        importService.importTransactions(tenantId, new MultipartFile[] {notes});
+
+    assertThat(result.fileResults().get(0).errors())
+        .singleElement()
+        .asString()
+        .contains("Unable to detect file type");
+    assertThat(
+            importLedgerRepository.findByTenantIdOrderByImportedAtDesc(
+                tenantId, Pageable.unpaged()))
+        .isEmpty();
+  }
+}
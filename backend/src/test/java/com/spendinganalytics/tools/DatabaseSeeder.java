@@ -0,0 +1,152 @@
+package com.spendinganalytics.tools;
+
+import com.spendinganalytics.parser.GarantiDebitStatementParser;
+import com.spendinganalytics.parser.StatementRow;
+import com.spendinganalytics.util.HashUtil;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Properties;
+
+/**
+ * Seeds PostgreSQL with synthetic debit transactions through batched JDBC inserts, bypassing the
+ * import pipeline, to reach volumes of millions of rows quickly. Rows get the same dedup hashes as
+ * an import of a {@link StatementGenerator} workbook with the same settings, so such an import
+ * afterwards finds them all as duplicates.
+ *
+ * <p>Run it while the application is stopped: caches, monthly statistics snapshots and the
+ * analytics engine do not see rows written behind the application's back. The seeder drops the
+ * tenant's monthly statistics so they are recomputed on the next read.
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.spendinganalytics.tools.DatabaseSeeder \
+ *     -Dexec.args="--rows=5000000 --tenant=default --from=2015-01-01 --batch-size=5000"
+ * </pre>
+ */
+public final class DatabaseSeeder {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO transactions (tenant_id, transaction_date, merchant, amount, balance, "
+          + "transaction_id, is_subscription, raw_description, import_timestamp, dedup_hash) "
+          + "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?) "
+          + "ON CONFLICT DO NOTHING";
+
+  private DatabaseSeeder() {}
+
+  public static void main(String[] args) throws SQLException {
+    ToolArguments arguments = ToolArguments.parse(args);
+    SyntheticTransactions.Settings settings = SyntheticTransactions.Settings.from(arguments);
+    String tenantId = arguments.get("tenant", "default");
+    int batchSize = arguments.getInt("batch-size", 5_000);
+
+    Properties properties = new Properties();
+    properties.setProperty("user", arguments.get("user", "spending_user"));
+    properties.setProperty("password", arguments.get("password", "spending_pass"));
+    // Lets the driver send each batch as multi-row INSERT statements
+    properties.setProperty("reWriteBatchedInserts", "true");
+    String url =
+        arguments.get("jdbc-url", "jdbc:postgresql://localhost:5432/spending_analytics");
+
+    long started = System.nanoTime();
+    try (Connection connection = DriverManager.getConnection(url, properties)) {
+      connection.setAutoCommit(false);
+      ensurePartitions(connection, settings);
+      long before = countRows(connection, tenantId);
+      insertRows(connection, settings, tenantId, batchSize);
+      try (PreparedStatement statement =
+          connection.prepareStatement("DELETE FROM monthly_statistics WHERE tenant_id = ?")) {
+        statement.setString(1, tenantId);
+        statement.executeUpdate();
+      }
+      connection.commit();
+
+      // Generated duplicates and rows seeded before are skipped by ON CONFLICT DO NOTHING
+      long inserted = countRows(connection, tenantId) - before;
+      long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+      System.out.printf(
+          "Inserted %d of %d generated rows for tenant %s in %d ms (%d rows/s)%n",
+          inserted, settings.rows(), tenantId, millis, inserted * 1000 / millis);
+    }
+  }
+
+  private static void ensurePartitions(
+      Connection connection, SyntheticTransactions.Settings settings) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT ensure_transactions_partition(?)")) {
+      YearMonth last = YearMonth.from(settings.to());
+      for (YearMonth month = YearMonth.from(settings.from());
+          !month.isAfter(last);
+          month = month.plusMonths(1)) {
+        statement.setDate(1, Date.valueOf(month.atDay(1)));
+        statement.execute();
+      }
+    }
+    connection.commit();
+  }
+
+  private static void insertRows(
+      Connection connection,
+      SyntheticTransactions.Settings settings,
+      String tenantId,
+      int batchSize)
+      throws SQLException {
+    GarantiDebitStatementParser debitParser = new GarantiDebitStatementParser();
+    Timestamp importedAt = Timestamp.valueOf(LocalDateTime.now());
+    long[] sent = {0};
+
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+      SyntheticTransactions.generate(
+          settings,
+          true,
+          row -> {
+            try {
+              bind(statement, tenantId, row, importedAt, debitParser.dedupKey(row));
+              statement.addBatch();
+              if (++sent[0] % batchSize == 0) {
+                statement.executeBatch();
+                connection.commit();
+              }
+            } catch (SQLException e) {
+              throw new IllegalStateException("Seeding failed after " + sent[0] + " rows", e);
+            }
+          });
+      statement.executeBatch();
+    }
+  }
+
+  private static long countRows(Connection connection, String tenantId) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT count(*) FROM transactions WHERE tenant_id = ?")) {
+      statement.setString(1, tenantId);
+      try (ResultSet result = statement.executeQuery()) {
+        result.next();
+        return result.getLong(1);
+      }
+    }
+  }
+
+  private static void bind(
+      PreparedStatement statement,
+      String tenantId,
+      StatementRow row,
+      Timestamp importedAt,
+      String dedupKey)
+      throws SQLException {
+    statement.setString(1, tenantId);
+    statement.setDate(2, Date.valueOf(row.date()));
+    statement.setString(3, row.merchant());
+    statement.setBigDecimal(4, row.amount());
+    statement.setBigDecimal(5, row.balance());
+    statement.setString(6, row.transactionId());
+    statement.setString(7, row.rawDescription());
+    statement.setTimestamp(8, importedAt);
+    statement.setString(9, HashUtil.generateSHA256(dedupKey));
+  }
+}
@@ -0,0 +1,355 @@
+package com.spendinganalytics.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the REST API with a weighted mix of dashboard, transaction list and import requests from
+ * a fixed number of concurrent clients, then reports throughput and latency percentiles per
+ * request type. Requests made during the warm-up are not counted. Every import uploads a freshly
+ * generated debit statement, so imports do real work instead of being answered from the ledger.
+ * With {@code --report=<file>} the table is also written as CSV, which compare-threading-modes.sh
+ * uses to put two runs side by side.
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.spendinganalytics.tools.LoadTestHarness \
+ *     -Dexec.args="--base-url=http://localhost:8080/api --threads=32 --duration=120 \
+ *         --warmup=15 --mix=dashboard=60,transactions=35,import=5 --import-rows=500"
+ * </pre>
+ */
+public final class LoadTestHarness {
+
+  private enum Scenario {
+    DASHBOARD,
+    TRANSACTIONS,
+    IMPORT
+  }
+
+  private static final String[] PERIODS = {"THIS_MONTH", "MONTH", "YTD", "YEAR"};
+
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+  private final AtomicLong importSeeds = new AtomicLong(System.currentTimeMillis());
+
+  private final String baseUrl;
+  private final String tenantId;
+  private final SyntheticTransactions.Settings importSettings;
+  private final Map<Scenario, Integer> weights;
+  private List<String> merchants = List.of();
+
+  private LoadTestHarness(ToolArguments arguments) {
+    this.baseUrl = arguments.get("base-url", "http://localhost:8080/api");
+    this.tenantId = arguments.get("tenant", "default");
+    this.importSettings =
+        SyntheticTransactions.Settings.from(arguments)
+            .withRowsAndSeed(arguments.getInt("import-rows", 500), 0);
+    this.weights = parseMix(arguments.get("mix", "dashboard=60,transactions=35,import=5"));
+  }
+
+  public static void main(String[] args) throws Exception {
+    ToolArguments arguments = ToolArguments.parse(args);
+    int threads = arguments.getInt("threads", 16);
+    long durationNanos = Duration.ofSeconds(arguments.getLong("duration", 60)).toNanos();
+    long warmupNanos = Duration.ofSeconds(arguments.getLong("warmup", 10)).toNanos();
+
+    LoadTestHarness harness = new LoadTestHarness(arguments);
+    harness.loadMerchants();
+
+    long start = System.nanoTime();
+    long measureFrom = start + warmupNanos;
+    long end = measureFrom + durationNanos;
+    System.out.printf(
+        "Running %d clients against %s: %d s warm-up, %d s measured, mix %s%n",
+        threads,
+        harness.baseUrl,
+        warmupNanos / 1_000_000_000,
+        durationNanos / 1_000_000_000,
+        harness.weights);
+
+    ExecutorService clients = Executors.newFixedThreadPool(threads);
+    List<Future<Map<Scenario, Latencies>>> results = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      results.add(clients.submit(() -> harness.runClient(measureFrom, end)));
+    }
+
+    Map<Scenario, Latencies> merged = new EnumMap<>(Scenario.class);
+    for (Future<Map<Scenario, Latencies>> result : results) {
+      result
+          .get()
+          .forEach(
+              (scenario, latencies) ->
+                  merged.computeIfAbsent(scenario, s -> new Latencies()).addAll(latencies));
+    }
+    clients.shutdown();
+    List<ReportRow> report = report(merged, durationNanos);
+    print(report);
+    String reportFile = arguments.get("report", null);
+    if (reportFile != null) {
+      writeCsv(report, Path.of(reportFile));
+    }
+  }
+
+  private Map<Scenario, Latencies> runClient(long measureFrom, long end) {
+    Map<Scenario, Latencies> latencies = new EnumMap<>(Scenario.class);
+    while (true) {
+      Scenario scenario = pickScenario();
+      long sent = System.nanoTime();
+      if (sent >= end) return latencies;
+
+      boolean failed;
+      try {
+        HttpRequest request = buildRequest(scenario);
+        sent = System.nanoTime();
+        failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+      } catch (IOException e) {
+        failed = true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return latencies;
+      }
+
+      if (sent >= measureFrom) {
+        latencies
+            .computeIfAbsent(scenario, s -> new Latencies())
+            .record(System.nanoTime() - sent, failed);
+      }
+    }
+  }
+
+  private HttpRequest buildRequest(Scenario scenario) throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return switch (scenario) {
+      case DASHBOARD -> {
+        String period = PERIODS[random.nextInt(PERIODS.length)];
+        LocalDate day = LocalDate.now().minusMonths(random.nextInt(36));
+        yield request(
+                "/dashboard?period="
+                    + period
+                    + "&month="
+                    + day.getMonthValue()
+                    + "&year="
+                    + day.getYear())
+            .GET()
+            .build();
+      }
+      case TRANSACTIONS -> {
+        StringBuilder query = new StringBuilder("/transactions?size=50&page=");
+        query.append(random.nextInt(5));
+        if (random.nextBoolean()) {
+          LocalDate month = LocalDate.now().minusMonths(random.nextInt(36)).withDayOfMonth(1);
+          query.append("&startDate=").append(month);
+          query.append("&endDate=").append(month.plusMonths(1).minusDays(1));
+        }
+        if (!merchants.isEmpty() && random.nextInt(4) == 0) {
+          String merchant = merchants.get(random.nextInt(merchants.size()));
+          query.append("&merchant=").append(URLEncoder.encode(merchant, StandardCharsets.UTF_8));
+        }
+        yield request(query.toString()).GET().build();
+      }
+      case IMPORT -> importRequest();
+    };
+  }
+
+  private HttpRequest importRequest() throws IOException {
+    long seed = importSeeds.incrementAndGet();
+    ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+    StatementGenerator.write(
+        importSettings.withRowsAndSeed(importSettings.rows(), seed), true, workbook);
+
+    String boundary = "----load-test-" + seed;
+    String head =
+        "--"
+            + boundary
+            + "\r\nContent-Disposition: form-data; name=\"files\"; filename=\"load-test-"
+            + seed
+            + ".xlsx\"\r\nContent-Type: "
+            + "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet\r\n\r\n";
+    String tail = "\r\n--" + boundary + "--\r\n";
+
+    return request("/import")
+        .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+        .POST(
+            HttpRequest.BodyPublishers.ofByteArrays(
+                List.of(
+                    head.getBytes(StandardCharsets.UTF_8),
+                    workbook.toByteArray(),
+                    tail.getBytes(StandardCharsets.UTF_8))))
+        .build();
+  }
+
+  private HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofMinutes(2))
+        .header("X-Tenant-Id", tenantId);
+  }
+
+  private void loadMerchants() throws IOException, InterruptedException {
+    HttpResponse<String> response =
+        client.send(
+            request("/transactions/merchants").GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() == 200) {
+      merchants = Arrays.asList(new ObjectMapper().readValue(response.body(), String[].class));
+    }
+    System.out.printf("Tenant %s has %d merchants%n", tenantId, merchants.size());
+  }
+
+  private Scenario pickScenario() {
+    int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+    int pick = ThreadLocalRandom.current().nextInt(total);
+    for (Map.Entry<Scenario, Integer> weight : weights.entrySet()) {
+      pick -= weight.getValue();
+      if (pick < 0) return weight.getKey();
+    }
+    throw new IllegalStateException("Empty request mix");
+  }
+
+  private static Map<Scenario, Integer> parseMix(String mix) {
+    Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+    for (String part : mix.split(",")) {
+      String[] pair = part.split("=");
+      int weight = Integer.parseInt(pair[1].trim());
+      if (weight > 0) {
+        weights.put(Scenario.valueOf(pair[0].trim().toUpperCase()), weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("The request mix has no positive weight: " + mix);
+    }
+    return weights;
+  }
+
+  private static List<ReportRow> report(Map<Scenario, Latencies> results, long durationNanos) {
+    double seconds = durationNanos / 1e9;
+    List<ReportRow> rows = new ArrayList<>();
+    Latencies all = new Latencies();
+    for (Map.Entry<Scenario, Latencies> entry : results.entrySet()) {
+      rows.add(ReportRow.of(entry.getKey().name().toLowerCase(), entry.getValue(), seconds));
+      all.addAll(entry.getValue());
+    }
+    rows.add(ReportRow.of("all", all, seconds));
+    return rows;
+  }
+
+  private static void print(List<ReportRow> rows) {
+    System.out.printf(
+        "%n%-13s %9s %7s %9s %9s %9s %9s %9s%n",
+        "request", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+    for (ReportRow row : rows) {
+      System.out.printf(
+          "%-13s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+          row.request(),
+          row.count(),
+          row.errors(),
+          row.perSecond(),
+          row.p50Millis(),
+          row.p90Millis(),
+          row.p99Millis(),
+          row.maxMillis());
+    }
+  }
+
+  private static void writeCsv(List<ReportRow> rows, Path file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("request,count,errors,requests_per_second,p50_ms,p90_ms,p99_ms,max_ms");
+    for (ReportRow row : rows) {
+      lines.add(
+          String.format(
+              Locale.ROOT,
+              "%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f",
+              row.request(),
+              row.count(),
+              row.errors(),
+              row.perSecond(),
+              row.p50Millis(),
+              row.p90Millis(),
+              row.p99Millis(),
+              row.maxMillis()));
+    }
+    Files.write(file, lines);
+  }
+
+  private record ReportRow(
+      String request,
+      int count,
+      long errors,
+      double perSecond,
+      double p50Millis,
+      double p90Millis,
+      double p99Millis,
+      double maxMillis) {
+
+    static ReportRow of(String request, Latencies latencies, double seconds) {
+      long[] sorted = latencies.sorted();
+      return new ReportRow(
+          request,
+          sorted.length,
+          latencies.errors,
+          sorted.length / seconds,
+          percentileMillis(sorted, 0.50),
+          percentileMillis(sorted, 0.90),
+          percentileMillis(sorted, 0.99),
+          percentileMillis(sorted, 1.0));
+    }
+  }
+
+  /** Nearest-rank percentile. */
+  private static double percentileMillis(long[] sorted, double percentile) {
+    if (sorted.length == 0) return 0;
+    int rank = (int) Math.ceil(percentile * sorted.length);
+    return sorted[Math.max(rank, 1) - 1] / 1e6;
+  }
+
+  /** Latencies of one request type in nanoseconds, recorded by a single client thread. */
+  private static final class Latencies {
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos, boolean failed) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = nanos;
+      if (failed) errors++;
+    }
+
+    void addAll(Latencies other) {
+      if (size + other.size > values.length) {
+        values = Arrays.copyOf(values, Math.max(size + other.size, values.length * 2));
+      }
+      System.arraycopy(other.values, 0, values, size, other.size);
+      size += other.size;
+      errors += other.errors;
+    }
+
+    long[] sorted() {
+      long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
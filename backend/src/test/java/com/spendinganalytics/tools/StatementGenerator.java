@@ -0,0 +1,124 @@
+package com.spendinganalytics.tools;
+
+import com.spendinganalytics.parser.StatementRow;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes synthetic Garanti debit or credit card statement workbooks in the layout the importers
+ * detect, for local load and volume testing. Rows are streamed to disk, so statements with
+ * millions of rows need little memory.
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.spendinganalytics.tools.StatementGenerator \
+ *     -Dexec.args="--type=debit --rows=100000 --merchants=500 --skew=1.1 \
+ *         --from=2022-01-01 --to=2024-12-31 --duplicates=0.02 --seed=42 --out=debit.xlsx"
+ * </pre>
+ */
+public final class StatementGenerator {
+
+  private static final String[] DEBIT_HEADERS = {
+    "Tarih", "Açıklama", "Etiket", "Tutar", "Bakiye", "Dekont No"
+  };
+
+  private static final String[] CREDIT_HEADERS = {
+    "Tarih", "İşlem", "Etiket", "Bonus", "Tutar(TL)"
+  };
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+  // Rows kept in memory by the streaming workbook before they are flushed to disk
+  private static final int ROW_WINDOW = 200;
+
+  private StatementGenerator() {}
+
+  public static void main(String[] args) throws IOException {
+    ToolArguments arguments = ToolArguments.parse(args);
+    boolean debit = !"credit".equals(arguments.get("type", "debit"));
+    SyntheticTransactions.Settings settings = SyntheticTransactions.Settings.from(arguments);
+    Path out =
+        Path.of(arguments.get("out", debit ? "synthetic-debit.xlsx" : "synthetic-credit.xlsx"));
+
+    long started = System.nanoTime();
+    try (OutputStream stream = Files.newOutputStream(out)) {
+      write(settings, debit, stream);
+    }
+    System.out.printf(
+        "Wrote %d %s rows to %s in %d ms%n",
+        settings.rows(),
+        debit ? "debit" : "credit",
+        out.toAbsolutePath(),
+        (System.nanoTime() - started) / 1_000_000);
+  }
+
+  /** Writes one statement workbook with the generated rows to the stream. */
+  public static void write(SyntheticTransactions.Settings settings, boolean debit, OutputStream out)
+      throws IOException {
+    // DecimalFormat is not thread-safe, so every workbook gets its own
+    DecimalFormat turkishAmount =
+        new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(new Locale("tr", "TR")));
+
+    SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+    try {
+      Sheet sheet = workbook.createSheet(debit ? "Hesap Hareketleri" : "Ekstre");
+      // Bank exports start with a title above the header row
+      sheet
+          .createRow(0)
+          .createCell(0)
+          .setCellValue(
+              debit ? "Garanti BBVA - Hesap Hareketleri" : "Garanti BBVA - Kredi Kartı Ekstresi");
+
+      String[] headers = debit ? DEBIT_HEADERS : CREDIT_HEADERS;
+      Row header = sheet.createRow(2);
+      for (int i = 0; i < headers.length; i++) {
+        header.createCell(i).setCellValue(headers[i]);
+      }
+
+      int[] next = {3};
+      SyntheticTransactions.generate(
+          settings,
+          debit,
+          row -> {
+            Row cells = sheet.createRow(next[0]++);
+            if (debit) {
+              writeDebitRow(cells, row, turkishAmount);
+            } else {
+              writeCreditRow(cells, row, turkishAmount);
+            }
+          });
+      workbook.write(out);
+    } finally {
+      workbook.dispose();
+      workbook.close();
+    }
+  }
+
+  private static void writeDebitRow(Row cells, StatementRow row, DecimalFormat amount) {
+    cells.createCell(0).setCellValue(row.date().format(DATE_FORMAT));
+    cells.createCell(1).setCellValue(row.merchant());
+    cells.createCell(2).setCellValue(row.category());
+    cells.createCell(3).setCellValue(amount.format(row.amount()));
+    cells.createCell(4).setCellValue(amount.format(row.balance()));
+    cells.createCell(5).setCellValue(row.transactionId());
+  }
+
+  private static void writeCreditRow(Row cells, StatementRow row, DecimalFormat amount) {
+    BigDecimal bonus = row.amount().abs().movePointLeft(3);
+    cells.createCell(0).setCellValue(row.date().format(DATE_FORMAT));
+    cells.createCell(1).setCellValue(row.merchant());
+    cells.createCell(2).setCellValue(row.category());
+    cells.createCell(3).setCellValue(amount.format(bonus));
+    cells.createCell(4).setCellValue(amount.format(row.amount()));
+  }
+}
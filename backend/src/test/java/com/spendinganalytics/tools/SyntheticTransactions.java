@@ -0,0 +1,180 @@
+package com.spendinganalytics.tools;
+
+import com.spendinganalytics.parser.StatementRow;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Generates realistic-looking statement rows for load testing. Merchant popularity follows a Zipf
+ * distribution, each merchant has its own typical amount, dates advance evenly through the span,
+ * and a configurable share of rows repeats a recent row exactly, the way overlapping statement
+ * downloads do. The same settings and seed always produce the same rows.
+ */
+public final class SyntheticTransactions {
+
+  private static final String[] MERCHANTS = {
+    "MIGROS", "A101", "BIM", "SOK MARKET", "CARREFOURSA", "SHELL", "OPET", "STARBUCKS",
+    "YEMEKSEPETI", "TRENDYOL", "HEPSIBURADA", "GETIR", "ISTANBULKART", "TURKCELL", "NETFLIX",
+    "SPOTIFY", "ZARA", "LC WAIKIKI", "BOYNER", "MEDIA MARKT", "IKEA", "KOCTAS", "ECZANE",
+    "BURGER KING", "DOMINOS", "PTT", "THY", "PEGASUS", "UBER", "D&R"
+  };
+
+  private static final String[] CATEGORIES = {
+    "Market", "Market", "Market", "Market", "Market", "Akaryakıt", "Akaryakıt", "Kafe",
+    "Yemek", "Alışveriş", "Alışveriş", "Market", "Ulaşım", "Fatura", "Abonelik",
+    "Abonelik", "Giyim", "Giyim", "Giyim", "Elektronik", "Ev", "Ev", "Sağlık",
+    "Yemek", "Yemek", "Fatura", "Seyahat", "Seyahat", "Ulaşım", "Kitap"
+  };
+
+  private static final String[] CITIES = {
+    "ISTANBUL", "ANKARA", "IZMIR", "BURSA", "ANTALYA", "ESKISEHIR", "KONYA", "TRABZON"
+  };
+
+  // Rows a duplicate can repeat, like the overlap between two consecutive statement downloads
+  private static final int RECENT_ROWS = 256;
+
+  private static final BigDecimal OPENING_BALANCE = new BigDecimal("50000.00");
+
+  /**
+   * @param rows rows to generate, duplicates included
+   * @param merchants distinct merchant names to draw from
+   * @param skew Zipf exponent of merchant popularity; 0 makes every merchant equally likely
+   * @param duplicateRatio share of rows that repeat a recent row, between 0 and 1
+   */
+  public record Settings(
+      long rows,
+      int merchants,
+      double skew,
+      LocalDate from,
+      LocalDate to,
+      double duplicateRatio,
+      long seed) {
+
+    static Settings from(ToolArguments args) {
+      LocalDate to = args.getDate("to", LocalDate.now());
+      return new Settings(
+          args.getLong("rows", 10_000),
+          args.getInt("merchants", 200),
+          args.getDouble("skew", 1.1),
+          args.getDate("from", to.minusYears(3)),
+          to,
+          args.getDouble("duplicates", 0.02),
+          args.getLong("seed", 42));
+    }
+
+    Settings withRowsAndSeed(long rows, long seed) {
+      return new Settings(rows, merchants, skew, from, to, duplicateRatio, seed);
+    }
+  }
+
+  private final Settings settings;
+  private final boolean debit;
+  private final SplittableRandom random;
+  private final double[] popularity;
+  private final double[] typicalAmount;
+
+  private SyntheticTransactions(Settings settings, boolean debit) {
+    this.settings = settings;
+    this.debit = debit;
+    this.random = new SplittableRandom(settings.seed());
+    this.popularity = new double[settings.merchants()];
+    this.typicalAmount = new double[settings.merchants()];
+
+    double cumulative = 0;
+    for (int i = 0; i < settings.merchants(); i++) {
+      cumulative += 1 / Math.pow(i + 1, settings.skew());
+      popularity[i] = cumulative;
+      // Log-uniform between 20 and 2000 TL
+      typicalAmount[i] = 20 * Math.pow(100, random.nextDouble());
+    }
+    for (int i = 0; i < popularity.length; i++) {
+      popularity[i] /= cumulative;
+    }
+  }
+
+  /**
+   * Generates the rows in date order. Debit rows carry a Dekont No and a running balance and
+   * include an occasional salary payment; credit card rows carry a category instead.
+   */
+  public static void generate(Settings settings, boolean debit, Consumer<StatementRow> sink) {
+    new SyntheticTransactions(settings, debit).run(sink);
+  }
+
+  /** Merchant name of the given rank; names repeat with a different city once the bases run out. */
+  public static String merchantName(int rank) {
+    String name = MERCHANTS[rank % MERCHANTS.length];
+    int branch = rank / MERCHANTS.length;
+    if (branch == 0) return name;
+    String city = CITIES[(branch - 1) % CITIES.length];
+    int round = (branch - 1) / CITIES.length;
+    return round == 0 ? name + " " + city : name + " " + city + " " + (round + 1);
+  }
+
+  private void run(Consumer<StatementRow> sink) {
+    long days = Math.max(1, ChronoUnit.DAYS.between(settings.from(), settings.to()) + 1);
+    StatementRow[] recent = new StatementRow[RECENT_ROWS];
+    BigDecimal balance = OPENING_BALANCE;
+    int salaryMonth = -1;
+    long generated = 0;
+
+    for (long i = 0; i < settings.rows(); i++) {
+      int recentCount = (int) Math.min(generated, RECENT_ROWS);
+      if (recentCount > 0 && random.nextDouble() < settings.duplicateRatio()) {
+        sink.accept(recent[random.nextInt(recentCount)]);
+        continue;
+      }
+
+      LocalDate date = settings.from().plusDays(i * days / settings.rows());
+      StatementRow row;
+      int month = date.getYear() * 12 + date.getMonthValue();
+      if (debit && month != salaryMonth) {
+        salaryMonth = month;
+        BigDecimal amount = BigDecimal.valueOf(45_000 + random.nextInt(10_000), 0).setScale(2);
+        balance = balance.add(amount);
+        row =
+            new StatementRow(
+                date, "MAAS ODEMESI", amount, balance, dekontNo(i), "Maaş", "MAAS ODEMESI");
+      } else {
+        int rank = merchantRank();
+        String merchant = merchantName(rank);
+        String category = CATEGORIES[rank % CATEGORIES.length];
+        BigDecimal amount = spendingAmount(rank);
+        if (debit) {
+          balance = balance.add(amount);
+          row = new StatementRow(date, merchant, amount, balance, dekontNo(i), category, merchant);
+        } else {
+          row = new StatementRow(date, merchant, amount, null, null, category, merchant);
+        }
+      }
+      recent[(int) (generated++ % RECENT_ROWS)] = row;
+      sink.accept(row);
+    }
+  }
+
+  private int merchantRank() {
+    int index = Arrays.binarySearch(popularity, random.nextDouble());
+    return Math.min(index >= 0 ? index : -index - 1, popularity.length - 1);
+  }
+
+  private BigDecimal spendingAmount(int rank) {
+    // Log-normal around the merchant's typical amount
+    double amount = typicalAmount[rank] * Math.exp(0.5 * gaussian());
+    return BigDecimal.valueOf(-Math.max(1, amount)).setScale(2, RoundingMode.HALF_UP);
+  }
+
+  private double gaussian() {
+    // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+    double u = 1 - random.nextDouble();
+    double v = random.nextDouble();
+    return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+  }
+
+  private static String dekontNo(long index) {
+    return String.valueOf(10_000_000 + index);
+  }
+}
@@ -0,0 +1,110 @@
+package com.spendinganalytics.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.spendinganalytics.parser.StatementRow;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SyntheticTransactionsTest {
+
+  private static final int ROWS = 200_000;
+  private static final int MERCHANTS = 200;
+
+  @Test
+  void repeatsTheRequestedShareOfRows() {
+    for (double ratio : new double[] {0.0, 0.02, 0.1, 0.3}) {
+      List<StatementRow> rows = generate(settings(ratio, 1.1), false);
+      double duplicates = 1 - (double) new HashSet<>(rows).size() / rows.size();
+      assertThat(duplicates).as("ratio %s", ratio).isCloseTo(ratio, within(0.005));
+    }
+  }
+
+  @Test
+  void duplicatesRepeatRecentRows() {
+    List<StatementRow> rows = generate(settings(0.1, 1.1), true);
+    Map<StatementRow, Integer> firstSeen = new HashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      Integer first = firstSeen.putIfAbsent(rows.get(i), i);
+      if (first != null) {
+        // One of the last 256 generated rows, give or take the duplicates in between
+        assertThat(i - first).isLessThan(400);
+      }
+    }
+  }
+
+  @Test
+  void merchantPopularityFollowsZipf() {
+    double skew = 1.1;
+    Map<Integer, Integer> counts = countByRank(generate(settings(0, skew), false));
+
+    double normalization = 0;
+    for (int rank = 0; rank < MERCHANTS; rank++) {
+      normalization += 1 / Math.pow(rank + 1, skew);
+    }
+    for (int rank : new int[] {0, 1, 2, 9, 49}) {
+      double expected = 1 / Math.pow(rank + 1, skew) / normalization;
+      double share = (double) counts.getOrDefault(rank, 0) / ROWS;
+      assertThat(share).as("rank %d", rank).isCloseTo(expected, within(expected * 0.1));
+    }
+  }
+
+  @Test
+  void noSkewMakesMerchantsEquallyLikely() {
+    Map<Integer, Integer> counts = countByRank(generate(settings(0, 0), false));
+
+    assertThat(counts).hasSize(MERCHANTS);
+    double expected = (double) ROWS / MERCHANTS;
+    for (int count : counts.values()) {
+      assertThat((double) count).isCloseTo(expected, within(expected * 0.15));
+    }
+  }
+
+  @Test
+  void sameSeedGeneratesTheSameRows() {
+    SyntheticTransactions.Settings settings = settings(0.05, 1.1).withRowsAndSeed(10_000, 7);
+
+    assertThat(generate(settings, true)).isEqualTo(generate(settings, true));
+    assertThat(generate(settings, true))
+        .isNotEqualTo(generate(settings.withRowsAndSeed(10_000, 8), true));
+  }
+
+  private static SyntheticTransactions.Settings settings(double duplicateRatio, double skew) {
+    return new SyntheticTransactions.Settings(
+        ROWS,
+        MERCHANTS,
+        skew,
+        LocalDate.of(2022, 1, 1),
+        LocalDate.of(2024, 12, 31),
+        duplicateRatio,
+        42);
+  }
+
+  private static List<StatementRow> generate(
+      SyntheticTransactions.Settings settings, boolean debit) {
+    List<StatementRow> rows = new ArrayList<>();
+    SyntheticTransactions.generate(settings, debit, rows::add);
+    return rows;
+  }
+
+  private static Map<Integer, Integer> countByRank(List<StatementRow> rows) {
+    Map<String, Integer> rankByName = new HashMap<>();
+    for (int rank = 0; rank < MERCHANTS; rank++) {
+      rankByName.put(SyntheticTransactions.merchantName(rank), rank);
+    }
+    // Names must be distinct for the counts to tell the merchants apart
+    assertThat(rankByName).hasSize(MERCHANTS);
+
+    Map<Integer, Integer> counts = new HashMap<>();
+    for (StatementRow row : rows) {
+      counts.merge(rankByName.get(row.merchant()), 1, Integer::sum);
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,55 @@
+package com.spendinganalytics.tools;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/** {@code --name=value} command line options of the developer tools. */
+final class ToolArguments {
+
+  private final Map<String, String> values;
+
+  private ToolArguments(Map<String, String> values) {
+    this.values = values;
+  }
+
+  static ToolArguments parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+      }
+      int equals = arg.indexOf('=');
+      if (equals < 0) {
+        values.put(arg.substring(2), "true");
+      } else {
+        values.put(arg.substring(2, equals), arg.substring(equals + 1));
+      }
+    }
+    return new ToolArguments(values);
+  }
+
+  String get(String name, String defaultValue) {
+    return values.getOrDefault(name, defaultValue);
+  }
+
+  int getInt(String name, int defaultValue) {
+    String value = values.get(name);
+    return value != null ? Integer.parseInt(value) : defaultValue;
+  }
+
+  long getLong(String name, long defaultValue) {
+    String value = values.get(name);
+    return value != null ? Long.parseLong(value) : defaultValue;
+  }
+
+  double getDouble(String name, double defaultValue) {
+    String value = values.get(name);
+    return value != null ? Double.parseDouble(value) : defaultValue;
+  }
+
+  LocalDate getDate(String name, LocalDate defaultValue) {
+    String value = values.get(name);
+    return value != null ? LocalDate.parse(value) : defaultValue;
+  }
+}
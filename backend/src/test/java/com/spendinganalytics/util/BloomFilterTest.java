@@ -0,0 +1,74 @@
+package com.spendinganalytics.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+/** Digests are SHA-256 of fixed strings, so a failure reproduces. */
+class BloomFilterTest {
+
+  private static final int CAPACITY = 100_000;
+
+  @Test
+  void addedDigestsAreNeverReportedAbsent() {
+    BloomFilter filter = BloomFilter.withCapacity(CAPACITY, 0.01);
+    for (int i = 0; i < CAPACITY; i++) {
+      filter.add(digest("stored", i));
+    }
+
+    for (int i = 0; i < CAPACITY; i++) {
+      assertThat(filter.mightContain(digest("stored", i))).as("digest %d", i).isTrue();
+    }
+    assertThat(filter.insertions()).isEqualTo(CAPACITY);
+  }
+
+  @Test
+  void falsePositiveRateAtCapacityIsNearTheTarget() {
+    for (double target : new double[] {0.01, 0.001}) {
+      BloomFilter filter = BloomFilter.withCapacity(CAPACITY, target);
+      for (int i = 0; i < CAPACITY; i++) {
+        filter.add(digest("stored", i));
+      }
+
+      int probes = 200_000;
+      int falsePositives = 0;
+      for (int i = 0; i < probes; i++) {
+        if (filter.mightContain(digest("new", i))) {
+          falsePositives++;
+        }
+      }
+
+      double observed = falsePositives / (double) probes;
+      assertThat(observed).as("target %s", target).isCloseTo(target, within(target * 0.25));
+      assertThat(filter.expectedFalsePositiveRate())
+          .as("target %s", target)
+          .isCloseTo(target, within(target * 0.1));
+    }
+  }
+
+  @Test
+  void inputsShorterThanADigestStillHaveNoFalseNegatives() {
+    BloomFilter filter = BloomFilter.withCapacity(1_000, 0.01);
+    for (int i = 0; i < 1_000; i++) {
+      filter.add("key-" + i);
+    }
+
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(filter.mightContain("key-" + i)).as("key-%d", i).isTrue();
+    }
+  }
+
+  @Test
+  void emptyFilterContainsNothing() {
+    BloomFilter filter = BloomFilter.withCapacity(CAPACITY, 0.01);
+
+    assertThat(filter.mightContain(digest("stored", 0))).isFalse();
+    assertThat(filter.expectedFalsePositiveRate()).isZero();
+    assertThat(filter.capacity()).isEqualTo(CAPACITY);
+  }
+
+  private static String digest(String prefix, int i) {
+    return HashUtil.generateSHA256(prefix + i);
+  }
+}
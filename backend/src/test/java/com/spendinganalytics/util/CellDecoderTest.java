@@ -0,0 +1,126 @@
+package com.spendinganalytics.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The fast paths must agree with the general parsing they replace on every input they accept.
+ * Inputs are drawn from a fixed seed, so a failure reproduces; the failing value is in the message.
+ */
+class CellDecoderTest {
+
+  private static final int SAMPLES = 100_000;
+
+  private final Random random = new Random(20240101L);
+
+  @Test
+  void amountsMatchTheGeneralPath() {
+    for (int i = 0; i < SAMPLES; i++) {
+      String value = randomTurkishAmount(1 + random.nextInt(16));
+      assertThat(CellDecoder.parseTurkishAmountCents(value))
+          .as(value)
+          .isEqualTo(generalPathCents(value));
+    }
+  }
+
+  @Test
+  void largestAmountsDoNotOverflow() {
+    assertThat(CellDecoder.parseTurkishAmountCents("9.999.999.999.999.999,995"))
+        .isEqualTo(generalPathCents("9.999.999.999.999.999,995"));
+    assertThat(CellDecoder.parseTurkishAmountCents("-9999999999999999,99"))
+        .isEqualTo(-999_999_999_999_999_999L);
+  }
+
+  @Test
+  void amountsTooLongForALongAreLeftToTheGeneralPath() {
+    for (int i = 0; i < SAMPLES / 10; i++) {
+      String value = randomTurkishAmount(17 + random.nextInt(4));
+      assertThat(CellDecoder.parseTurkishAmountCents(value))
+          .as(value)
+          .isEqualTo(CellDecoder.NOT_PARSED);
+    }
+  }
+
+  @Test
+  void otherShapesAreNotParsed() {
+    for (String value : new String[] {"", "-", ".", "1,2,3", "1 234,56", "12a", "+5", "1,2-"}) {
+      assertThat(CellDecoder.parseTurkishAmountCents(value))
+          .as(value)
+          .isEqualTo(CellDecoder.NOT_PARSED);
+    }
+  }
+
+  @Test
+  void daysMatchTheDateApi() {
+    DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    LocalDate first = LocalDate.of(1900, 1, 1);
+    for (int i = 0; i < SAMPLES; i++) {
+      LocalDate date = first.plusDays(random.nextInt(200 * 366));
+      assertThat(CellDecoder.parseDayMonthYear(date.format(format))).isEqualTo(date);
+    }
+    assertThat(CellDecoder.parseDayMonthYear("31/02/2024")).isNull();
+    assertThat(CellDecoder.parseDayMonthYear("1/2/2024")).isEqualTo(LocalDate.of(2024, 2, 1));
+    assertThat(CellDecoder.parseDayMonthYear("01/02")).isNull();
+    assertThat(CellDecoder.parseDayMonthYear("01//2024")).isNull();
+  }
+
+  @Test
+  void excelSerialsMatchPoi() {
+    for (int i = 0; i < SAMPLES; i++) {
+      double serial = random.nextInt(80_000) + random.nextDouble();
+      boolean use1904Windowing = random.nextBoolean();
+      LocalDate expected =
+          DateUtil.getJavaDate(serial, use1904Windowing)
+              .toInstant()
+              .atZone(ZoneId.systemDefault())
+              .toLocalDate();
+      assertThat(CellDecoder.excelSerialToLocalDate(serial, use1904Windowing))
+          .as("%s (1904: %s)", serial, use1904Windowing)
+          .isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void excelSerialsCloseToMidnightRoundLikePoi() {
+    double justBeforeMidnight = 45_000 + (86_400_000 - 0.4) / 86_400_000;
+    assertThat(CellDecoder.excelSerialToLocalDate(justBeforeMidnight, false))
+        .isEqualTo(CellDecoder.excelSerialToLocalDate(45_001, false));
+    assertThat(CellDecoder.excelSerialToLocalDate(-1, false)).isNull();
+  }
+
+  private String randomTurkishAmount(int integerDigits) {
+    StringBuilder value = new StringBuilder();
+    if (random.nextBoolean()) {
+      value.append('-');
+    }
+    boolean grouped = random.nextBoolean();
+    for (int digit = 0; digit < integerDigits; digit++) {
+      if (grouped && digit > 0 && (integerDigits - digit) % 3 == 0) {
+        value.append('.');
+      }
+      value.append((char) ('0' + random.nextInt(10)));
+    }
+    int fractionDigits = random.nextInt(5);
+    if (fractionDigits > 0 || random.nextInt(4) == 0) {
+      value.append(',');
+      for (int digit = 0; digit < fractionDigits; digit++) {
+        value.append((char) ('0' + random.nextInt(10)));
+      }
+    }
+    return value.toString();
+  }
+
+  // What SpreadsheetStatementParser.parseTurkishAmount does when the fast path declines
+  private static long generalPathCents(String value) {
+    String plain = value.replace(".", "").replace(",", ".");
+    return new BigDecimal(plain).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+}
@@ -0,0 +1,161 @@
+package com.spendinganalytics.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Quantiles are compared with the exact value of the same rank in the sorted input. Inputs are
+ * drawn from a fixed seed, so a failure reproduces.
+ */
+class QuantileSketchTest {
+
+  private static final double[] QUANTILES = {
+    0, 0.001, 0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1
+  };
+
+  private final Random random = new Random(20240301L);
+
+  @Test
+  void quantilesAreWithinOnePercentOfTheExactValue() {
+    for (int size : new int[] {1, 2, 10, 1_000, 100_000}) {
+      double[] values = spendingAmounts(size);
+      QuantileSketch sketch = sketchOf(values);
+
+      assertThat(sketch.count()).isEqualTo(size);
+      assertQuantiles(sketch, values);
+    }
+  }
+
+  @Test
+  void mergedSketchIsTheSketchOfAllTheValues() {
+    double[] january = spendingAmounts(5_000);
+    double[] february = spendingAmounts(3_000);
+    double[] both = new double[january.length + february.length];
+    System.arraycopy(january, 0, both, 0, january.length);
+    System.arraycopy(february, 0, both, january.length, february.length);
+
+    QuantileSketch merged = sketchOf(january).merge(sketchOf(february));
+
+    assertThat(merged.toBytes()).isEqualTo(sketchOf(both).toBytes());
+    assertQuantiles(merged, both);
+    // An empty sketch changes nothing, on either side
+    assertThat(new QuantileSketch().merge(merged).toBytes()).isEqualTo(merged.toBytes());
+    assertThat(merged.merge(new QuantileSketch()).toBytes()).isEqualTo(sketchOf(both).toBytes());
+  }
+
+  @Test
+  void bytesRoundTripIncludingSmallValuesAndZeros() {
+    // Values below 1 have negative bucket indexes
+    double[] values = new double[2_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] =
+          switch (i % 4) {
+            case 0 -> 0;
+            case 1 -> 0.0001 + random.nextDouble();
+            default -> Math.exp(random.nextGaussian() * 3);
+          };
+    }
+    QuantileSketch sketch = sketchOf(values);
+
+    QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+    assertThat(copy.count()).isEqualTo(sketch.count());
+    assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+    for (double q : QUANTILES) {
+      assertThat(copy.quantile(q)).as("q=%s", q).isEqualTo(sketch.quantile(q));
+    }
+    assertThat(copy.quantile(0.1)).isZero();
+    assertQuantiles(copy, values);
+  }
+
+  @Test
+  void emptySketchRoundTrips() {
+    QuantileSketch copy = QuantileSketch.fromBytes(new QuantileSketch().toBytes());
+
+    assertThat(copy.isEmpty()).isTrue();
+    assertThat(copy.quantile(0.5)).isNaN();
+
+    copy.add(42);
+    assertThat(copy.quantile(0)).isEqualTo(42);
+    assertThat(copy.quantile(1)).isEqualTo(42);
+  }
+
+  @Test
+  void onlyZerosRoundTrip() {
+    QuantileSketch zeros = sketchOf(new double[] {0, 0, 0});
+
+    QuantileSketch copy = QuantileSketch.fromBytes(zeros.toBytes());
+
+    assertThat(copy.count()).isEqualTo(3);
+    assertThat(copy.quantile(0.5)).isZero();
+    assertThat(copy.quantile(1)).isZero();
+  }
+
+  @Test
+  void unknownVersionIsRejected() {
+    byte[] bytes = sketchOf(spendingAmounts(10)).toBytes();
+    bytes[0] = 2;
+
+    assertThatThrownBy(() -> QuantileSketch.fromBytes(bytes))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("version 2");
+  }
+
+  @Test
+  void truncatedBytesAreRejected() {
+    for (QuantileSketch sketch :
+        new QuantileSketch[] {new QuantileSketch(), sketchOf(spendingAmounts(100))}) {
+      byte[] bytes = sketch.toBytes();
+      for (int length = 0; length < bytes.length; length++) {
+        byte[] truncated = Arrays.copyOf(bytes, length);
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(truncated))
+            .as("%d of %d bytes", length, bytes.length)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Truncated");
+      }
+    }
+  }
+
+  @Test
+  void negativeAndNonFiniteValuesAreRejected() {
+    QuantileSketch sketch = new QuantileSketch();
+
+    for (double value : new double[] {-0.01, Double.NaN, Double.POSITIVE_INFINITY}) {
+      assertThatThrownBy(() -> sketch.add(value)).isInstanceOf(IllegalArgumentException.class);
+    }
+    assertThat(sketch.isEmpty()).isTrue();
+  }
+
+  private static void assertQuantiles(QuantileSketch sketch, double[] values) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double q : QUANTILES) {
+      double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+      assertThat(sketch.quantile(q))
+          .as("q=%s of %d values", q, sorted.length)
+          .isCloseTo(exact, withinPercentage(1));
+    }
+  }
+
+  // Log-normal like card spending: mostly tens to hundreds, a long tail into the ten thousands
+  private double[] spendingAmounts(int size) {
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = Math.round(Math.exp(4 + 1.5 * random.nextGaussian()) * 100) / 100.0 + 0.01;
+    }
+    return values;
+  }
+
+  private static QuantileSketch sketchOf(double[] values) {
+    QuantileSketch sketch = new QuantileSketch();
+    for (double value : values) {
+      sketch.add(value);
+    }
+    return sketch;
+  }
+}
@@ -21,6 +21,19 @@ export const useDashboard = (period: string = 'THIS_MONTH', month?: number, year
     };
     
     fetchDashboard();
+
+    // Imports elsewhere push only what changed; full updates replace the data points
+    const stream = dashboardAPI.streamDashboard(period, month, year);
+    stream.addEventListener('dashboard', (event) => {
+      const { request, full, dataPoints, ...totals } = JSON.parse((event as MessageEvent).data);
+      setKpis((previous: any) => ({
+        ...previous,
+        ...totals,
+        dataPoints: full || !previous ? dataPoints : { ...previous.dataPoints, ...dataPoints },
+      }));
+    });
+
+    return () => stream.close();
   }, [period, month, year]);
   
   return { kpis, loading, error };
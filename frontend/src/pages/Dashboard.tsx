@@ -167,7 +167,7 @@ const Dashboard = () => {
         onPeriodChange={handlePeriodChange} 
       />
       
-      {/* KPI Section - 4 or 5 Cards depending on period */}
+      {/* KPI Section - 5 or 6 Cards depending on period */}
       <div className="grid grid-cols-1 md:grid-cols-4 lg:grid-cols-5 gap-6">
         {/* KPI 1 - Total Spent */}
         <KPICard
@@ -203,6 +203,16 @@ const Dashboard = () => {
           />
         )}
         
+        {/* KPI - Typical purchase, not moved by a few large ones */}
+        {kpis?.distribution && (
+          <KPICard
+            title="Median Purchase"
+            value={`${(Number(kpis.distribution.medianTransaction) || 0).toFixed(2)} TL`}
+            subtitle={`90% under ${(Number(kpis.distribution.p90Transaction) || 0).toFixed(2)} TL · median day ${(Number(kpis.distribution.medianDailySpend) || 0).toFixed(2)} TL`}
+            icon={<Wallet size={32} />}
+          />
+        )}
+
         {/* KPI 5 - Projected Month-End (Always visible) */}
         <KPICard
           title="Projected Month-End"
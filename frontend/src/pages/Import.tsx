@@ -1,4 +1,4 @@
-import { useState } from 'react';
+import { useEffect, useState } from 'react';
 import { Upload, CheckCircle, XCircle, FileText, Loader } from 'lucide-react';
 import { importAPI } from '../utils/api';
 
@@ -8,6 +8,20 @@ const Import = () => {
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
   const [processingStatus, setProcessingStatus] = useState<{[key: string]: 'pending' | 'processing' | 'success' | 'error'}>({});
+  const [history, setHistory] = useState<any[]>([]);
+
+  const loadHistory = async () => {
+    try {
+      const response = await importAPI.getImportHistory();
+      setHistory(response.data.content || []);
+    } catch (err) {
+      console.error('Failed to load import history', err);
+    }
+  };
+
+  useEffect(() => {
+    loadHistory();
+  }, []);
   
   const handleFileChange = (e: React.ChangeEvent<HTMLInputElement>) => {
     if (e.target.files && e.target.files.length > 0) {
@@ -54,6 +68,7 @@ const Import = () => {
       });
     } finally {
       setLoading(false);
+      loadHistory();
     }
   };
 
@@ -70,11 +85,11 @@ const Import = () => {
             {files.length > 0 ? `${files.length} file${files.length > 1 ? 's' : ''} selected` : 'Upload Bank Statements'}
           </h3>
           <p className="text-text-muted mb-4">
-            Supports Excel (.xlsx, .xls) - Select multiple files for batch import
+            Supports Excel (.xlsx, .xls), CSV, OFX and QIF - Select multiple files for batch import
           </p>
           <input
             type="file"
-            accept=".xlsx,.xls"
+            accept=".xlsx,.xls,.csv,.ofx,.qfx,.qif"
             onChange={handleFileChange}
             className="hidden"
             id="file-upload"
@@ -185,6 +200,13 @@ const Import = () => {
                               <span className="text-success">Inserted: {fileResult.inserted}</span>
                               <span className="text-accent">Skipped: {fileResult.skippedDuplicates}</span>
                             </div>
+                            {fileResult.rowsPerSheet && Object.keys(fileResult.rowsPerSheet).length > 1 && (
+                              <div className="flex flex-wrap gap-x-4 mt-1 text-xs text-text-muted">
+                                {Object.entries(fileResult.rowsPerSheet).map(([sheet, rows]) => (
+                                  <span key={sheet}>{sheet}: {rows as number} rows</span>
+                                ))}
+                              </div>
+                            )}
                             {fileResult.errors && fileResult.errors.length > 0 && (
                               <div className="mt-2">
                                 <p className="text-xs text-danger font-semibold mb-1">Errors:</p>
@@ -220,16 +242,51 @@ const Import = () => {
         </div>
       )}
 
+      {/* Import History */}
+      {history.length > 0 && (
+        <div className="card">
+          <h3 className="text-xl font-semibold mb-4">Import History</h3>
+          <div className="overflow-x-auto">
+            <table className="w-full text-sm">
+              <thead>
+                <tr className="text-left text-text-muted border-b border-gray-700">
+                  <th className="py-2 pr-4">File</th>
+                  <th className="py-2 pr-4">Type</th>
+                  <th className="py-2 pr-4">Date Range</th>
+                  <th className="py-2 pr-4">Parsed</th>
+                  <th className="py-2 pr-4">Inserted</th>
+                  <th className="py-2 pr-4">Skipped</th>
+                  <th className="py-2">Imported At</th>
+                </tr>
+              </thead>
+              <tbody>
+                {history.map((entry: any) => (
+                  <tr key={entry.id} className="border-b border-gray-800">
+                    <td className="py-2 pr-4">{entry.fileName}</td>
+                    <td className="py-2 pr-4 capitalize">{entry.fileType}</td>
+                    <td className="py-2 pr-4">{entry.dateFrom} – {entry.dateTo}</td>
+                    <td className="py-2 pr-4">{entry.rowsParsed}</td>
+                    <td className="py-2 pr-4 text-success">{entry.inserted}</td>
+                    <td className="py-2 pr-4 text-accent">{entry.skippedDuplicates}</td>
+                    <td className="py-2">{new Date(entry.importedAt).toLocaleString()}</td>
+                  </tr>
+                ))}
+              </tbody>
+            </table>
+          </div>
+        </div>
+      )}
+
       {/* Instructions */}
       <div className="card">
         <h3 className="text-xl font-semibold mb-4">How to Import</h3>
         <ol className="space-y-2 list-decimal list-inside text-text-muted">
           <li>Download your bank statements from your online banking portal</li>
-          <li>Make sure they're in Excel format (.xlsx or .xls)</li>
+          <li>Export them as Excel (.xlsx or .xls), CSV, OFX or QIF</li>
           <li><strong>Select multiple files</strong> - you can upload both debit and credit card statements at once</li>
           <li>The system will automatically:
             <ul className="ml-6 mt-1 space-y-1 list-disc">
-              <li>Detect file format (Garanti Debit or Credit Card)</li>
+              <li>Detect file format (Garanti Debit or Credit Card, CSV, OFX or QIF)</li>
               <li>Skip duplicate transactions across all files</li>
               <li>Import only new transactions</li>
             </ul>
@@ -245,6 +302,9 @@ const Import = () => {
           <ul className="text-sm text-text-muted space-y-1 ml-6 list-disc">
             <li>Garanti Bank Debit Account Statements (.xlsx, .xls)</li>
             <li>Garanti Bank Credit Card Statements (.xlsx, .xls)</li>
+            <li>CSV exports with a date, description and amount (or debit/credit) column</li>
+            <li>OFX / QFX statements (.ofx, .qfx)</li>
+            <li>Quicken Interchange Format (.qif)</li>
           </ul>
         </div>
       </div>
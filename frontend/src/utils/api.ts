@@ -9,6 +9,15 @@ const api = axios.create({
   },
 });
 
+// Households sharing one backend pick their tenant with the X-Tenant-Id header
+api.interceptors.request.use((config) => {
+  const tenantId = localStorage.getItem('tenantId');
+  if (tenantId) {
+    config.headers['X-Tenant-Id'] = tenantId;
+  }
+  return config;
+});
+
 export const dashboardAPI = {
   getDashboard: (period: string = 'THIS_MONTH', month?: number, year?: number) => {
     let url = `/dashboard?period=${period}`;
@@ -20,6 +29,36 @@ export const dashboardAPI = {
     }
     return api.get(url);
   },
+  getDashboards: (requests: { period: string; month?: number; year?: number }[]) =>
+    api.post('/dashboard/batch', requests),
+  getForecast: (months: number = 6) => api.get(`/dashboard/forecast?months=${months}`),
+  getYearMonthMatrix: (fromYear?: number, toYear?: number) => {
+    const params = new URLSearchParams();
+    if (fromYear !== undefined) {
+      params.append('fromYear', String(fromYear));
+    }
+    if (toYear !== undefined) {
+      params.append('toYear', String(toYear));
+    }
+    return api.get(`/dashboard/matrix/year-month?${params}`);
+  },
+  getCalendarHeatmap: (year?: number) =>
+    api.get(year !== undefined ? `/dashboard/matrix/calendar?year=${year}` : '/dashboard/matrix/calendar'),
+  // EventSource cannot send headers, so the tenant goes in the query string
+  streamDashboard: (period: string = 'THIS_MONTH', month?: number, year?: number) => {
+    const params = new URLSearchParams({ periods: period });
+    if (month !== undefined) {
+      params.append('month', String(month));
+    }
+    if (year !== undefined) {
+      params.append('year', String(year));
+    }
+    const tenantId = localStorage.getItem('tenantId');
+    if (tenantId) {
+      params.append('tenantId', tenantId);
+    }
+    return new EventSource(`${API_BASE_URL}/dashboard/stream?${params}`);
+  },
 };
 
 export const importAPI = {
@@ -34,6 +73,8 @@ export const importAPI = {
       },
     });
   },
+  getImportHistory: (page: number = 0, size: number = 20) =>
+    api.get(`/import/history?page=${page}&size=${size}`),
 };
 
 export const settingsAPI = {
@@ -63,5 +104,9 @@ export const transactionsAPI = {
   getMerchants: () => api.get('/transactions/merchants'),
 };
 
+export const anomaliesAPI = {
+  getRecentAnomalies: (limit: number = 50) => api.get(`/anomalies?limit=${limit}`),
+};
+
 export default api;
 